@@ -96,8 +96,8 @@ public final class ExtraChunkyBukkit extends JavaPlugin implements CommandExecut
 
     private void showHelp(ExtraChunkySender sender) {
         sender.sendMessage(header("ExtraChunky Commands"));
-        sender.sendMessage(NORMAL + highlight("/extrachunky start") + " - Start chunk generation");
-        sender.sendMessage(NORMAL + highlight("/extrachunky status") + " - Show generation progress");
+        sender.sendMessage(NORMAL + highlight("/extrachunky start [world [radius=..] [center=x,z] [shape=..]]...") + " - Start chunk generation");
+        sender.sendMessage(NORMAL + highlight("/extrachunky status [map [job]]") + " - Show generation progress or a job's coverage map");
         sender.sendMessage(NORMAL + highlight("/extrachunky host [stop]") + " - Start/stop hosting for workers");
         sender.sendMessage(NORMAL + highlight("/extrachunky register <host:port>") + " - Connect to a host as worker");
         sender.sendMessage(NORMAL + highlight("/extrachunky unregister") + " - Disconnect from host");
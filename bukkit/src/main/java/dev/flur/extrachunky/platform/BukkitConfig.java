@@ -1,5 +1,8 @@
 package dev.flur.extrachunky.platform;
 
+import dev.flur.extrachunky.GovernorConfig;
+import dev.flur.extrachunky.metrics.MetricsConfig;
+import dev.flur.extrachunky.transfer.IngestConfig;
 import dev.flur.extrachunky.transfer.SshConfig;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
@@ -11,6 +14,9 @@ public class BukkitConfig implements ExtraChunkyConfig {
     private boolean hostParticipates;
     private boolean manualStart;
     private SshConfig sshConfig;
+    private IngestConfig ingestConfig;
+    private GovernorConfig governorConfig;
+    private MetricsConfig metricsConfig;
 
     public BukkitConfig(JavaPlugin plugin) {
         this.plugin = plugin;
@@ -32,6 +38,9 @@ public class BukkitConfig implements ExtraChunkyConfig {
         this.hostParticipates = config.getBoolean("host-participates", true);
         this.manualStart = config.getBoolean("manual-start", false);
         this.sshConfig = loadSshConfig(config);
+        this.ingestConfig = loadIngestConfig(config);
+        this.governorConfig = loadGovernorConfig(config);
+        this.metricsConfig = loadMetricsConfig(config);
 
         validate();
     }
@@ -60,6 +69,58 @@ public class BukkitConfig implements ExtraChunkyConfig {
                 .autoTransfer(sftp.getBoolean("auto-transfer", true))
                 .retryCount(sftp.getInt("retry-count", DEFAULT_RETRY_COUNT))
                 .compressionLevel(sftp.getInt("compression-level", DEFAULT_COMPRESSION_LEVEL))
+                .recompressChunks(sftp.getBoolean("recompress-chunks", true))
+                .trainDictionary(sftp.getBoolean("train-dictionary", true))
+                .compressionCodec(sftp.getString("compression-codec", "auto"))
+                .transport(sftp.getString("transport", "sftp"))
+                .batchSize(sftp.getInt("batch-size", 0))
+                .bandwidthLimit(sftp.getInt("bandwidth-limit", 0))
+                .adaptiveBandwidth(sftp.getBoolean("adaptive-bandwidth", false))
+                .quietSeconds(sftp.getInt("quiet-seconds", 5))
+                .circuitBreakerThreshold(sftp.getInt("circuit-breaker-threshold", 5))
+                .circuitBreakerSeconds(sftp.getInt("circuit-breaker-seconds", 30))
+                .build();
+    }
+
+    private IngestConfig loadIngestConfig(FileConfiguration config) {
+        ConfigurationSection ingest = config.getConfigurationSection("ingest");
+        if (ingest == null) {
+            return IngestConfig.disabled();
+        }
+
+        return IngestConfig.builder()
+                .enabled(ingest.getBoolean("enabled", false))
+                .incomingPath(ingest.getString("incoming-path", ""))
+                .threads(ingest.getInt("threads", 0))
+                .syncBatchSize(ingest.getInt("sync-batch-size", 64))
+                .syncIntervalMs(ingest.getLong("sync-interval-ms", 1000))
+                .dataPort(ingest.getInt("data-port", 0))
+                .build();
+    }
+
+    private GovernorConfig loadGovernorConfig(FileConfiguration config) {
+        ConfigurationSection governor = config.getConfigurationSection("governor");
+        if (governor == null) {
+            return GovernorConfig.defaults();
+        }
+
+        return GovernorConfig.builder()
+                .enabled(governor.getBoolean("enabled", true))
+                .targetMspt(governor.getInt("target-mspt", 40))
+                .onlyWithPlayers(governor.getBoolean("only-with-players", true))
+                .build();
+    }
+
+    private MetricsConfig loadMetricsConfig(FileConfiguration config) {
+        ConfigurationSection metrics = config.getConfigurationSection("metrics");
+        if (metrics == null) {
+            return MetricsConfig.defaults();
+        }
+
+        return MetricsConfig.builder()
+                .port(metrics.getInt("port", 0))
+                .bindAddress(metrics.getString("bind-address", "0.0.0.0"))
+                .dumpSeconds(metrics.getInt("dump-seconds", 60))
                 .build();
     }
 
@@ -89,6 +150,21 @@ public class BukkitConfig implements ExtraChunkyConfig {
         return sshConfig;
     }
 
+    @Override
+    public IngestConfig getIngestConfig() {
+        return ingestConfig;
+    }
+
+    @Override
+    public GovernorConfig getGovernorConfig() {
+        return governorConfig;
+    }
+
+    @Override
+    public MetricsConfig getMetricsConfig() {
+        return metricsConfig;
+    }
+
     @Override
     public boolean isManualStart() {
         return manualStart;
@@ -1,25 +1,31 @@
 package dev.flur.extrachunky.platform;
 
 import dev.flur.extrachunky.ExtraChunkyBukkit;
+import dev.flur.extrachunky.paper.Paper;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.RegisteredServiceProvider;
 import org.popcraft.chunky.Chunky;
 import org.popcraft.chunky.api.ChunkyAPI;
 
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.OptionalDouble;
 
 public class BukkitPlatform implements ExtraChunkyPlatform {
     private final ExtraChunkyBukkit plugin;
+    private final ExtraChunkyRuntime runtime;
     private final BukkitScheduler scheduler;
     private final BukkitLogger logger;
     private final BukkitConfig config;
 
     public BukkitPlatform(ExtraChunkyBukkit plugin) {
         this.plugin = plugin;
-        this.scheduler = new BukkitScheduler(plugin);
         this.logger = new BukkitLogger(plugin.getLogger());
+        this.runtime = new ExtraChunkyRuntime(logger);
+        this.scheduler = new BukkitScheduler(plugin, runtime);
         this.config = new BukkitConfig(plugin);
     }
 
@@ -50,6 +56,11 @@ public class BukkitPlatform implements ExtraChunkyPlatform {
         return scheduler;
     }
 
+    @Override
+    public ExtraChunkyRuntime getRuntime() {
+        return runtime;
+    }
+
     @Override
     public ExtraChunkyLogger getLogger() {
         return logger;
@@ -68,4 +79,20 @@ public class BukkitPlatform implements ExtraChunkyPlatform {
         }
         return Optional.of(world.getWorldFolder().toPath());
     }
+
+    @Override
+    public OptionalDouble getAveragePlayerPing() {
+        Collection<? extends Player> players = Bukkit.getOnlinePlayers();
+        if (players.isEmpty()) {
+            return OptionalDouble.empty();
+        }
+        return players.stream().mapToInt(Player::getPing).average();
+    }
+
+    @Override
+    public ServerHealth getServerHealth() {
+        // Spigot does not track tick times; the tick monitor's interval stands in there
+        double mspt = Paper.isPaper() ? Paper.getAverageTickTime() : Double.NaN;
+        return new ServerHealth(mspt, Bukkit.getOnlinePlayers().size());
+    }
 }
@@ -5,12 +5,18 @@ import dev.flur.extrachunky.folia.FoliaScheduler;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitTask;
 
+/**
+ * Scheduler for Bukkit, Paper and Folia. Main-thread tasks use the server scheduler;
+ * async work runs on the shared {@link ExtraChunkyRuntime}.
+ */
 public class BukkitScheduler implements ExtraChunkyScheduler {
     private final Plugin plugin;
+    private final ExtraChunkyRuntime runtime;
     private final boolean isFolia;
 
-    public BukkitScheduler(Plugin plugin) {
+    public BukkitScheduler(Plugin plugin, ExtraChunkyRuntime runtime) {
         this.plugin = plugin;
+        this.runtime = runtime;
         this.isFolia = Folia.isFolia();
     }
 
@@ -25,11 +31,7 @@ public class BukkitScheduler implements ExtraChunkyScheduler {
 
     @Override
     public void runTaskAsync(Runnable task) {
-        if (isFolia) {
-            FoliaScheduler.runTaskAsync(plugin, task);
-        } else {
-            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, task);
-        }
+        runtime.getIoExecutor().execute(task);
     }
 
     @Override
@@ -44,12 +46,7 @@ public class BukkitScheduler implements ExtraChunkyScheduler {
 
     @Override
     public ExtraChunkyTask runTaskLaterAsync(Runnable task, long delayTicks) {
-        if (isFolia) {
-            return FoliaScheduler.runTaskLaterAsync(plugin, task, delayTicks);
-        }
-        BukkitTask bukkitTask = plugin.getServer().getScheduler()
-                .runTaskLaterAsynchronously(plugin, task, delayTicks);
-        return new BukkitTaskWrapper(bukkitTask);
+        return runtime.schedule(task, delayTicks * 50L);
     }
 
     @Override
@@ -64,12 +61,7 @@ public class BukkitScheduler implements ExtraChunkyScheduler {
 
     @Override
     public ExtraChunkyTask runTaskTimerAsync(Runnable task, long delayTicks, long periodTicks) {
-        if (isFolia) {
-            return FoliaScheduler.runTaskTimerAsync(plugin, task, delayTicks, periodTicks);
-        }
-        BukkitTask bukkitTask = plugin.getServer().getScheduler()
-                .runTaskTimerAsynchronously(plugin, task, delayTicks, periodTicks);
-        return new BukkitTaskWrapper(bukkitTask);
+        return runtime.scheduleAtFixedRate(task, delayTicks * 50L, periodTicks * 50L);
     }
 
     private static class BukkitTaskWrapper implements ExtraChunkyTask {
@@ -7,4 +7,15 @@ dependencies {
 
     // ZSTD compression for region files
     implementation(group = "com.github.luben", name = "zstd-jni", version = "1.5.5-11")
+
+    // LZ4 compression for fast links
+    implementation(group = "org.lz4", name = "lz4-java", version = "1.8.0")
+
+    testImplementation(platform("org.junit:junit-bom:5.10.2"))
+    testImplementation(group = "org.junit.jupiter", name = "junit-jupiter")
+    testRuntimeOnly(group = "org.junit.platform", name = "junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
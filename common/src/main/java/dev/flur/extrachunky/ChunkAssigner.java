@@ -19,7 +19,22 @@ public class ChunkAssigner {
      * @return true if this instance should process this region
      */
     public boolean shouldProcessRegion(int regionX, int regionZ, int centerRegionX, int centerRegionZ) {
-        long index = spiralIndex(regionX, regionZ, centerRegionX, centerRegionZ);
+        return shouldProcessRegion(regionX, regionZ, centerRegionX, centerRegionZ, 0);
+    }
+
+    /**
+     * Determines if this instance should process the given region of one area of a multi-world job,
+     * whose spiral indices continue where the previous area's ended.
+     *
+     * @param regionX       Region X coordinate
+     * @param regionZ       Region Z coordinate
+     * @param centerRegionX Center region X coordinate of the area
+     * @param centerRegionZ Center region Z coordinate of the area
+     * @param indexOffset   Spiral index the area starts at (see {@link GenerationJob#indexOffset})
+     * @return true if this instance should process this region
+     */
+    public boolean shouldProcessRegion(int regionX, int regionZ, int centerRegionX, int centerRegionZ, long indexOffset) {
+        long index = indexOffset + spiralIndex(regionX, regionZ, centerRegionX, centerRegionZ);
         return (index % totalInstances) == (instanceId - 1);
     }
 
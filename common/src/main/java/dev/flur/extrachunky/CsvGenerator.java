@@ -1,14 +1,18 @@
 package dev.flur.extrachunky;
 
 import dev.flur.extrachunky.platform.ExtraChunkyLogger;
+import dev.flur.extrachunky.transfer.Dimension;
 import dev.flur.extrachunky.transfer.RegionCoord;
+import dev.flur.extrachunky.transfer.RegionSet;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 
 public class CsvGenerator {
     private final ExtraChunkyLogger logger;
@@ -18,102 +22,123 @@ public class CsvGenerator {
     }
 
     /**
-     * Generates a CSV file containing only the chunks this instance should process.
+     * Generates a CSV file containing only the chunks this instance should process in one area of a job.
+     * <p>
+     * Chunks are written region by region in spiral order, so regions finish roughly in file order.
      *
-     * @param world      World name
-     * @param centerX    Center X coordinate
-     * @param centerZ    Center Z coordinate
-     * @param radius     Generation radius
-     * @param shape      Shape (square, circle, etc.)
+     * @param job        The job
+     * @param areaIndex  Position of the area in the job
      * @param instanceId Instance ID for filename
      * @param assigner   Chunk assignment calculator
+     * @param doneRegions Job region IDs generated already, in ascending order; they are left out
      * @param outputDir  Directory to write the CSV file
      * @return Generation result with path and chunk count
      * @throws IOException if file operations fail
      */
-    public GenerationResult generateChunkCsv(String world, double centerX, double centerZ,
-                                             double radius, String shape, int instanceId,
-                                             ChunkAssigner assigner, Path outputDir) throws IOException {
-        String fileName = "extrachunky_" + instanceId + ".csv";
+    public GenerationResult generateChunkCsv(GenerationJob job, int areaIndex, int instanceId,
+                                             ChunkAssigner assigner, long[] doneRegions,
+                                             Path outputDir) throws IOException {
+        GenerationJob.Area area = job.areas().get(areaIndex);
+        // The first area keeps the single-world file name
+        String fileName = "extrachunky_" + instanceId + (areaIndex > 0 ? "_" + areaIndex : "") + ".csv";
         Path csvPath = outputDir.resolve(fileName);
-
-        // Calculate chunk bounds
-        int centerChunkX = (int) Math.floor(centerX) >> 4;
-        int centerChunkZ = (int) Math.floor(centerZ) >> 4;
-        int radiusChunks = (int) Math.ceil(radius / 16.0);
+        Dimension dimension = Dimension.of(area.dimension());
 
         // Calculate center region for spiral indexing
-        int centerRegionX = centerChunkX >> 5;
-        int centerRegionZ = centerChunkZ >> 5;
+        int centerRegionX = area.centerRegionX();
+        int centerRegionZ = area.centerRegionZ();
+        long indexOffset = job.indexOffset(areaIndex);
 
-        long chunkCount = 0;
+        // Find this instance's regions, counting the chunks of everyone else's on the way.
+        // A share handed out again skips the regions its earlier owner already reported
         long totalChunks = 0;
-        Set<RegionCoord> assignedRegions = new HashSet<>();
+        List<int[]> regions = new ArrayList<>();
+        for (int regionX = area.minRegionX(); regionX <= area.maxRegionX(); regionX++) {
+            for (int regionZ = area.minRegionZ(); regionZ <= area.maxRegionZ(); regionZ++) {
+                if (assigner.shouldProcessRegion(regionX, regionZ, centerRegionX, centerRegionZ, indexOffset)
+                        && (doneRegions.length == 0
+                        || Arrays.binarySearch(doneRegions, job.regionId(areaIndex, regionX, regionZ)) < 0)) {
+                    regions.add(new int[]{regionX, regionZ});
+                } else {
+                    totalChunks += writeRegion(null, area, regionX, regionZ);
+                }
+            }
+        }
+        regions.sort(Comparator.comparingLong(region ->
+                ChunkAssigner.spiralIndex(region[0], region[1], centerRegionX, centerRegionZ)));
+
+        long chunkCount = 0;
+        RegionSet assignedRegions = new RegionSet(regions.size());
+        long[] regionKeys = new long[regions.size()];
+        long[] regionIds = new long[regions.size()];
+        int[] regionChunks = new int[regions.size()];
+        int regionCount = 0;
 
         Files.createDirectories(outputDir);
 
         try (BufferedWriter writer = Files.newBufferedWriter(csvPath)) {
-            for (int cx = centerChunkX - radiusChunks; cx <= centerChunkX + radiusChunks; cx++) {
-                for (int cz = centerChunkZ - radiusChunks; cz <= centerChunkZ + radiusChunks; cz++) {
-                    // Check if chunk is within shape
-                    if (!isInShape(cx, cz, centerChunkX, centerChunkZ, radiusChunks, shape)) {
-                        continue;
-                    }
-
-                    totalChunks++;
-
-                    // Check if this instance should process this chunk's region
-                    int regionX = cx >> 5;
-                    int regionZ = cz >> 5;
-                    if (assigner.shouldProcessRegion(regionX, regionZ, centerRegionX, centerRegionZ)) {
-                        writer.write(cx + "," + cz);
-                        writer.newLine();
-                        chunkCount++;
-
-                        // Track the region for transfer
-                        assignedRegions.add(RegionCoord.overworld(regionX, regionZ));
-                    }
+            for (int[] region : regions) {
+                long chunks = writeRegion(writer, area, region[0], region[1]);
+                if (chunks == 0) {
+                    continue;
                 }
+                chunkCount += chunks;
+
+                // Track the region for completion reports and transfer
+                long key = RegionCoord.pack(region[0], region[1], dimension);
+                regionKeys[regionCount] = key;
+                regionIds[regionCount] = job.regionId(areaIndex, region[0], region[1]);
+                regionChunks[regionCount] = (int) chunks;
+                regionCount++;
+                assignedRegions.add(key);
             }
         }
+        totalChunks += chunkCount;
 
-        logger.info("Generated " + chunkCount + " chunk entries in " + csvPath.getFileName() +
-                " (" + assignedRegions.size() + " regions)");
-        return new GenerationResult(csvPath, fileName, chunkCount, totalChunks, assignedRegions);
+        logger.info("Generated " + chunkCount + " chunk entries for " + area.world() + " in " +
+                csvPath.getFileName() + " (" + assignedRegions.size() + " regions)");
+        return new GenerationResult(csvPath, fileName, chunkCount, totalChunks, assignedRegions,
+                Arrays.copyOf(regionKeys, regionCount), Arrays.copyOf(regionIds, regionCount),
+                Arrays.copyOf(regionChunks, regionCount));
     }
 
     /**
-     * Checks if a chunk coordinate is within the specified shape.
+     * Writes the chunks of a region that lie within the area.
+     *
+     * @param writer Writer for the CSV, or null to only count the chunks
+     * @return Number of chunks in the region
      */
-    private boolean isInShape(int chunkX, int chunkZ, int centerChunkX, int centerChunkZ, int radiusChunks, String shape) {
-        int dx = chunkX - centerChunkX;
-        int dz = chunkZ - centerChunkZ;
-
-        return switch (shape.toLowerCase()) {
-            case "circle", "ellipse" -> {
-                // For circle, check if chunk center is within radius
-                double distance = Math.sqrt(dx * dx + dz * dz);
-                yield distance <= radiusChunks;
-            }
-            case "rectangle", "square" -> {
-                // For square/rectangle, check if within bounds
-                yield Math.abs(dx) <= radiusChunks && Math.abs(dz) <= radiusChunks;
-            }
-            case "diamond" -> {
-                // For diamond, use Manhattan distance
-                yield Math.abs(dx) + Math.abs(dz) <= radiusChunks;
-            }
-            case "pentagon", "star" -> {
-                // Fallback to square for complex shapes
-                yield Math.abs(dx) <= radiusChunks && Math.abs(dz) <= radiusChunks;
-            }
-            default -> {
-                // Default to square
-                yield Math.abs(dx) <= radiusChunks && Math.abs(dz) <= radiusChunks;
+    private long writeRegion(BufferedWriter writer, GenerationJob.Area area, int regionX, int regionZ) throws IOException {
+        int radiusChunks = area.radiusChunks();
+        int minX = Math.max(regionX << 5, area.centerChunkX() - radiusChunks);
+        int maxX = Math.min((regionX << 5) + 31, area.centerChunkX() + radiusChunks);
+        int minZ = Math.max(regionZ << 5, area.centerChunkZ() - radiusChunks);
+        int maxZ = Math.min((regionZ << 5) + 31, area.centerChunkZ() + radiusChunks);
+
+        long count = 0;
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                if (!area.containsChunk(cx, cz)) {
+                    continue;
+                }
+                if (writer != null) {
+                    writer.write(cx + "," + cz);
+                    writer.newLine();
+                }
+                count++;
             }
-        };
+        }
+        return count;
     }
 
-    public record GenerationResult(Path csvPath, String fileName, long chunkCount, long totalChunks, Set<RegionCoord> assignedRegions) {
+    /**
+     * The CSV written for one area.
+     *
+     * @param regionKeys   The instance's regions packed with {@link RegionCoord#pack}, in file order
+     * @param regionIds    IDs of the same regions (see {@link GenerationJob#regionId})
+     * @param regionChunks Chunks of each region in the file
+     */
+    public record GenerationResult(Path csvPath, String fileName, long chunkCount, long totalChunks, RegionSet assignedRegions,
+                                   long[] regionKeys, long[] regionIds, int[] regionChunks) {
     }
 }
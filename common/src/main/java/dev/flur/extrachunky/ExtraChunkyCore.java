@@ -1,19 +1,35 @@
 package dev.flur.extrachunky;
 
 import dev.flur.extrachunky.command.*;
+import dev.flur.extrachunky.metrics.MetricsRegistry;
+import dev.flur.extrachunky.metrics.MetricsService;
+import dev.flur.extrachunky.network.HostJournal;
 import dev.flur.extrachunky.network.HostServer;
+import dev.flur.extrachunky.network.JobQueue;
 import dev.flur.extrachunky.network.WorkerClient;
 import dev.flur.extrachunky.platform.*;
+import dev.flur.extrachunky.transfer.IngestConfig;
+import dev.flur.extrachunky.transfer.NativeTransferClient;
+import dev.flur.extrachunky.transfer.NativeTransferServer;
+import dev.flur.extrachunky.transfer.RegionIngestService;
+import dev.flur.extrachunky.transfer.RegionQuiescenceTracker;
 import dev.flur.extrachunky.transfer.RegionTransferManager;
 import dev.flur.extrachunky.transfer.TransferSummary;
+import dev.flur.extrachunky.transfer.WorldLayout;
 import org.popcraft.chunky.Chunky;
 import org.popcraft.chunky.Selection;
 import org.popcraft.chunky.api.ChunkyAPI;
+import org.popcraft.chunky.api.event.task.GenerationCompleteEvent;
+import org.popcraft.chunky.api.event.task.GenerationProgressEvent;
 import org.popcraft.chunky.api.event.task.GenerationStartEvent;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Core ExtraChunky coordinator - platform independent.
@@ -35,15 +51,37 @@ public class ExtraChunkyCore {
     private int currentInstanceId;
     private int currentTotalInstances;
 
+    // This instance's share of the job being generated
+    private volatile GenerationRun currentRun;
+
     // Command handler reference (for START callback)
     private StartCommand startCommand;
 
     // Transfer manager for SFTP file transfers
     private RegionTransferManager transferManager;
 
+    // Host-side service installing uploaded regions
+    private RegionIngestService ingestService;
+
+    // Host-side receiver for the native transfer channel
+    private NativeTransferServer dataServer;
+
+    // Server health, used to back off uploads while the server is under load
+    private TickMonitor tickMonitor;
+
+    // Generation activity per region, so regions are uploaded once nothing writes them anymore
+    private RegionQuiescenceTracker quiescence;
+
+    // Holds generation and uploads to the tick budget
+    private GenerationGovernor governor;
+
     // Whether the Chunky API has the GenerationStartEvent
     private boolean hasStartEvent = false;
 
+    // Metrics of this instance, exported by the metrics service
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private MetricsService metricsService;
+
     public ExtraChunkyCore(ExtraChunkyPlatform platform) {
         this.platform = platform;
         this.commands = new HashMap<>();
@@ -81,6 +119,32 @@ public class ExtraChunkyCore {
         // Try to register start event listener (requires Chunky with GenerationStartEvent)
         registerStartEventListener();
 
+        tickMonitor = new TickMonitor(platform.getScheduler(), platform::getAveragePlayerPing);
+        tickMonitor.start();
+
+        quiescence = new RegionQuiescenceTracker(platform.getConfig().getSshConfig().quietSeconds() * 1000L,
+                platform::getDimensionRoot);
+        chunkyApi.onGenerationProgress(event -> quiescence.recordProgress(event.world(), event.x(), event.z()));
+        chunkyApi.onGenerationComplete(event -> quiescence.recordComplete(event.world()));
+
+        GovernorConfig governorConfig = platform.getConfig().getGovernorConfig();
+        if (governorConfig.enabled()) {
+            governor = new GenerationGovernor(platform.getScheduler(), platform.getLogger(), chunkyApi,
+                    tickMonitor, platform::getServerHealth, governorConfig);
+            governor.setListener(this::onGovernorDecision);
+            chunkyApi.onGenerationProgress(event -> governor.recordProgress(event.world()));
+            chunkyApi.onGenerationComplete(event -> governor.recordComplete(event.world()));
+            governor.start();
+        }
+
+        chunkyApi.onGenerationProgress(this::onGenerationProgress);
+        chunkyApi.onGenerationComplete(this::onGenerationComplete);
+
+        registerMetrics();
+        metricsService = new MetricsService(platform.getLogger(), metrics,
+                platform.getConfig().getMetricsConfig(), platform.getDataDirectory());
+        metricsService.start();
+
         platform.getLogger().info("ExtraChunky enabled");
         Selection selection = getSelection();
         platform.getLogger().info("Using Chunky selection - World: " + selection.world().getName() +
@@ -93,6 +157,42 @@ public class ExtraChunkyCore {
         return true;
     }
 
+    /**
+     * Registers the gauges of this instance's own generation and thread pools. The host server, worker
+     * client, transfer manager and ingest register theirs as they are created.
+     */
+    private void registerMetrics() {
+        metrics.gauge("extrachunky_generation_chunks_per_second", "Generation speed of this instance's current run",
+                () -> ofCurrentRun(GenerationRun::getChunksPerSecond));
+        metrics.gauge("extrachunky_generation_chunks_generated", "Chunks generated in this instance's current run",
+                () -> ofCurrentRun(GenerationRun::getChunksGenerated));
+        metrics.gauge("extrachunky_generation_chunks", "Chunks to generate in this instance's current run",
+                () -> ofCurrentRun(GenerationRun::getTotalChunks));
+        metrics.gauge("extrachunky_tick_ms", "Average server tick time", tickMonitor::getAverageTickMs);
+        if (governor != null) {
+            metrics.gauge("extrachunky_governor_duty", "Share of the time generation runs, as set by the governor",
+                    governor::getDuty);
+        }
+
+        ExtraChunkyRuntime runtime = platform.getRuntime();
+        for (ExtraChunkyRuntime.PoolStats pool : runtime.getStats()) {
+            String name = pool.name();
+            metrics.gauge("extrachunky_pool_active_tasks", "Tasks running in a thread pool",
+                    () -> poolStats(runtime, name).active(), "pool", name);
+            metrics.gauge("extrachunky_pool_queued_tasks", "Tasks waiting for a thread pool",
+                    () -> poolStats(runtime, name).queued(), "pool", name);
+        }
+    }
+
+    private double ofCurrentRun(ToDoubleFunction<GenerationRun> value) {
+        GenerationRun run = currentRun;
+        return run != null ? value.applyAsDouble(run) : 0;
+    }
+
+    private static ExtraChunkyRuntime.PoolStats poolStats(ExtraChunkyRuntime runtime, String name) {
+        return runtime.getStats().stream().filter(stats -> stats.name().equals(name)).findFirst().orElseThrow();
+    }
+
     private void registerCommands() {
         this.startCommand = new StartCommand(this);
         commands.put("start", startCommand);
@@ -163,16 +263,26 @@ public class ExtraChunkyCore {
         if (transferManager != null && transferManager.isRunning()) {
             transferManager.cancel();
         }
+        if (governor != null) {
+            governor.stop();
+        }
+        if (tickMonitor != null) {
+            tickMonitor.stop();
+        }
+        if (metricsService != null) {
+            metricsService.stop();
+        }
+        platform.getRuntime().shutdown();
         platform.getLogger().info("ExtraChunky disabled");
     }
 
     /**
-     * Initializes the transfer manager for a specific world.
+     * Initializes the transfer manager for the worlds of a job.
      * Should be called when starting generation as a worker.
      *
-     * @param worldPath Path to the world directory
+     * @param layout Where each dimension's region files live
      */
-    public void initializeTransferManager(Path worldPath) {
+    public void initializeTransferManager(WorldLayout layout) {
         if (transferManager != null && transferManager.isRunning()) {
             transferManager.cancel();
         }
@@ -182,13 +292,64 @@ public class ExtraChunkyCore {
                 platform.getLogger(),
                 platform.getConfig().getSshConfig(),
                 platform.getDataDirectory(),
-                worldPath
+                layout
         );
 
         transferManager.loadQueue();
 
         // Set up progress callback to notify host
         transferManager.setProgressCallback(this::onTransferProgress);
+        transferManager.setNativeEndpoint(this::getNativeEndpoint);
+        transferManager.setMetrics(metrics);
+        ExtraChunkyRuntime runtime = platform.getRuntime();
+        transferManager.setCompressionExecutor(runtime.getCpuExecutor(), getCompressionParallelism());
+        if (tickMonitor != null) {
+            transferManager.setHealthCheck(tickMonitor::isDegraded);
+        }
+        if (quiescence != null) {
+            quiescence.setQuietMillis(platform.getConfig().getSshConfig().quietSeconds() * 1000L);
+            transferManager.setQuiescenceTracker(quiescence);
+        }
+    }
+
+    /**
+     * Gets how many regions to compress ahead of the upload: one per CPU thread plus one,
+     * scaled down with the generation speed while the governor holds the server back.
+     */
+    private int getCompressionParallelism() {
+        int parallelism = platform.getRuntime().getCpuThreads() + 1;
+        if (governor != null) {
+            parallelism = (int) Math.round(parallelism * governor.getDuty());
+        }
+        return Math.max(1, parallelism);
+    }
+
+    /**
+     * Applies a governor decision to uploads and reports it to the host.
+     */
+    private void onGovernorDecision(GenerationGovernor.Decision decision) {
+        RegionTransferManager manager = transferManager;
+        if (manager != null) {
+            manager.setCompressionParallelism(getCompressionParallelism());
+        }
+        if (workerClient != null && workerClient.isConnected()) {
+            workerClient.sendGovernor(decision.duty(), decision.mspt(), decision.tps(),
+                    decision.players(), decision.reason());
+        }
+        if (hostServer != null && hostServer.isRunning()) {
+            hostServer.updateHostGovernor((float) decision.duty(), decision.reason());
+        }
+    }
+
+    /**
+     * Gets the data port of the host this worker is registered with, for the native transport.
+     */
+    private NativeTransferClient.Endpoint getNativeEndpoint() {
+        WorkerClient client = workerClient;
+        if (client == null || !client.isConnected() || client.getDataPort() <= 0) {
+            return null;
+        }
+        return new NativeTransferClient.Endpoint(client.getHostAddress(), client.getDataPort(), client.getDataToken());
     }
 
     private void onTransferProgress(TransferSummary summary) {
@@ -221,20 +382,149 @@ public class ExtraChunkyCore {
             return;
         }
 
-        hostServer = new HostServer(platform.getLogger(), platform.getConfig());
+        hostServer = new HostServer(platform.getLogger(), platform.getConfig(),
+                new JobQueue(platform.getDataDirectory(), platform.getLogger()),
+                new HostJournal(platform.getDataDirectory(), platform.getLogger()));
+        hostServer.setMetrics(metrics);
+        hostServer.setLocalStartHandler(assignment -> platform.getScheduler().runTask(() -> {
+            updateIngestLayout(assignment.job());
+            startCommand.startHostShare(assignment);
+        }));
+        // The data port must be up before workers register, so they learn about it
+        startDataServer();
         hostServer.start();
+
+        if (hostServer.isRunning()) {
+            startIngestService();
+            // Jobs left from before a restart upload into their dimensions too
+            for (JobQueue.QueuedJob queued : hostServer.getJobQueue().getJobs()) {
+                updateIngestLayout(queued.job());
+            }
+        } else {
+            stopDataServer();
+        }
     }
 
     /**
      * Stops the host server.
      */
     public void stopHostServer() {
+        stopDataServer();
+        stopIngestService();
         if (hostServer != null) {
             hostServer.stop();
             hostServer = null;
         }
     }
 
+    /**
+     * Starts installing uploaded regions into the selected world, if ingest is enabled.
+     */
+    private void startIngestService() {
+        IngestConfig ingestConfig = platform.getConfig().getIngestConfig();
+        if (!ingestConfig.enabled()) {
+            return;
+        }
+
+        GenerationJob job = GenerationJob.of(getSelection());
+        Optional<WorldLayout> layout = getWorldLayout(job);
+        String incomingPath = getIncomingPath(job.primaryWorld());
+        if (layout.isEmpty() || incomingPath.isBlank()) {
+            platform.getLogger().warning("Ingest enabled but the world folder or incoming path is unknown, not ingesting uploads");
+            return;
+        }
+
+        ingestService = new RegionIngestService(platform.getLogger(), platform.getRuntime(), ingestConfig,
+                Path.of(incomingPath), layout.get());
+        ingestService.setMetrics(metrics);
+        try {
+            ingestService.start();
+        } catch (IOException e) {
+            platform.getLogger().severe("Failed to start ingest service: " + e.getMessage());
+            ingestService = null;
+        }
+    }
+
+    /**
+     * Points the ingest service at the worlds of a job as well, so uploads of each dimension land in
+     * the right folder. The job's uploads arrive in its primary world's incoming directory; those of
+     * earlier jobs keep theirs, their uploads may still be arriving.
+     */
+    public void updateIngestLayout(GenerationJob job) {
+        RegionIngestService service = ingestService;
+        String incomingPath = getIncomingPath(job.primaryWorld());
+        if (service != null && !incomingPath.isBlank()) {
+            getWorldLayout(job).ifPresent(layout -> service.addIncomingDir(Path.of(incomingPath), layout));
+        }
+    }
+
+    /**
+     * Gets where the region files of a job's worlds live on this server.
+     *
+     * @return The layout, or empty if none of the worlds' folders is known
+     */
+    public Optional<WorldLayout> getWorldLayout(GenerationJob job) {
+        WorldLayout layout = null;
+        for (GenerationJob.Area area : job.areas()) {
+            Optional<Path> root = platform.getDimensionRoot(area.world());
+            if (root.isEmpty()) {
+                platform.getLogger().warning("Folder of world " + area.world() + " not found");
+                continue;
+            }
+            layout = layout == null ? WorldLayout.of(root.get()) : layout;
+            layout = layout.with(area.dimension(), root.get());
+        }
+        return Optional.ofNullable(layout);
+    }
+
+    private void stopIngestService() {
+        if (ingestService != null) {
+            ingestService.stop();
+            ingestService = null;
+        }
+    }
+
+    /**
+     * Starts the native transfer channel, if a data port is configured.
+     */
+    private void startDataServer() {
+        int dataPort = platform.getConfig().getIngestConfig().dataPort();
+        if (dataPort <= 0) {
+            return;
+        }
+
+        if (getIncomingPath(getSelection().world().getName()).isBlank()) {
+            platform.getLogger().warning("Data port configured but no incoming path is set, not accepting native transfers");
+            return;
+        }
+
+        dataServer = new NativeTransferServer(platform.getLogger(), dataPort,
+                world -> Path.of(getIncomingPath(world)), hostServer::isValidDataToken);
+        dataServer.setMetrics(metrics);
+        try {
+            dataServer.start();
+            hostServer.setDataPort(dataPort);
+        } catch (IOException e) {
+            platform.getLogger().severe("Failed to start data port " + dataPort + ": " + e.getMessage());
+            dataServer = null;
+        }
+    }
+
+    private void stopDataServer() {
+        if (dataServer != null) {
+            dataServer.stop();
+            dataServer = null;
+        }
+    }
+
+    /**
+     * Gets the directory workers upload a world to.
+     */
+    private String getIncomingPath(String worldName) {
+        return platform.getConfig().getIngestConfig()
+                .getIncomingPathForWorld(worldName, platform.getConfig().getSshConfig());
+    }
+
     /**
      * Starts the worker client and connects to a host.
      */
@@ -244,6 +534,7 @@ public class ExtraChunkyCore {
         }
 
         workerClient = new WorkerClient(platform.getLogger(), platform.getScheduler(), hostAddress, hostPort);
+        workerClient.setMetrics(metrics);
 
         // Setup handlers for START command from host
         workerClient.setStartHandler(msg -> {
@@ -255,19 +546,38 @@ public class ExtraChunkyCore {
         });
 
         // Setup handler for STOP command from host
-        workerClient.setStopHandler(msg -> {
-            String world = getSelection().world().getName();
-            if (chunkyApi != null && chunkyApi.isRunning(world)) {
-                platform.getScheduler().runTask(() -> {
+        workerClient.setStopHandler(msg -> platform.getScheduler().runTask(() -> {
+            GenerationRun run = currentRun;
+            List<String> worlds = run != null ? run.getJob().worlds() : List.of(getSelection().world().getName());
+            if (governor != null) {
+                // A task the governor paused is not running and could not be cancelled
+                governor.release();
+            }
+            for (String world : worlds) {
+                if (chunkyApi != null && chunkyApi.isRunning(world)) {
                     chunkyApi.cancelTask(world);
-                    platform.getLogger().info("Generation stopped by host command");
-                });
+                    platform.getLogger().info("Generation of " + world + " stopped by host command");
+                }
             }
-        });
+        }));
+
+        // Uploads queued while the host was unreachable go out once it is back
+        workerClient.setConnectedHandler(this::resumeTransfers);
 
         workerClient.connect();
     }
 
+    /**
+     * Restarts uploads that stopped because the host could not be reached.
+     */
+    private void resumeTransfers() {
+        RegionTransferManager manager = transferManager;
+        if (manager != null && !manager.isRunning() && manager.getStatus().pending() > 0
+                && platform.getConfig().getSshConfig().autoTransfer()) {
+            manager.startTransferAll();
+        }
+    }
+
     /**
      * Stops the worker client.
      */
@@ -280,39 +590,115 @@ public class ExtraChunkyCore {
 
     /**
      * Sets up progress reporting based on current mode.
+     * Progress of all the run's tasks is summed and reported as one.
      */
-    public void setupProgressReporting(ChunkyAPI api, String worldName, long totalChunks, int instanceId, int totalInstances) {
+    public void setupProgressReporting(GenerationRun run) {
         stopProgressTask();
 
-        this.currentInstanceId = instanceId;
-        this.currentTotalInstances = totalInstances;
+        this.currentInstanceId = run.getInstanceId();
+        this.currentTotalInstances = run.getTotalInstances();
+        this.currentRun = run;
 
-        // Listen to Chunky progress events
-        api.onGenerationProgress(event -> {
-            if (!event.world().equals(worldName)) {
-                return;
-            }
+        if (!run.hasWorlds()) {
+            // Nothing of the job fell to this instance, so it is done already
+            finishRun(run);
+        }
+    }
 
-            // Report to host if connected as worker
-            if (workerClient != null && workerClient.isConnected()) {
-                workerClient.sendProgress(
-                        event.chunks(),
-                        totalChunks,
-                        event.progress(),
-                        (float) event.rate()
-                );
-            }
+    private void onGenerationProgress(GenerationProgressEvent event) {
+        GenerationRun run = currentRun;
+        if (run == null || !run.hasWorld(event.world())) {
+            return;
+        }
+        run.recordProgress(event.world(), event.chunks(), event.rate(), event.x(), event.z());
+        reportProgress(run);
+        reportCompletedRegions(run);
+    }
+
+    private void onGenerationComplete(GenerationCompleteEvent event) {
+        GenerationRun run = currentRun;
+        if (run == null) {
+            return;
+        }
+        boolean lastTask = run.recordComplete(event.world());
+        reportCompletedRegions(run);
+        if (!lastTask) {
+            return;
+        }
+        reportProgress(run);
+        finishRun(run);
+    }
+
+    /**
+     * Reports the regions the run finished since the last report to the host.
+     */
+    private void reportCompletedRegions(GenerationRun run) {
+        long[] regions = run.drainCompletedRegions();
+        if (regions.length == 0 || run.getJobId() <= 0) {
+            return;
+        }
 
-            // Update host's own progress if hosting and participating
-            if (hostServer != null && hostServer.isRunning() && platform.getConfig().isHostParticipates()) {
-                hostServer.updateHostProgress(
-                        event.chunks(),
-                        totalChunks,
-                        event.progress(),
-                        (float) event.rate()
-                );
+        if (workerClient != null && workerClient.isRunning()) {
+            workerClient.sendRegionsComplete(run.getJobId(), regions);
+        }
+        if (hostServer != null && hostServer.isRunning()) {
+            hostServer.recordRegionsComplete(run.getJobId(), regions);
+        }
+    }
+
+    /**
+     * Hands the run's regions to the transfer queue and reports the run finished, so the
+     * host can hand this instance its next job. Both happen while the host is unreachable too:
+     * the uploads wait in the queue, and the finished job is reported when the worker registers again.
+     */
+    private void finishRun(GenerationRun run) {
+        int regionCount = run.getRegions().size();
+        platform.getLogger().info("Generation of " + String.join(", ", run.getJob().worlds()) +
+                " complete, " + regionCount + " regions generated");
+
+        if (workerClient != null && workerClient.isRunning()) {
+            if (platform.getConfig().getSshConfig().enabled()) {
+                Optional<WorldLayout> layout = getWorldLayout(run.getJob());
+                if (layout.isPresent()) {
+                    RegionTransferManager manager = transferManager;
+                    if (manager == null) {
+                        initializeTransferManager(layout.get());
+                        manager = transferManager;
+                    }
+                    // Earlier jobs' regions may still be draining, the queue keeps each world's folders apart
+                    manager.onGenerationComplete(run.getJob().primaryWorld(), layout.get(), run.getRegions());
+                } else {
+                    platform.getLogger().warning("World folder unknown, not transferring generated regions");
+                }
             }
-        });
+            workerClient.sendGenerationComplete(run.getJobId(), regionCount);
+        }
+
+        if (hostServer != null && hostServer.isRunning() && run.getJobId() > 0) {
+            hostServer.completeHostJob(run.getJobId());
+        }
+    }
+
+    private void reportProgress(GenerationRun run) {
+        // Report to host if connected as worker
+        if (workerClient != null && workerClient.isConnected()) {
+            workerClient.sendProgress(
+                    run.getChunksGenerated(),
+                    run.getTotalChunks(),
+                    run.getPercentComplete(),
+                    run.getChunksPerSecond()
+            );
+        }
+
+        // Update host's own progress if hosting and participating
+        if (hostServer != null && hostServer.isRunning() && platform.getConfig().isHostParticipates()) {
+            hostServer.updateHostProgress(
+                    run.getChunksGenerated(),
+                    run.getTotalChunks(),
+                    run.getPercentComplete(),
+                    run.getChunksPerSecond()
+            );
+        }
     }
 
     private void stopProgressTask() {
@@ -367,6 +753,36 @@ public class ExtraChunkyCore {
         return transferManager;
     }
 
+    public RegionIngestService getIngestService() {
+        return ingestService;
+    }
+
+    public NativeTransferServer getDataServer() {
+        return dataServer;
+    }
+
+    public TickMonitor getTickMonitor() {
+        return tickMonitor;
+    }
+
+    /**
+     * Gets this instance's share of the job being generated, or null if nothing was started.
+     */
+    public GenerationRun getCurrentRun() {
+        return currentRun;
+    }
+
+    /**
+     * Gets the registry this instance's metrics are kept in.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    public GenerationGovernor getGenerationGovernor() {
+        return governor;
+    }
+
     public ExtraChunkyScheduler getScheduler() {
         return platform.getScheduler();
     }
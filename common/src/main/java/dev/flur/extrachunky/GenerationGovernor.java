@@ -0,0 +1,244 @@
+package dev.flur.extrachunky;
+
+import dev.flur.extrachunky.platform.ExtraChunkyLogger;
+import dev.flur.extrachunky.platform.ExtraChunkyScheduler;
+import dev.flur.extrachunky.platform.ExtraChunkyTask;
+import dev.flur.extrachunky.platform.ServerHealth;
+import org.popcraft.chunky.api.ChunkyAPI;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Holds chunk generation to a tick budget, so a worker that also hosts players stays playable.
+ * <p>
+ * Chunky has no speed setting, so the governor runs it on a duty cycle: in every window of ten
+ * seconds the tasks run for the duty's share of the window and is paused for the rest. At the end
+ * of each window the duty is cut by 30% if the server spent more than the target per tick while
+ * generating, and raised by a tenth if it stayed comfortably below. A tick far over budget ends the
+ * window early, so a lag spike is answered within a second. With nobody online the server may use
+ * its whole budget, unless the governor is told to hold back anyway.
+ * <p>
+ * Where the platform does not report tick times, the tick monitor's measurement stands in.
+ */
+public class GenerationGovernor {
+    private static final int SAMPLE_TICKS = 20;
+    private static final int WINDOW_SECONDS = 10;
+    private static final double MIN_DUTY = 0.1;
+    private static final double BACKOFF_FACTOR = 0.7;
+    private static final double STEP = 0.1;
+    /** Share of the target below which the duty is raised */
+    private static final double HEADROOM = 0.8;
+    /** Multiple of the target that ends the window at once */
+    private static final double SPIKE = 1.25;
+    /** Samples a window needs before a spike ends it, since reported tick times trail by a few seconds */
+    private static final int SPIKE_MIN_SAMPLES = 3;
+
+    /**
+     * A change of the duty cycle.
+     *
+     * @param duty    Share of the time generation runs, 1 for full speed
+     * @param mspt    Milliseconds per tick that led to the decision, NaN if unknown
+     * @param tps     Ticks per second measured by the tick monitor
+     * @param players Players online
+     * @param reason  Why the duty changed
+     */
+    public record Decision(double duty, double mspt, double tps, int players, String reason) {
+    }
+
+    private final ExtraChunkyScheduler scheduler;
+    private final ExtraChunkyLogger logger;
+    private final ChunkyAPI chunkyApi;
+    private final TickMonitor tickMonitor;
+    private final Supplier<ServerHealth> healthSource;
+    private final GovernorConfig config;
+
+    private ExtraChunkyTask task;
+    private Consumer<Decision> listener = decision -> {};
+
+    // Main thread state
+    private double duty = 1.0;
+    private int second;
+    private int runSamples;
+    private int overSamples;
+    private boolean allBelowHeadroom = true;
+    private double msptSum;
+    private final Set<String> pausedWorlds = new HashSet<>();
+
+    private final Set<String> activeWorlds = ConcurrentHashMap.newKeySet();
+    private volatile Decision lastDecision;
+
+    /**
+     * Creates a new governor.
+     *
+     * @param scheduler    Scheduler to run the governor on the main thread
+     * @param logger       Logger for decisions
+     * @param chunkyApi    Chunky API to pause and continue tasks with
+     * @param tickMonitor  Fallback for platforms that do not report tick times
+     * @param healthSource Supplies the server's tick time and player count
+     * @param config       Governor configuration
+     */
+    public GenerationGovernor(ExtraChunkyScheduler scheduler, ExtraChunkyLogger logger, ChunkyAPI chunkyApi,
+                              TickMonitor tickMonitor, Supplier<ServerHealth> healthSource, GovernorConfig config) {
+        this.scheduler = scheduler;
+        this.logger = logger;
+        this.chunkyApi = chunkyApi;
+        this.tickMonitor = tickMonitor;
+        this.healthSource = healthSource;
+        this.config = config;
+    }
+
+    /**
+     * Sets the callback for duty changes. Called on the main thread.
+     */
+    public void setListener(Consumer<Decision> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts sampling once a second.
+     */
+    public void start() {
+        if (task != null) {
+            return;
+        }
+        task = scheduler.runTaskTimer(this::sample, SAMPLE_TICKS, SAMPLE_TICKS);
+    }
+
+    /**
+     * Stops sampling. Tasks the governor paused stay paused and is saved by Chunky like any paused task.
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Records that generation is running in a world. Called from Chunky's progress events.
+     */
+    public void recordProgress(String worldName) {
+        activeWorlds.add(worldName);
+    }
+
+    /**
+     * Records that generation of a world completed. Called from Chunky's completion event.
+     */
+    public void recordComplete(String worldName) {
+        activeWorlds.remove(worldName);
+    }
+
+    /**
+     * Continues the tasks the governor paused, e.g. before they are cancelled. Must be called on the main thread.
+     */
+    public void release() {
+        for (String world : pausedWorlds) {
+            chunkyApi.continueTask(world);
+        }
+        pausedWorlds.clear();
+    }
+
+    /**
+     * Gets the share of the time generation currently runs, 1 for full speed.
+     */
+    public double getDuty() {
+        Decision decision = lastDecision;
+        return decision != null ? decision.duty() : 1.0;
+    }
+
+    /**
+     * Gets the last duty change, or null if the governor never had to act.
+     */
+    public Decision getLastDecision() {
+        return lastDecision;
+    }
+
+    /**
+     * Checks if the governor is holding generation paused right now.
+     */
+    public boolean isPaused() {
+        return !pausedWorlds.isEmpty();
+    }
+
+    private void sample() {
+        if (activeWorlds.isEmpty()) {
+            release();
+            return;
+        }
+
+        ServerHealth health = healthSource.get();
+        boolean running = pausedWorlds.isEmpty();
+        if (running) {
+            double mspt = health.hasMspt() ? health.mspt() : Double.NaN;
+            boolean over = tickMonitor.isDegraded() || (health.hasMspt() && mspt > config.targetMspt());
+            runSamples++;
+            if (over) {
+                overSamples++;
+            }
+            if (!health.hasMspt() || mspt > config.targetMspt() * HEADROOM) {
+                allBelowHeadroom = false;
+            }
+            if (health.hasMspt()) {
+                msptSum += mspt;
+            }
+            if (health.hasMspt() && mspt > config.targetMspt() * SPIKE && runSamples >= SPIKE_MIN_SAMPLES) {
+                // Far over budget: do not wait for the end of the window
+                second = WINDOW_SECONDS;
+            }
+        }
+
+        if (++second >= WINDOW_SECONDS) {
+            endWindow(health);
+        }
+
+        boolean shouldRun = second < Math.ceil(duty * WINDOW_SECONDS);
+        if (shouldRun) {
+            release();
+        } else {
+            for (String world : activeWorlds) {
+                if (!pausedWorlds.contains(world) && chunkyApi.isRunning(world) && chunkyApi.pauseTask(world)) {
+                    pausedWorlds.add(world);
+                }
+            }
+        }
+    }
+
+    private void endWindow(ServerHealth health) {
+        double previous = duty;
+        double mspt = runSamples > 0 && health.hasMspt() ? msptSum / runSamples : health.mspt();
+        String reason = null;
+
+        if (config.onlyWithPlayers() && health.onlinePlayers() == 0) {
+            duty = 1.0;
+            reason = "no players online";
+        } else if (runSamples > 0 && overSamples * 2 > runSamples) {
+            duty = Math.max(MIN_DUTY, Math.round(duty * BACKOFF_FACTOR * 100) / 100.0);
+            reason = health.hasMspt()
+                    ? String.format("%.1f ms/tick over target %d", mspt, config.targetMspt())
+                    : String.format("server lagging (%.1f TPS)", tickMonitor.getTps());
+        } else if (runSamples > 0 && overSamples == 0 && (allBelowHeadroom || !health.hasMspt())) {
+            duty = Math.min(1.0, Math.round((duty + STEP) * 100) / 100.0);
+            reason = health.hasMspt()
+                    ? String.format("%.1f ms/tick within target %d", mspt, config.targetMspt())
+                    : "server healthy";
+        }
+
+        second = 0;
+        runSamples = 0;
+        overSamples = 0;
+        allBelowHeadroom = true;
+        msptSum = 0;
+
+        if (reason != null && Math.abs(duty - previous) > 1e-9) {
+            Decision decision = new Decision(duty, mspt, tickMonitor.getTps(), health.onlinePlayers(), reason);
+            lastDecision = decision;
+            logger.info(String.format("Generation speed %s to %d%% (%s)", duty < previous ? "lowered" : "raised",
+                    Math.round(duty * 100), reason));
+            listener.accept(decision);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package dev.flur.extrachunky;
+
+import dev.flur.extrachunky.transfer.RegionCoord;
+import org.popcraft.chunky.Selection;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * What to generate in one run: an area per world, e.g. the overworld and the nether with a radius
+ * of its own. All areas are generated at the same time, one Chunky task per world.
+ * <p>
+ * Regions are assigned to instances by spiral index, and each area continues the index where the
+ * previous one ended. The areas together are then dealt out round-robin, so a small area (like the
+ * End) is spread over the fleet after the others instead of always landing on the first workers.
+ *
+ * @param areas The areas, at least one, each in a different world
+ */
+public record GenerationJob(List<Area> areas) {
+
+    /**
+     * The area generated in one world.
+     *
+     * @param world   World name as Chunky knows it
+     * @param centerX Center X in blocks
+     * @param centerZ Center Z in blocks
+     * @param radius  Radius in blocks
+     * @param shape   Chunky shape name
+     */
+    public record Area(String world, double centerX, double centerZ, double radius, String shape) {
+
+        /**
+         * Gets the dimension the world's regions belong to.
+         */
+        public String dimension() {
+            return RegionCoord.dimensionOfWorld(world);
+        }
+
+        public int centerChunkX() {
+            return (int) Math.floor(centerX) >> 4;
+        }
+
+        public int centerChunkZ() {
+            return (int) Math.floor(centerZ) >> 4;
+        }
+
+        public int radiusChunks() {
+            return (int) Math.ceil(radius / 16.0);
+        }
+
+        public int centerRegionX() {
+            return centerChunkX() >> 5;
+        }
+
+        public int centerRegionZ() {
+            return centerChunkZ() >> 5;
+        }
+
+        public int minRegionX() {
+            return (centerChunkX() - radiusChunks()) >> 5;
+        }
+
+        public int maxRegionX() {
+            return (centerChunkX() + radiusChunks()) >> 5;
+        }
+
+        public int minRegionZ() {
+            return (centerChunkZ() - radiusChunks()) >> 5;
+        }
+
+        public int maxRegionZ() {
+            return (centerChunkZ() + radiusChunks()) >> 5;
+        }
+
+        /**
+         * Checks if a chunk lies within the area's shape.
+         */
+        public boolean containsChunk(int chunkX, int chunkZ) {
+            int radiusChunks = radiusChunks();
+            int dx = chunkX - centerChunkX();
+            int dz = chunkZ - centerChunkZ();
+
+            return switch (shape.toLowerCase(Locale.ROOT)) {
+                // For circle, check if chunk center is within radius
+                case "circle", "ellipse" -> Math.sqrt(dx * dx + dz * dz) <= radiusChunks;
+                // For diamond, use Manhattan distance
+                case "diamond" -> Math.abs(dx) + Math.abs(dz) <= radiusChunks;
+                // Square and rectangle, and the fallback for complex shapes (pentagon, star)
+                default -> Math.abs(dx) <= radiusChunks && Math.abs(dz) <= radiusChunks;
+            };
+        }
+
+        /**
+         * Checks if at least one chunk of a region lies within the area.
+         */
+        public boolean intersectsRegion(int regionX, int regionZ) {
+            int radiusChunks = radiusChunks();
+            int minX = Math.max(regionX << 5, centerChunkX() - radiusChunks);
+            int maxX = Math.min((regionX << 5) + 31, centerChunkX() + radiusChunks);
+            int minZ = Math.max(regionZ << 5, centerChunkZ() - radiusChunks);
+            int maxZ = Math.min((regionZ << 5) + 31, centerChunkZ() + radiusChunks);
+            for (int chunkX = minX; chunkX <= maxX; chunkX++) {
+                for (int chunkZ = minZ; chunkZ <= maxZ; chunkZ++) {
+                    if (containsChunk(chunkX, chunkZ)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Gets how many spiral indices the area's regions can take: the square of regions around the
+         * center region out to the farthest corner of the area's bounds.
+         */
+        public long indexSpan() {
+            int radiusChunks = radiusChunks();
+            int layer = 0;
+            for (int chunkX : new int[]{centerChunkX() - radiusChunks, centerChunkX() + radiusChunks}) {
+                layer = Math.max(layer, Math.abs((chunkX >> 5) - centerRegionX()));
+            }
+            for (int chunkZ : new int[]{centerChunkZ() - radiusChunks, centerChunkZ() + radiusChunks}) {
+                layer = Math.max(layer, Math.abs((chunkZ >> 5) - centerRegionZ()));
+            }
+            long side = 2L * layer + 1;
+            return side * side;
+        }
+
+        @Override
+        public String toString() {
+            return world + " center=(" + centerX + ", " + centerZ + ") radius=" + radius + " shape=" + shape;
+        }
+    }
+
+    public GenerationJob {
+        if (areas.isEmpty()) {
+            throw new IllegalArgumentException("A job needs at least one world");
+        }
+        Set<String> worlds = new HashSet<>();
+        for (Area area : areas) {
+            if (!worlds.add(area.world())) {
+                throw new IllegalArgumentException("World " + area.world() + " is listed twice");
+            }
+        }
+        areas = List.copyOf(areas);
+    }
+
+    /**
+     * Creates a job for the Chunky selection.
+     */
+    public static GenerationJob of(Selection selection) {
+        return new GenerationJob(List.of(areaOf(selection, selection.world().getName())));
+    }
+
+    /**
+     * Parses a job from command arguments: world names, each optionally followed by
+     * {@code radius=}, {@code center=x,z} and {@code shape=} for that world. Anything not given is
+     * taken from the Chunky selection.
+     * <p>
+     * Example: {@code world radius=10000 world_nether radius=1250 world_the_end radius=2000 shape=circle}
+     *
+     * @param args      The arguments
+     * @param selection The Chunky selection to fill in defaults from
+     * @return The job
+     * @throws IllegalArgumentException if the arguments are malformed
+     */
+    public static GenerationJob parse(List<String> args, Selection selection) {
+        return parse(args, areaOf(selection, ""));
+    }
+
+    /**
+     * Parses a job from command arguments, like {@link #parse(List, Selection)}, without a Chunky selection.
+     *
+     * @param args     The arguments
+     * @param defaults Center, radius and shape for worlds that do not give their own (the world is ignored)
+     * @return The job
+     * @throws IllegalArgumentException if the arguments are malformed
+     */
+    public static GenerationJob parse(List<String> args, Area defaults) {
+        List<Area> areas = new ArrayList<>();
+        Area current = null;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                if (current != null) {
+                    areas.add(current);
+                }
+                current = new Area(arg, defaults.centerX(), defaults.centerZ(), defaults.radius(), defaults.shape());
+                continue;
+            }
+            if (current == null) {
+                throw new IllegalArgumentException("Name a world before " + arg);
+            }
+            String key = arg.substring(0, eq).toLowerCase(Locale.ROOT);
+            String value = arg.substring(eq + 1);
+            try {
+                current = switch (key) {
+                    case "radius" -> new Area(current.world(), current.centerX(), current.centerZ(),
+                            Double.parseDouble(value), current.shape());
+                    case "center" -> {
+                        String[] xz = value.split(",");
+                        if (xz.length != 2) {
+                            throw new IllegalArgumentException("Center must be x,z: " + value);
+                        }
+                        yield new Area(current.world(), Double.parseDouble(xz[0]), Double.parseDouble(xz[1]),
+                                current.radius(), current.shape());
+                    }
+                    case "shape" -> new Area(current.world(), current.centerX(), current.centerZ(),
+                            current.radius(), value.toLowerCase(Locale.ROOT));
+                    default -> throw new IllegalArgumentException("Unknown option " + key);
+                };
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: " + value);
+            }
+        }
+        if (current != null) {
+            areas.add(current);
+        }
+        return new GenerationJob(areas);
+    }
+
+    private static Area areaOf(Selection selection, String world) {
+        return new Area(world, selection.centerX(), selection.centerZ(), selection.radiusX(), selection.shape());
+    }
+
+    /**
+     * Gets the first world of the job. Transfers are filed under its name.
+     */
+    public String primaryWorld() {
+        return areas.get(0).world();
+    }
+
+    /**
+     * Gets the spiral index the given area's regions start at.
+     *
+     * @param areaIndex Position of the area in the job
+     */
+    public long indexOffset(int areaIndex) {
+        long offset = 0;
+        for (int i = 0; i < areaIndex; i++) {
+            offset += areas.get(i).indexSpan();
+        }
+        return offset;
+    }
+
+    /**
+     * Gets the ID of a region within the job: its spiral index, continued across areas. IDs are
+     * unique within a job and below {@link #regionSpan()}, so a job's regions fit in one bitmap.
+     *
+     * @param areaIndex Position of the area in the job
+     * @param regionX   Region X coordinate
+     * @param regionZ   Region Z coordinate
+     */
+    public long regionId(int areaIndex, int regionX, int regionZ) {
+        Area area = areas.get(areaIndex);
+        return indexOffset(areaIndex) + ChunkAssigner.spiralIndex(regionX, regionZ, area.centerRegionX(), area.centerRegionZ());
+    }
+
+    /**
+     * Gets the number of region IDs the job spans, including regions that lie outside its shapes.
+     */
+    public long regionSpan() {
+        return indexOffset(areas.size());
+    }
+
+    /**
+     * Counts the regions that have at least one chunk to generate.
+     */
+    public long regionCount() {
+        long count = 0;
+        for (Area area : areas) {
+            for (int regionX = area.minRegionX(); regionX <= area.maxRegionX(); regionX++) {
+                for (int regionZ = area.minRegionZ(); regionZ <= area.maxRegionZ(); regionZ++) {
+                    if (area.intersectsRegion(regionX, regionZ)) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the names of the job's worlds.
+     */
+    public List<String> worlds() {
+        return areas.stream().map(Area::world).toList();
+    }
+
+    @Override
+    public String toString() {
+        return areas.stream().map(Area::toString).collect(Collectors.joining("; "));
+    }
+}
@@ -0,0 +1,226 @@
+package dev.flur.extrachunky;
+
+import dev.flur.extrachunky.transfer.Dimension;
+import dev.flur.extrachunky.transfer.RegionCoord;
+import dev.flur.extrachunky.transfer.RegionMap;
+import dev.flur.extrachunky.transfer.RegionSet;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This instance's share of a job while it generates: one Chunky task per world, with progress
+ * summed over all of them and the regions to transfer once every task is done.
+ * <p>
+ * Regions are also reported as they finish: each region counts down its chunks as Chunky reports them
+ * generated, so a region is only done once every one of its chunks is, whatever order Chunky finishes them in.
+ */
+public class GenerationRun {
+    private final int jobId;
+    private final GenerationJob job;
+    private final int instanceId;
+    private final int totalInstances;
+
+    private final Map<String, WorldProgress> worlds = new ConcurrentHashMap<>();
+    private final RegionSet regions = new RegionSet();
+
+    // Regions finished since the last drain, by job region ID
+    private long[] completedRegions = new long[16];
+    private int completedCount = 0;
+
+    private static final class WorldProgress {
+        final Dimension dimension;
+        final long totalChunks;
+        // Packed region -> its chunks still to generate, removed once done
+        final RegionMap<PendingRegion> pending = new RegionMap<>();
+        volatile long chunks;
+        volatile double rate;
+        volatile boolean complete;
+
+        WorldProgress(Dimension dimension, long totalChunks) {
+            this.dimension = dimension;
+            this.totalChunks = totalChunks;
+        }
+    }
+
+    private static final class PendingRegion {
+        final long regionId;
+        int remainingChunks;
+
+        PendingRegion(long regionId, int remainingChunks) {
+            this.regionId = regionId;
+            this.remainingChunks = remainingChunks;
+        }
+    }
+
+    /**
+     * Creates a run.
+     *
+     * @param jobId          ID of the job in the host's queue, 0 outside of a queue
+     * @param job            The job
+     * @param instanceId     This instance's ID
+     * @param totalInstances Instances the job is split into
+     */
+    public GenerationRun(int jobId, GenerationJob job, int instanceId, int totalInstances) {
+        this.jobId = jobId;
+        this.job = job;
+        this.instanceId = instanceId;
+        this.totalInstances = totalInstances;
+    }
+
+    /**
+     * Adds a world whose task was started.
+     *
+     * @param world        World name
+     * @param dimension    Dimension the world's regions are stored as
+     * @param totalChunks  Chunks assigned to this instance in the world
+     * @param assigned     Regions assigned to this instance in the world
+     * @param regionKeys   The assigned regions, packed with {@link RegionCoord#pack}
+     * @param regionIds    Job region IDs of the same regions
+     * @param regionChunks Chunks Chunky has to generate in each of them
+     */
+    public void addWorld(String world, Dimension dimension, long totalChunks, RegionSet assigned,
+                         long[] regionKeys, long[] regionIds, int[] regionChunks) {
+        WorldProgress progress = new WorldProgress(dimension, totalChunks);
+        for (int i = 0; i < regionKeys.length; i++) {
+            progress.pending.put(regionKeys[i], new PendingRegion(regionIds[i], regionChunks[i]));
+        }
+        worlds.put(world, progress);
+        synchronized (regions) {
+            regions.addAll(assigned);
+        }
+    }
+
+    /**
+     * Checks if a world belongs to this run.
+     */
+    public boolean hasWorld(String world) {
+        return worlds.containsKey(world);
+    }
+
+    /**
+     * Checks if any task was started for the run.
+     */
+    public boolean hasWorlds() {
+        return !worlds.isEmpty();
+    }
+
+    /**
+     * Records a progress event of one of the run's tasks. Chunky sends one for every chunk it generated.
+     *
+     * @param world  World name
+     * @param chunks Chunks the task generated so far
+     * @param rate   Chunks per second
+     * @param chunkX X coordinate of the chunk that was generated
+     * @param chunkZ Z coordinate of the chunk that was generated
+     */
+    public void recordProgress(String world, long chunks, double rate, int chunkX, int chunkZ) {
+        WorldProgress progress = worlds.get(world);
+        if (progress != null) {
+            progress.chunks = chunks;
+            progress.rate = rate;
+            recordChunk(progress, RegionCoord.pack(chunkX >> 5, chunkZ >> 5, progress.dimension));
+        }
+    }
+
+    /**
+     * Records that one of the run's tasks finished.
+     *
+     * @return true if this was the last task still running
+     */
+    public synchronized boolean recordComplete(String world) {
+        WorldProgress progress = worlds.get(world);
+        if (progress == null || progress.complete) {
+            return false;
+        }
+        progress.complete = true;
+        progress.chunks = progress.totalChunks;
+        progress.rate = 0;
+        // Chunks generated before a restart of the task were never reported, the task is done all the same
+        progress.pending.forEachValue(region -> addCompleted(region.regionId));
+        progress.pending.clear();
+        return isComplete();
+    }
+
+    /**
+     * Counts a generated chunk against its region, marking the region done with its last chunk.
+     */
+    private synchronized void recordChunk(WorldProgress progress, long region) {
+        PendingRegion pending = progress.pending.get(region);
+        if (pending != null && --pending.remainingChunks <= 0) {
+            progress.pending.remove(region);
+            addCompleted(pending.regionId);
+        }
+    }
+
+    private void addCompleted(long regionId) {
+        if (completedCount == completedRegions.length) {
+            completedRegions = Arrays.copyOf(completedRegions, completedCount * 2);
+        }
+        completedRegions[completedCount++] = regionId;
+    }
+
+    /**
+     * Takes the regions that finished since the last call.
+     *
+     * @return Job region IDs of the finished regions, possibly none
+     */
+    public synchronized long[] drainCompletedRegions() {
+        long[] drained = Arrays.copyOf(completedRegions, completedCount);
+        completedCount = 0;
+        return drained;
+    }
+
+    /**
+     * Checks if every task of the run finished.
+     */
+    public synchronized boolean isComplete() {
+        return !worlds.isEmpty() && worlds.values().stream().allMatch(progress -> progress.complete);
+    }
+
+    public long getChunksGenerated() {
+        return worlds.values().stream().mapToLong(progress -> progress.chunks).sum();
+    }
+
+    public long getTotalChunks() {
+        return worlds.values().stream().mapToLong(progress -> progress.totalChunks).sum();
+    }
+
+    public float getPercentComplete() {
+        long total = getTotalChunks();
+        return total > 0 ? (float) getChunksGenerated() / total * 100f : 0f;
+    }
+
+    /**
+     * Gets the combined generation rate of all running tasks in chunks per second.
+     */
+    public float getChunksPerSecond() {
+        return (float) worlds.values().stream().mapToDouble(progress -> progress.rate).sum();
+    }
+
+    /**
+     * Gets the regions assigned to this instance across all worlds.
+     */
+    public RegionSet getRegions() {
+        synchronized (regions) {
+            return new RegionSet(regions);
+        }
+    }
+
+    public int getJobId() {
+        return jobId;
+    }
+
+    public GenerationJob getJob() {
+        return job;
+    }
+
+    public int getInstanceId() {
+        return instanceId;
+    }
+
+    public int getTotalInstances() {
+        return totalInstances;
+    }
+}
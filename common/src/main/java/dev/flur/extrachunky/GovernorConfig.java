@@ -0,0 +1,61 @@
+package dev.flur.extrachunky;
+
+/**
+ * Configuration for the generation governor.
+ * The governor slows generation and uploads down while the server exceeds its tick budget.
+ */
+public record GovernorConfig(
+        boolean enabled,
+        int targetMspt,
+        boolean onlyWithPlayers
+) {
+    /**
+     * Default governor configuration (enabled, 40 ms per tick, only while players are online).
+     */
+    public static GovernorConfig defaults() {
+        return new GovernorConfig(
+                true,
+                40,
+                true
+        );
+    }
+
+    /**
+     * Creates a builder for GovernorConfig.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for GovernorConfig.
+     */
+    public static class Builder {
+        private boolean enabled = true;
+        private int targetMspt = 40;
+        private boolean onlyWithPlayers = true;
+
+        public Builder enabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public Builder targetMspt(int targetMspt) {
+            this.targetMspt = targetMspt;
+            return this;
+        }
+
+        public Builder onlyWithPlayers(boolean onlyWithPlayers) {
+            this.onlyWithPlayers = onlyWithPlayers;
+            return this;
+        }
+
+        public GovernorConfig build() {
+            return new GovernorConfig(
+                    enabled,
+                    Math.max(5, targetMspt),
+                    onlyWithPlayers
+            );
+        }
+    }
+}
@@ -1,23 +1,43 @@
 package dev.flur.extrachunky;
 
 import dev.flur.extrachunky.platform.ExtraChunkyLogger;
+import dev.flur.extrachunky.transfer.CompressionDictionary;
+import dev.flur.extrachunky.transfer.ContentHash;
+import dev.flur.extrachunky.transfer.RegionArchive;
+import dev.flur.extrachunky.transfer.RegionFileCompressor;
+import dev.flur.extrachunky.transfer.SftpTransferClient;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Copies region files from worker worlds or upload directories into a target world.
+ * Batch archives that workers uploaded to a {@code batches} folder are unpacked into the dimension
+ * folders first, the same way the ingest service does, so their regions are merged like any other.
+ */
 public class RegionMerger {
     private static final String[] DIMENSIONS = {"region", "DIM-1/region", "DIM1/region"};
     private static final String[] DIMENSION_NAMES = {"Overworld", "Nether", "End"};
 
+    /**
+     * Matches plain region files and compressed uploads from workers.
+     */
+    private static final String REGION_GLOB = "*.{mca,zst,lz4}";
+    private static final String DICTIONARY_DIR = "dictionaries";
+
     private final ExtraChunkyLogger logger;
+    private final RegionFileCompressor compressor;
 
     public RegionMerger(ExtraChunkyLogger logger) {
         this.logger = logger;
+        this.compressor = new RegionFileCompressor(logger, 1);
     }
 
     /**
@@ -33,6 +53,11 @@ public class RegionMerger {
         List<String> conflicts = new ArrayList<>();
         List<String> errors = new ArrayList<>();
 
+        for (Path source : sourceWorlds) {
+            loadDictionaries(source, errors);
+            unpackArchives(source, errors);
+        }
+
         for (int i = 0; i < DIMENSIONS.length; i++) {
             String dim = DIMENSIONS[i];
             String dimName = DIMENSION_NAMES[i];
@@ -52,23 +77,31 @@ public class RegionMerger {
                     continue;
                 }
 
-                try (DirectoryStream<Path> stream = Files.newDirectoryStream(sourceDir, "*.mca")) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(sourceDir, REGION_GLOB)) {
                     for (Path mcaFile : stream) {
-                        Path targetFile = targetDir.resolve(mcaFile.getFileName());
-                        String fileName = mcaFile.getFileName().toString();
+                        if (!isRegionFile(mcaFile)) {
+                            continue;
+                        }
+                        String fileName = targetFileName(mcaFile);
+                        Path targetFile = targetDir.resolve(fileName);
 
                         if (Files.exists(targetFile)) {
-                            // Check if files are the same size (basic conflict detection)
-                            long sourceSize = Files.size(mcaFile);
-                            long targetSize = Files.size(targetFile);
-
-                            if (sourceSize != targetSize) {
-                                conflicts.add(dimName + "/" + fileName + " (sizes differ: " + sourceSize + " vs " + targetSize + ")");
+                            Long sourceHash = sourceRegionHash(mcaFile);
+                            if (sourceHash != null) {
+                                long targetHash = ContentHash.ofRegion(targetFile);
+                                if (sourceHash != targetHash) {
+                                    conflicts.add(dimName + "/" + fileName + " (contents differ: " +
+                                            ContentHash.toHex(sourceHash) + " vs " + ContentHash.toHex(targetHash) + ")");
+                                }
                             }
                             skipped++;
                         } else {
                             try {
-                                Files.copy(mcaFile, targetFile, StandardCopyOption.COPY_ATTRIBUTES);
+                                if (compressor.isCompressedRegionFile(mcaFile)) {
+                                    compressor.decompress(mcaFile, targetDir);
+                                } else {
+                                    Files.copy(mcaFile, targetFile, StandardCopyOption.COPY_ATTRIBUTES);
+                                }
                                 merged++;
                             } catch (IOException e) {
                                 errors.add("Failed to copy: " + mcaFile + " -> " + targetFile);
@@ -105,8 +138,8 @@ public class RegionMerger {
                 continue;
             }
 
-            // Check for at least one dimension folder
-            boolean hasRegions = false;
+            // Check for at least one dimension folder, or archives that unpack into one
+            boolean hasRegions = Files.isDirectory(path.resolve(RegionArchive.DIRECTORY));
             for (String dim : DIMENSIONS) {
                 Path dimPath = path.resolve(dim);
                 if (Files.exists(dimPath) && Files.isDirectory(dimPath)) {
@@ -142,9 +175,12 @@ public class RegionMerger {
                     continue;
                 }
 
-                try (DirectoryStream<Path> stream = Files.newDirectoryStream(sourceDir, "*.mca")) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(sourceDir, REGION_GLOB)) {
                     for (Path mcaFile : stream) {
-                        Path targetFile = targetDir.resolve(mcaFile.getFileName());
+                        if (!isRegionFile(mcaFile)) {
+                            continue;
+                        }
+                        Path targetFile = targetDir.resolve(targetFileName(mcaFile));
                         if (!Files.exists(targetFile)) {
                             count++;
                         }
@@ -155,9 +191,140 @@ public class RegionMerger {
             }
         }
 
+        // Archived regions are only unpacked by the merge itself
+        for (Path source : sourceWorlds) {
+            for (Path archive : listArchives(source)) {
+                try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+                    for (RegionArchive.Entry entry : RegionArchive.readIndex(channel)) {
+                        Path entryFile = archivedRegion(source, entry);
+                        if (entryFile == null) {
+                            continue;
+                        }
+                        Path targetDir = targetWorld.resolve(source.relativize(entryFile.getParent()));
+                        if (!Files.exists(targetDir.resolve(targetFileName(entryFile)))) {
+                            count++;
+                        }
+                    }
+                } catch (IOException e) {
+                    // Ignore for counting
+                }
+            }
+        }
+
         return count;
     }
 
+    /**
+     * Unpacks the batch archives of a source into its dimension folders and deletes them.
+     * Archives that cannot be read are left in place and reported.
+     */
+    private void unpackArchives(Path source, List<String> errors) {
+        for (Path archive : listArchives(source)) {
+            int unpacked = 0;
+            try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+                for (RegionArchive.Entry entry : RegionArchive.readIndex(channel)) {
+                    Path target = archivedRegion(source, entry);
+                    if (target == null) {
+                        logger.warning("Ignoring unexpected entry " + entry.name() + " in " + archive.getFileName());
+                        continue;
+                    }
+                    Files.createDirectories(target.getParent());
+                    Path part = target.resolveSibling(target.getFileName() + SftpTransferClient.PART_SUFFIX);
+                    RegionArchive.extract(channel, entry, part);
+                    Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+                    unpacked++;
+                }
+            } catch (IOException e) {
+                errors.add("Failed to unpack: " + archive);
+                logger.warning("Failed to unpack " + archive.getFileName() + ": " + e.getMessage());
+                continue;
+            }
+            try {
+                Files.delete(archive);
+            } catch (IOException e) {
+                logger.warning("Failed to delete unpacked archive " + archive.getFileName());
+            }
+            logger.info("Unpacked " + unpacked + " regions from " + archive.getFileName());
+        }
+    }
+
+    private List<Path> listArchives(Path source) {
+        Path batchDir = source.resolve(RegionArchive.DIRECTORY);
+        List<Path> archives = new ArrayList<>();
+        if (!Files.isDirectory(batchDir)) {
+            return archives;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(batchDir, "*" + RegionArchive.EXTENSION)) {
+            stream.forEach(archives::add);
+        } catch (IOException e) {
+            logger.warning("Failed to list batch directory: " + batchDir);
+        }
+        return archives;
+    }
+
+    /**
+     * Resolves where an archive entry belongs in its source.
+     *
+     * @return The region file, or null if the entry is not a region of a known dimension folder
+     */
+    private Path archivedRegion(Path source, RegionArchive.Entry entry) {
+        int separator = entry.name().lastIndexOf('/');
+        if (separator <= 0 || !List.of(DIMENSIONS).contains(entry.name().substring(0, separator))) {
+            return null;
+        }
+        Path file = source.resolve(entry.name());
+        return isRegionFile(file) ? file : null;
+    }
+
+    /**
+     * Registers compression dictionaries uploaded by workers alongside their regions.
+     */
+    private void loadDictionaries(Path source, List<String> errors) {
+        Path dictionaryDir = source.resolve(DICTIONARY_DIR);
+        if (!Files.isDirectory(dictionaryDir)) {
+            return;
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dictionaryDir, "*" + CompressionDictionary.EXTENSION)) {
+            for (Path file : stream) {
+                try {
+                    compressor.addDictionary(CompressionDictionary.load(file));
+                } catch (IOException e) {
+                    errors.add("Failed to load dictionary: " + file.getFileName());
+                    logger.warning("Failed to load compression dictionary " + file + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to list dictionary directory: " + dictionaryDir);
+        }
+    }
+
+    /**
+     * Gets the region hash of a source file: computed for region files, read from the trailer for
+     * compressed uploads. Chunk streams are rebuilt with re-compressed payloads, so their hash is
+     * not comparable with an installed region.
+     *
+     * @return The hash, or null if the source cannot be compared by content
+     */
+    private Long sourceRegionHash(Path file) throws IOException {
+        if (!compressor.isCompressedRegionFile(file)) {
+            return ContentHash.ofRegion(file);
+        }
+        if (compressor.isChunkStream(file)) {
+            return null;
+        }
+        ContentHash.Trailer trailer = ContentHash.readTrailer(file);
+        return trailer != null ? trailer.regionHash() : null;
+    }
+
+    private boolean isRegionFile(Path file) {
+        return file.getFileName().toString().endsWith(".mca") || compressor.isCompressedRegionFile(file);
+    }
+
+    private String targetFileName(Path file) {
+        return compressor.getOriginalFileName(file.getFileName().toString());
+    }
+
     public record MergeResult(
             int merged,
             int skipped,
@@ -0,0 +1,117 @@
+package dev.flur.extrachunky;
+
+import dev.flur.extrachunky.platform.ExtraChunkyScheduler;
+import dev.flur.extrachunky.platform.ExtraChunkyTask;
+
+import java.util.OptionalDouble;
+import java.util.function.Supplier;
+
+/**
+ * Measures server health from the main thread: the time between ticks and, where the platform
+ * reports it, the average player ping.
+ * <p>
+ * Both are smoothed, so a single slow tick (e.g. a save) does not count as lag. Ping is compared
+ * against its own long-term average, since what players notice is ping rising, not its absolute value.
+ */
+public class TickMonitor {
+    private static final double TICK_MS = 50.0;
+    /** Average tick length above which the server counts as lagging (about 18 TPS) */
+    private static final double DEGRADED_TICK_MS = 55.0;
+    /** Rise of the short-term over the long-term average ping that counts as degraded */
+    private static final double DEGRADED_PING_RISE_MS = 30.0;
+    private static final double TICK_SMOOTHING = 0.05;
+    private static final double PING_FAST_SMOOTHING = 0.3;
+    private static final double PING_SLOW_SMOOTHING = 0.02;
+    private static final int PING_SAMPLE_TICKS = 20;
+
+    private final ExtraChunkyScheduler scheduler;
+    private final Supplier<OptionalDouble> pingSource;
+
+    private ExtraChunkyTask task;
+    private long lastTick;
+    private int ticks;
+
+    private volatile double averageTickMs = TICK_MS;
+    private volatile double pingFast = Double.NaN;
+    private volatile double pingSlow = Double.NaN;
+
+    /**
+     * Creates a new tick monitor.
+     *
+     * @param scheduler  Scheduler to run the per-tick sampler on the main thread
+     * @param pingSource Supplies the current average player ping, empty if unknown or no players are online
+     */
+    public TickMonitor(ExtraChunkyScheduler scheduler, Supplier<OptionalDouble> pingSource) {
+        this.scheduler = scheduler;
+        this.pingSource = pingSource;
+    }
+
+    /**
+     * Starts sampling every tick.
+     */
+    public void start() {
+        if (task != null) {
+            return;
+        }
+        lastTick = 0;
+        task = scheduler.runTaskTimer(this::tick, 1, 1);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        if (lastTick != 0) {
+            double tickMs = (now - lastTick) / 1_000_000.0;
+            averageTickMs += (tickMs - averageTickMs) * TICK_SMOOTHING;
+        }
+        lastTick = now;
+
+        if (++ticks % PING_SAMPLE_TICKS == 0) {
+            OptionalDouble ping = pingSource.get();
+            if (ping.isPresent()) {
+                double value = ping.getAsDouble();
+                pingFast = Double.isNaN(pingFast) ? value : pingFast + (value - pingFast) * PING_FAST_SMOOTHING;
+                pingSlow = Double.isNaN(pingSlow) ? value : pingSlow + (value - pingSlow) * PING_SLOW_SMOOTHING;
+            }
+        }
+    }
+
+    /**
+     * Gets the smoothed time between ticks in milliseconds (50 on a healthy server).
+     */
+    public double getAverageTickMs() {
+        return averageTickMs;
+    }
+
+    /**
+     * Gets the ticks per second implied by the average tick length, capped at 20.
+     */
+    public double getTps() {
+        return Math.min(20.0, 1000.0 / averageTickMs);
+    }
+
+    /**
+     * Gets the smoothed average player ping in milliseconds, or NaN if unknown.
+     */
+    public double getAveragePing() {
+        return pingFast;
+    }
+
+    /**
+     * Checks if the server is lagging or player ping has risen above its usual level.
+     */
+    public boolean isDegraded() {
+        if (averageTickMs > DEGRADED_TICK_MS) {
+            return true;
+        }
+        double fast = pingFast;
+        double slow = pingSlow;
+        return !Double.isNaN(fast) && !Double.isNaN(slow) && fast - slow > DEGRADED_PING_RISE_MS;
+    }
+}
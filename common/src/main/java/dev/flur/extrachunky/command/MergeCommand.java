@@ -25,6 +25,7 @@ public class MergeCommand implements ExtraChunkyCommand {
         if (args.length < 2) {
             sender.sendMessage(prefix("Usage: " + highlight("/extrachunky merge <source1> [source2] ...")));
             sender.sendMessage(prefix("Merges region files from source world directories into the current world."));
+            sender.sendMessage(prefix("Compressed uploads from workers (.mca.zst, .mca.lz4) are decompressed while merging."));
             return true;
         }
 
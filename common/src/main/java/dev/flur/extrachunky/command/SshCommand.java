@@ -5,6 +5,9 @@ import dev.flur.extrachunky.platform.ExtraChunkySender;
 import dev.flur.extrachunky.transfer.SftpTransferClient;
 import dev.flur.extrachunky.transfer.SshConfig;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 /**
  * Command for SSH/SFTP configuration testing.
  * Usage:
@@ -51,6 +54,24 @@ public class SshCommand implements ExtraChunkyCommand {
             return true;
         }
 
+        if (config.isNativeTransport()) {
+            sender.sendMessage("Native transport is enabled; regions are streamed to the host's data port, not over SSH.");
+            return true;
+        }
+        if (config.isLocalTransport()) {
+            // The directory is created on first upload, so check the closest one that exists
+            Path directory = Path.of(config.getRemotePathForWorld(core.getSelection().world().getName()));
+            while (directory != null && !Files.isDirectory(directory)) {
+                directory = directory.getParent();
+            }
+            if (directory != null && Files.isWritable(directory)) {
+                sender.sendMessage("Local transport is enabled; regions will be copied into: " + config.remotePath());
+            } else {
+                sender.sendMessage("Local transport is enabled, but the remote path is not writable: " + config.remotePath());
+            }
+            return true;
+        }
+
         sender.sendMessage("Testing SSH connection to " + config.hostname() + ":" + config.port() + "...");
 
         // Run test async
@@ -98,6 +119,16 @@ public class SshCommand implements ExtraChunkyCommand {
         sender.sendMessage("Auto-transfer: " + config.autoTransfer());
         sender.sendMessage("Retry count: " + config.retryCount());
         sender.sendMessage("Compression level: " + config.compressionLevel());
+        sender.sendMessage("Recompress chunks: " + config.recompressChunks());
+        sender.sendMessage("Train dictionary: " + config.trainDictionary());
+        sender.sendMessage("Compression codec: " + config.compressionCodec());
+        sender.sendMessage("Transport: " + config.transport());
+        sender.sendMessage("Batch size: " + config.batchSize());
+        sender.sendMessage("Bandwidth limit (KB/s): " + config.bandwidthLimit());
+        sender.sendMessage("Adaptive bandwidth: " + config.adaptiveBandwidth());
+        sender.sendMessage("Quiet period (s): " + config.quietSeconds());
+        sender.sendMessage("Circuit breaker threshold: " + config.circuitBreakerThreshold());
+        sender.sendMessage("Circuit breaker pause (s): " + config.circuitBreakerSeconds());
         sender.sendMessage("");
 
         // Validation status
@@ -112,6 +143,21 @@ public class SshCommand implements ExtraChunkyCommand {
     }
 
     private void validateConfig(ExtraChunkySender sender, SshConfig config) {
+        if (!config.isKnownCodec()) {
+            sender.sendMessage("  - Unknown compression codec: " + config.compressionCodec());
+        }
+        if (!config.isKnownTransport()) {
+            sender.sendMessage("  - Unknown transport: " + config.transport());
+        }
+        if (config.isNativeTransport()) {
+            return;
+        }
+        if (config.remotePath() == null || config.remotePath().isBlank()) {
+            sender.sendMessage("  - Missing remote path");
+        }
+        if (config.isLocalTransport()) {
+            return;
+        }
         if (config.hostname() == null || config.hostname().isBlank()) {
             sender.sendMessage("  - Missing hostname");
         }
@@ -129,9 +175,6 @@ public class SshCommand implements ExtraChunkyCommand {
                 (config.privateKeyPath() == null || config.privateKeyPath().isBlank())) {
             sender.sendMessage("  - Public key auth selected but key path is empty");
         }
-        if (config.remotePath() == null || config.remotePath().isBlank()) {
-            sender.sendMessage("  - Missing remote path");
-        }
     }
 
     private void showUsage(ExtraChunkySender sender) {
@@ -3,16 +3,20 @@ package dev.flur.extrachunky.command;
 import dev.flur.extrachunky.ChunkAssigner;
 import dev.flur.extrachunky.CsvGenerator;
 import dev.flur.extrachunky.ExtraChunkyCore;
+import dev.flur.extrachunky.GenerationJob;
+import dev.flur.extrachunky.GenerationRun;
+import dev.flur.extrachunky.metrics.Histogram;
 import dev.flur.extrachunky.network.HostServer;
+import dev.flur.extrachunky.network.JobQueue;
 import dev.flur.extrachunky.network.WorkerClient;
-import dev.flur.extrachunky.platform.ExtraChunkyConfig;
 import dev.flur.extrachunky.platform.ExtraChunkySender;
 import dev.flur.extrachunky.platform.MessageFormatter;
-import org.popcraft.chunky.Selection;
+import dev.flur.extrachunky.transfer.Dimension;
 import org.popcraft.chunky.api.ChunkyAPI;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Arrays;
 
 import static dev.flur.extrachunky.platform.MessageFormatter.*;
 
@@ -36,28 +40,46 @@ public class StartCommand implements ExtraChunkyCommand {
         HostServer hostServer = core.getHostServer();
         WorkerClient workerClient = core.getWorkerClient();
 
-        // If hosting, broadcast start to all workers
-        if (hostServer != null && hostServer.isRunning()) {
-            return executeAsHost(sender);
-        }
-
         // If connected as worker, use assignment from host
         if (workerClient != null && workerClient.isConnected()) {
             return executeAsWorker(sender);
         }
 
+        GenerationJob job;
+        try {
+            job = args.length > 1
+                    ? GenerationJob.parse(Arrays.asList(args).subList(1, args.length), core.getSelection())
+                    : GenerationJob.of(core.getSelection());
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(prefix("Invalid job: " + e.getMessage()));
+            sender.sendMessage(prefix("Usage: " + highlight("/extrachunky start [world [radius=<blocks>] [center=<x>,<z>] [shape=<shape>]]...")));
+            return true;
+        }
+
+        // If hosting, broadcast start to all workers
+        if (hostServer != null && hostServer.isRunning()) {
+            return executeAsHost(sender, job);
+        }
+
         // Standalone mode (no network)
-        return executeStandalone(sender);
+        return executeStandalone(sender, job);
     }
 
     /**
-     * Executes the start command in host mode.
+     * Executes the start command in host mode for the Chunky selection.
      * Broadcasts start to workers and optionally participates locally.
      */
     public boolean executeAsHost(ExtraChunkySender sender) {
+        return executeAsHost(sender, GenerationJob.of(core.getSelection()));
+    }
+
+    /**
+     * Executes the start command in host mode.
+     * Queues the job; it is broadcast to workers (and started locally if the host participates)
+     * right away, or by each instance as soon as it finished the jobs queued before it.
+     */
+    public boolean executeAsHost(ExtraChunkySender sender, GenerationJob job) {
         HostServer hostServer = core.getHostServer();
-        ExtraChunkyConfig config = core.getConfig();
-        Selection selection = core.getSelection();
 
         int totalWorkers = hostServer.getTotalWorkerCount();
         if (totalWorkers == 0) {
@@ -67,21 +89,28 @@ public class StartCommand implements ExtraChunkyCommand {
             return true;
         }
 
-        sender.sendMessage(prefix("Starting generation across " + highlight(totalWorkers + " worker(s)") + "..."));
-        sender.sendMessage(prefix("Using selection: " + highlight(selection.world().getName()) +
-                " center=(" + selection.centerX() + ", " + selection.centerZ() + ")" +
-                " radius=" + selection.radiusX() + " shape=" + selection.shape()));
+        boolean queued = hostServer.isGenerationActive();
+        if (!queued) {
+            sender.sendMessage(prefix("Starting generation across " + highlight(totalWorkers + " worker(s)") + "..."));
+        }
+        for (GenerationJob.Area area : job.areas()) {
+            sender.sendMessage(prefix("Generating: " + highlight(area.world()) +
+                    " center=(" + area.centerX() + ", " + area.centerZ() + ")" +
+                    " radius=" + area.radius() + " shape=" + area.shape()));
+        }
 
-        // Broadcast START to all workers (with current selection)
-        hostServer.broadcastStart(selection);
+        // Install uploads of every dimension of the job
+        core.updateIngestLayout(job);
 
-        // If host participates, start local generation
-        if (config.isHostParticipates()) {
-            int instanceId = 0; // Host is always instance 0
-            startLocalGeneration(sender, instanceId, totalWorkers, selection);
-        }
+        // Queue the job; idle instances (the host included, if it participates) start it right away
+        JobQueue.QueuedJob queuedJob = hostServer.enqueue(job);
 
-        sender.sendMessage(prefix("Generation started. Use " + highlight("/extrachunky status") + " to monitor progress."));
+        if (queued) {
+            sender.sendMessage(prefix("Queued as job " + highlight("#" + queuedJob.id()) + " (" +
+                    hostServer.getJobQueue().size() + " in queue). Workers pick it up as they finish the jobs before it."));
+        } else {
+            sender.sendMessage(prefix("Generation started. Use " + highlight("/extrachunky status") + " to monitor progress."));
+        }
         return true;
     }
 
@@ -97,37 +126,37 @@ public class StartCommand implements ExtraChunkyCommand {
         sender.sendMessage(prefix("Starting as worker " + highlight(assignment.instanceId() +
                 "/" + assignment.totalInstances())));
 
-        startLocalGeneration(sender, assignment.instanceId(), assignment.totalInstances(),
-                assignment.world(), assignment.centerX(), assignment.centerZ(),
-                assignment.radius(), assignment.shape());
+        startLocalGeneration(sender, assignment);
 
         return true;
     }
 
     /**
-     * Executes the start command in standalone mode.
+     * Executes the start command in standalone mode for the Chunky selection.
      * Single server generation without network coordination.
      */
     public boolean executeStandalone(ExtraChunkySender sender) {
-        Selection selection = core.getSelection();
+        return executeStandalone(sender, GenerationJob.of(core.getSelection()));
+    }
 
+    /**
+     * Executes the start command in standalone mode.
+     * Single server generation without network coordination.
+     */
+    public boolean executeStandalone(ExtraChunkySender sender, GenerationJob job) {
         sender.sendMessage(prefix("Starting distributed generation..."));
         sender.sendMessage(prefix("Tip: Use " + highlight("/extrachunky host") + " to coordinate multiple servers."));
 
         // Standalone uses instance 1/1
-        startLocalGeneration(sender, 1, 1, selection);
+        startLocalGeneration(sender, new WorkerClient.ChunkAssignment(1, 1, 0, job));
         return true;
     }
 
-    private void startLocalGeneration(ExtraChunkySender sender, int instanceId, int totalInstances, Selection selection) {
-        startLocalGeneration(sender, instanceId, totalInstances,
-                selection.world().getName(), selection.centerX(), selection.centerZ(),
-                selection.radiusX(), selection.shape());
-    }
-
-    private void startLocalGeneration(ExtraChunkySender sender, int instanceId, int totalInstances,
-                                      String world, double centerX, double centerZ,
-                                      double radius, String shape) {
+    private void startLocalGeneration(ExtraChunkySender sender, WorkerClient.ChunkAssignment assignment) {
+        int instanceId = assignment.instanceId();
+        int totalInstances = assignment.totalInstances();
+        int jobId = assignment.jobId();
+        GenerationJob job = assignment.job();
         ChunkyAPI api = core.getChunkyApi();
 
         if (api == null) {
@@ -135,54 +164,66 @@ public class StartCommand implements ExtraChunkyCommand {
             return;
         }
 
-        // Check if already running
-        if (api.isRunning(world)) {
-            sender.sendMessage(prefix("A generation task is already running for " + highlight(world)));
-            return;
-        }
-
         sender.sendMessage(prefix("Generating chunk list for instance " +
                 highlight(instanceId + "/" + totalInstances) + "..."));
 
         // Create chunk assigner
         ChunkAssigner assigner = new ChunkAssigner(instanceId, totalInstances);
-
-        // Generate CSV file
         CsvGenerator csvGenerator = new CsvGenerator(core.getPlatform().getLogger());
         Path chunkyConfigDir = core.getChunkyConfigDir();
+        GenerationRun run = new GenerationRun(jobId, job, instanceId, totalInstances);
+        Histogram planTime = core.getMetrics().histogram("extrachunky_plan_build_seconds",
+                "Time to plan this instance's chunks of one world", 1e-6);
+
+        // One Chunky task per world, all running side by side
+        for (int i = 0; i < job.areas().size(); i++) {
+            GenerationJob.Area area = job.areas().get(i);
+            String world = area.world();
+
+            // Check if already running
+            if (api.isRunning(world)) {
+                sender.sendMessage(prefix("A generation task is already running for " + highlight(world)));
+                continue;
+            }
 
-        try {
-            CsvGenerator.GenerationResult result = csvGenerator.generateChunkCsv(
-                    world, centerX, centerZ, radius, shape, instanceId, assigner, chunkyConfigDir);
+            try {
+                long planStart = System.nanoTime();
+                CsvGenerator.GenerationResult result = csvGenerator.generateChunkCsv(
+                        job, i, instanceId, assigner, assignment.doneRegions(), chunkyConfigDir);
+                planTime.recordSince(planStart);
 
-            sender.sendMessage(prefix("Created " + highlight(result.chunkCount() + "") + " chunk entries"));
+                sender.sendMessage(prefix("Created " + highlight(result.chunkCount() + "") + " chunk entries for " + highlight(world)));
 
-            if (result.chunkCount() == 0) {
-                sender.sendMessage(prefix("No chunks assigned to this instance."));
-                return;
-            }
+                if (result.chunkCount() == 0) {
+                    sender.sendMessage(prefix("No chunks in " + highlight(world) + " assigned to this instance."));
+                    continue;
+                }
 
-            // Start Chunky with CSV pattern
-            String pattern = "csv=" + result.fileName().replace(".csv", "");
+                // Start Chunky with CSV pattern
+                String pattern = "csv=" + result.fileName().replace(".csv", "");
 
-            sender.sendMessage(prefix("Starting Chunky with pattern: " + highlight(pattern)));
+                sender.sendMessage(prefix("Starting Chunky with pattern: " + highlight(pattern)));
 
-            // Start the task using Chunky API
-            boolean started = api.startTask(world, shape, centerX, centerZ, radius, radius, pattern);
+                // Start the task using Chunky API
+                boolean started = api.startTask(world, area.shape(), area.centerX(), area.centerZ(),
+                        area.radius(), area.radius(), pattern);
 
-            if (started) {
-                sender.sendMessage(prefix("Generation started for " + highlight(world)));
+                if (started) {
+                    sender.sendMessage(prefix("Generation started for " + highlight(world)));
+                    run.addWorld(world, Dimension.of(area.dimension()), result.chunkCount(), result.assignedRegions(),
+                            result.regionKeys(), result.regionIds(), result.regionChunks());
+                } else {
+                    sender.sendMessage(prefix("Failed to start Chunky task for " + highlight(world) + ". Check Chunky logs for details."));
+                }
 
-                // Setup progress reporting
-                core.setupProgressReporting(api, world, result.chunkCount(), instanceId, totalInstances);
-            } else {
-                sender.sendMessage(prefix("Failed to start Chunky task. Check Chunky logs for details."));
+            } catch (IOException e) {
+                sender.sendMessage(prefix("Failed to generate chunk CSV: " + e.getMessage()));
+                core.getPlatform().getLogger().severe("Failed to generate chunk CSV for " + world + ": " + e.getMessage());
             }
-
-        } catch (IOException e) {
-            sender.sendMessage(prefix("Failed to generate chunk CSV: " + e.getMessage()));
-            core.getPlatform().getLogger().severe("Failed to generate chunk CSV: " + e.getMessage());
         }
+
+        // Setup progress reporting
+        core.setupProgressReporting(run);
     }
 
     /**
@@ -190,9 +231,14 @@ public class StartCommand implements ExtraChunkyCommand {
      */
     public void startFromHost(WorkerClient.ChunkAssignment assignment) {
         core.getPlatform().getLogger().info("Received START command from host, starting generation...");
-        startLocalGeneration(core.getPlatform().getConsoleSender(),
-                assignment.instanceId(), assignment.totalInstances(),
-                assignment.world(), assignment.centerX(), assignment.centerZ(),
-                assignment.radius(), assignment.shape());
+        startLocalGeneration(core.getPlatform().getConsoleSender(), assignment);
+    }
+
+    /**
+     * Called by the host server when the host's own share of a queued job should start.
+     */
+    public void startHostShare(WorkerClient.ChunkAssignment assignment) {
+        core.getPlatform().getLogger().info("Starting host's share of job #" + assignment.jobId() + "...");
+        startLocalGeneration(core.getPlatform().getConsoleSender(), assignment);
     }
 }
@@ -1,20 +1,27 @@
 package dev.flur.extrachunky.command;
 
 import dev.flur.extrachunky.ExtraChunkyCore;
+import dev.flur.extrachunky.GenerationGovernor;
 import dev.flur.extrachunky.network.HostServer;
+import dev.flur.extrachunky.network.JobQueue;
+import dev.flur.extrachunky.network.RegionCoverage;
 import dev.flur.extrachunky.network.WorkerClient;
 import dev.flur.extrachunky.platform.ExtraChunkySender;
 import dev.flur.extrachunky.platform.MessageFormatter;
+import dev.flur.extrachunky.transfer.NativeTransferServer;
+import dev.flur.extrachunky.transfer.RegionIngestService;
 import org.popcraft.chunky.Selection;
 import org.popcraft.chunky.api.ChunkyAPI;
 
 import java.text.DecimalFormat;
+import java.util.List;
 
 import static dev.flur.extrachunky.platform.MessageFormatter.*;
 
 public class StatusCommand implements ExtraChunkyCommand {
     private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("#,###");
     private static final DecimalFormat PERCENT_FORMAT = new DecimalFormat("0.0");
+    private static final int MAP_CELLS = 24;
 
     private final ExtraChunkyCore core;
 
@@ -33,7 +40,11 @@ public class StatusCommand implements ExtraChunkyCommand {
 
         // If hosting, show aggregated progress from all workers
         if (hostServer != null && hostServer.isRunning()) {
-            displayHostStatus(sender, hostServer, api, worldName);
+            if (args.length > 1 && args[1].equalsIgnoreCase("map")) {
+                displayCoverageMap(sender, hostServer, args);
+            } else {
+                displayHostStatus(sender, hostServer, api, worldName);
+            }
             return true;
         }
 
@@ -54,14 +65,31 @@ public class StatusCommand implements ExtraChunkyCommand {
         sender.sendMessage(header("ExtraChunky Host Status"));
         sender.sendMessage(labelValue("Mode", "HOST (port " + core.getConfig().getHostPort() + ")"));
         sender.sendMessage(labelValue("Generation", hostServer.isGenerationActive() ? "ACTIVE" : "IDLE"));
+        displayJobQueue(sender, hostServer);
         sender.sendMessage("");
 
         if (progress.totalChunks() > 0) {
             sender.sendMessage(NORMAL + "Total: " + HIGHLIGHT + DECIMAL_FORMAT.format(progress.totalChunksGenerated()) +
                     "/" + DECIMAL_FORMAT.format(progress.totalChunks()) +
-                    NORMAL + " chunks (" + HIGHLIGHT + PERCENT_FORMAT.format(progress.overallPercent()) + "%" + NORMAL + ")");
+                    NORMAL + " chunks (" + HIGHLIGHT + PERCENT_FORMAT.format(progress.overallPercent()) + "%" + NORMAL + ") at " +
+                    HIGHLIGHT + PERCENT_FORMAT.format(progress.chunksPerSecond()) + NORMAL + " c/s");
         }
         sender.sendMessage(labelValue("Active workers", progress.activeWorkers() + "/" + hostServer.getTotalWorkerCount()));
+        if (hostServer.getAbsentWorkerCount() > 0) {
+            sender.sendMessage(labelValue("Reconnecting", hostServer.getAbsentWorkerCount() + " worker(s)"));
+        }
+
+        NativeTransferServer dataServer = core.getDataServer();
+        if (dataServer != null && dataServer.isRunning()) {
+            sender.sendMessage(labelValue("Data port", dataServer.getPort() + " (" + dataServer.getFilesReceived() + " files received)"));
+        }
+
+        RegionIngestService ingest = core.getIngestService();
+        if (ingest != null && ingest.isRunning()) {
+            sender.sendMessage(labelValue("Ingested regions", ingest.getInstalledCount() + " installed, " +
+                    ingest.getPendingCount() + " pending, " + ingest.getFailedCount() + " failed" +
+                    (ingest.getDuplicateCount() > 0 ? ", " + ingest.getDuplicateCount() + " unchanged" : "")));
+        }
         sender.sendMessage("");
 
         // Show each worker's progress
@@ -103,6 +131,7 @@ public class StatusCommand implements ExtraChunkyCommand {
         } else {
             sender.sendMessage(labelValue("Local generation", "IDLE"));
         }
+        displayGovernor(sender);
     }
 
     private void displayStandaloneStatus(ExtraChunkySender sender, ChunkyAPI api, String worldName) {
@@ -116,15 +145,86 @@ public class StatusCommand implements ExtraChunkyCommand {
         } else {
             sender.sendMessage(labelValue("Generation", "IDLE"));
         }
+        displayGovernor(sender);
 
         sender.sendMessage("");
         sender.sendMessage(NORMAL + "Tip: Use " + highlight("/extrachunky host") + " to coordinate multiple servers");
     }
 
+    private void displayGovernor(ExtraChunkySender sender) {
+        GenerationGovernor governor = core.getGenerationGovernor();
+        if (governor == null) {
+            return;
+        }
+
+        GenerationGovernor.Decision decision = governor.getLastDecision();
+        String speed = Math.round(governor.getDuty() * 100) + "%" + (governor.isPaused() ? ", paused" : "");
+        if (decision != null) {
+            speed += " (" + decision.reason() + ")";
+        }
+        sender.sendMessage(labelValue("Generation speed", speed));
+    }
+
+    private void displayJobQueue(ExtraChunkySender sender, HostServer hostServer) {
+        List<JobQueue.QueuedJob> jobs = hostServer.getJobQueue().getJobs();
+        if (jobs.isEmpty()) {
+            return;
+        }
+        sender.sendMessage(labelValue("Job queue", jobs.size() + " unfinished"));
+        for (JobQueue.QueuedJob queued : jobs) {
+            RegionCoverage coverage = hostServer.getCoverage(queued.id());
+            sender.sendMessage(NORMAL + "  #" + HIGHLIGHT + queued.id() + NORMAL + " " + queued.job() +
+                    (coverage != null && coverage.getCompleted() > 0
+                            ? " - " + HIGHLIGHT + DECIMAL_FORMAT.format(coverage.getCompleted()) + "/" +
+                            DECIMAL_FORMAT.format(coverage.getTotal()) + NORMAL + " regions (" +
+                            HIGHLIGHT + PERCENT_FORMAT.format(coverage.getPercentComplete()) + "%" + NORMAL + ")"
+                            : ""));
+        }
+    }
+
+    /**
+     * Draws which regions of a job are done, one map per world.
+     * Usage: /extrachunky status map [job]
+     */
+    private void displayCoverageMap(ExtraChunkySender sender, HostServer hostServer, String[] args) {
+        List<JobQueue.QueuedJob> jobs = hostServer.getJobQueue().getJobs();
+        JobQueue.QueuedJob queued;
+        if (args.length > 2) {
+            try {
+                queued = hostServer.getJobQueue().get(Integer.parseInt(args[2].replace("#", "")));
+            } catch (NumberFormatException e) {
+                sender.sendMessage(prefix("Invalid job number: " + highlight(args[2])));
+                return;
+            }
+        } else {
+            queued = jobs.isEmpty() ? null : jobs.get(0);
+        }
+        if (queued == null) {
+            sender.sendMessage(prefix("No such job in the queue."));
+            return;
+        }
+
+        RegionCoverage coverage = hostServer.getCoverage(queued.id());
+        sender.sendMessage(header("Job #" + queued.id() + " Coverage"));
+        sender.sendMessage(labelValue("Regions done", DECIMAL_FORMAT.format(coverage.getCompleted()) + "/" +
+                DECIMAL_FORMAT.format(coverage.getTotal()) + " (" + PERCENT_FORMAT.format(coverage.getPercentComplete()) + "%)"));
+        for (int i = 0; i < queued.job().areas().size(); i++) {
+            sender.sendMessage(NORMAL + queued.job().areas().get(i).world() + " (north up):");
+            for (String row : coverage.renderMap(i, MAP_CELLS)) {
+                sender.sendMessage(row);
+            }
+        }
+        sender.sendMessage("&a█" + NORMAL + " done  &e█" + NORMAL + " partly done  &7█" + NORMAL + " pending  &8█" + NORMAL + " outside");
+    }
+
     private String formatWorkerProgress(HostServer.WorkerProgress worker) {
         StringBuilder sb = new StringBuilder();
         sb.append(NORMAL).append("  [").append(HIGHLIGHT).append(worker.instanceId()).append(NORMAL).append("] ");
-        sb.append(HIGHLIGHT).append(worker.hostname()).append(NORMAL).append(": ");
+        sb.append(HIGHLIGHT).append(worker.hostname()).append(NORMAL);
+        if (worker.jobId() > 0) {
+            sb.append(" (job #").append(worker.jobId()).append(")");
+        }
+        sb.append(": ");
 
         if (worker.totalChunks() > 0) {
             sb.append(HIGHLIGHT).append(DECIMAL_FORMAT.format(worker.chunksGenerated())).append(NORMAL).append(" chunks ");
@@ -138,8 +238,15 @@ public class StatusCommand implements ExtraChunkyCommand {
             sb.append(" &c[STALE]").append(NORMAL);
         }
 
-        // Add transfer status if generation is complete
-        if (worker.generationComplete()) {
+        if (worker.governorDuty() < 1) {
+            sb.append(" | Speed: ").append(HIGHLIGHT).append(Math.round(worker.governorDuty() * 100)).append("%").append(NORMAL);
+            if (worker.governorReason() != null) {
+                sb.append(" (").append(worker.governorReason()).append(")");
+            }
+        }
+
+        // Add transfer status once generation is complete, or while an earlier job's uploads drain
+        if (worker.generationComplete() || worker.transferTotal() > 0) {
             sb.append(" | Transfer: ");
             if (worker.transferComplete()) {
                 sb.append("&aDONE").append(NORMAL);
@@ -1,7 +1,10 @@
 package dev.flur.extrachunky.command;
 
 import dev.flur.extrachunky.ExtraChunkyCore;
+import dev.flur.extrachunky.platform.ExtraChunkyRuntime;
 import dev.flur.extrachunky.platform.ExtraChunkySender;
+import dev.flur.extrachunky.transfer.BandwidthGovernor;
+import dev.flur.extrachunky.transfer.CircuitBreaker;
 import dev.flur.extrachunky.transfer.RegionTransferManager;
 import dev.flur.extrachunky.transfer.SshConfig;
 import dev.flur.extrachunky.transfer.TransferSummary;
@@ -16,6 +19,7 @@ import java.text.DecimalFormat;
  *   /extrachunky transfer cancel - Cancel ongoing transfers
  *   /extrachunky transfer retry  - Retry failed transfers
  *   /extrachunky transfer clear  - Clear completed/failed transfers
+ *   /extrachunky transfer limit [KB/s|off|adaptive on|off] - Show or change the upload bandwidth limit
  */
 public class TransferCommand implements ExtraChunkyCommand {
     private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("#,###");
@@ -42,6 +46,7 @@ public class TransferCommand implements ExtraChunkyCommand {
             case "cancel" -> cancelTransfer(sender);
             case "retry" -> retryTransfer(sender);
             case "clear" -> clearTransfer(sender);
+            case "limit" -> limitTransfer(sender, args);
             default -> {
                 showUsage(sender);
                 yield true;
@@ -135,6 +140,14 @@ public class TransferCommand implements ExtraChunkyCommand {
             sender.sendMessage("Failed: " + summary.failed() + " (use /extrachunky transfer retry)");
         }
 
+        CircuitBreaker breaker = manager.getCircuitBreaker();
+        if (breaker != null && breaker.getState() == CircuitBreaker.State.OPEN) {
+            sender.sendMessage("Paused: " + breaker.getConsecutiveFailures() + " consecutive failures uploading to " +
+                    breaker.getDestination() + ", trying again in " + (breaker.getRemainingPauseMillis() + 999) / 1000 + "s");
+        }
+
+        showBandwidth(sender, manager.getBandwidthGovernor());
+        showThreads(sender);
         return true;
     }
 
@@ -188,6 +201,73 @@ public class TransferCommand implements ExtraChunkyCommand {
         return true;
     }
 
+    private boolean limitTransfer(ExtraChunkySender sender, String[] args) {
+        RegionTransferManager manager = core.getTransferManager();
+        if (manager == null) {
+            sender.sendMessage("Transfer manager not initialized.");
+            return true;
+        }
+
+        BandwidthGovernor governor = manager.getBandwidthGovernor();
+        if (args.length < 2) {
+            showBandwidth(sender, governor);
+            return true;
+        }
+
+        String value = args[1].toLowerCase();
+        if (value.equals("adaptive")) {
+            if (args.length < 3 || !(args[2].equalsIgnoreCase("on") || args[2].equalsIgnoreCase("off"))) {
+                sender.sendMessage("Usage: /extrachunky transfer limit adaptive <on|off>");
+                return true;
+            }
+            governor.setAdaptive(args[2].equalsIgnoreCase("on"));
+            showBandwidth(sender, governor);
+            return true;
+        }
+
+        long kilobytes;
+        if (value.equals("off") || value.equals("0")) {
+            kilobytes = 0;
+        } else {
+            try {
+                kilobytes = Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                kilobytes = -1;
+            }
+            if (kilobytes <= 0) {
+                sender.sendMessage("Invalid limit: " + args[1] + " (KB/s, or 'off')");
+                return true;
+            }
+        }
+
+        governor.setLimit(kilobytes * 1024);
+        showBandwidth(sender, governor);
+        return true;
+    }
+
+    private void showBandwidth(ExtraChunkySender sender, BandwidthGovernor governor) {
+        long limit = governor.getLimit();
+        long rate = governor.getRate();
+        String line = "Bandwidth limit: " + (limit > 0 ? formatBytes(limit) + "/s" : "none");
+        if (governor.isAdaptive()) {
+            line += " (adaptive, currently " + (rate > 0 ? formatBytes(rate) + "/s" : "unthrottled") + ")";
+        }
+        sender.sendMessage(line);
+    }
+
+    private void showThreads(ExtraChunkySender sender) {
+        StringBuilder line = new StringBuilder("Threads:");
+        for (ExtraChunkyRuntime.PoolStats stats : core.getPlatform().getRuntime().getStats()) {
+            line.append(' ').append(stats.name()).append(' ').append(stats.active()).append(" active");
+            if (stats.queued() > 0) {
+                line.append(", ").append(stats.queued()).append(" queued");
+            }
+            line.append(';');
+        }
+        line.setLength(line.length() - 1);
+        sender.sendMessage(line.toString());
+    }
+
     private void showUsage(ExtraChunkySender sender) {
         sender.sendMessage("Usage: /extrachunky transfer <subcommand>");
         sender.sendMessage("  start  - Start/resume transfers");
@@ -195,6 +275,7 @@ public class TransferCommand implements ExtraChunkyCommand {
         sender.sendMessage("  cancel - Cancel ongoing transfers");
         sender.sendMessage("  retry  - Retry failed transfers");
         sender.sendMessage("  clear  - Clear completed/failed from queue");
+        sender.sendMessage("  limit [KB/s|off|adaptive on|off] - Show or change the upload bandwidth limit");
     }
 
     private String formatBytes(long bytes) {
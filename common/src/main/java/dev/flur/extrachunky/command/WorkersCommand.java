@@ -54,6 +54,9 @@ public class WorkersCommand implements ExtraChunkyCommand {
                 } else {
                     status = HIGHLIGHT + String.format("%.1f%%", worker.getPercentComplete()) + NORMAL +
                             " (" + HIGHLIGHT + String.format("%.1f", worker.getChunksPerSecond()) + NORMAL + " chunks/s)";
+                    if (worker.getGovernorDuty() < 1) {
+                        status += ", speed " + HIGHLIGHT + Math.round(worker.getGovernorDuty() * 100) + "%" + NORMAL;
+                    }
                 }
 
                 sender.sendMessage(NORMAL + "  [" + HIGHLIGHT + worker.getAssignedId() + NORMAL + "] " +
@@ -0,0 +1,140 @@
+package dev.flur.extrachunky.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of recorded values, e.g. how long compressing a region takes.
+ * <p>
+ * Values are counted in log-linear buckets like an HDR histogram: every power of two is split into
+ * 16 buckets, so any quantile is within about 6% of the true value while recording stays a single
+ * atomic increment and the whole range of a long fits in under a thousand buckets.
+ */
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final double scale;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param scale Factor turning recorded values into the reported unit, e.g. 1e-6 for microseconds in seconds
+     */
+    Histogram(double scale) {
+        this.scale = scale;
+    }
+
+    /**
+     * Records a value. Negative values count as 0.
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        buckets.incrementAndGet(bucketOf(value));
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Records a duration measured with {@link System#nanoTime()}, in microseconds.
+     *
+     * @param startNanos When the measured work started
+     */
+    public void recordSince(long startNanos) {
+        record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    /**
+     * Takes a consistent view of the distribution.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        return new Snapshot(counts, count, sum.sum() * scale, max.get() * scale, scale);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the value in the middle of a bucket.
+     */
+    private static double midpointOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        double lower = (double) (SUB_BUCKETS + bucket % SUB_BUCKETS) * width;
+        return lower + (width - 1) / 2.0;
+    }
+
+    /**
+     * The distribution at one point in time, in the reported unit.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final double sum;
+        private final double max;
+        private final double scale;
+
+        private Snapshot(long[] counts, long count, double sum, double max, double scale) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+            this.scale = scale;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public double sum() {
+            return sum;
+        }
+
+        public double max() {
+            return max;
+        }
+
+        public double mean() {
+            return count > 0 ? sum / count : 0;
+        }
+
+        /**
+         * Gets the value below which the given share of recorded values lie.
+         *
+         * @param quantile Share between 0 and 1
+         * @return The value, 0 if nothing was recorded
+         */
+        public double quantile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(midpointOf(i) * scale, max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package dev.flur.extrachunky.metrics;
+
+/**
+ * Configuration for exporting metrics.
+ * Metrics are always collected; this only controls where they go.
+ */
+public record MetricsConfig(
+        int port,
+        String bindAddress,
+        int dumpSeconds
+) {
+    /**
+     * Default metrics configuration (no HTTP endpoint, JSON dump every 60 seconds).
+     */
+    public static MetricsConfig defaults() {
+        return new MetricsConfig(
+                0,
+                "0.0.0.0",
+                60
+        );
+    }
+
+    /**
+     * Checks if the Prometheus endpoint is enabled.
+     */
+    public boolean isEndpointEnabled() {
+        return port > 0;
+    }
+
+    /**
+     * Checks if metrics are dumped to the data directory.
+     */
+    public boolean isDumpEnabled() {
+        return dumpSeconds > 0;
+    }
+
+    /**
+     * Creates a builder for MetricsConfig.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for MetricsConfig.
+     */
+    public static class Builder {
+        private int port = 0;
+        private String bindAddress = "0.0.0.0";
+        private int dumpSeconds = 60;
+
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder bindAddress(String bindAddress) {
+            this.bindAddress = bindAddress;
+            return this;
+        }
+
+        public Builder dumpSeconds(int dumpSeconds) {
+            this.dumpSeconds = dumpSeconds;
+            return this;
+        }
+
+        public MetricsConfig build() {
+            return new MetricsConfig(
+                    port < 0 || port > 65535 ? 0 : port,
+                    bindAddress == null || bindAddress.isBlank() ? "0.0.0.0" : bindAddress,
+                    Math.max(0, dumpSeconds)
+            );
+        }
+    }
+}
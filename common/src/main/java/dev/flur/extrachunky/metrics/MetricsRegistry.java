@@ -0,0 +1,212 @@
+package dev.flur.extrachunky.metrics;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Named metrics of this instance, exported in the Prometheus text format and as JSON.
+ * <p>
+ * Metrics are registered by name plus optional labels, given as name/value pairs. Asking for a
+ * counter or histogram that exists returns the same one, so components look theirs up once and keep
+ * them. Gauges and function counters read a value that is kept elsewhere anyway; registering one
+ * again replaces it, so a component that is recreated (e.g. a new host server) takes over its gauges.
+ * <p>
+ * Names follow Prometheus conventions: {@code extrachunky_} prefix, base units (seconds, bytes) and
+ * {@code _total} for counters.
+ */
+public class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private static final String[] QUANTILE_NAMES = {"p50", "p90", "p99"};
+
+    private enum Type {
+        COUNTER("counter"),
+        GAUGE("gauge"),
+        SUMMARY("summary");
+
+        final String prometheusName;
+
+        Type(String prometheusName) {
+            this.prometheusName = prometheusName;
+        }
+    }
+
+    /**
+     * All metrics of one name, by label text.
+     */
+    private record Family(String name, String help, Type type, Map<String, Labeled> metrics) {
+    }
+
+    /**
+     * A metric with its labels as name/value pairs.
+     */
+    private record Labeled(String[] labels, Object metric) {
+    }
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Gets or creates a counter.
+     *
+     * @param labels Label names and values, alternating
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, Type.COUNTER).metrics()
+                .computeIfAbsent(labelText(labels), key -> new Labeled(labels, new Counter())).metric();
+    }
+
+    /**
+     * Registers a counter whose value is kept elsewhere, e.g. a service's own statistics.
+     *
+     * @param labels Label names and values, alternating
+     */
+    public void counter(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, Type.COUNTER).metrics().put(labelText(labels), new Labeled(labels, value));
+    }
+
+    /**
+     * Registers a gauge, a value that goes up and down like a queue depth.
+     *
+     * @param labels Label names and values, alternating
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).metrics().put(labelText(labels), new Labeled(labels, value));
+    }
+
+    /**
+     * Gets or creates a histogram.
+     *
+     * @param scale  Factor turning recorded values into the metric's unit, e.g. 1e-6 for microseconds in seconds
+     * @param labels Label names and values, alternating
+     */
+    public Histogram histogram(String name, String help, double scale, String... labels) {
+        return (Histogram) family(name, help, Type.SUMMARY).metrics()
+                .computeIfAbsent(labelText(labels), key -> new Labeled(labels, new Histogram(scale))).metric();
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name,
+                key -> new Family(name, help, type, new ConcurrentSkipListMap<>()));
+        if (family.type() != type) {
+            throw new IllegalArgumentException("Metric " + name + " is a " + family.type().prometheusName);
+        }
+        return family;
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format (version 0.0.4).
+     */
+    public void writePrometheus(StringBuilder out) {
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name()).append(' ').append(escapeHelp(family.help())).append('\n');
+            out.append("# TYPE ").append(family.name()).append(' ').append(family.type().prometheusName).append('\n');
+            family.metrics().forEach((labels, labeled) -> {
+                if (labeled.metric() instanceof Histogram histogram) {
+                    Histogram.Snapshot snapshot = histogram.snapshot();
+                    for (double quantile : QUANTILES) {
+                        String quantileLabel = "quantile=\"" + quantile + "\"";
+                        sample(out, family.name(), labels.isEmpty() ? "{" + quantileLabel + "}"
+                                : labels.substring(0, labels.length() - 1) + "," + quantileLabel + "}",
+                                snapshot.quantile(quantile));
+                    }
+                    sample(out, family.name() + "_sum", labels, snapshot.sum());
+                    sample(out, family.name() + "_count", labels, snapshot.count());
+                } else {
+                    sample(out, family.name(), labels, valueOf(labeled.metric()));
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets all metrics as JSON: one object per metric with its name, labels and value, or for
+     * histograms count, sum, mean, quantiles and max.
+     */
+    public JsonArray toJson() {
+        JsonArray array = new JsonArray();
+        for (Family family : families.values()) {
+            for (Labeled labeled : family.metrics().values()) {
+                JsonObject entry = new JsonObject();
+                entry.addProperty("name", family.name());
+                entry.addProperty("type", family.type().prometheusName);
+                if (labeled.labels().length > 0) {
+                    JsonObject labels = new JsonObject();
+                    for (int i = 0; i < labeled.labels().length; i += 2) {
+                        labels.addProperty(labeled.labels()[i], labeled.labels()[i + 1]);
+                    }
+                    entry.add("labels", labels);
+                }
+                if (labeled.metric() instanceof Histogram histogram) {
+                    Histogram.Snapshot snapshot = histogram.snapshot();
+                    entry.addProperty("count", snapshot.count());
+                    entry.addProperty("sum", snapshot.sum());
+                    entry.addProperty("mean", snapshot.mean());
+                    for (int i = 0; i < QUANTILES.length; i++) {
+                        entry.addProperty(QUANTILE_NAMES[i], snapshot.quantile(QUANTILES[i]));
+                    }
+                    entry.addProperty("max", snapshot.max());
+                } else {
+                    entry.addProperty("value", valueOf(labeled.metric()));
+                }
+                array.add(entry);
+            }
+        }
+        return array;
+    }
+
+    private static double valueOf(Object metric) {
+        if (metric instanceof Counter counter) {
+            return counter.get();
+        }
+        if (metric instanceof LongSupplier supplier) {
+            return supplier.getAsLong();
+        }
+        return ((DoubleSupplier) metric).getAsDouble();
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ');
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Formats labels as {@code {name="value",...}}, or an empty string without labels.
+     */
+    private static String labelText(String... labels) {
+        if (labels.length == 0) {
+            return "";
+        }
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"").append(escapeLabel(labels[i + 1])).append('"');
+        }
+        return text.append('}').toString();
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+}
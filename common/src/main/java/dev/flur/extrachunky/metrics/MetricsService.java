@@ -0,0 +1,206 @@
+package dev.flur.extrachunky.metrics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.flur.extrachunky.platform.ExtraChunkyLogger;
+import dev.flur.extrachunky.platform.ExtraChunkyRuntime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Exports a {@link MetricsRegistry}: over HTTP at {@code /metrics} in the Prometheus text format, and
+ * as a JSON file in the data directory that is rewritten periodically.
+ * <p>
+ * The JSON dump adds the per-second rate of every counter since the previous dump, so throughput
+ * (compressed and uploaded bytes, regions, messages) can be read off without a Prometheus server.
+ */
+public class MetricsService {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final String DUMP_FILE = "metrics.json";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final ExtraChunkyLogger logger;
+    private final MetricsRegistry registry;
+    private final MetricsConfig config;
+    private final Path dumpPath;
+
+    private HttpServer httpServer;
+    private ExecutorService httpExecutor;
+    private Thread dumpThread;
+    private volatile boolean running = false;
+
+    // Counter values of the previous dump, for rates
+    private final Map<String, Double> previousCounters = new HashMap<>();
+    private long previousDumpMillis = 0;
+
+    /**
+     * Creates a metrics service.
+     *
+     * @param logger        Logger for status messages
+     * @param registry      Metrics to export
+     * @param config        Where to export them
+     * @param dataDirectory Plugin data directory, for the JSON dump
+     */
+    public MetricsService(ExtraChunkyLogger logger, MetricsRegistry registry, MetricsConfig config, Path dataDirectory) {
+        this.logger = logger;
+        this.registry = registry;
+        this.config = config;
+        this.dumpPath = dataDirectory.resolve(DUMP_FILE);
+    }
+
+    /**
+     * Starts the HTTP endpoint and the dump, whichever are enabled.
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+
+        if (config.isEndpointEnabled()) {
+            try {
+                httpServer = HttpServer.create(new InetSocketAddress(config.bindAddress(), config.port()), 0);
+                httpExecutor = ExtraChunkyRuntime.newVirtualExecutor("ExtraChunky-Metrics-");
+                httpServer.setExecutor(httpExecutor);
+                httpServer.createContext("/metrics", this::handleScrape);
+                httpServer.start();
+                logger.info("Metrics endpoint listening on http://" + config.bindAddress() + ":" + config.port() + "/metrics");
+            } catch (IOException | RuntimeException e) {
+                logger.warning("Failed to start metrics endpoint on port " + config.port() + ": " + e.getMessage());
+                stopHttpServer();
+            }
+        }
+
+        if (config.isDumpEnabled()) {
+            dumpThread = Thread.ofVirtual().name("ExtraChunky-Metrics-Dump").start(this::dumpLoop);
+        }
+    }
+
+    /**
+     * Stops exporting. The dump is written one last time.
+     */
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        stopHttpServer();
+        if (dumpThread != null) {
+            dumpThread.interrupt();
+            dumpThread = null;
+            dump();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Gets the port of the HTTP endpoint, 0 if it is not running.
+     */
+    public int getPort() {
+        return httpServer != null ? httpServer.getAddress().getPort() : 0;
+    }
+
+    private void stopHttpServer() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+        if (httpExecutor != null) {
+            httpExecutor.shutdownNow();
+            httpExecutor = null;
+        }
+    }
+
+    private void handleScrape(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            StringBuilder text = new StringBuilder(4096);
+            registry.writePrometheus(text);
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private void dumpLoop() {
+        while (running) {
+            try {
+                Thread.sleep(config.dumpSeconds() * 1000L);
+            } catch (InterruptedException e) {
+                return;
+            }
+            dump();
+        }
+    }
+
+    /**
+     * Writes all metrics to the dump file, replacing it through a temporary file.
+     */
+    private synchronized void dump() {
+        long now = System.currentTimeMillis();
+        JsonArray metrics = registry.toJson();
+        double elapsedSeconds = previousDumpMillis > 0 ? (now - previousDumpMillis) / 1000.0 : 0;
+        for (JsonElement element : metrics) {
+            JsonObject metric = element.getAsJsonObject();
+            if (!metric.get("type").getAsString().equals("counter")) {
+                continue;
+            }
+            String key = metric.get("name").getAsString() + metric.get("labels");
+            double value = metric.get("value").getAsDouble();
+            Double previous = previousCounters.put(key, value);
+            if (previous != null && elapsedSeconds > 0) {
+                metric.addProperty("perSecond", Math.max(0, value - previous) / elapsedSeconds);
+            }
+        }
+        previousDumpMillis = now;
+
+        JsonObject root = new JsonObject();
+        root.addProperty("timestamp", now);
+        root.add("metrics", metrics);
+
+        Path temp = dumpPath.resolveSibling(DUMP_FILE + ".tmp");
+        try {
+            Files.createDirectories(dumpPath.getParent());
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                GSON.toJson(root, writer);
+            }
+            try {
+                Files.move(temp, dumpPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, dumpPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to write metrics dump: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package dev.flur.extrachunky.network;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running generation totals across all instances.
+ * <p>
+ * Each instance reports through its own {@link Contribution}, which adds only the difference to its
+ * previous report, so the totals are always current without walking the workers. Reads never lock.
+ */
+public class ClusterProgress {
+    private final LongAdder chunksGenerated = new LongAdder();
+    private final LongAdder totalChunks = new LongAdder();
+    private final DoubleAdder chunksPerSecond = new DoubleAdder();
+
+    /**
+     * One instance's share of the totals.
+     */
+    public final class Contribution {
+        private long chunksGenerated;
+        private long totalChunks;
+        private double chunksPerSecond;
+        private boolean retracted;
+
+        private Contribution() {
+        }
+
+        /**
+         * Replaces the instance's numbers with a new report. Ignored once retracted.
+         */
+        public synchronized void update(long chunksGenerated, long totalChunks, double chunksPerSecond) {
+            if (retracted) {
+                return;
+            }
+            ClusterProgress.this.chunksGenerated.add(chunksGenerated - this.chunksGenerated);
+            ClusterProgress.this.totalChunks.add(totalChunks - this.totalChunks);
+            ClusterProgress.this.chunksPerSecond.add(chunksPerSecond - this.chunksPerSecond);
+            this.chunksGenerated = chunksGenerated;
+            this.totalChunks = totalChunks;
+            this.chunksPerSecond = chunksPerSecond;
+        }
+
+        /**
+         * Takes the instance's numbers out of the totals for good, when it leaves.
+         */
+        public synchronized void retract() {
+            update(0, 0, 0);
+            retracted = true;
+        }
+    }
+
+    /**
+     * Creates the share of an instance joining the totals.
+     */
+    public Contribution newContribution() {
+        return new Contribution();
+    }
+
+    public long getChunksGenerated() {
+        return chunksGenerated.sum();
+    }
+
+    public long getTotalChunks() {
+        return totalChunks.sum();
+    }
+
+    public float getChunksPerSecond() {
+        // Rate differences do not cancel out exactly in floating point
+        return (float) Math.max(0, chunksPerSecond.sum());
+    }
+
+    public float getPercentComplete() {
+        long total = getTotalChunks();
+        return total > 0 ? (float) getChunksGenerated() / total * 100f : 0f;
+    }
+}
@@ -0,0 +1,125 @@
+package dev.flur.extrachunky.network;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import dev.flur.extrachunky.platform.ExtraChunkyLogger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Journal of where every instance stands in the host's job queue.
+ * <p>
+ * The queue itself only holds job definitions. The journal adds how each handed-out job was split,
+ * which worker session is on which job and whether it finished its share, which shares of workers
+ * that did not come back are still to be taken over, and which regions are done,
+ * so a restarted host can re-adopt workers as they reconnect and carry on instead of starting the
+ * queue over.
+ * It is rewritten as a whole on every change (region reports at most once a second), through a
+ * temporary file, so a crash leaves either the old or the new state on disk.
+ */
+public class HostJournal {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final String JOURNAL_FILE = "host-journal.json";
+
+    private final Path journalPath;
+    private final ExtraChunkyLogger logger;
+
+    /**
+     * A worker's place in the queue.
+     *
+     * @param sessionId  ID the worker presents on every connection, across reconnects
+     * @param assignedId Worker ID the host gave it
+     * @param hostname   Worker's hostname
+     * @param jobId      ID of the job last handed to it, 0 if none
+     * @param jobRunning Whether it is still generating its share of that job
+     */
+    public record Session(String sessionId, int assignedId, String hostname, int jobId, boolean jobRunning) {
+    }
+
+    /**
+     * One instance's share of a job.
+     *
+     * @param jobId      ID of the job
+     * @param instanceId Instance ID the share was handed out as
+     */
+    public record Share(int jobId, int instanceId) {
+    }
+
+    /**
+     * The host's coordination state.
+     *
+     * @param generationActive Whether jobs are being handed out
+     * @param nextWorkerId     Next worker ID to give out
+     * @param jobInstances     Instances each handed-out job is split into, by job ID
+     * @param jobWorkers       Worker IDs each handed-out job is split between, in instance order, by job ID
+     * @param hostJobId        Job the host's own share is on (if it participates)
+     * @param hostJobRunning   Whether the host is still generating its share of that job
+     * @param sessions         Worker sessions, connected or not
+     * @param orphanedShares   Shares of workers that did not come back, still to be taken over
+     * @param regionsDone      Regions reported done, by job ID, encoded with {@link RegionIdCodec}
+     */
+    public record Snapshot(boolean generationActive, int nextWorkerId, Map<Integer, Integer> jobInstances,
+                           Map<Integer, List<Integer>> jobWorkers, int hostJobId, boolean hostJobRunning,
+                           List<Session> sessions, List<Share> orphanedShares, Map<Integer, String> regionsDone) {
+    }
+
+    /**
+     * Creates a journal.
+     *
+     * @param dataDirectory Plugin data directory
+     * @param logger        Logger for status messages
+     */
+    public HostJournal(Path dataDirectory, ExtraChunkyLogger logger) {
+        this.journalPath = dataDirectory.resolve(JOURNAL_FILE);
+        this.logger = logger;
+    }
+
+    /**
+     * Loads the journal from disk.
+     *
+     * @return The journaled state, or null if there is none
+     */
+    public synchronized Snapshot load() {
+        if (!Files.exists(journalPath)) {
+            return null;
+        }
+
+        try (Reader reader = Files.newBufferedReader(journalPath)) {
+            Snapshot snapshot = GSON.fromJson(reader, Snapshot.class);
+            if (snapshot != null && snapshot.jobInstances() != null && snapshot.sessions() != null) {
+                return snapshot;
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Failed to load host journal: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Replaces the journal on disk.
+     */
+    public synchronized void save(Snapshot snapshot) {
+        Path temp = journalPath.resolveSibling(JOURNAL_FILE + ".tmp");
+        try {
+            Files.createDirectories(journalPath.getParent());
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                GSON.toJson(snapshot, writer);
+            }
+            try {
+                Files.move(temp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, journalPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to save host journal: " + e.getMessage());
+        }
+    }
+}
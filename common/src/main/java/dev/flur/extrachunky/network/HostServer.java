@@ -1,8 +1,11 @@
 package dev.flur.extrachunky.network;
 
+import dev.flur.extrachunky.GenerationJob;
+import dev.flur.extrachunky.metrics.Counter;
+import dev.flur.extrachunky.metrics.MetricsRegistry;
 import dev.flur.extrachunky.platform.ExtraChunkyConfig;
 import dev.flur.extrachunky.platform.ExtraChunkyLogger;
-import org.popcraft.chunky.Selection;
+import dev.flur.extrachunky.platform.ExtraChunkyRuntime;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -10,23 +13,45 @@ import java.io.InputStreamReader;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Host server that accepts worker connections and coordinates chunk generation.
  * Manages worker registration, assignment distribution, and progress aggregation.
+ * <p>
+ * Jobs are queued and handed out in order. Each worker moves on to the next job as soon as it
+ * finished its share of the previous one, so the fleet keeps generating while earlier jobs'
+ * uploads drain. A job leaves the queue once every instance finished it.
+ * <p>
+ * Where every instance stands is kept in a {@link HostJournal}. Workers register with a session ID
+ * they keep across reconnects; a worker that drops out keeps its place for a while, and a restarted
+ * host loads the journal and re-adopts workers as they come back, so the queue carries on where it was.
+ * The split of a job is fixed when it is first handed out. Shares of a worker that does not come back
+ * in time are taken over by instances that finished their own share of the job, so every region
+ * still gets generated and nobody else's share moves.
+ * <p>
+ * Workers report regions as they finish them, which the host collects per job in a {@link RegionCoverage}.
+ * Shares handed out carry the regions done so far, so a takeover only generates what the earlier owner left.
+ * <p>
+ * Progress reports are added to running {@link ClusterProgress} totals as they arrive. The per-worker
+ * view is rebuilt once a second and published as an immutable snapshot, so status queries cost nothing.
  */
 public class HostServer {
     private static final int SOCKET_TIMEOUT_MS = 1000;
     private static final long STALE_THRESHOLD_MS = 60_000;
+    private static final long SESSION_GRACE_MS = 10 * 60_000;
 
     private final ExtraChunkyLogger logger;
     private final ExtraChunkyConfig config;
+    private final JobQueue jobQueue;
+    private final HostJournal journal;
     private final int port;
 
     private final Map<Integer, WorkerConnection> workers = new ConcurrentHashMap<>();
@@ -37,8 +62,35 @@ public class HostServer {
     private volatile boolean running = false;
     private volatile boolean generationActive = false;
 
-    // Current selection for generation (set when starting)
-    private volatile Selection currentSelection;
+    // Port of the native transfer channel advertised to workers (0 if not running)
+    private volatile int dataPort = 0;
+
+    // Instances each handed-out job is split into, fixed when the job is first handed out
+    private final Map<Integer, Integer> jobInstances = new ConcurrentHashMap<>();
+    // Worker IDs each handed-out job is split between, in instance order, fixed along with the instances
+    private final Map<Integer, List<Integer>> jobWorkers = new ConcurrentHashMap<>();
+
+    // Shares of workers that did not come back, oldest job first, until an idle instance takes them over
+    private final List<HostJournal.Share> orphanedShares = new ArrayList<>();
+    // Shares being generated by the workers that took them over, by worker ID
+    private final Map<Integer, HostJournal.Share> takeovers = new ConcurrentHashMap<>();
+
+    // Sessions of workers that dropped out (or were connected before a restart) and may come back
+    private final Map<String, AbsentSession> absentSessions = new ConcurrentHashMap<>();
+
+    private record AbsentSession(HostJournal.Session session, long deadline) {
+    }
+
+    // Regions done per job, across all instances
+    private final Map<Integer, RegionCoverage> coverage = new ConcurrentHashMap<>();
+    // Region reports are frequent, so they are journaled on the next tick of the expiry loop
+    private volatile boolean journalDirty = false;
+
+    // Host's own place in the job queue (if participating as worker 0)
+    private volatile int hostJobId = 0;
+    private volatile boolean hostJobRunning = false;
+    private volatile HostJournal.Share hostTakeover = null;
+    private Consumer<WorkerClient.ChunkAssignment> localStartHandler = assignment -> {};
 
     // Host's own progress (if participating as worker 0)
     private volatile long hostChunksGenerated = 0;
@@ -46,13 +98,64 @@ public class HostServer {
     private volatile float hostPercentComplete = 0;
     private volatile float hostChunksPerSecond = 0;
     private volatile long hostLastUpdate = 0;
+    private volatile float hostGovernorDuty = 1;
+    private volatile String hostGovernorReason = null;
+
+    private final ClusterProgress clusterProgress = new ClusterProgress();
+    private final ClusterProgress.Contribution hostProgress = clusterProgress.newContribution();
 
-    public HostServer(ExtraChunkyLogger logger, ExtraChunkyConfig config) {
+    // Metrics, if set
+    private MessageMetrics messageMetrics = MessageMetrics.NONE;
+    private Counter registrations;
+    private Counter readoptions;
+    private Counter disconnects;
+    private Counter regionsReported;
+    private volatile AggregatedProgress progressSnapshot =
+            new AggregatedProgress(0, 0, 0, 0, 0, List.of(), 0);
+
+    public HostServer(ExtraChunkyLogger logger, ExtraChunkyConfig config, JobQueue jobQueue, HostJournal journal) {
         this.logger = logger;
         this.config = config;
+        this.jobQueue = jobQueue;
+        this.journal = journal;
         this.port = config.getHostPort();
     }
 
+    /**
+     * Sets the handler called when the host's own share of a job should start. Called from network threads.
+     */
+    public void setLocalStartHandler(Consumer<WorkerClient.ChunkAssignment> handler) {
+        this.localStartHandler = handler;
+    }
+
+    /**
+     * Sets the registry to record cluster progress, workers, the job queue and message counts in.
+     * Call before {@link #start()}.
+     */
+    public void setMetrics(MetricsRegistry registry) {
+        this.messageMetrics = new MessageMetrics(registry);
+        this.registrations = registry.counter("extrachunky_worker_registrations_total",
+                "Workers that registered as new instances");
+        this.readoptions = registry.counter("extrachunky_worker_readoptions_total",
+                "Workers that reconnected and were put back at their place in the queue");
+        this.disconnects = registry.counter("extrachunky_worker_disconnects_total",
+                "Worker connections that were lost or closed");
+        this.regionsReported = registry.counter("extrachunky_regions_reported_total",
+                "Regions reported done for the first time, across all instances");
+
+        registry.gauge("extrachunky_workers", "Worker sessions by state",
+                workers::size, "state", "connected");
+        registry.gauge("extrachunky_workers", "Worker sessions by state",
+                absentSessions::size, "state", "absent");
+        registry.gauge("extrachunky_job_queue_depth", "Jobs queued or in progress", jobQueue::size);
+        registry.gauge("extrachunky_cluster_chunks_generated", "Chunks generated across all instances",
+                clusterProgress::getChunksGenerated);
+        registry.gauge("extrachunky_cluster_chunks", "Chunks to generate across all instances",
+                clusterProgress::getTotalChunks);
+        registry.gauge("extrachunky_cluster_chunks_per_second", "Generation speed across all instances",
+                clusterProgress::getChunksPerSecond);
+    }
+
     /**
      * Starts the host server.
      */
@@ -65,11 +168,17 @@ public class HostServer {
             serverSocket = new ServerSocket(port);
             serverSocket.setSoTimeout(SOCKET_TIMEOUT_MS);
             running = true;
-            executorService = Executors.newCachedThreadPool();
+            executorService = ExtraChunkyRuntime.newVirtualExecutor("ExtraChunky-Host-");
 
             executorService.submit(this::acceptLoop);
+            executorService.submit(this::housekeepingLoop);
 
             logger.info("Host server started on port " + port);
+            jobQueue.load();
+            if (!restoreJournal() && !jobQueue.isEmpty()) {
+                logger.info(jobQueue.size() + " unfinished job(s) queued, they resume with the next /extrachunky start");
+            }
+            publishProgress();
         } catch (IOException e) {
             logger.severe("Failed to start host server on port " + port, e);
         }
@@ -125,6 +234,102 @@ public class HostServer {
         }
     }
 
+    private void housekeepingLoop() {
+        while (running) {
+            try {
+                Thread.sleep(SOCKET_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            expireAbsentSessions();
+            if (journalDirty) {
+                saveJournal();
+            }
+            publishProgress();
+        }
+    }
+
+    /**
+     * Picks up where the journal left off, if jobs were being handed out when the host went down.
+     * Journaled workers count as absent until they reconnect.
+     *
+     * @return true if generation resumed
+     */
+    private synchronized boolean restoreJournal() {
+        HostJournal.Snapshot snapshot = journal.load();
+        if (snapshot == null || !snapshot.generationActive() || jobQueue.isEmpty()) {
+            return false;
+        }
+
+        long deadline = System.currentTimeMillis() + SESSION_GRACE_MS;
+        nextWorkerId.set(Math.max(nextWorkerId.get(), snapshot.nextWorkerId()));
+        snapshot.jobInstances().forEach((jobId, instances) -> {
+            if (jobQueue.get(jobId) != null) {
+                jobInstances.put(jobId, instances);
+            }
+        });
+        if (snapshot.jobWorkers() != null) {
+            snapshot.jobWorkers().forEach((jobId, workerIds) -> {
+                if (jobQueue.get(jobId) != null) {
+                    jobWorkers.put(jobId, List.copyOf(workerIds));
+                }
+            });
+        }
+        if (snapshot.orphanedShares() != null) {
+            for (HostJournal.Share share : snapshot.orphanedShares()) {
+                if (jobQueue.get(share.jobId()) != null) {
+                    orphanedShares.add(share);
+                }
+            }
+        }
+        for (HostJournal.Session session : snapshot.sessions()) {
+            absentSessions.put(session.sessionId(), new AbsentSession(session, deadline));
+        }
+        if (snapshot.regionsDone() != null) {
+            snapshot.regionsDone().forEach((jobId, regions) -> {
+                RegionCoverage jobCoverage = getCoverage(jobId);
+                if (jobCoverage != null) {
+                    jobCoverage.add(RegionIdCodec.decode(regions));
+                }
+            });
+        }
+        // The host's own generation did not survive the restart, so its share is handed out again
+        hostJobId = snapshot.hostJobRunning() ? jobQueue.previousId(snapshot.hostJobId()) : snapshot.hostJobId();
+        hostJobRunning = false;
+        generationActive = true;
+
+        logger.info("Resuming " + jobQueue.size() + " queued job(s), waiting for " + absentSessions.size() +
+                " worker(s) to reconnect");
+        dispatchIdle();
+        return true;
+    }
+
+    /**
+     * Gives up on workers that did not come back in time. Their unfinished shares are handed to the
+     * remaining instances.
+     */
+    private synchronized void expireAbsentSessions() {
+        long now = System.currentTimeMillis();
+        boolean expired = false;
+        for (Iterator<AbsentSession> it = absentSessions.values().iterator(); it.hasNext(); ) {
+            AbsentSession absent = it.next();
+            if (now < absent.deadline()) {
+                continue;
+            }
+            it.remove();
+            expired = true;
+            HostJournal.Session session = absent.session();
+            int orphaned = orphanShares(session.assignedId(), session.jobId(), session.jobRunning());
+            logger.warning("Worker " + session.assignedId() + " (" + session.hostname() + ") did not reconnect" +
+                    (orphaned > 0 ? ", " + orphaned + " unfinished share(s) are handed to the remaining instances" : ""));
+        }
+        if (expired) {
+            dispatchIdle();
+            retireFinishedJobs();
+            saveJournal();
+        }
+    }
+
     private void handleNewConnection(Socket clientSocket) {
         try {
             // Read the first message (should be REGISTER)
@@ -142,26 +347,60 @@ public class HostServer {
                 clientSocket.close();
                 return;
             }
+            messageMetrics.received(NetworkMessage.Type.REGISTER);
 
             String hostname = message.getString("hostname");
-            int assignedId = nextWorkerId.getAndIncrement();
+            String sessionId = message.getString("session");
+            WorkerConnection connection;
+            HostJournal.Session session;
+            synchronized (this) {
+                session = takeSession(sessionId);
+                int assignedId = session != null ? session.assignedId() : nextWorkerId.getAndIncrement();
 
-            WorkerConnection connection = new WorkerConnection(clientSocket, logger, assignedId, hostname);
-            connection.setDisconnectHandler(() -> handleWorkerDisconnect(assignedId));
+                connection = new WorkerConnection(clientSocket, reader, logger, assignedId, hostname, sessionId);
+                connection.setDisconnectHandler(() -> handleWorkerDisconnect(assignedId));
+                connection.setProgressContribution(clusterProgress.newContribution());
+                connection.setMessageMetrics(messageMetrics);
+                connection.setMessageHandler(msg -> {
+                    switch (msg.getType()) {
+                        case REGIONS_COMPLETE -> recordRegionsComplete(msg.getInt("jobId"), msg.getRegionIds());
+                        case GENERATION_COMPLETE -> onWorkerJobComplete(connection, msg.getInt("jobId"));
+                        default -> {}
+                    }
+                });
+                if (session != null) {
+                    resumeSession(connection, session, message.getInt("jobId"), message.getInt("completedJobId"));
+                } else if (generationActive) {
+                    // Jobs already handed out were split without this worker
+                    connection.skipToJob(getLastHandedOutJobId());
+                }
 
-            workers.put(assignedId, connection);
+                workers.put(assignedId, connection);
+            }
             connection.start();
+            Counter registered = session != null ? readoptions : registrations;
+            if (registered != null) {
+                registered.increment();
+            }
 
-            logger.info("Worker registered: ID=" + assignedId + ", hostname=" + hostname +
+            logger.info((session != null ? "Worker re-adopted: ID=" : "Worker registered: ID=") +
+                    connection.getAssignedId() + ", hostname=" + hostname +
                     ", address=" + clientSocket.getInetAddress().getHostAddress());
 
             // Send REGISTERED response
             int totalWorkers = getTotalWorkerCount();
-            connection.send(NetworkMessage.registered(assignedId, totalWorkers));
+            connection.send(NetworkMessage.registered(connection.getAssignedId(), totalWorkers, dataPort, connection.getDataToken()));
 
             // Send assignment and redistribute to all workers
             redistributeAssignments();
 
+            // Pick up jobs queued after the ones in progress
+            if (generationActive) {
+                dispatchIdle();
+                retireFinishedJobs();
+            }
+            saveJournal();
+
         } catch (IOException e) {
             logger.warning("Error handling new connection");
             try {
@@ -172,21 +411,154 @@ public class HostServer {
         }
     }
 
-    private void handleWorkerDisconnect(int workerId) {
+    private synchronized void handleWorkerDisconnect(int workerId) {
         WorkerConnection removed = workers.remove(workerId);
         if (removed != null) {
             logger.info("Worker disconnected: ID=" + workerId + ", hostname=" + removed.getHostname());
+            if (disconnects != null) {
+                disconnects.increment();
+            }
+            HostJournal.Share takeover = takeovers.remove(workerId);
+            if (takeover != null) {
+                // A share it took over is handed out again rather than waiting for it
+                addOrphanedShare(takeover);
+            }
+            if (generationActive && removed.getSessionId() != null) {
+                // Keep its place in the queue, it may reconnect
+                absentSessions.put(removed.getSessionId(),
+                        new AbsentSession(sessionOf(removed), System.currentTimeMillis() + SESSION_GRACE_MS));
+            } else if (generationActive) {
+                // Without a session it cannot come back, so its shares are handed out right away
+                orphanShares(workerId, removed.getJobId(), removed.isJobRunning());
+            }
             redistributeAssignments();
+            dispatchIdle();
+            retireFinishedJobs();
+            saveJournal();
         }
     }
 
+    /**
+     * Takes over the place of a worker session that registers again.
+     *
+     * @return The session's last known state, or null if the session is unknown
+     */
+    private HostJournal.Session takeSession(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        for (WorkerConnection worker : workers.values()) {
+            if (sessionId.equals(worker.getSessionId())) {
+                // Reconnected before the old connection was noticed to be dead
+                workers.remove(worker.getAssignedId());
+                worker.close();
+                return sessionOf(worker);
+            }
+        }
+        AbsentSession absent = absentSessions.remove(sessionId);
+        return absent != null ? absent.session() : null;
+    }
+
+    /**
+     * Puts a re-adopted worker back at its place in the queue, reconciled with what it reports.
+     *
+     * @param reportedJobId  Job of the worker's current assignment
+     * @param completedJobId Last job the worker finished its share of
+     */
+    private void resumeSession(WorkerConnection connection, HostJournal.Session session,
+                               int reportedJobId, int completedJobId) {
+        if (!session.jobRunning() || completedJobId >= session.jobId()) {
+            if (session.jobRunning()) {
+                logger.info("Worker " + session.assignedId() + " finished job #" + session.jobId() + " while away");
+            }
+            connection.skipToJob(session.jobId());
+        } else if (reportedJobId == session.jobId()) {
+            // Still generating its share
+            connection.startJob(session.jobId());
+        } else {
+            // The assignment never reached it, hand the job out again
+            connection.skipToJob(jobQueue.previousId(session.jobId()));
+        }
+    }
+
+    private static HostJournal.Session sessionOf(WorkerConnection worker) {
+        return new HostJournal.Session(worker.getSessionId(), worker.getAssignedId(), worker.getHostname(),
+                worker.getJobId(), worker.isJobRunning());
+    }
+
+    /**
+     * Writes where every instance stands to the journal.
+     */
+    private synchronized void saveJournal() {
+        List<HostJournal.Session> sessions = new ArrayList<>();
+        for (WorkerConnection worker : workers.values()) {
+            if (worker.getSessionId() != null) {
+                sessions.add(sessionOf(worker));
+            }
+        }
+        for (AbsentSession absent : absentSessions.values()) {
+            sessions.add(absent.session());
+        }
+        // Shares being taken over are not journaled per instance, so after a restart they are handed out again
+        List<HostJournal.Share> orphaned = new ArrayList<>(orphanedShares);
+        orphaned.addAll(takeovers.values());
+        if (hostTakeover != null) {
+            orphaned.add(hostTakeover);
+        }
+        orphaned.sort(Comparator.comparingInt(HostJournal.Share::jobId));
+        Map<Integer, String> regionsDone = new TreeMap<>();
+        coverage.forEach((jobId, jobCoverage) -> regionsDone.put(jobId, RegionIdCodec.encode(jobCoverage.getDoneRegions())));
+        journalDirty = false;
+        journal.save(new HostJournal.Snapshot(generationActive, nextWorkerId.get(), new TreeMap<>(jobInstances),
+                new TreeMap<>(jobWorkers), hostJobId, hostJobRunning, sessions, orphaned, regionsDone));
+    }
+
+    /**
+     * Records regions of a job that an instance finished generating.
+     *
+     * @param jobId     ID of the job
+     * @param regionIds Job region IDs of the finished regions
+     */
+    public void recordRegionsComplete(int jobId, long[] regionIds) {
+        RegionCoverage jobCoverage = getCoverage(jobId);
+        int added = jobCoverage != null ? jobCoverage.add(regionIds) : 0;
+        if (added > 0) {
+            journalDirty = true;
+            if (regionsReported != null) {
+                regionsReported.add(added);
+            }
+        }
+    }
+
+    /**
+     * Gets which regions of a queued job are done.
+     *
+     * @return The coverage, or null if the job is not queued
+     */
+    public RegionCoverage getCoverage(int jobId) {
+        return coverage.computeIfAbsent(jobId, id -> {
+            JobQueue.QueuedJob queued = jobQueue.get(id);
+            return queued != null ? new RegionCoverage(queued.job()) : null;
+        });
+    }
+
+    /**
+     * Gets the regions of a job reported done so far. Shares handed out carry them, so a share
+     * taken over or split anew does not generate those regions again.
+     */
+    private long[] getDoneRegions(int jobId) {
+        RegionCoverage jobCoverage = getCoverage(jobId);
+        return jobCoverage != null ? jobCoverage.getDoneRegions() : new long[0];
+    }
+
     /**
      * Redistributes chunk assignments to all connected workers.
-     * Called when workers join or leave, but only if we have a selection set.
+     * Called when workers join or leave, but only while jobs are handed out.
+     * Each worker is sent its assignment for the job it is working on.
      */
     public void redistributeAssignments() {
-        // Only redistribute if we have a selection (set when generation starts)
-        if (currentSelection == null) {
+        // Only redistribute if jobs are handed out (set when generation starts)
+        if (!generationActive) {
             logger.info("Workers connected: " + workers.size() + " (assignments will be sent when generation starts)");
             return;
         }
@@ -196,25 +568,18 @@ public class HostServer {
             return;
         }
 
-        NetworkMessage.Type assignmentType = generationActive ?
-                NetworkMessage.Type.REASSIGN : NetworkMessage.Type.ASSIGNMENT;
-
-        // If host participates, it gets instance ID 0
-        int instanceOffset = config.isHostParticipates() ? 1 : 0;
-
-        String world = currentSelection.world().getName();
-        double centerX = currentSelection.centerX();
-        double centerZ = currentSelection.centerZ();
-        double radius = currentSelection.radiusX();
-        String shape = currentSelection.shape();
-
         // Send assignment to each worker
         for (WorkerConnection worker : workers.values()) {
-            int instanceId = instanceOffset + getWorkerInstanceIndex(worker.getAssignedId());
-            NetworkMessage assignment = assignmentType == NetworkMessage.Type.ASSIGNMENT ?
-                    NetworkMessage.assignment(instanceId, totalWorkers, world, centerX, centerZ, radius, shape) :
-                    NetworkMessage.reassign(instanceId, totalWorkers, world, centerX, centerZ, radius, shape);
-            worker.send(assignment);
+            JobQueue.QueuedJob queued = jobQueue.get(worker.getJobId());
+            if (queued == null || !worker.isJobRunning()) {
+                continue;
+            }
+            int instanceId = getWorkerInstanceId(worker.getAssignedId(), queued.id());
+            if (instanceId < 0) {
+                continue;
+            }
+            worker.send(NetworkMessage.reassign(instanceId, getJobInstances(queued.id()), queued.id(), queued.job(),
+                    getDoneRegions(queued.id())));
         }
 
         logger.info("Redistributed assignments: " + totalWorkers + " total workers" +
@@ -222,63 +587,337 @@ public class HostServer {
     }
 
     /**
-     * Gets the instance index for a worker based on the current worker list.
-     * Workers are indexed by their position in the sorted worker ID list.
+     * Queues a job. If nothing is generating, it is handed to every instance right away; otherwise
+     * each instance picks it up as soon as it finished its share of the jobs queued before it.
+     *
+     * @param job The worlds and areas to generate
+     * @return The queued job
      */
-    private int getWorkerInstanceIndex(int workerId) {
-        List<Integer> sortedIds = new ArrayList<>(workers.keySet());
-        Collections.sort(sortedIds);
-        return sortedIds.indexOf(workerId);
+    public synchronized JobQueue.QueuedJob enqueue(GenerationJob job) {
+        JobQueue.QueuedJob queued = jobQueue.add(job);
+        logger.info("Queued job #" + queued.id() + ": " + job);
+
+        if (!generationActive) {
+            // Start over from the oldest unfinished job, which may be left from before a restart.
+            // Workers may have come and gone while nothing ran, so unfinished jobs are split again
+            // between the instances there are now rather than keeping shares nobody would generate
+            generationActive = true;
+            for (WorkerConnection worker : workers.values()) {
+                worker.skipToJob(0);
+            }
+            absentSessions.clear();
+            clearTakeovers();
+            jobInstances.clear();
+            jobWorkers.clear();
+            hostJobId = 0;
+            hostJobRunning = false;
+        }
+        dispatchIdle();
+        saveJournal();
+        return queued;
     }
 
     /**
-     * Gets the total number of workers including the host if it participates.
+     * Records that the host's own share of a job finished and moves it on to the next job.
+     *
+     * @param jobId ID of the finished job
      */
-    public int getTotalWorkerCount() {
-        int count = workers.size();
-        if (config.isHostParticipates()) {
-            count++;
+    public synchronized void completeHostJob(int jobId) {
+        if (hostTakeover != null && hostTakeover.jobId() == jobId) {
+            logger.info("Host finished the share of job #" + jobId + " it took over");
+            hostTakeover = null;
+        } else if (jobId == hostJobId) {
+            hostJobRunning = false;
+        } else {
+            return;
         }
-        return count;
+        dispatchIdle();
+        retireFinishedJobs();
+        saveJournal();
+    }
+
+    private synchronized void onWorkerJobComplete(WorkerConnection worker, int jobId) {
+        HostJournal.Share takeover = takeovers.get(worker.getAssignedId());
+        if (takeover != null && takeover.jobId() == jobId) {
+            takeovers.remove(worker.getAssignedId());
+            logger.info("Worker " + worker.getAssignedId() + " finished the share of job #" + jobId + " it took over");
+        } else {
+            logger.info("Worker " + worker.getAssignedId() + " finished job #" + jobId);
+        }
+        dispatchIdle();
+        retireFinishedJobs();
+        saveJournal();
     }
 
     /**
-     * Gets the host's instance ID (0 if participating, -1 if not).
+     * Hands every instance that is not generating a share to take over, or else the next job it has
+     * not done yet. Shares are only taken over of jobs the instance finished its own share of, so it
+     * keeps its place in the queue.
      */
-    public int getHostInstanceId() {
-        return config.isHostParticipates() ? 0 : -1;
+    private synchronized void dispatchIdle() {
+        if (!generationActive) {
+            return;
+        }
+
+        int started = 0;
+        for (WorkerConnection worker : workers.values()) {
+            if (worker.isJobRunning() || takeovers.containsKey(worker.getAssignedId())) {
+                continue;
+            }
+            HostJournal.Share orphaned = takeOrphanedShare(worker.getJobId());
+            if (orphaned != null) {
+                takeovers.put(worker.getAssignedId(), orphaned);
+                worker.send(NetworkMessage.assignment(orphaned.instanceId(), getJobInstances(orphaned.jobId()),
+                        orphaned.jobId(), jobQueue.get(orphaned.jobId()).job(), getDoneRegions(orphaned.jobId())));
+                worker.send(NetworkMessage.start());
+                logger.info("Worker " + worker.getAssignedId() + " takes over instance " + orphaned.instanceId() +
+                        " of job #" + orphaned.jobId());
+                started++;
+                continue;
+            }
+            JobQueue.QueuedJob next = jobQueue.next(worker.getJobId());
+            if (next == null) {
+                continue;
+            }
+            int instances = getJobInstances(next.id());
+            int instanceId = getWorkerInstanceId(worker.getAssignedId(), next.id());
+            if (instanceId < 0) {
+                // Not part of the job's split, it takes part from the job after it
+                worker.skipToJob(next.id());
+                continue;
+            }
+            worker.startJob(next.id());
+            worker.send(NetworkMessage.assignment(instanceId, instances, next.id(), next.job(), getDoneRegions(next.id())));
+            worker.send(NetworkMessage.start());
+            started++;
+        }
+        if (started > 0) {
+            logger.info("Broadcast START to " + started + " workers");
+        }
+
+        if (config.isHostParticipates() && !hostJobRunning && hostTakeover == null) {
+            HostJournal.Share orphaned = takeOrphanedShare(hostJobId);
+            if (orphaned != null) {
+                hostTakeover = orphaned;
+                logger.info("Host takes over instance " + orphaned.instanceId() + " of job #" + orphaned.jobId());
+                localStartHandler.accept(new WorkerClient.ChunkAssignment(orphaned.instanceId(),
+                        getJobInstances(orphaned.jobId()), orphaned.jobId(), jobQueue.get(orphaned.jobId()).job(),
+                        getDoneRegions(orphaned.jobId())));
+                return;
+            }
+            JobQueue.QueuedJob next = jobQueue.next(hostJobId);
+            if (next != null) {
+                hostJobId = next.id();
+                hostJobRunning = true;
+                localStartHandler.accept(new WorkerClient.ChunkAssignment(0, getJobInstances(next.id()), next.id(),
+                        next.job(), getDoneRegions(next.id())));
+            }
+        }
     }
 
     /**
-     * Broadcasts START command to all workers with the given selection.
+     * Queues a gone worker's unfinished shares of the jobs handed out so far for the remaining
+     * instances to take over.
      *
-     * @param selection The Chunky selection to use for generation
+     * @param workerId   ID of the worker
+     * @param jobId      Job last handed to it
+     * @param jobRunning Whether it was still generating its share of that job
+     * @return How many shares were queued
      */
-    public void broadcastStart(Selection selection) {
-        this.currentSelection = selection;
-        generationActive = true;
+    private int orphanShares(int workerId, int jobId, boolean jobRunning) {
+        int orphaned = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : jobWorkers.entrySet()) {
+            int shareJobId = entry.getKey();
+            int index = entry.getValue().indexOf(workerId);
+            if (index < 0 || jobQueue.get(shareJobId) == null || jobId > shareJobId
+                    || (jobId == shareJobId && !jobRunning)) {
+                continue;
+            }
+            addOrphanedShare(new HostJournal.Share(shareJobId, getInstanceOffset() + index));
+            orphaned++;
+        }
+        return orphaned;
+    }
+
+    private void addOrphanedShare(HostJournal.Share share) {
+        orphanedShares.add(share);
+        orphanedShares.sort(Comparator.comparingInt(HostJournal.Share::jobId));
+    }
+
+    /**
+     * Takes the oldest orphaned share of a job up to the given one off the list.
+     *
+     * @param upToJobId Last job the instance finished its own share of
+     * @return The share, or null if there is none the instance may take
+     */
+    private HostJournal.Share takeOrphanedShare(int upToJobId) {
+        for (Iterator<HostJournal.Share> it = orphanedShares.iterator(); it.hasNext(); ) {
+            HostJournal.Share share = it.next();
+            if (share.jobId() > upToJobId) {
+                break;
+            }
+            it.remove();
+            if (jobQueue.get(share.jobId()) != null) {
+                return share;
+            }
+        }
+        return null;
+    }
+
+    private void clearTakeovers() {
+        orphanedShares.clear();
+        takeovers.clear();
+        hostTakeover = null;
+    }
+
+    /**
+     * Removes jobs from the head of the queue that every instance finished.
+     */
+    private synchronized void retireFinishedJobs() {
+        for (JobQueue.QueuedJob queued : jobQueue.getJobs()) {
+            if (!jobInstances.containsKey(queued.id()) || isJobHeld(queued.id())) {
+                break;
+            }
+            jobQueue.remove(queued.id());
+            jobInstances.remove(queued.id());
+            jobWorkers.remove(queued.id());
+            RegionCoverage jobCoverage = coverage.remove(queued.id());
+            logger.info("Job #" + queued.id() + " finished on all instances" + (jobCoverage != null
+                    ? " (" + jobCoverage.getCompleted() + "/" + jobCoverage.getTotal() + " regions reported done)" : ""));
+        }
+        if (generationActive && jobQueue.isEmpty()) {
+            generationActive = false;
+            absentSessions.clear();
+            clearTakeovers();
+            logger.info("All queued jobs finished");
+        }
+    }
+
+    /**
+     * Checks if an instance has yet to finish its share of a job.
+     */
+    private boolean isJobHeld(int jobId) {
+        for (HostJournal.Share share : orphanedShares) {
+            if (share.jobId() == jobId) {
+                return true;
+            }
+        }
+        for (HostJournal.Share share : takeovers.values()) {
+            if (share.jobId() == jobId) {
+                return true;
+            }
+        }
+        if (hostTakeover != null && hostTakeover.jobId() == jobId) {
+            return true;
+        }
+        for (WorkerConnection worker : workers.values()) {
+            if (worker.getJobId() < jobId || (worker.getJobId() == jobId && worker.isJobRunning())) {
+                return true;
+            }
+        }
+        for (AbsentSession absent : absentSessions.values()) {
+            HostJournal.Session session = absent.session();
+            if (session.jobId() < jobId || (session.jobId() == jobId && session.jobRunning())) {
+                return true;
+            }
+        }
+        return config.isHostParticipates() && (hostJobId < jobId || (hostJobId == jobId && hostJobRunning));
+    }
+
+    private int getJobInstances(int jobId) {
+        return jobInstances.computeIfAbsent(jobId, id -> getInstanceOffset() + getJobWorkers(id).size());
+    }
+
+    /**
+     * Gets the workers a job is split between, in instance order. Fixed when the job is first handed
+     * out, from the connected workers and those expected to reconnect.
+     */
+    private List<Integer> getJobWorkers(int jobId) {
+        return jobWorkers.computeIfAbsent(jobId, id -> {
+            List<Integer> workerIds = new ArrayList<>(workers.keySet());
+            for (AbsentSession absent : absentSessions.values()) {
+                workerIds.add(absent.session().assignedId());
+            }
+            Collections.sort(workerIds);
+            return List.copyOf(workerIds);
+        });
+    }
+
+    private int getLastHandedOutJobId() {
+        return jobInstances.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    /**
+     * Gets a worker's instance ID for a job, from the job's fixed split, so it does not shift when
+     * other workers come or go. If the host participates, it is instance 0.
+     *
+     * @return The instance ID, or -1 if the job was split without this worker
+     */
+    private int getWorkerInstanceId(int workerId, int jobId) {
+        int index = getJobWorkers(jobId).indexOf(workerId);
+        return index < 0 ? -1 : getInstanceOffset() + index;
+    }
 
-        // First, send/update assignments with the current selection
-        redistributeAssignments();
+    private int getInstanceOffset() {
+        return config.isHostParticipates() ? 1 : 0;
+    }
+
+    /**
+     * Sets the data port advertised to workers that register from now on.
+     *
+     * @param dataPort Port of the native transfer channel, or 0 if it is not running
+     */
+    public void setDataPort(int dataPort) {
+        this.dataPort = dataPort;
+    }
 
-        // Then broadcast START to all workers
-        NetworkMessage startMsg = NetworkMessage.start();
+    /**
+     * Checks if a data token was issued to a currently registered worker.
+     */
+    public boolean isValidDataToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return false;
+        }
+        byte[] presented = token.getBytes(StandardCharsets.UTF_8);
         for (WorkerConnection worker : workers.values()) {
-            worker.send(startMsg);
+            if (MessageDigest.isEqual(worker.getDataToken().getBytes(StandardCharsets.UTF_8), presented)) {
+                return true;
+            }
         }
-        logger.info("Broadcast START to " + workers.size() + " workers");
+        return false;
+    }
+
+    /**
+     * Gets the total number of workers including the host if it participates.
+     */
+    public int getTotalWorkerCount() {
+        int count = workers.size();
+        if (config.isHostParticipates()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the host's instance ID (0 if participating, -1 if not).
+     */
+    public int getHostInstanceId() {
+        return config.isHostParticipates() ? 0 : -1;
     }
 
     /**
      * Broadcasts STOP command to all workers.
      */
-    public void broadcastStop() {
+    public synchronized void broadcastStop() {
         generationActive = false;
+        absentSessions.clear();
+        clearTakeovers();
         NetworkMessage stopMsg = NetworkMessage.stop();
         for (WorkerConnection worker : workers.values()) {
             worker.send(stopMsg);
         }
         logger.info("Broadcast STOP to " + workers.size() + " workers");
+        saveJournal();
     }
 
     /**
@@ -290,13 +929,37 @@ public class HostServer {
         this.hostPercentComplete = percentComplete;
         this.hostChunksPerSecond = chunksPerSecond;
         this.hostLastUpdate = System.currentTimeMillis();
+        hostProgress.update(chunksGenerated, totalChunks, chunksPerSecond);
+    }
+
+    /**
+     * Updates the generation speed set by the host's own governor (when host participates as worker).
+     */
+    public void updateHostGovernor(float duty, String reason) {
+        this.hostGovernorDuty = duty;
+        this.hostGovernorReason = reason;
     }
 
     /**
-     * Gets aggregated progress from all workers and the host.
+     * Gets aggregated progress from all workers and the host, as of the last published snapshot
+     * (at most a second old).
      */
     public AggregatedProgress getAggregatedProgress() {
-        List<WorkerProgress> allProgress = new ArrayList<>();
+        return progressSnapshot;
+    }
+
+    /**
+     * Gets the running generation totals, current as of the last progress report.
+     */
+    public ClusterProgress getClusterProgress() {
+        return clusterProgress;
+    }
+
+    /**
+     * Rebuilds the per-worker progress view and publishes it. Called once a second.
+     */
+    private void publishProgress() {
+        List<WorkerProgress> allProgress = new ArrayList<>(workers.size() + 1);
         long now = System.currentTimeMillis();
 
         // Add host progress if participating
@@ -304,7 +967,8 @@ public class HostServer {
             boolean active = (now - hostLastUpdate) < STALE_THRESHOLD_MS;
             allProgress.add(new WorkerProgress(0, "host (local)", hostChunksGenerated,
                     hostTotalChunks, hostPercentComplete, hostChunksPerSecond, hostLastUpdate, active,
-                    false, 0, 0, false, null)); // Host doesn't transfer to itself
+                    false, 0, 0, false, null, // Host doesn't transfer to itself
+                    hostGovernorDuty, hostGovernorReason, hostJobId));
         }
 
         // Add worker progress
@@ -323,26 +987,23 @@ public class HostServer {
                     worker.getTransferCompleted(),
                     worker.getTransferTotal(),
                     worker.isTransferComplete(),
-                    worker.getTransferError()
+                    worker.getTransferError(),
+                    worker.getGovernorDuty(),
+                    worker.getGovernorReason(),
+                    worker.getJobId()
             ));
         }
 
-        // Calculate totals
-        long totalGenerated = 0;
-        long totalChunks = 0;
         int activeCount = 0;
-
         for (WorkerProgress progress : allProgress) {
-            totalGenerated += progress.chunksGenerated();
-            totalChunks += progress.totalChunks();
             if (progress.active()) {
                 activeCount++;
             }
         }
 
-        float overallPercent = totalChunks > 0 ? (float) totalGenerated / totalChunks * 100f : 0f;
-
-        return new AggregatedProgress(totalGenerated, totalChunks, overallPercent, activeCount, allProgress);
+        progressSnapshot = new AggregatedProgress(clusterProgress.getChunksGenerated(), clusterProgress.getTotalChunks(),
+                clusterProgress.getPercentComplete(), clusterProgress.getChunksPerSecond(), activeCount,
+                List.copyOf(allProgress), now);
     }
 
     /**
@@ -360,6 +1021,20 @@ public class HostServer {
         return generationActive;
     }
 
+    /**
+     * Gets how many workers that dropped out are still expected to reconnect.
+     */
+    public int getAbsentWorkerCount() {
+        return absentSessions.size();
+    }
+
+    /**
+     * Gets the queue of jobs not yet finished on every instance.
+     */
+    public JobQueue getJobQueue() {
+        return jobQueue;
+    }
+
     public record WorkerProgress(
             int instanceId,
             String hostname,
@@ -374,14 +1049,26 @@ public class HostServer {
             int transferCompleted,
             int transferTotal,
             boolean transferComplete,
-            String transferError
+            String transferError,
+            // Governor state
+            float governorDuty,
+            String governorReason,
+            // Job the instance is on
+            int jobId
     ) {}
 
+    /**
+     * Progress of the whole cluster at one point in time.
+     *
+     * @param publishedAt When the snapshot was taken, 0 before the first
+     */
     public record AggregatedProgress(
             long totalChunksGenerated,
             long totalChunks,
             float overallPercent,
+            float chunksPerSecond,
             int activeWorkers,
-            List<WorkerProgress> workers
+            List<WorkerProgress> workers,
+            long publishedAt
     ) {}
 }
@@ -0,0 +1,198 @@
+package dev.flur.extrachunky.network;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import dev.flur.extrachunky.GenerationJob;
+import dev.flur.extrachunky.platform.ExtraChunkyLogger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persistent queue of generation jobs on the host.
+ * Jobs stay queued until every instance finished its share, so unfinished jobs survive a host restart.
+ */
+public class JobQueue {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final String QUEUE_FILE = "job-queue.json";
+
+    private final Path queuePath;
+    private final ExtraChunkyLogger logger;
+    private final List<QueuedJob> jobs = new ArrayList<>();
+    private int nextId = 1;
+
+    /**
+     * A job waiting or running, with the ID it is known by on the network.
+     *
+     * @param id  Job ID, increasing in queue order
+     * @param job The worlds and areas to generate
+     */
+    public record QueuedJob(int id, GenerationJob job) {
+    }
+
+    /**
+     * Creates a new job queue.
+     *
+     * @param dataDirectory Plugin data directory
+     * @param logger        Logger for status messages
+     */
+    public JobQueue(Path dataDirectory, ExtraChunkyLogger logger) {
+        this.queuePath = dataDirectory.resolve(QUEUE_FILE);
+        this.logger = logger;
+    }
+
+    /**
+     * Loads the queue from disk.
+     */
+    public synchronized void load() {
+        if (!Files.exists(queuePath)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(queuePath)) {
+            QueueData data = GSON.fromJson(reader, QueueData.class);
+            if (data != null && data.jobs != null) {
+                jobs.clear();
+                for (JobEntry entry : data.jobs) {
+                    jobs.add(new QueuedJob(entry.id, new GenerationJob(entry.areas)));
+                }
+                nextId = Math.max(data.nextId, jobs.isEmpty() ? 1 : jobs.get(jobs.size() - 1).id() + 1);
+                if (!jobs.isEmpty()) {
+                    logger.info("Loaded " + jobs.size() + " queued jobs from disk");
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Failed to load job queue: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the queue to disk.
+     */
+    public synchronized void save() {
+        Path temp = queuePath.resolveSibling(QUEUE_FILE + ".tmp");
+        try {
+            Files.createDirectories(queuePath.getParent());
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                QueueData data = new QueueData();
+                data.nextId = nextId;
+                data.jobs = new ArrayList<>();
+                for (QueuedJob queued : jobs) {
+                    JobEntry entry = new JobEntry();
+                    entry.id = queued.id();
+                    entry.areas = queued.job().areas();
+                    data.jobs.add(entry);
+                }
+                GSON.toJson(data, writer);
+            }
+            try {
+                Files.move(temp, queuePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, queuePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to save job queue: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds a job to the end of the queue.
+     *
+     * @return The queued job with its ID
+     */
+    public synchronized QueuedJob add(GenerationJob job) {
+        QueuedJob queued = new QueuedJob(nextId++, job);
+        jobs.add(queued);
+        save();
+        return queued;
+    }
+
+    /**
+     * Gets a queued job by ID.
+     *
+     * @return The job, or null if it is not queued (anymore)
+     */
+    public synchronized QueuedJob get(int id) {
+        for (QueuedJob queued : jobs) {
+            if (queued.id() == id) {
+                return queued;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the job queued after the given one.
+     *
+     * @param afterId ID of the job an instance finished, or 0 for the first job
+     * @return The next job, or null if there is none yet
+     */
+    public synchronized QueuedJob next(int afterId) {
+        for (QueuedJob queued : jobs) {
+            if (queued.id() > afterId) {
+                return queued;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the job an instance has to have finished for {@link #next(int)} to hand it the given job,
+     * so a share of that job can be handed out again.
+     *
+     * @param id ID of the job to hand out again
+     * @return ID of the job queued before it, or 0 if there is none
+     */
+    public synchronized int previousId(int id) {
+        int previous = 0;
+        for (QueuedJob queued : jobs) {
+            if (queued.id() >= id) {
+                break;
+            }
+            previous = queued.id();
+        }
+        return previous;
+    }
+
+    /**
+     * Removes a finished job.
+     */
+    public synchronized void remove(int id) {
+        if (jobs.removeIf(queued -> queued.id() == id)) {
+            save();
+        }
+    }
+
+    /**
+     * Gets the queued jobs in order.
+     */
+    public synchronized List<QueuedJob> getJobs() {
+        return List.copyOf(jobs);
+    }
+
+    public synchronized boolean isEmpty() {
+        return jobs.isEmpty();
+    }
+
+    public synchronized int size() {
+        return jobs.size();
+    }
+
+    // JSON serialization classes
+    private static class QueueData {
+        int nextId;
+        List<JobEntry> jobs;
+    }
+
+    private static class JobEntry {
+        int id;
+        List<GenerationJob.Area> areas;
+    }
+}
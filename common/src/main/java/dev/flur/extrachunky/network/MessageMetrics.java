@@ -0,0 +1,47 @@
+package dev.flur.extrachunky.network;
+
+import dev.flur.extrachunky.metrics.Counter;
+import dev.flur.extrachunky.metrics.MetricsRegistry;
+
+import java.util.Locale;
+
+/**
+ * Counts protocol messages by type, in each direction.
+ */
+final class MessageMetrics {
+    /** Counts nothing, until metrics are set */
+    static final MessageMetrics NONE = new MessageMetrics();
+
+    private final Counter[] received;
+    private final Counter[] sent;
+
+    private MessageMetrics() {
+        this.received = null;
+        this.sent = null;
+    }
+
+    MessageMetrics(MetricsRegistry registry) {
+        NetworkMessage.Type[] types = NetworkMessage.Type.values();
+        this.received = new Counter[types.length];
+        this.sent = new Counter[types.length];
+        for (NetworkMessage.Type type : types) {
+            String name = type.name().toLowerCase(Locale.ROOT);
+            received[type.ordinal()] = registry.counter("extrachunky_messages_received_total",
+                    "Protocol messages received, by type", "type", name);
+            sent[type.ordinal()] = registry.counter("extrachunky_messages_sent_total",
+                    "Protocol messages sent, by type", "type", name);
+        }
+    }
+
+    void received(NetworkMessage.Type type) {
+        if (received != null && type != null) {
+            received[type.ordinal()].increment();
+        }
+    }
+
+    void sent(NetworkMessage.Type type) {
+        if (sent != null && type != null) {
+            sent[type.ordinal()].increment();
+        }
+    }
+}
@@ -2,8 +2,14 @@ package dev.flur.extrachunky.network;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import dev.flur.extrachunky.GenerationJob;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Network message envelope for bidirectional host-worker communication.
@@ -17,9 +23,11 @@ public class NetworkMessage {
         REGISTER,           // Worker requests registration
         PROGRESS,           // Worker reports chunk generation progress
         GENERATION_COMPLETE,// Worker finished generating, starting transfer
+        REGIONS_COMPLETE,   // Worker finished generating some regions
         TRANSFER_PROGRESS,  // Worker reports transfer progress
         TRANSFER_COMPLETE,  // Worker finished all transfers
         TRANSFER_FAILED,    // Worker transfer failed
+        GOVERNOR,           // Worker's governor changed the generation speed
 
         // Host -> Worker
         REGISTERED,     // Host confirms registration with assigned ID
@@ -65,9 +73,16 @@ public class NetworkMessage {
 
     // Factory methods for Worker -> Host messages
 
-    public static NetworkMessage register(String hostname) {
+    /**
+     * Creates a registration. The worker reports its session and the jobs it is on and last finished,
+     * so a host that restarted in between can re-adopt it.
+     */
+    public static NetworkMessage register(String hostname, String sessionId, int jobId, int completedJobId) {
         JsonObject payload = new JsonObject();
         payload.addProperty("hostname", hostname);
+        payload.addProperty("session", sessionId);
+        payload.addProperty("jobId", jobId);
+        payload.addProperty("completedJobId", completedJobId);
         return new NetworkMessage(Type.REGISTER, payload);
     }
 
@@ -88,37 +103,64 @@ public class NetworkMessage {
 
     // Factory methods for Host -> Worker messages
 
-    public static NetworkMessage registered(int assignedId, int totalWorkers) {
+    public static NetworkMessage registered(int assignedId, int totalWorkers, int dataPort, String dataToken) {
         JsonObject payload = new JsonObject();
         payload.addProperty("assignedId", assignedId);
         payload.addProperty("totalWorkers", totalWorkers);
+        if (dataPort > 0) {
+            payload.addProperty("dataPort", dataPort);
+            payload.addProperty("dataToken", dataToken);
+        }
         return new NetworkMessage(Type.REGISTERED, payload);
     }
 
-    public static NetworkMessage assignment(int instanceId, int totalInstances, String world,
-                                            double centerX, double centerZ, double radius, String shape) {
-        JsonObject payload = new JsonObject();
-        payload.addProperty("instanceId", instanceId);
-        payload.addProperty("totalInstances", totalInstances);
-        payload.addProperty("world", world);
-        payload.addProperty("centerX", centerX);
-        payload.addProperty("centerZ", centerZ);
-        payload.addProperty("radius", radius);
-        payload.addProperty("shape", shape);
-        return new NetworkMessage(Type.ASSIGNMENT, payload);
+    /**
+     * Creates an ASSIGNMENT message.
+     *
+     * @param doneRegions Job region IDs generated already, which the worker leaves out
+     */
+    public static NetworkMessage assignment(int instanceId, int totalInstances, int jobId, GenerationJob job,
+                                            long[] doneRegions) {
+        return new NetworkMessage(Type.ASSIGNMENT, assignmentPayload(instanceId, totalInstances, jobId, job, doneRegions));
+    }
+
+    /**
+     * Creates a REASSIGN message.
+     *
+     * @param doneRegions Job region IDs generated already, which the worker leaves out
+     */
+    public static NetworkMessage reassign(int instanceId, int totalInstances, int jobId, GenerationJob job,
+                                          long[] doneRegions) {
+        return new NetworkMessage(Type.REASSIGN, assignmentPayload(instanceId, totalInstances, jobId, job, doneRegions));
     }
 
-    public static NetworkMessage reassign(int instanceId, int totalInstances, String world,
-                                          double centerX, double centerZ, double radius, String shape) {
+    private static JsonObject assignmentPayload(int instanceId, int totalInstances, int jobId, GenerationJob job,
+                                                long[] doneRegions) {
         JsonObject payload = new JsonObject();
         payload.addProperty("instanceId", instanceId);
         payload.addProperty("totalInstances", totalInstances);
-        payload.addProperty("world", world);
-        payload.addProperty("centerX", centerX);
-        payload.addProperty("centerZ", centerZ);
-        payload.addProperty("radius", radius);
-        payload.addProperty("shape", shape);
-        return new NetworkMessage(Type.REASSIGN, payload);
+        payload.addProperty("jobId", jobId);
+        if (doneRegions.length > 0) {
+            payload.addProperty("doneRegions", RegionIdCodec.encode(doneRegions));
+        }
+        // The first area also goes in the single-world fields
+        addArea(payload, job.areas().get(0));
+        JsonArray areas = new JsonArray();
+        for (GenerationJob.Area area : job.areas()) {
+            JsonObject entry = new JsonObject();
+            addArea(entry, area);
+            areas.add(entry);
+        }
+        payload.add("areas", areas);
+        return payload;
+    }
+
+    private static void addArea(JsonObject target, GenerationJob.Area area) {
+        target.addProperty("world", area.world());
+        target.addProperty("centerX", area.centerX());
+        target.addProperty("centerZ", area.centerZ());
+        target.addProperty("radius", area.radius());
+        target.addProperty("shape", area.shape());
     }
 
     public static NetworkMessage start() {
@@ -131,15 +173,39 @@ public class NetworkMessage {
 
     // Factory methods for transfer messages (Worker -> Host)
 
-    public static NetworkMessage generationComplete(int instanceId, String world, int regionCount) {
+    public static NetworkMessage generationComplete(int instanceId, int jobId, String world, int regionCount) {
         JsonObject payload = new JsonObject();
         payload.addProperty("instanceId", instanceId);
+        payload.addProperty("jobId", jobId);
         payload.addProperty("world", world);
         payload.addProperty("regionCount", regionCount);
         payload.addProperty("timestamp", System.currentTimeMillis());
         return new NetworkMessage(Type.GENERATION_COMPLETE, payload);
     }
 
+    public static NetworkMessage regionsComplete(int instanceId, int jobId, long[] regionIds) {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("instanceId", instanceId);
+        payload.addProperty("jobId", jobId);
+        payload.addProperty("regions", RegionIdCodec.encode(regionIds));
+        payload.addProperty("timestamp", System.currentTimeMillis());
+        return new NetworkMessage(Type.REGIONS_COMPLETE, payload);
+    }
+
+    /**
+     * Gets the region IDs of a REGIONS_COMPLETE message.
+     */
+    public long[] getRegionIds() {
+        return RegionIdCodec.decode(getString("regions"));
+    }
+
+    /**
+     * Gets the region IDs an ASSIGNMENT or REASSIGN message says are generated already.
+     */
+    public long[] getDoneRegionIds() {
+        return RegionIdCodec.decode(getString("doneRegions"));
+    }
+
     public static NetworkMessage transferProgress(int instanceId, int completed, int total,
                                                    long bytesTransferred, long totalBytes) {
         JsonObject payload = new JsonObject();
@@ -172,6 +238,21 @@ public class NetworkMessage {
         return new NetworkMessage(Type.TRANSFER_FAILED, payload);
     }
 
+    public static NetworkMessage governor(int instanceId, double duty, double mspt, double tps,
+                                          int players, String reason) {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("instanceId", instanceId);
+        payload.addProperty("duty", duty);
+        if (!Double.isNaN(mspt)) {
+            payload.addProperty("mspt", mspt);
+        }
+        payload.addProperty("tps", tps);
+        payload.addProperty("players", players);
+        payload.addProperty("reason", reason);
+        payload.addProperty("timestamp", System.currentTimeMillis());
+        return new NetworkMessage(Type.GOVERNOR, payload);
+    }
+
     // Payload extraction helpers
 
     public String getString(String key) {
@@ -193,4 +274,29 @@ public class NetworkMessage {
     public double getDouble(String key) {
         return payload.has(key) ? payload.get(key).getAsDouble() : 0.0;
     }
+
+    /**
+     * Gets the job of an assignment message. Reads the single-world fields if the job has no area list.
+     */
+    public GenerationJob getJob() {
+        List<GenerationJob.Area> areas = new ArrayList<>();
+        if (payload.has("areas")) {
+            for (JsonElement element : payload.getAsJsonArray("areas")) {
+                areas.add(readArea(element.getAsJsonObject()));
+            }
+        } else {
+            areas.add(readArea(payload));
+        }
+        return new GenerationJob(areas);
+    }
+
+    private static GenerationJob.Area readArea(JsonObject source) {
+        return new GenerationJob.Area(
+                source.get("world").getAsString(),
+                source.get("centerX").getAsDouble(),
+                source.get("centerZ").getAsDouble(),
+                source.get("radius").getAsDouble(),
+                source.get("shape").getAsString()
+        );
+    }
 }
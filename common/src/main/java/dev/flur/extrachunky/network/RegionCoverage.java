@@ -0,0 +1,122 @@
+package dev.flur.extrachunky.network;
+
+import dev.flur.extrachunky.GenerationJob;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Which regions of a job are generated, across all instances.
+ * <p>
+ * One bit per job region ID (see {@link GenerationJob#regionId}), set as workers report regions done.
+ */
+public class RegionCoverage {
+    private static final String CELL = "█";
+
+    private final GenerationJob job;
+    private final long totalRegions;
+    private final BitSet done = new BitSet();
+
+    /**
+     * Creates an empty coverage map for a job.
+     */
+    public RegionCoverage(GenerationJob job) {
+        this.job = job;
+        this.totalRegions = job.regionCount();
+    }
+
+    /**
+     * Marks regions as done. IDs outside the job are ignored.
+     *
+     * @param regionIds Job region IDs
+     * @return Number of regions that were not done before
+     */
+    public synchronized int add(long[] regionIds) {
+        long span = job.regionSpan();
+        int added = 0;
+        for (long id : regionIds) {
+            if (id < 0 || id >= span || id > Integer.MAX_VALUE) {
+                continue;
+            }
+            if (!done.get((int) id)) {
+                done.set((int) id);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Checks if a region is done.
+     */
+    public synchronized boolean isDone(long regionId) {
+        return regionId >= 0 && regionId <= Integer.MAX_VALUE && done.get((int) regionId);
+    }
+
+    /**
+     * Gets the IDs of all regions done, in ascending order.
+     */
+    public synchronized long[] getDoneRegions() {
+        return done.stream().asLongStream().toArray();
+    }
+
+    public synchronized long getCompleted() {
+        return done.cardinality();
+    }
+
+    /**
+     * Gets the number of regions that have chunks to generate.
+     */
+    public long getTotal() {
+        return totalRegions;
+    }
+
+    public float getPercentComplete() {
+        return totalRegions > 0 ? (float) getCompleted() / totalRegions * 100f : 0f;
+    }
+
+    /**
+     * Draws one area of the job as rows of colored cells, north at the top. Each cell stands for a
+     * square of regions: green when all of them are done, yellow when some are, gray when none are
+     * and dark gray when it lies outside the area.
+     *
+     * @param areaIndex Position of the area in the job
+     * @param maxCells  Maximum number of cells per row and column
+     * @return The rows, with color codes
+     */
+    public synchronized List<String> renderMap(int areaIndex, int maxCells) {
+        GenerationJob.Area area = job.areas().get(areaIndex);
+        int width = area.maxRegionX() - area.minRegionX() + 1;
+        int height = area.maxRegionZ() - area.minRegionZ() + 1;
+        int scale = Math.max(1, (Math.max(width, height) + maxCells - 1) / maxCells);
+
+        List<String> rows = new ArrayList<>();
+        for (int cellZ = area.minRegionZ(); cellZ <= area.maxRegionZ(); cellZ += scale) {
+            StringBuilder row = new StringBuilder();
+            String lastColor = null;
+            for (int cellX = area.minRegionX(); cellX <= area.maxRegionX(); cellX += scale) {
+                int inside = 0;
+                int complete = 0;
+                for (int regionX = cellX; regionX < cellX + scale && regionX <= area.maxRegionX(); regionX++) {
+                    for (int regionZ = cellZ; regionZ < cellZ + scale && regionZ <= area.maxRegionZ(); regionZ++) {
+                        if (area.intersectsRegion(regionX, regionZ)) {
+                            inside++;
+                            if (isDone(job.regionId(areaIndex, regionX, regionZ))) {
+                                complete++;
+                            }
+                        }
+                    }
+                }
+                String color = inside == 0 ? "&8" : complete == inside ? "&a" : complete > 0 ? "&e" : "&7";
+                if (!color.equals(lastColor)) {
+                    row.append(color);
+                    lastColor = color;
+                }
+                row.append(CELL);
+            }
+            rows.add(row.toString());
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,82 @@
+package dev.flur.extrachunky.network;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Compact text encoding of region ID lists for network messages.
+ * <p>
+ * IDs are sorted, stored as the difference to the previous ID in unsigned LEB128 varints and
+ * Base64-encoded. Region IDs of one instance are close together, so most take a single byte.
+ */
+public final class RegionIdCodec {
+
+    private RegionIdCodec() {
+    }
+
+    /**
+     * Encodes region IDs. Duplicates are dropped.
+     *
+     * @param regionIds IDs, not negative, in any order
+     * @return The encoded IDs
+     */
+    public static String encode(long[] regionIds) {
+        long[] sorted = regionIds.clone();
+        Arrays.sort(sorted);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(sorted.length + 8);
+        long previous = -1;
+        for (long id : sorted) {
+            if (id < 0) {
+                throw new IllegalArgumentException("Negative region ID " + id);
+            }
+            if (id == previous) {
+                continue;
+            }
+            long delta = previous < 0 ? id : id - previous;
+            while ((delta & ~0x7FL) != 0) {
+                out.write((int) ((delta & 0x7F) | 0x80));
+                delta >>>= 7;
+            }
+            out.write((int) delta);
+            previous = id;
+        }
+        return Base64.getEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    /**
+     * Decodes region IDs.
+     *
+     * @param encoded The encoded IDs, may be null
+     * @return The IDs in ascending order
+     * @throws IllegalArgumentException if the input is malformed
+     */
+    public static long[] decode(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return new long[0];
+        }
+
+        byte[] bytes = Base64.getDecoder().decode(encoded);
+        long[] ids = new long[bytes.length];
+        int count = 0;
+        long previous = -1;
+        int i = 0;
+        while (i < bytes.length) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (i >= bytes.length || shift > 63) {
+                    throw new IllegalArgumentException("Truncated region ID list");
+                }
+                b = bytes[i++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous = previous < 0 ? delta : previous + delta;
+            ids[count++] = previous;
+        }
+        return Arrays.copyOf(ids, count);
+    }
+}
@@ -1,11 +1,16 @@
 package dev.flur.extrachunky.network;
 
+import dev.flur.extrachunky.GenerationJob;
+import dev.flur.extrachunky.metrics.Counter;
+import dev.flur.extrachunky.metrics.MetricsRegistry;
 import dev.flur.extrachunky.platform.ExtraChunkyLogger;
 import dev.flur.extrachunky.platform.ExtraChunkyScheduler;
 import dev.flur.extrachunky.platform.ExtraChunkyTask;
 
 import java.io.*;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -23,6 +28,8 @@ public class WorkerClient {
     private final ExtraChunkyScheduler scheduler;
     private final String hostAddress;
     private final int hostPort;
+    // Identifies this worker across reconnects, so a restarted host can re-adopt it
+    private final String sessionId = UUID.randomUUID().toString();
 
     private Socket socket;
     private BufferedReader reader;
@@ -34,13 +41,24 @@ public class WorkerClient {
     private Thread readerThread;
     private Thread writerThread;
     private ExtraChunkyTask reconnectTask;
+    private boolean everConnected;
+
+    // Metrics, if set
+    private MessageMetrics messageMetrics = MessageMetrics.NONE;
+    private Counter reconnectAttempts;
+    private Counter reconnects;
+    private Counter connectionLosses;
 
     // Assigned by host
     private volatile int assignedId = -1;
     private volatile int totalWorkers = 0;
+    private volatile int dataPort = 0;
+    private volatile String dataToken;
 
     // Current assignment from host
     private volatile ChunkAssignment currentAssignment;
+    // Last job this worker finished its share of, reported again on reconnect
+    private volatile int completedJobId = 0;
 
     // Handlers
     private Consumer<NetworkMessage> startHandler;
@@ -85,12 +103,27 @@ public class WorkerClient {
     }
 
     /**
-     * Sets the handler called when successfully connected to host.
+     * Sets the handler called when the host accepted this worker's registration, after every connect.
      */
     public void setConnectedHandler(Runnable handler) {
         this.connectedHandler = handler;
     }
 
+    /**
+     * Sets the registry to record message counts, reconnects and the send queue in.
+     */
+    public void setMetrics(MetricsRegistry registry) {
+        this.messageMetrics = new MessageMetrics(registry);
+        this.reconnectAttempts = registry.counter("extrachunky_reconnect_attempts_total",
+                "Attempts to reconnect to the host");
+        this.reconnects = registry.counter("extrachunky_reconnects_total",
+                "Connections to the host re-established after one was lost");
+        this.connectionLosses = registry.counter("extrachunky_connection_losses_total",
+                "Connections to the host that were lost");
+        registry.gauge("extrachunky_outgoing_messages", "Messages waiting to be sent to the host",
+                outgoingMessages::size);
+    }
+
     /**
      * Connects to the host server and registers.
      *
@@ -102,7 +135,10 @@ public class WorkerClient {
         }
 
         running.set(true);
+        return openConnection();
+    }
 
+    private boolean openConnection() {
         try {
             socket = new Socket(hostAddress, hostPort);
             socket.setSoTimeout(SOCKET_TIMEOUT_MS);
@@ -113,8 +149,11 @@ public class WorkerClient {
 
             // Send REGISTER message
             String hostname = getHostname();
-            NetworkMessage registerMsg = NetworkMessage.register(hostname);
+            ChunkAssignment assignment = currentAssignment;
+            NetworkMessage registerMsg = NetworkMessage.register(hostname, sessionId,
+                    assignment != null ? assignment.jobId() : 0, completedJobId);
             writer.println(registerMsg.toJson());
+            messageMetrics.sent(NetworkMessage.Type.REGISTER);
             writer.flush();
 
             if (writer.checkError()) {
@@ -122,20 +161,15 @@ public class WorkerClient {
             }
 
             // Start reader and writer threads
-            readerThread = new Thread(this::readLoop, "WorkerClient-Reader");
-            readerThread.setDaemon(true);
-            readerThread.start();
-
-            writerThread = new Thread(this::writeLoop, "WorkerClient-Writer");
-            writerThread.setDaemon(true);
-            writerThread.start();
+            readerThread = Thread.ofVirtual().name("WorkerClient-Reader").start(this::readLoop);
+            writerThread = Thread.ofVirtual().name("WorkerClient-Writer").start(this::writeLoop);
 
             connected.set(true);
             logger.info("Connected to host at " + hostAddress + ":" + hostPort);
-
-            if (connectedHandler != null) {
-                connectedHandler.run();
+            if (everConnected && reconnects != null) {
+                reconnects.increment();
             }
+            everConnected = true;
 
             return true;
 
@@ -169,15 +203,28 @@ public class WorkerClient {
 
         assignedId = -1;
         totalWorkers = 0;
+        dataPort = 0;
+        dataToken = null;
         currentAssignment = null;
+        completedJobId = 0;
 
         logger.info("Disconnected from host");
     }
 
     private void readLoop() {
+        BufferedReader in = reader;
         try {
-            String line;
-            while (running.get() && (line = reader.readLine()) != null) {
+            while (running.get()) {
+                String line;
+                try {
+                    line = in.readLine();
+                } catch (SocketTimeoutException e) {
+                    // The host only writes when something changes; a quiet host is not a lost one
+                    continue;
+                }
+                if (line == null) {
+                    break;
+                }
                 try {
                     NetworkMessage message = NetworkMessage.fromJson(line);
                     handleMessage(message);
@@ -211,25 +258,31 @@ public class WorkerClient {
     }
 
     private void handleMessage(NetworkMessage message) {
+        messageMetrics.received(message.getType());
         switch (message.getType()) {
             case REGISTERED -> {
                 assignedId = message.getInt("assignedId");
                 totalWorkers = message.getInt("totalWorkers");
-                logger.info("Registered with host: ID=" + assignedId + ", totalWorkers=" + totalWorkers);
+                dataPort = message.getInt("dataPort");
+                dataToken = message.getString("dataToken");
+                logger.info("Registered with host: ID=" + assignedId + ", totalWorkers=" + totalWorkers +
+                        (dataPort > 0 ? ", dataPort=" + dataPort : ""));
+                if (connectedHandler != null) {
+                    connectedHandler.run();
+                }
             }
             case ASSIGNMENT, REASSIGN -> {
                 ChunkAssignment assignment = new ChunkAssignment(
                         message.getInt("instanceId"),
                         message.getInt("totalInstances"),
-                        message.getString("world"),
-                        message.getDouble("centerX"),
-                        message.getDouble("centerZ"),
-                        message.getDouble("radius"),
-                        message.getString("shape")
+                        message.getInt("jobId"),
+                        message.getJob(),
+                        message.getDoneRegionIds()
                 );
                 currentAssignment = assignment;
                 logger.info("Received assignment: instance " + assignment.instanceId() +
-                        "/" + assignment.totalInstances());
+                        "/" + assignment.totalInstances() +
+                        (assignment.jobId() > 0 ? " of job #" + assignment.jobId() : ""));
 
                 if (assignmentHandler != null) {
                     assignmentHandler.accept(assignment);
@@ -254,8 +307,15 @@ public class WorkerClient {
     private void handleDisconnect() {
         boolean wasConnected = connected.getAndSet(false);
         closeSocket();
+        if (writerThread != null) {
+            // Messages queued from now on wait for the next connection's writer
+            writerThread.interrupt();
+        }
 
         if (wasConnected) {
+            if (connectionLosses != null) {
+                connectionLosses.increment();
+            }
             if (disconnectHandler != null) {
                 disconnectHandler.run();
             }
@@ -277,7 +337,10 @@ public class WorkerClient {
             reconnectTask = null;
             if (running.get() && !connected.get()) {
                 logger.info("Attempting to reconnect to host...");
-                connect();
+                if (reconnectAttempts != null) {
+                    reconnectAttempts.increment();
+                }
+                openConnection();
             }
         }, RECONNECT_INTERVAL_SECONDS * 20L);
     }
@@ -322,23 +385,45 @@ public class WorkerClient {
                 chunksPerSecond,
                 getHostname()
         );
-        outgoingMessages.offer(progress.toJson());
+        enqueue(progress);
     }
 
     /**
-     * Notifies the host that chunk generation is complete and transfer is starting.
+     * Notifies the host that chunk generation of a job is complete and transfer is starting.
+     * If the host cannot be reached, it learns about it when this worker registers again.
+     *
+     * @param jobId       ID of the finished job
+     * @param regionCount Regions generated for the job
      */
-    public void sendGenerationComplete(int regionCount) {
+    public void sendGenerationComplete(int jobId, int regionCount) {
+        completedJobId = Math.max(completedJobId, jobId);
         if (!connected.get() || currentAssignment == null) {
             return;
         }
 
         NetworkMessage msg = NetworkMessage.generationComplete(
                 assignedId,
+                jobId,
                 currentAssignment.world(),
                 regionCount
         );
-        outgoingMessages.offer(msg.toJson());
+        enqueue(msg);
+    }
+
+    /**
+     * Reports regions of a job that finished generating. Reports made while the connection is down
+     * are sent once it is back.
+     *
+     * @param jobId     ID of the job
+     * @param regionIds Job region IDs of the finished regions
+     */
+    public void sendRegionsComplete(int jobId, long[] regionIds) {
+        if (!running.get() || regionIds.length == 0) {
+            return;
+        }
+
+        NetworkMessage msg = NetworkMessage.regionsComplete(assignedId, jobId, regionIds);
+        enqueue(msg);
     }
 
     /**
@@ -356,7 +441,7 @@ public class WorkerClient {
                 bytesTransferred,
                 totalBytes
         );
-        outgoingMessages.offer(msg.toJson());
+        enqueue(msg);
     }
 
     /**
@@ -372,7 +457,7 @@ public class WorkerClient {
                 currentAssignment.world(),
                 regionCount
         );
-        outgoingMessages.offer(msg.toJson());
+        enqueue(msg);
     }
 
     /**
@@ -389,7 +474,31 @@ public class WorkerClient {
                 error,
                 failedCount
         );
-        outgoingMessages.offer(msg.toJson());
+        enqueue(msg);
+    }
+
+    /**
+     * Reports a change of the generation speed to the host.
+     */
+    public void sendGovernor(double duty, double mspt, double tps, int players, String reason) {
+        if (!connected.get()) {
+            return;
+        }
+
+        NetworkMessage msg = NetworkMessage.governor(
+                assignedId,
+                duty,
+                mspt,
+                tps,
+                players,
+                reason
+        );
+        enqueue(msg);
+    }
+
+    private void enqueue(NetworkMessage message) {
+        messageMetrics.sent(message.getType());
+        outgoingMessages.offer(message.toJson());
     }
 
     private String getHostname() {
@@ -416,6 +525,20 @@ public class WorkerClient {
         return totalWorkers;
     }
 
+    /**
+     * Gets the host's data port for native transfers (0 if the host does not offer one).
+     */
+    public int getDataPort() {
+        return dataPort;
+    }
+
+    /**
+     * Gets the token to present on the host's data port.
+     */
+    public String getDataToken() {
+        return dataToken;
+    }
+
     public ChunkAssignment getCurrentAssignment() {
         return currentAssignment;
     }
@@ -428,13 +551,31 @@ public class WorkerClient {
         return hostPort;
     }
 
+    /**
+     * A share of a job to generate.
+     *
+     * @param doneRegions Job region IDs of the share generated already, in ascending order; a share
+     *                    handed out again after its owner left skips them
+     */
     public record ChunkAssignment(
             int instanceId,
             int totalInstances,
-            String world,
-            double centerX,
-            double centerZ,
-            double radius,
-            String shape
-    ) {}
+            int jobId,
+            GenerationJob job,
+            long[] doneRegions
+    ) {
+        /**
+         * Creates an assignment of a share nothing was generated of yet.
+         */
+        public ChunkAssignment(int instanceId, int totalInstances, int jobId, GenerationJob job) {
+            this(instanceId, totalInstances, jobId, job, new long[0]);
+        }
+
+        /**
+         * Gets the job's first world, which progress and transfers are reported under.
+         */
+        public String world() {
+            return job.primaryWorld();
+        }
+    }
 }
@@ -4,6 +4,8 @@ import dev.flur.extrachunky.platform.ExtraChunkyLogger;
 
 import java.io.*;
 import java.net.Socket;
+import java.security.SecureRandom;
+import java.util.HexFormat;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -14,10 +16,14 @@ import java.util.function.Consumer;
  * Manages bidirectional communication with a single worker.
  */
 public class WorkerConnection {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     private final Socket socket;
     private final ExtraChunkyLogger logger;
     private final int assignedId;
     private final String hostname;
+    private final String sessionId;
+    private final String dataToken;
     private final BufferedReader reader;
     private final PrintWriter writer;
     private final BlockingQueue<String> outgoingMessages = new LinkedBlockingQueue<>();
@@ -33,6 +39,10 @@ public class WorkerConnection {
     private volatile float chunksPerSecond = 0;
     private volatile String world = "";
 
+    // Job queue position: the job last handed to this worker, and whether it finished
+    private volatile int jobId = 0;
+    private volatile boolean jobRunning = false;
+
     // Transfer tracking
     private volatile boolean generationComplete = false;
     private volatile int transferRegionCount = 0;
@@ -43,18 +53,38 @@ public class WorkerConnection {
     private volatile boolean transferComplete = false;
     private volatile String transferError = null;
 
+    // Generation speed set by the worker's governor
+    private volatile float governorDuty = 1;
+    private volatile String governorReason = null;
+
     private Consumer<NetworkMessage> messageHandler;
     private Runnable disconnectHandler;
+    private ClusterProgress.Contribution progressContribution;
+    private MessageMetrics messageMetrics = MessageMetrics.NONE;
 
-    public WorkerConnection(Socket socket, ExtraChunkyLogger logger, int assignedId, String hostname) throws IOException {
+    /**
+     * Creates a connection for a worker that has registered.
+     *
+     * @param reader Reader the REGISTER message was read with; it may already hold the worker's next messages
+     */
+    public WorkerConnection(Socket socket, BufferedReader reader, ExtraChunkyLogger logger, int assignedId,
+                            String hostname, String sessionId) throws IOException {
         this.socket = socket;
         this.logger = logger;
         this.assignedId = assignedId;
         this.hostname = hostname;
-        this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        this.sessionId = sessionId;
+        this.dataToken = newDataToken();
+        this.reader = reader;
         this.writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()), false);
     }
 
+    private static String newDataToken() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
     /**
      * Sets the handler for incoming messages from this worker.
      */
@@ -69,17 +99,27 @@ public class WorkerConnection {
         this.disconnectHandler = handler;
     }
 
+    /**
+     * Sets where this worker's progress is added to the cluster totals. It is taken out again when
+     * the connection closes.
+     */
+    public void setProgressContribution(ClusterProgress.Contribution contribution) {
+        this.progressContribution = contribution;
+    }
+
+    /**
+     * Sets where messages to and from this worker are counted.
+     */
+    void setMessageMetrics(MessageMetrics messageMetrics) {
+        this.messageMetrics = messageMetrics;
+    }
+
     /**
      * Starts the reader and writer threads for this connection.
      */
     public void start() {
-        readerThread = new Thread(this::readLoop, "WorkerConnection-Reader-" + assignedId);
-        readerThread.setDaemon(true);
-        readerThread.start();
-
-        writerThread = new Thread(this::writeLoop, "WorkerConnection-Writer-" + assignedId);
-        writerThread.setDaemon(true);
-        writerThread.start();
+        readerThread = Thread.ofVirtual().name("WorkerConnection-Reader-" + assignedId).start(this::readLoop);
+        writerThread = Thread.ofVirtual().name("WorkerConnection-Writer-" + assignedId).start(this::writeLoop);
     }
 
     private void readLoop() {
@@ -121,6 +161,7 @@ public class WorkerConnection {
     }
 
     private void handleMessage(NetworkMessage message) {
+        messageMetrics.received(message.getType());
         switch (message.getType()) {
             case PROGRESS -> {
                 // Update progress tracking
@@ -130,11 +171,19 @@ public class WorkerConnection {
                 this.chunksPerSecond = message.getFloat("chunksPerSecond");
                 this.world = message.getString("world");
                 this.lastProgressUpdate = System.currentTimeMillis();
+                if (progressContribution != null) {
+                    progressContribution.update(chunksGenerated, totalChunks, chunksPerSecond);
+                }
             }
             case GENERATION_COMPLETE -> {
+                int completedJob = message.getInt("jobId");
+                if (completedJob == 0 || completedJob == jobId) {
+                    this.jobRunning = false;
+                }
                 this.generationComplete = true;
                 this.transferRegionCount = message.getInt("regionCount");
-                this.transferTotal = this.transferRegionCount;
+                this.transferTotal = Math.max(this.transferTotal, this.transferRegionCount);
+                this.transferComplete = false;
                 this.lastProgressUpdate = System.currentTimeMillis();
             }
             case TRANSFER_PROGRESS -> {
@@ -153,6 +202,12 @@ public class WorkerConnection {
                 this.transferError = message.getString("error");
                 this.lastProgressUpdate = System.currentTimeMillis();
             }
+            case GOVERNOR -> {
+                this.governorDuty = message.getFloat("duty");
+                this.governorReason = message.getString("reason");
+                logger.info(String.format("Worker %d generation speed at %d%% (%s)",
+                        assignedId, Math.round(governorDuty * 100), governorReason));
+            }
             default -> {}
         }
 
@@ -166,6 +221,7 @@ public class WorkerConnection {
      */
     public void send(NetworkMessage message) {
         if (running.get()) {
+            messageMetrics.sent(message.getType());
             outgoingMessages.offer(message.toJson());
         }
     }
@@ -188,12 +244,55 @@ public class WorkerConnection {
                 writerThread.interrupt();
             }
 
+            if (progressContribution != null) {
+                progressContribution.retract();
+            }
             if (disconnectHandler != null) {
                 disconnectHandler.run();
             }
         }
     }
 
+    /**
+     * Records that a job was handed to this worker. Progress is reset, transfer state is kept,
+     * since the previous job's uploads keep draining while this one generates.
+     */
+    public void startJob(int jobId) {
+        this.jobId = jobId;
+        this.jobRunning = true;
+        this.generationComplete = false;
+        this.chunksGenerated = 0;
+        this.totalChunks = 0;
+        this.percentComplete = 0;
+        this.chunksPerSecond = 0;
+        if (progressContribution != null) {
+            progressContribution.update(0, 0, 0);
+        }
+    }
+
+    /**
+     * Records that the worker joined while jobs were already handed out. It takes part from the
+     * next job on, without counting as busy with the current ones.
+     */
+    public void skipToJob(int jobId) {
+        this.jobId = jobId;
+        this.jobRunning = false;
+    }
+
+    /**
+     * Gets the ID of the job last handed to this worker, 0 if none.
+     */
+    public int getJobId() {
+        return jobId;
+    }
+
+    /**
+     * Checks if the worker is still generating its share of the job last handed to it.
+     */
+    public boolean isJobRunning() {
+        return jobRunning;
+    }
+
     public boolean isConnected() {
         return running.get() && socket.isConnected() && !socket.isClosed();
     }
@@ -206,6 +305,20 @@ public class WorkerConnection {
         return hostname;
     }
 
+    /**
+     * Gets the session the worker registered with, or null if it sent none (older versions).
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Gets the token this worker presents when it connects to the data port.
+     */
+    public String getDataToken() {
+        return dataToken;
+    }
+
     public long getLastProgressUpdate() {
         return lastProgressUpdate;
     }
@@ -272,4 +385,18 @@ public class WorkerConnection {
         if (transferTotal <= 0) return 0;
         return (float) transferCompleted / transferTotal * 100;
     }
+
+    /**
+     * Gets the share of the time the worker's governor lets generation run, 1 for full speed.
+     */
+    public float getGovernorDuty() {
+        return governorDuty;
+    }
+
+    /**
+     * Gets why the worker's governor last changed the generation speed, or null if it never did.
+     */
+    public String getGovernorReason() {
+        return governorReason;
+    }
 }
@@ -1,5 +1,8 @@
 package dev.flur.extrachunky.platform;
 
+import dev.flur.extrachunky.GovernorConfig;
+import dev.flur.extrachunky.metrics.MetricsConfig;
+import dev.flur.extrachunky.transfer.IngestConfig;
 import dev.flur.extrachunky.transfer.SshConfig;
 
 /**
@@ -58,6 +61,27 @@ public interface ExtraChunkyConfig {
      */
     SshConfig getSshConfig();
 
+    /**
+     * Gets the host-side ingest configuration for installing uploaded regions.
+     *
+     * @return The ingest configuration
+     */
+    IngestConfig getIngestConfig();
+
+    /**
+     * Gets the configuration of the governor that holds generation to a tick budget.
+     *
+     * @return The governor configuration
+     */
+    GovernorConfig getGovernorConfig();
+
+    /**
+     * Gets where metrics are exported: the Prometheus endpoint and the periodic JSON dump.
+     *
+     * @return The metrics configuration
+     */
+    MetricsConfig getMetricsConfig();
+
     /**
      * Whether manual start mode is enabled.
      * When true, users must use /extrachunky start.
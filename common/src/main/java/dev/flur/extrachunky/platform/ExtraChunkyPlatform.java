@@ -5,6 +5,7 @@ import org.popcraft.chunky.api.ChunkyAPI;
 
 import java.nio.file.Path;
 import java.util.Optional;
+import java.util.OptionalDouble;
 
 /**
  * Platform abstraction for server operations.
@@ -49,6 +50,14 @@ public interface ExtraChunkyPlatform {
      */
     ExtraChunkyScheduler getScheduler();
 
+    /**
+     * Gets the threads ExtraChunky runs background work on.
+     * The scheduler's async methods run on it as well.
+     *
+     * @return The runtime
+     */
+    ExtraChunkyRuntime getRuntime();
+
     /**
      * Gets the logger for this platform.
      *
@@ -70,4 +79,34 @@ public interface ExtraChunkyPlatform {
      * @return Path to the world folder, or empty if world not found
      */
     Optional<Path> getWorldPath(String worldName);
+
+    /**
+     * Gets the folder a world's region paths in vanilla layout ({@code region/}, {@code DIM-1/region/})
+     * resolve against. This is the level folder where all dimensions share one, and the world folder
+     * where each world has its own.
+     *
+     * @param worldName The name of the world
+     * @return Path to the dimension root, or empty if world not found
+     */
+    default Optional<Path> getDimensionRoot(String worldName) {
+        return getWorldPath(worldName);
+    }
+
+    /**
+     * Gets the average ping of online players. Called on the main thread.
+     *
+     * @return Average ping in milliseconds, or empty if unknown or nobody is online
+     */
+    default OptionalDouble getAveragePlayerPing() {
+        return OptionalDouble.empty();
+    }
+
+    /**
+     * Gets the server's average tick time and player count. Called on the main thread.
+     *
+     * @return The server health, with NaN tick time if the platform does not track it
+     */
+    default ServerHealth getServerHealth() {
+        return ServerHealth.unknown();
+    }
 }
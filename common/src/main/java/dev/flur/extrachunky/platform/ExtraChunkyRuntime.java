@@ -0,0 +1,275 @@
+package dev.flur.extrachunky.platform;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Threads ExtraChunky runs its background work on, the same on every platform.
+ * <p>
+ * Blocking I/O (uploads, sockets, file copies) runs on virtual threads, so a slow host ties up no
+ * platform thread and nothing queues behind a small fixed pool. CPU-heavy work (compression, planning)
+ * runs on a bounded pool that leaves cores for the server; when its queue is full the submitting
+ * thread runs the task itself, which slows producers down instead of growing the queue. Delays and
+ * timers share one scheduling thread that only hands tasks off.
+ */
+public class ExtraChunkyRuntime {
+    private static final int CPU_QUEUE_CAPACITY = 256;
+    private static final long CPU_KEEP_ALIVE_SECONDS = 30;
+
+    private final ExtraChunkyLogger logger;
+    private final ExecutorService ioThreads;
+    private final ThreadPoolExecutor cpu;
+    private final ScheduledThreadPoolExecutor timer;
+
+    private final AtomicInteger ioActive = new AtomicInteger();
+    private final AtomicInteger ioQueued = new AtomicInteger();
+    private final LongAdder ioCompleted = new LongAdder();
+    private final Executor io = this::executeIo;
+
+    /**
+     * Load of one of the runtime's pools.
+     *
+     * @param name      Pool name
+     * @param threads   Threads currently alive (for the I/O pool, tasks running)
+     * @param active    Tasks running
+     * @param queued    Tasks waiting to run
+     * @param completed Tasks finished since startup
+     */
+    public record PoolStats(String name, int threads, int active, int queued, long completed) {
+    }
+
+    /**
+     * Creates a runtime with a CPU pool of half the available processors.
+     *
+     * @param logger Logger for tasks that fail with an uncaught exception
+     */
+    public ExtraChunkyRuntime(ExtraChunkyLogger logger) {
+        this(logger, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Creates a runtime.
+     *
+     * @param logger     Logger for tasks that fail with an uncaught exception
+     * @param cpuThreads Size of the CPU pool
+     */
+    public ExtraChunkyRuntime(ExtraChunkyLogger logger, int cpuThreads) {
+        this.logger = logger;
+        this.ioThreads = newVirtualExecutor("ExtraChunky-IO-");
+
+        int threads = Math.max(1, cpuThreads);
+        this.cpu = new ThreadPoolExecutor(threads, threads, CPU_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(CPU_QUEUE_CAPACITY), platformThreads("ExtraChunky-CPU-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.cpu.allowCoreThreadTimeOut(true);
+
+        this.timer = new ScheduledThreadPoolExecutor(1, platformThreads("ExtraChunky-Timer"));
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Creates an executor that runs each task on a new named virtual thread, for components that
+     * manage the lifetime of their own connections.
+     *
+     * @param namePrefix Prefix of the thread names, followed by a counter
+     * @return The executor
+     */
+    public static ExecutorService newVirtualExecutor(String namePrefix) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 1).factory());
+    }
+
+    /**
+     * Gets the executor for blocking I/O. Every task gets its own virtual thread.
+     */
+    public Executor getIoExecutor() {
+        return io;
+    }
+
+    /**
+     * Gets the executor for CPU-bound work. Runs tasks on the caller when the pool is saturated.
+     */
+    public Executor getCpuExecutor() {
+        return cpu;
+    }
+
+    /**
+     * Gets the size of the CPU pool, i.e. how many CPU tasks are worth having in flight at once.
+     */
+    public int getCpuThreads() {
+        return cpu.getMaximumPoolSize();
+    }
+
+    /**
+     * Runs a task on a virtual thread after a delay.
+     *
+     * @param task    The task
+     * @param delayMs Delay in milliseconds
+     * @return Handle to cancel the task
+     */
+    public ExtraChunkyTask schedule(Runnable task, long delayMs) {
+        return schedule(task, delayMs, io);
+    }
+
+    /**
+     * Hands a task to an executor after a delay, e.g. a server's main thread.
+     *
+     * @param task     The task
+     * @param delayMs  Delay in milliseconds
+     * @param executor Executor to run the task on
+     * @return Handle to cancel the task
+     */
+    public ExtraChunkyTask schedule(Runnable task, long delayMs, Executor executor) {
+        RuntimeTask handle = new RuntimeTask();
+        handle.future = timer.schedule(() -> executor.execute(handle.guard(task)), delayMs, TimeUnit.MILLISECONDS);
+        return handle;
+    }
+
+    /**
+     * Runs a task on a virtual thread repeatedly. A run is skipped while the previous one is still going.
+     *
+     * @param task     The task
+     * @param delayMs  Delay before the first run in milliseconds
+     * @param periodMs Time between runs in milliseconds
+     * @return Handle to cancel the task
+     */
+    public ExtraChunkyTask scheduleAtFixedRate(Runnable task, long delayMs, long periodMs) {
+        return scheduleAtFixedRate(task, delayMs, periodMs, io);
+    }
+
+    /**
+     * Hands a task to an executor repeatedly. A run is skipped while the previous one is still going.
+     *
+     * @param task     The task
+     * @param delayMs  Delay before the first run in milliseconds
+     * @param periodMs Time between runs in milliseconds
+     * @param executor Executor to run the task on
+     * @return Handle to cancel the task
+     */
+    public ExtraChunkyTask scheduleAtFixedRate(Runnable task, long delayMs, long periodMs, Executor executor) {
+        RuntimeTask handle = new RuntimeTask();
+        AtomicBoolean busy = new AtomicBoolean();
+        Runnable guarded = handle.guard(() -> {
+            try {
+                task.run();
+            } finally {
+                busy.set(false);
+            }
+        });
+        handle.future = timer.scheduleAtFixedRate(() -> {
+            if (busy.compareAndSet(false, true)) {
+                try {
+                    executor.execute(guarded);
+                } catch (RuntimeException e) {
+                    busy.set(false);
+                    throw e;
+                }
+            }
+        }, delayMs, Math.max(1, periodMs), TimeUnit.MILLISECONDS);
+        return handle;
+    }
+
+    /**
+     * Gets the load of each pool.
+     */
+    public List<PoolStats> getStats() {
+        return List.of(
+                new PoolStats("io", ioActive.get(), ioActive.get(), ioQueued.get(), ioCompleted.sum()),
+                new PoolStats("cpu", cpu.getPoolSize(), cpu.getActiveCount(), cpu.getQueue().size(),
+                        cpu.getCompletedTaskCount()),
+                new PoolStats("timer", timer.getPoolSize(), timer.getActiveCount(), timer.getQueue().size(),
+                        timer.getCompletedTaskCount())
+        );
+    }
+
+    /**
+     * Stops accepting work and waits briefly for running tasks. Called when the plugin/mod is disabled.
+     */
+    public void shutdown() {
+        timer.shutdownNow();
+        cpu.shutdown();
+        ioThreads.shutdown();
+        try {
+            if (!cpu.awaitTermination(5, TimeUnit.SECONDS)) {
+                cpu.shutdownNow();
+            }
+            if (!ioThreads.awaitTermination(5, TimeUnit.SECONDS)) {
+                ioThreads.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            cpu.shutdownNow();
+            ioThreads.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void executeIo(Runnable task) {
+        ioQueued.incrementAndGet();
+        try {
+            ioThreads.execute(() -> {
+                ioQueued.decrementAndGet();
+                ioActive.incrementAndGet();
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    logger.severe("Uncaught exception in background task", t);
+                } finally {
+                    ioActive.decrementAndGet();
+                    ioCompleted.increment();
+                }
+            });
+        } catch (RuntimeException e) {
+            ioQueued.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private static ThreadFactory platformThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name.endsWith("-") ? name + counter.incrementAndGet() : name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class RuntimeTask implements ExtraChunkyTask {
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+        private volatile ScheduledFuture<?> future;
+
+        /**
+         * Wraps a task so a run that was already handed off is dropped once the task is cancelled.
+         */
+        Runnable guard(Runnable task) {
+            return () -> {
+                if (!cancelled.get()) {
+                    task.run();
+                }
+            };
+        }
+
+        @Override
+        public void cancel() {
+            cancelled.set(true);
+            ScheduledFuture<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+    }
+}
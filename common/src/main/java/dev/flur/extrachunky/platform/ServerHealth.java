@@ -0,0 +1,23 @@
+package dev.flur.extrachunky.platform;
+
+/**
+ * Snapshot of how busy the server is.
+ *
+ * @param mspt          Average milliseconds the server spends per tick, NaN if the platform does not report it
+ * @param onlinePlayers Number of players online
+ */
+public record ServerHealth(double mspt, int onlinePlayers) {
+    /**
+     * Health of a platform that reports nothing.
+     */
+    public static ServerHealth unknown() {
+        return new ServerHealth(Double.NaN, 0);
+    }
+
+    /**
+     * Checks if the platform reported the tick time.
+     */
+    public boolean hasMspt() {
+        return !Double.isNaN(mspt);
+    }
+}
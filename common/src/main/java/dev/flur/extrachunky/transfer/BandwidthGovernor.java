@@ -0,0 +1,170 @@
+package dev.flur.extrachunky.transfer;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Token bucket that caps upload bandwidth, so transfers on a worker that also serves players
+ * leave room on its uplink.
+ * <p>
+ * The ceiling can be changed while uploads run. In adaptive mode the rate follows server health
+ * instead: it is cut by a third whenever the server reports lag and raised by a small step each
+ * healthy interval, up to the ceiling (or without bound if there is none).
+ */
+public class BandwidthGovernor {
+    /** Smallest rate the adaptive mode backs off to, so transfers never stall completely */
+    private static final long MIN_ADAPTIVE_RATE = 64 * 1024;
+    /** Rate used as the growth step in adaptive mode when there is no ceiling */
+    private static final long ADAPTIVE_STEP_WITHOUT_LIMIT = 1024 * 1024;
+    private static final double BACKOFF_FACTOR = 0.66;
+    private static final int MIN_CHUNK_SIZE = 16 * 1024;
+
+    private long limit;
+    private boolean adaptive;
+    private long rate;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+
+    // Throughput since the last adjustment, the starting point when backing off without a ceiling
+    private long bytesSinceAdjust;
+    private long lastAdjust = System.nanoTime();
+
+    /**
+     * Creates a new governor.
+     *
+     * @param limit    Ceiling in bytes per second, 0 for none
+     * @param adaptive Whether to follow server health below the ceiling
+     */
+    public BandwidthGovernor(long limit, boolean adaptive) {
+        this.limit = Math.max(0, limit);
+        this.adaptive = adaptive;
+        this.rate = this.limit;
+    }
+
+    /**
+     * Creates a governor from the transfer configuration.
+     */
+    public static BandwidthGovernor fromConfig(SshConfig config) {
+        return new BandwidthGovernor(config.bandwidthLimit() * 1024L, config.adaptiveBandwidth());
+    }
+
+    /**
+     * Waits until the given number of bytes may be sent.
+     *
+     * @param bytes Bytes about to be sent
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     */
+    public void acquire(long bytes) throws InterruptedIOException {
+        long waitNanos;
+        synchronized (this) {
+            bytesSinceAdjust += bytes;
+            if (rate <= 0) {
+                return;
+            }
+            refill();
+            tokens -= bytes;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens / rate * 1_000_000_000L);
+        }
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while throttling upload");
+            }
+        }
+    }
+
+    /**
+     * Gets how many bytes to send between calls to {@link #acquire}: about a tenth of a second's
+     * worth while limited, so the link sees a steady stream instead of bursts.
+     *
+     * @param max Chunk size used without a limit
+     * @return The chunk size
+     */
+    public synchronized int chunkSize(int max) {
+        if (rate <= 0) {
+            return max;
+        }
+        return (int) Math.max(MIN_CHUNK_SIZE, Math.min(max, rate / 10));
+    }
+
+    /**
+     * Adjusts the rate in adaptive mode. Called periodically with the server's health.
+     *
+     * @param degraded true if the server is lagging or player ping has risen
+     */
+    public synchronized void adjust(boolean degraded) {
+        long now = System.nanoTime();
+        double seconds = (now - lastAdjust) / 1e9;
+        long measured = seconds > 0 ? (long) (bytesSinceAdjust / seconds) : 0;
+        lastAdjust = now;
+        bytesSinceAdjust = 0;
+        if (!adaptive) {
+            return;
+        }
+
+        if (degraded) {
+            long current = rate > 0 ? rate : measured;
+            if (current > 0) {
+                rate = Math.max(MIN_ADAPTIVE_RATE, (long) (current * BACKOFF_FACTOR));
+            }
+        } else if (rate > 0) {
+            long step = limit > 0 ? Math.max(limit / 20, MIN_ADAPTIVE_RATE) : ADAPTIVE_STEP_WITHOUT_LIMIT;
+            rate += step;
+            if (limit > 0 && rate >= limit) {
+                rate = limit;
+            } else if (limit == 0 && measured > 0 && rate > measured * 2) {
+                // The link is slower than the rate, so the cap no longer does anything
+                rate = 0;
+            }
+        }
+    }
+
+    /**
+     * Sets the ceiling. Takes effect on the next chunk of every running upload.
+     *
+     * @param limit Ceiling in bytes per second, 0 for none
+     */
+    public synchronized void setLimit(long limit) {
+        this.limit = Math.max(0, limit);
+        if (!adaptive || rate == 0 || this.limit == 0 || rate > this.limit) {
+            rate = this.limit;
+        }
+        tokens = Math.min(tokens, burst());
+    }
+
+    public synchronized void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+        if (!adaptive) {
+            rate = limit;
+        }
+    }
+
+    public synchronized long getLimit() {
+        return limit;
+    }
+
+    public synchronized boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Gets the rate uploads are currently held to, in bytes per second (0 if unthrottled).
+     */
+    public synchronized long getRate() {
+        return rate;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst(), tokens + (now - lastRefill) / 1e9 * rate);
+        lastRefill = now;
+    }
+
+    /**
+     * Allows a quarter second of data to go out at once, enough to keep the pipe full without a spike.
+     */
+    private double burst() {
+        return Math.max(MIN_CHUNK_SIZE, rate / 4.0);
+    }
+}
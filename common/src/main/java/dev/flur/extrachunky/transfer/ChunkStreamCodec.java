@@ -0,0 +1,213 @@
+package dev.flur.extrachunky.transfer;
+
+import java.io.*;
+import java.util.List;
+import java.util.zip.*;
+
+/**
+ * Converts region chunks to and from a raw chunk stream for transfer.
+ * <p>
+ * Chunk payloads in a region file are individually zlib-compressed, which leaves little for a
+ * second compressor to find. The chunk stream stores each chunk's inflated NBT instead, so the
+ * whole region can be compressed as one stream with matches across chunks. On decode, payloads
+ * are re-compressed with their original compression type to rebuild a valid region file.
+ * <p>
+ * Stream layout: magic, version, chunk count, then per chunk: index (short), timestamp (int),
+ * compression type (byte), encoding (byte), length (int), data.
+ * <p>
+ * A codec holds native zlib state and reuses its buffers across chunks, so use one per thread and
+ * close it when done.
+ */
+public class ChunkStreamCodec implements AutoCloseable {
+    private static final int MAGIC = 0x45435331; // "ECS1"
+    private static final int VERSION = 1;
+
+    /** Payload stored exactly as it appeared in the region file */
+    private static final byte ENCODING_STORED = 0;
+    /** Payload inflated to raw NBT, re-compressed on decode */
+    private static final byte ENCODING_INFLATED = 1;
+
+    private final Inflater inflater = new Inflater();
+    private final Deflater deflater = new Deflater();
+    private final byte[] buffer = new byte[64 * 1024];
+    private final Scratch scratch = new Scratch(256 * 1024);
+    private byte[] data = new byte[256 * 1024];
+
+    /**
+     * Writes chunks to a raw chunk stream.
+     *
+     * @param chunks Chunks read from a region file
+     * @param output Stream to write to
+     * @return Number of chunk payloads that were inflated
+     * @throws IOException if writing fails
+     */
+    public int encode(List<RegionChunk> chunks, OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeShort(chunks.size());
+
+        int inflated = 0;
+        for (RegionChunk chunk : chunks) {
+            out.writeShort(chunk.index());
+            out.writeInt(chunk.timestamp());
+            out.writeByte(chunk.compressionType());
+            if (inflate(chunk)) {
+                out.writeByte(ENCODING_INFLATED);
+                out.writeInt(scratch.size());
+                scratch.writeTo(out);
+                inflated++;
+            } else {
+                out.writeByte(ENCODING_STORED);
+                out.writeInt(chunk.payload().length);
+                out.write(chunk.payload());
+            }
+        }
+        out.flush();
+        return inflated;
+    }
+
+    /**
+     * Reads chunks from a raw chunk stream and writes them to a region file as they are read,
+     * re-compressing inflated payloads. Payloads pass through buffers the codec reuses.
+     *
+     * @param input  Stream to read from
+     * @param output Region file to write the chunks to
+     * @return Number of chunks written
+     * @throws IOException if the stream is malformed or writing fails
+     */
+    public int decode(InputStream input, RegionFileFormat.Writer output) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a chunk stream");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported chunk stream version: " + version);
+        }
+
+        int count = in.readUnsignedShort();
+        if (count > RegionFileFormat.CHUNKS_PER_REGION) {
+            throw new IOException("Chunk stream declares " + count + " chunks");
+        }
+
+        for (int i = 0; i < count; i++) {
+            int index = in.readUnsignedShort();
+            int timestamp = in.readInt();
+            byte compressionType = in.readByte();
+            byte encoding = in.readByte();
+            int length = in.readInt();
+            if (index >= RegionFileFormat.CHUNKS_PER_REGION || length < 0) {
+                throw new IOException("Malformed chunk entry " + i + " in chunk stream");
+            }
+
+            if (data.length < length) {
+                data = new byte[Math.max(length, data.length * 2)];
+            }
+            in.readFully(data, 0, length);
+
+            switch (encoding) {
+                case ENCODING_STORED -> output.write(index, timestamp, compressionType, data, length);
+                case ENCODING_INFLATED -> {
+                    deflate(data, length, compressionType);
+                    output.write(index, timestamp, compressionType, scratch.array(), scratch.size());
+                }
+                default -> throw new IOException("Unknown chunk encoding: " + encoding);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Inflates a chunk payload to its raw NBT.
+     *
+     * @param chunk Chunk read from a region file
+     * @return The raw NBT, or null if the payload is external, uncompressed, or unreadable
+     */
+    public byte[] inflatePayload(RegionChunk chunk) {
+        return inflate(chunk) ? scratch.toByteArray() : null;
+    }
+
+    /**
+     * Inflates a chunk payload into the scratch buffer.
+     *
+     * @return true if the scratch buffer holds the raw NBT, false if the payload should be stored as-is
+     */
+    private boolean inflate(RegionChunk chunk) {
+        if (chunk.isExternal()) {
+            return false;
+        }
+
+        scratch.reset();
+        try {
+            switch (chunk.compressionType()) {
+                case RegionChunk.COMPRESSION_ZLIB -> {
+                    inflater.reset();
+                    inflater.setInput(chunk.payload());
+                    while (!inflater.finished()) {
+                        int n = inflater.inflate(buffer);
+                        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                            return false;
+                        }
+                        scratch.write(buffer, 0, n);
+                    }
+                }
+                case RegionChunk.COMPRESSION_GZIP -> {
+                    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(chunk.payload()))) {
+                        in.transferTo(scratch);
+                    }
+                }
+                default -> {
+                    return false;
+                }
+            }
+        } catch (DataFormatException | IOException e) {
+            // Corrupt payloads are passed through untouched
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Releases the inflater's and deflater's native memory. The codec cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        inflater.end();
+        deflater.end();
+    }
+
+    /**
+     * Compresses raw NBT into the scratch buffer with the given compression type.
+     */
+    private void deflate(byte[] raw, int length, byte compressionType) throws IOException {
+        scratch.reset();
+        switch (compressionType) {
+            case RegionChunk.COMPRESSION_ZLIB -> {
+                deflater.reset();
+                DeflaterOutputStream out = new DeflaterOutputStream(scratch, deflater, buffer.length);
+                out.write(raw, 0, length);
+                out.finish();
+            }
+            case RegionChunk.COMPRESSION_GZIP -> {
+                try (OutputStream out = new GZIPOutputStream(scratch)) {
+                    out.write(raw, 0, length);
+                }
+            }
+            default -> throw new IOException("Cannot re-encode compression type " + compressionType);
+        }
+    }
+
+    /**
+     * Growable buffer whose backing array can be handed out without a copy.
+     */
+    private static final class Scratch extends ByteArrayOutputStream {
+        Scratch(int size) {
+            super(size);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package dev.flur.extrachunky.transfer;
+
+/**
+ * Circuit breaker for one upload destination.
+ * <p>
+ * After a run of consecutive failures the breaker opens and uploads to the destination pause,
+ * instead of every queued region failing against a host that is down. Once the pause is over a
+ * single probe goes through while every other request is held back; success closes the breaker,
+ * failure opens it again for twice as long.
+ */
+public class CircuitBreaker {
+    /** The pause doubles on repeated trips up to this multiple of the base pause */
+    private static final int MAX_PAUSE_MULTIPLIER = 16;
+
+    /**
+     * Breaker states.
+     */
+    public enum State {
+        /** Uploads go through */
+        CLOSED,
+        /** Uploads are paused */
+        OPEN,
+        /** The pause is over and the probe's result decides whether to close or open again */
+        HALF_OPEN
+    }
+
+    private final String destination;
+    private final int threshold;
+    private final long pauseMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int trips;
+    private long openUntil;
+    private boolean probeInFlight;
+
+    /**
+     * Creates a new circuit breaker.
+     *
+     * @param destination Destination the breaker guards, for messages
+     * @param threshold   Consecutive failures that open the breaker, 0 to never open
+     * @param pauseMillis How long the first pause lasts
+     */
+    public CircuitBreaker(String destination, int threshold, long pauseMillis) {
+        this.destination = destination;
+        this.threshold = threshold;
+        this.pauseMillis = Math.max(0, pauseMillis);
+    }
+
+    /**
+     * Checks if an upload may be attempted, moving an open breaker whose pause is over to half-open.
+     * A half-open breaker lets only one request through until its result is recorded, so a caller
+     * that gets true must report the outcome with {@link #recordSuccess()} or {@link #recordFailure()}.
+     */
+    public synchronized boolean allowRequest() {
+        if (isPaused()) {
+            return false;
+        }
+        if (state == State.HALF_OPEN) {
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if requests are currently held back, without taking the half-open probe.
+     *
+     * @return true if the breaker is open, or half-open with the probe still in flight
+     */
+    public synchronized boolean isPaused() {
+        if (state == State.OPEN && System.currentTimeMillis() >= openUntil) {
+            state = State.HALF_OPEN;
+        }
+        return state == State.OPEN || (state == State.HALF_OPEN && probeInFlight);
+    }
+
+    /**
+     * Records a successful upload.
+     *
+     * @return true if this closed a breaker that had been tripped
+     */
+    public synchronized boolean recordSuccess() {
+        boolean recovered = state != State.CLOSED;
+        state = State.CLOSED;
+        probeInFlight = false;
+        consecutiveFailures = 0;
+        trips = 0;
+        return recovered;
+    }
+
+    /**
+     * Records a failed upload or connection attempt.
+     *
+     * @return true if this opened the breaker
+     */
+    public synchronized boolean recordFailure() {
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (threshold <= 0 || (state == State.CLOSED && consecutiveFailures < threshold)) {
+            return false;
+        }
+        trips++;
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + pauseMillis * Math.min(MAX_PAUSE_MULTIPLIER, 1L << Math.min(trips - 1, 30));
+        return true;
+    }
+
+    /**
+     * Closes the breaker, e.g. when the user retries by hand.
+     */
+    public synchronized void reset() {
+        recordSuccess();
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Gets the time left in the current pause, 0 if the breaker is not open.
+     */
+    public synchronized long getRemainingPauseMillis() {
+        return state == State.OPEN ? Math.max(0, openUntil - System.currentTimeMillis()) : 0;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+}
@@ -0,0 +1,204 @@
+package dev.flur.extrachunky.transfer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the compression codec and level that moves regions to the host fastest over the current link.
+ * <p>
+ * Each region is compressed and then uploaded. Done one after the other, the time to transfer one byte
+ * of region data is the compression time per byte plus the compressed ratio divided by the upload rate.
+ * When regions are compressed ahead while others upload, the two overlap and the slower stage alone
+ * sets the pace, so the cost is the larger of the two, with compression spread over the regions
+ * compressed at once. The selector keeps moving averages of both for every candidate and picks the
+ * cheapest one. On a LAN this converges on no compression; on a slow WAN it converges on the strongest
+ * level the CPU can sustain.
+ * <p>
+ * Every candidate is tried once before the estimate is trusted, and the least recently measured
+ * candidate is re-tried periodically so the choice follows changes in link speed or CPU load.
+ */
+public class CodecSelector {
+    /**
+     * Weight of the newest sample in the moving averages.
+     */
+    private static final double ALPHA = 0.3;
+
+    /**
+     * Re-measure a stale candidate every this many selections.
+     */
+    private static final int EXPLORE_INTERVAL = 16;
+
+    private final List<Choice> candidates;
+    private final Map<Choice, Stats> stats = new HashMap<>();
+
+    private double uploadSecondsPerByte = -1;
+    private long selections = 0;
+    // Regions compressed while others upload, 0 if each is compressed right before its upload
+    private int compressionAhead = 0;
+
+    /**
+     * Creates a selector over the given candidates.
+     *
+     * @param candidates Codec and level combinations to choose from, cheapest first
+     */
+    public CodecSelector(List<Choice> candidates) {
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("No compression candidates");
+        }
+        this.candidates = List.copyOf(candidates);
+    }
+
+    /**
+     * Creates a selector over the built-in codecs, from no compression to high ZSTD levels.
+     */
+    public static CodecSelector withDefaultCandidates() {
+        return new CodecSelector(List.of(
+                new Choice(CompressionCodecs.NONE, 0),
+                new Choice(CompressionCodecs.LZ4, 1),
+                new Choice(CompressionCodecs.ZSTD, 1),
+                new Choice(CompressionCodecs.ZSTD, 3),
+                new Choice(CompressionCodecs.ZSTD_MT, 9),
+                new Choice(CompressionCodecs.ZSTD_MT, 15),
+                new Choice(CompressionCodecs.ZSTD_MT, 19)
+        ));
+    }
+
+    /**
+     * Sets how many regions are compressed while earlier ones upload.
+     *
+     * @param compressionAhead Regions compressed at once, 0 if compression and uploads take turns
+     */
+    public synchronized void setCompressionAhead(int compressionAhead) {
+        this.compressionAhead = Math.max(0, compressionAhead);
+    }
+
+    /**
+     * Chooses the codec and level for the next region.
+     */
+    public synchronized Choice select() {
+        selections++;
+
+        for (Choice candidate : candidates) {
+            if (!stats.containsKey(candidate)) {
+                return candidate;
+            }
+        }
+
+        if (selections % EXPLORE_INTERVAL == 0) {
+            Choice stalest = null;
+            for (Choice candidate : candidates) {
+                if (stalest == null || stats.get(candidate).measuredAt < stats.get(stalest).measuredAt) {
+                    stalest = candidate;
+                }
+            }
+            return stalest;
+        }
+
+        return best();
+    }
+
+    /**
+     * Gets the candidate with the lowest estimated cost, without counting as a selection.
+     *
+     * @return The best measured candidate, or the first candidate if nothing has been measured
+     */
+    public synchronized Choice best() {
+        Choice best = candidates.get(0);
+        double bestCost = Double.MAX_VALUE;
+        for (Choice candidate : candidates) {
+            double cost = estimateSecondsPerByte(candidate);
+            if (cost >= 0 && cost < bestCost) {
+                best = candidate;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Records how long a region took to compress.
+     *
+     * @param choice        Codec and level used
+     * @param inputBytes    Size of the region file
+     * @param outputBytes   Size of the compressed file
+     * @param durationNanos Time spent compressing
+     */
+    public synchronized void recordCompression(Choice choice, long inputBytes, long outputBytes, long durationNanos) {
+        if (inputBytes <= 0) {
+            return;
+        }
+        double secondsPerByte = durationNanos / 1e9 / inputBytes;
+        double ratio = (double) outputBytes / inputBytes;
+
+        Stats current = stats.get(choice);
+        if (current == null) {
+            stats.put(choice, new Stats(secondsPerByte, ratio, selections));
+        } else {
+            current.secondsPerByte = ewma(current.secondsPerByte, secondsPerByte);
+            current.ratio = ewma(current.ratio, ratio);
+            current.measuredAt = selections;
+        }
+    }
+
+    /**
+     * Records how long an upload took.
+     *
+     * @param bytes      Bytes sent over the link
+     * @param durationMs Time spent uploading
+     */
+    public synchronized void recordUpload(long bytes, long durationMs) {
+        if (bytes <= 0) {
+            return;
+        }
+        double secondsPerByte = Math.max(1, durationMs) / 1000.0 / bytes;
+        uploadSecondsPerByte = uploadSecondsPerByte < 0 ? secondsPerByte : ewma(uploadSecondsPerByte, secondsPerByte);
+    }
+
+    /**
+     * Estimates the time to compress and upload one byte of region data with a candidate.
+     *
+     * @return Estimated seconds per byte, or -1 if the candidate or the link has not been measured
+     */
+    public synchronized double estimateSecondsPerByte(Choice choice) {
+        Stats s = stats.get(choice);
+        if (s == null || uploadSecondsPerByte < 0) {
+            return -1;
+        }
+        double uploadCost = s.ratio * uploadSecondsPerByte;
+        if (compressionAhead > 0) {
+            return Math.max(s.secondsPerByte / compressionAhead, uploadCost);
+        }
+        return s.secondsPerByte + uploadCost;
+    }
+
+    private static double ewma(double average, double sample) {
+        return average + ALPHA * (sample - average);
+    }
+
+    /**
+     * A codec and compression level.
+     */
+    public record Choice(CompressionCodec codec, int level) {
+        public Choice {
+            level = codec.clampLevel(level);
+        }
+
+        @Override
+        public String toString() {
+            return codec.getMaxLevel() > codec.getMinLevel() ? codec.getName() + ":" + level : codec.getName();
+        }
+    }
+
+    private static class Stats {
+        double secondsPerByte;
+        double ratio;
+        long measuredAt;
+
+        Stats(double secondsPerByte, double ratio, long measuredAt) {
+            this.secondsPerByte = secondsPerByte;
+            this.ratio = ratio;
+            this.measuredAt = measuredAt;
+        }
+    }
+}
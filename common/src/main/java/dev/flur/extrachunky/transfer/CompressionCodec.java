@@ -0,0 +1,107 @@
+package dev.flur.extrachunky.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A compression format used for region uploads.
+ * Codecs are identified by name in the config and by file extension on the host,
+ * so a compressed file can always be decoded without extra metadata.
+ *
+ * @see CompressionCodecs
+ */
+public interface CompressionCodec {
+    /**
+     * Gets the codec name used in the config (e.g., "zstd").
+     */
+    String getName();
+
+    /**
+     * Gets the extension appended to compressed files (e.g., ".zst"), or an empty string if
+     * the codec leaves files untouched.
+     */
+    String getExtension();
+
+    /**
+     * Gets the lowest supported compression level.
+     */
+    int getMinLevel();
+
+    /**
+     * Gets the highest supported compression level.
+     */
+    int getMaxLevel();
+
+    /**
+     * Checks if this codec can use a trained {@link CompressionDictionary}.
+     */
+    default boolean supportsDictionary() {
+        return false;
+    }
+
+    /**
+     * Opens a compressing stream into a channel.
+     *
+     * @param out        Channel receiving compressed data
+     * @param level      Compression level, already clamped to this codec's range
+     * @param dictionary Dictionary to compress with, or null (ignored if unsupported)
+     * @return Stream accepting uncompressed data; closing it closes {@code out}
+     * @throws IOException if the compressor cannot be created
+     */
+    OutputStream compress(WritableByteChannel out, int level, CompressionDictionary dictionary) throws IOException;
+
+    /**
+     * Opens a decompressing stream from a channel.
+     *
+     * @param in         Channel of compressed data
+     * @param dictionary Dictionary the data was compressed with, or null
+     * @return Stream of uncompressed data; closing it closes {@code in}
+     * @throws IOException if the decompressor cannot be created
+     */
+    InputStream decompress(ReadableByteChannel in, CompressionDictionary dictionary) throws IOException;
+
+    /**
+     * Compresses a whole file into a channel. Codecs with a native buffer API override this
+     * to avoid copying through the heap.
+     *
+     * @param source     File to compress
+     * @param out        Channel receiving compressed data; closed when done
+     * @param level      Compression level, already clamped to this codec's range
+     * @param dictionary Dictionary to compress with, or null
+     * @throws IOException if reading, compressing or writing fails
+     */
+    default void compress(FileChannel source, WritableByteChannel out, int level,
+                          CompressionDictionary dictionary) throws IOException {
+        try (OutputStream compressed = compress(out, level, dictionary)) {
+            Channels.newInputStream(source).transferTo(compressed);
+        }
+    }
+
+    /**
+     * Decompresses a whole channel into a file. Codecs with a native buffer API override this
+     * to avoid copying through the heap.
+     *
+     * @param in         Channel of compressed data; closed when done
+     * @param target     File receiving uncompressed data
+     * @param dictionary Dictionary the data was compressed with, or null
+     * @throws IOException if reading, decompressing or writing fails
+     */
+    default void decompress(ReadableByteChannel in, FileChannel target,
+                            CompressionDictionary dictionary) throws IOException {
+        try (InputStream decompressed = decompress(in, dictionary)) {
+            decompressed.transferTo(Channels.newOutputStream(target));
+        }
+    }
+
+    /**
+     * Clamps a level to this codec's supported range.
+     */
+    default int clampLevel(int level) {
+        return Math.max(getMinLevel(), Math.min(getMaxLevel(), level));
+    }
+}
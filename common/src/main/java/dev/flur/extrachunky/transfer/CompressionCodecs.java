@@ -0,0 +1,85 @@
+package dev.flur.extrachunky.transfer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of available compression codecs.
+ * Additional codecs can be registered at startup; the host resolves codecs by file extension.
+ */
+public final class CompressionCodecs {
+    /**
+     * Config value that enables per-link codec selection.
+     */
+    public static final String AUTO = "auto";
+
+    public static final CompressionCodec NONE = new NoneCodec();
+    public static final CompressionCodec LZ4 = new Lz4Codec();
+    public static final CompressionCodec ZSTD = new ZstdCodec("zstd", 0);
+    public static final CompressionCodec ZSTD_MT = new ZstdCodec("zstd-mt",
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+
+    private static final Map<String, CompressionCodec> BY_NAME = new ConcurrentHashMap<>();
+    private static final List<CompressionCodec> CODECS = new CopyOnWriteArrayList<>();
+
+    static {
+        register(NONE);
+        register(LZ4);
+        register(ZSTD);
+        register(ZSTD_MT);
+    }
+
+    private CompressionCodecs() {}
+
+    /**
+     * Registers a codec.
+     *
+     * @param codec The codec to register
+     * @throws IllegalArgumentException if a codec with the same name is already registered
+     */
+    public static void register(CompressionCodec codec) {
+        String name = codec.getName().toLowerCase(Locale.ROOT);
+        if (name.equals(AUTO) || BY_NAME.putIfAbsent(name, codec) != null) {
+            throw new IllegalArgumentException("Compression codec already registered: " + codec.getName());
+        }
+        CODECS.add(codec);
+    }
+
+    /**
+     * Gets a codec by its config name.
+     *
+     * @param name Codec name (case-insensitive)
+     * @return The codec, or null if none is registered under that name
+     */
+    public static CompressionCodec byName(String name) {
+        return name == null ? null : BY_NAME.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Gets the codec that produced a file, based on its extension.
+     * Codecs sharing an extension decode identically, so the first registered one is returned.
+     *
+     * @param fileName Compressed file name
+     * @return The codec, or null if the file is not compressed by a known codec
+     */
+    public static CompressionCodec forFileName(String fileName) {
+        for (CompressionCodec codec : CODECS) {
+            if (!codec.getExtension().isEmpty() && fileName.endsWith(codec.getExtension())) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets all registered codecs in registration order.
+     */
+    public static List<CompressionCodec> all() {
+        return Collections.unmodifiableList(new ArrayList<>(CODECS));
+    }
+}
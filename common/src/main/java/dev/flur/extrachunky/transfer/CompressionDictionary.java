@@ -0,0 +1,130 @@
+package dev.flur.extrachunky.transfer;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A trained ZSTD dictionary used to compress chunk streams.
+ * The dictionary ID is written into every ZSTD frame header, so the host can tell
+ * which dictionary a compressed region needs before decompressing it.
+ */
+public class CompressionDictionary {
+    public static final String EXTENSION = ".zdict";
+
+    /**
+     * Enough bytes to cover the largest ZSTD frame header.
+     */
+    private static final int FRAME_HEADER_SIZE = 18;
+
+    private final long id;
+    private final byte[] data;
+
+    private ZstdDictCompress compressDict;
+    private int compressLevel;
+    private ZstdDictDecompress decompressDict;
+
+    private CompressionDictionary(long id, byte[] data) {
+        this.id = id;
+        this.data = data;
+    }
+
+    /**
+     * Creates a dictionary from trained dictionary bytes.
+     *
+     * @param data Dictionary contents
+     * @return The dictionary
+     * @throws IOException if the data is not a valid ZSTD dictionary
+     */
+    public static CompressionDictionary of(byte[] data) throws IOException {
+        long id = Zstd.getDictIdFromDict(data);
+        if (id == 0) {
+            throw new IOException("Not a ZSTD dictionary");
+        }
+        return new CompressionDictionary(id, data);
+    }
+
+    /**
+     * Loads a dictionary from disk.
+     *
+     * @param file Dictionary file
+     * @return The dictionary
+     * @throws IOException if the file cannot be read or is not a dictionary
+     */
+    public static CompressionDictionary load(Path file) throws IOException {
+        return of(Files.readAllBytes(file));
+    }
+
+    /**
+     * Saves this dictionary to disk.
+     *
+     * @param file Destination file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, data);
+    }
+
+    /**
+     * Reads the dictionary ID from the frame header of a ZSTD-compressed file.
+     *
+     * @param compressedFile The compressed file
+     * @return The dictionary ID, or 0 if the frame was compressed without a dictionary
+     * @throws IOException if the file cannot be read
+     */
+    public static long readDictionaryId(Path compressedFile) throws IOException {
+        byte[] header = new byte[FRAME_HEADER_SIZE];
+        int read;
+        try (InputStream in = Files.newInputStream(compressedFile)) {
+            read = in.readNBytes(header, 0, header.length);
+        }
+        if (read < header.length) {
+            byte[] truncated = new byte[read];
+            System.arraycopy(header, 0, truncated, 0, read);
+            header = truncated;
+        }
+        return Math.max(0, Zstd.getDictIdFromFrame(header));
+    }
+
+    /**
+     * Gets the dictionary prepared for compression at the given level.
+     */
+    public synchronized ZstdDictCompress forCompression(int level) {
+        if (compressDict == null || compressLevel != level) {
+            compressDict = new ZstdDictCompress(data, level);
+            compressLevel = level;
+        }
+        return compressDict;
+    }
+
+    /**
+     * Gets the dictionary prepared for decompression.
+     */
+    public synchronized ZstdDictDecompress forDecompression() {
+        if (decompressDict == null) {
+            decompressDict = new ZstdDictDecompress(data);
+        }
+        return decompressDict;
+    }
+
+    /**
+     * Gets the file name this dictionary is shipped under (e.g., "123456789.zdict").
+     */
+    public String getFileName() {
+        return id + EXTENSION;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getSize() {
+        return data.length;
+    }
+}
@@ -0,0 +1,95 @@
+package dev.flur.extrachunky.transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channel;
+
+/**
+ * Closes a connection that stopped making progress while waiting on its peer.
+ * Blocking socket channels have no read or write timeout, so a stalled peer or a half-open
+ * connection would keep a thread blocked forever; closing the channel makes the blocked call throw.
+ * <p>
+ * Callers arm the watchdog before waiting on the peer and report progress as bytes move.
+ * A virtual thread checks the deadline once a second until the watchdog is closed.
+ */
+final class ConnectionWatchdog implements Closeable {
+    private static final long CHECK_INTERVAL_MS = 1000;
+
+    private final Channel channel;
+    private final Thread checker;
+
+    private volatile long timeoutMillis = 0;
+    private volatile long lastProgress;
+    private volatile boolean expired = false;
+    private volatile boolean closed = false;
+
+    /**
+     * Starts watching a connection. It is not armed until {@link #await} is called.
+     *
+     * @param channel The connection to close once it stalls
+     * @param name    Name of the checking thread
+     */
+    ConnectionWatchdog(Channel channel, String name) {
+        this.channel = channel;
+        this.checker = Thread.ofVirtual().name(name).start(this::checkLoop);
+    }
+
+    /**
+     * Arms the watchdog: the connection is closed if it makes no progress for the given time.
+     *
+     * @param timeoutMillis Time without progress before the connection counts as stalled
+     */
+    void await(long timeoutMillis) {
+        this.lastProgress = System.currentTimeMillis();
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Records that bytes moved, restarting the deadline.
+     */
+    void progress() {
+        lastProgress = System.currentTimeMillis();
+    }
+
+    /**
+     * Disarms the watchdog while nothing waits on the peer.
+     */
+    void pause() {
+        timeoutMillis = 0;
+    }
+
+    /**
+     * Checks if the watchdog closed the connection.
+     */
+    boolean hasExpired() {
+        return expired;
+    }
+
+    /**
+     * Stops watching. Does not close the connection.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        checker.interrupt();
+    }
+
+    private void checkLoop() {
+        while (!closed && channel.isOpen()) {
+            try {
+                Thread.sleep(CHECK_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long timeout = timeoutMillis;
+            if (timeout > 0 && System.currentTimeMillis() - lastProgress > timeout) {
+                expired = true;
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package dev.flur.extrachunky.transfer;
+
+import net.jpountz.xxhash.StreamingXXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 64-bit xxHash content hashes for regions and their compressed transfer artifacts.
+ * <p>
+ * A region's hash covers its chunks (index, timestamp, compression type and payload) rather than
+ * its bytes, so compacting a region does not change it. Compressed artifacts carry the region hash
+ * and their own hash in a trailer written as a ZSTD/LZ4 skippable frame: decompressors step over it,
+ * and the host can verify an upload and learn what it contains without any other metadata.
+ * <p>
+ * The hashes detect damage and identical content; they are not meant to resist deliberate collisions.
+ */
+public final class ContentHash {
+    private static final long SEED = 0;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final XXHashFactory FACTORY = XXHashFactory.fastestInstance();
+
+    /** Last magic of the range both ZSTD and LZ4 frame formats reserve for skippable frames */
+    private static final int SKIPPABLE_MAGIC = 0x184D2A5E;
+    private static final int TRAILER_TAG = 0x45434831; // "ECH1"
+    private static final int TRAILER_PAYLOAD_SIZE = 4 + 8 + 8;
+    private static final int TRAILER_SIZE = 8 + TRAILER_PAYLOAD_SIZE;
+
+    private ContentHash() {
+    }
+
+    /**
+     * Hashes read from an artifact trailer.
+     *
+     * @param regionHash   Hash of the region the artifact was made from
+     * @param artifactHash Hash of the artifact bytes before the trailer
+     */
+    public record Trailer(long regionHash, long artifactHash) {
+    }
+
+    /**
+     * Hashes the content of a region file, falling back to its bytes if it cannot be parsed.
+     *
+     * @param mcaFile The region file
+     * @return The region hash
+     * @throws IOException if the file cannot be read
+     */
+    public static long ofRegion(Path mcaFile) throws IOException {
+        List<RegionChunk> chunks;
+        try {
+            chunks = RegionFileFormat.readChunks(mcaFile);
+        } catch (IOException e) {
+            return ofFile(mcaFile);
+        }
+        return ofChunks(chunks);
+    }
+
+    /**
+     * Hashes the chunks of a region, independent of where they are stored in the file.
+     *
+     * @param chunks Chunks in header order
+     * @return The region hash
+     */
+    public static long ofChunks(List<RegionChunk> chunks) {
+        try (StreamingXXHash64 hash = FACTORY.newStreamingHash64(SEED)) {
+            ByteBuffer header = ByteBuffer.allocate(4 + 4 + 1 + 4);
+            for (RegionChunk chunk : chunks) {
+                header.clear().putInt(chunk.index()).putInt(chunk.timestamp())
+                        .put(chunk.compressionType()).putInt(chunk.payload().length);
+                hash.update(header.array(), 0, header.position());
+                hash.update(chunk.payload(), 0, chunk.payload().length);
+            }
+            return hash.getValue();
+        }
+    }
+
+    /**
+     * Hashes the bytes of a file.
+     *
+     * @param file The file
+     * @return The file hash
+     * @throws IOException if the file cannot be read
+     */
+    public static long ofFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return ofPrefix(channel, channel.size());
+        }
+    }
+
+    /**
+     * Appends a trailer with the region hash and the artifact's own hash to a compressed artifact.
+     *
+     * @param artifact   The compressed file
+     * @param regionHash Hash of the region it was made from
+     * @return The artifact hash
+     * @throws IOException if the file cannot be read or written
+     */
+    public static long appendTrailer(Path artifact, long regionHash) throws IOException {
+        try (FileChannel channel = FileChannel.open(artifact, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long artifactHash = ofPrefix(channel, size);
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(SKIPPABLE_MAGIC).putInt(TRAILER_PAYLOAD_SIZE)
+                    .putInt(TRAILER_TAG).putLong(regionHash).putLong(artifactHash)
+                    .flip();
+            while (trailer.hasRemaining()) {
+                channel.write(trailer, size + trailer.position());
+            }
+            return artifactHash;
+        }
+    }
+
+    /**
+     * Reads the trailer of a compressed artifact.
+     *
+     * @param artifact The compressed file
+     * @return The trailer, or null if the file has none
+     * @throws IOException if the file cannot be read
+     */
+    public static Trailer readTrailer(Path artifact) throws IOException {
+        try (FileChannel channel = FileChannel.open(artifact, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < TRAILER_SIZE) {
+                return null;
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer, size - TRAILER_SIZE + trailer.position()) < 0) {
+                    return null;
+                }
+            }
+            trailer.flip();
+            if (trailer.getInt() != SKIPPABLE_MAGIC || trailer.getInt() != TRAILER_PAYLOAD_SIZE
+                    || trailer.getInt() != TRAILER_TAG) {
+                return null;
+            }
+            return new Trailer(trailer.getLong(), trailer.getLong());
+        }
+    }
+
+    /**
+     * Checks that a compressed artifact still matches the hash in its trailer.
+     *
+     * @param artifact The compressed file
+     * @param trailer  Its trailer
+     * @return true if the bytes before the trailer hash to the recorded artifact hash
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean verify(Path artifact, Trailer trailer) throws IOException {
+        try (FileChannel channel = FileChannel.open(artifact, StandardOpenOption.READ)) {
+            return ofPrefix(channel, channel.size() - TRAILER_SIZE) == trailer.artifactHash();
+        }
+    }
+
+    /**
+     * Formats a hash as 16 hex digits.
+     */
+    public static String toHex(long hash) {
+        return String.format("%016x", hash);
+    }
+
+    /**
+     * Parses a hash formatted by {@link #toHex(long)}.
+     *
+     * @throws NumberFormatException if the value is not a hex hash
+     */
+    public static long parseHex(String value) {
+        return Long.parseUnsignedLong(value, 16);
+    }
+
+    private static long ofPrefix(FileChannel channel, long length) throws IOException {
+        try (StreamingXXHash64 hash = FACTORY.newStreamingHash64(SEED)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(length, 1)));
+            long position = 0;
+            while (position < length) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), length - position));
+                int n = channel.read(buffer, position);
+                if (n < 0) {
+                    throw new IOException("File shorter than expected");
+                }
+                hash.update(buffer.array(), 0, n);
+                position += n;
+            }
+            return hash.getValue();
+        }
+    }
+}
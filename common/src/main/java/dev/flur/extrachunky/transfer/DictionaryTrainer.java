@@ -0,0 +1,91 @@
+package dev.flur.extrachunky.transfer;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.github.luben.zstd.ZstdException;
+import dev.flur.extrachunky.platform.ExtraChunkyLogger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Trains a ZSTD dictionary from the raw NBT of generated chunks.
+ * Chunks within one world share palettes, block entity keys and heightmaps,
+ * so a dictionary lets every region start with those already in the window.
+ */
+public class DictionaryTrainer {
+    private static final int DICTIONARY_SIZE = 112 * 1024;
+    private static final int MAX_SAMPLE_BYTES = 16 * 1024 * 1024;
+    private static final int MAX_REGIONS = 8;
+    private static final int MAX_CHUNKS_PER_REGION = 256;
+
+    private final ExtraChunkyLogger logger;
+
+    public DictionaryTrainer(ExtraChunkyLogger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Trains a dictionary from a sample of chunks in the given region files.
+     * Regions are sampled evenly across the list, and chunks evenly across each region.
+     *
+     * @param regionFiles Candidate region files
+     * @return The trained dictionary, or null if there were too few samples
+     */
+    public CompressionDictionary train(List<Path> regionFiles) {
+        long startTime = System.currentTimeMillis();
+        ZstdDictTrainer trainer = new ZstdDictTrainer(MAX_SAMPLE_BYTES, DICTIONARY_SIZE);
+
+        int samples = 0;
+        long sampleBytes = 0;
+        int regionStep = Math.max(1, regionFiles.size() / MAX_REGIONS);
+
+        try (ChunkStreamCodec codec = new ChunkStreamCodec()) {
+            sampling:
+            for (int i = 0; i < regionFiles.size(); i += regionStep) {
+                Path regionFile = regionFiles.get(i);
+                if (!Files.exists(regionFile)) {
+                    continue;
+                }
+
+                List<RegionChunk> chunks;
+                try {
+                    chunks = RegionFileFormat.readChunks(regionFile);
+                } catch (IOException e) {
+                    continue;
+                }
+
+                int chunkStep = Math.max(1, chunks.size() / MAX_CHUNKS_PER_REGION);
+                for (int j = 0; j < chunks.size(); j += chunkStep) {
+                    byte[] raw = codec.inflatePayload(chunks.get(j));
+                    if (raw == null) {
+                        continue;
+                    }
+                    if (!trainer.addSample(raw)) {
+                        // Sample buffer is full
+                        break sampling;
+                    }
+                    samples++;
+                    sampleBytes += raw.length;
+                }
+            }
+        }
+
+        if (samples < 16) {
+            logger.warning("Not enough chunk samples to train a compression dictionary (" + samples + ")");
+            return null;
+        }
+
+        try {
+            CompressionDictionary dictionary = CompressionDictionary.of(trainer.trainSamples());
+            logger.info(String.format("Trained compression dictionary %d: %d KB from %d chunks (%d KB) in %dms",
+                    dictionary.getId(), dictionary.getSize() / 1024, samples, sampleBytes / 1024,
+                    System.currentTimeMillis() - startTime));
+            return dictionary;
+        } catch (ZstdException | IOException e) {
+            logger.warning("Failed to train compression dictionary: " + e.getMessage());
+            return null;
+        }
+    }
+}
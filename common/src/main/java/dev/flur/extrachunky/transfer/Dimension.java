@@ -0,0 +1,58 @@
+package dev.flur.extrachunky.transfer;
+
+/**
+ * The dimensions regions belong to. The ordinal is part of a packed region key
+ * (see {@link RegionCoord#pack()}), so new constants go at the end.
+ */
+public enum Dimension {
+    OVERWORLD(RegionCoord.OVERWORLD, ""),
+    NETHER(RegionCoord.NETHER, "DIM-1"),
+    END(RegionCoord.END, "DIM1");
+
+    private static final Dimension[] VALUES = values();
+
+    private final String id;
+    private final String folder;
+
+    Dimension(String id, String folder) {
+        this.id = id;
+        this.folder = folder;
+    }
+
+    /**
+     * Gets the dimension identifier used in {@link RegionCoord}.
+     */
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Gets the folder the dimension's regions are in, relative to the world folder.
+     *
+     * @return Folder name ("", "DIM-1", or "DIM1")
+     */
+    public String folder() {
+        return folder;
+    }
+
+    /**
+     * Gets the dimension with the given identifier.
+     *
+     * @throws IllegalArgumentException if there is none
+     */
+    public static Dimension of(String id) {
+        return switch (id) {
+            case RegionCoord.OVERWORLD -> OVERWORLD;
+            case RegionCoord.NETHER -> NETHER;
+            case RegionCoord.END -> END;
+            default -> throw new IllegalArgumentException("Unknown dimension " + id);
+        };
+    }
+
+    /**
+     * Gets the dimension with the given ordinal.
+     */
+    public static Dimension ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,113 @@
+package dev.flur.extrachunky.transfer;
+
+/**
+ * Configuration for the host-side ingest service.
+ * The host watches the directory workers upload to and installs regions into the world as they arrive.
+ */
+public record IngestConfig(
+        boolean enabled,
+        String incomingPath,
+        int threads,
+        int syncBatchSize,
+        long syncIntervalMs,
+        int dataPort
+) {
+    /**
+     * Default ingest configuration (disabled).
+     */
+    public static IngestConfig disabled() {
+        return new IngestConfig(
+                false,
+                "",
+                0,
+                64,
+                1000,
+                0
+        );
+    }
+
+    /**
+     * Creates a builder for IngestConfig.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets the incoming directory for a world.
+     * Falls back to the SFTP remote path, since host and workers usually share a config.
+     *
+     * @param worldName The world name to substitute
+     * @param sshConfig SSH configuration providing the fallback path
+     * @return The incoming path with {world} replaced, or an empty string if neither is set
+     */
+    public String getIncomingPathForWorld(String worldName, SshConfig sshConfig) {
+        String path = incomingPath == null || incomingPath.isBlank() ? sshConfig.remotePath() : incomingPath;
+        return path == null ? "" : path.replace("{world}", worldName);
+    }
+
+    /**
+     * Gets the number of decompression threads to use.
+     *
+     * @return The configured thread count, or half the available processors if not set
+     */
+    public int getEffectiveThreads() {
+        if (threads > 0) {
+            return threads;
+        }
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    /**
+     * Builder for IngestConfig.
+     */
+    public static class Builder {
+        private boolean enabled = false;
+        private String incomingPath = "";
+        private int threads = 0;
+        private int syncBatchSize = 64;
+        private long syncIntervalMs = 1000;
+        private int dataPort = 0;
+
+        public Builder enabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public Builder incomingPath(String incomingPath) {
+            this.incomingPath = incomingPath;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder syncBatchSize(int syncBatchSize) {
+            this.syncBatchSize = syncBatchSize;
+            return this;
+        }
+
+        public Builder syncIntervalMs(long syncIntervalMs) {
+            this.syncIntervalMs = syncIntervalMs;
+            return this;
+        }
+
+        public Builder dataPort(int dataPort) {
+            this.dataPort = dataPort;
+            return this;
+        }
+
+        public IngestConfig build() {
+            return new IngestConfig(
+                    enabled,
+                    incomingPath,
+                    threads,
+                    Math.max(1, syncBatchSize),
+                    Math.max(50, syncIntervalMs),
+                    dataPort
+            );
+        }
+    }
+}
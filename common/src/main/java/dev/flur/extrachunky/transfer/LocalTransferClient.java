@@ -0,0 +1,120 @@
+package dev.flur.extrachunky.transfer;
+
+import dev.flur.extrachunky.platform.ExtraChunkyLogger;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Places region files into a directory on a filesystem shared with the host,
+ * for workers on the same machine or an NFS/ZFS pool.
+ * <p>
+ * Files are copied with {@link FileChannel#transferTo}, which lets the kernel use copy_file_range:
+ * a reflink on copy-on-write filesystems and a server-side copy on NFS 4.2. They are never hardlinked:
+ * the host moves uploads into its world, and a link would leave both servers writing the same region
+ * file, since Minecraft rewrites region files in place.
+ */
+public class LocalTransferClient implements TransferClient {
+    private final SshConfig config;
+    private final ExtraChunkyLogger logger;
+
+    /**
+     * Creates a new local transfer client.
+     *
+     * @param config SSH configuration; its remote path is the shared directory as seen from this worker
+     * @param logger Logger for status messages
+     */
+    public LocalTransferClient(SshConfig config, ExtraChunkyLogger logger) {
+        this.config = config;
+        this.logger = logger;
+    }
+
+    @Override
+    public void connect() {
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    public TransferResult uploadFile(Path localFile, String remotePath, TransferProgressListener listener,
+                                     boolean resume) {
+        long startTime = System.currentTimeMillis();
+        Path target = Path.of(remotePath);
+        Path part = target.resolveSibling(target.getFileName() + SftpTransferClient.PART_SUFFIX);
+
+        try {
+            long size = Files.size(localFile);
+            Files.createDirectories(target.getParent());
+            Files.deleteIfExists(part);
+
+            copy(localFile, part, size);
+            try {
+                Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            if (listener != null) {
+                listener.onProgress(size, size);
+            }
+            return new TransferResult(localFile.toString(), remotePath, size,
+                    System.currentTimeMillis() - startTime, true, null);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException ignored) {
+            }
+            return new TransferResult(localFile.toString(), remotePath, 0,
+                    System.currentTimeMillis() - startTime, false, e.getMessage());
+        }
+    }
+
+    private void copy(Path source, Path target, long size) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long position = 0;
+            while (position < size) {
+                long copied = in.transferTo(position, size - position, out);
+                if (copied <= 0) {
+                    throw new IOException("File shrank during copy");
+                }
+                position += copied;
+            }
+        }
+    }
+
+    @Override
+    public void createRemoteDirectory(String remotePath) throws IOException {
+        Files.createDirectories(Path.of(remotePath));
+    }
+
+    @Override
+    public boolean remoteFileExists(String remotePath) {
+        return Files.exists(Path.of(remotePath));
+    }
+
+    @Override
+    public byte[] readRemoteFile(String remotePath) throws IOException {
+        Path file = Path.of(remotePath);
+        return Files.exists(file) ? Files.readAllBytes(file) : null;
+    }
+
+    @Override
+    public String getRemoteBasePath(String worldName) {
+        String basePath = config.getRemotePathForWorld(worldName);
+        return basePath.endsWith("/") ? basePath : basePath + "/";
+    }
+
+    @Override
+    public String getDestination() {
+        return "file:" + config.remotePath();
+    }
+
+    @Override
+    public void close() {
+    }
+}
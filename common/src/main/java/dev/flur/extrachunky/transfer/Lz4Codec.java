@@ -0,0 +1,55 @@
+package dev.flur.extrachunky.transfer;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * LZ4 frame compression. Level 1 uses the fast compressor, higher levels use LZ4 HC.
+ * Trades ratio for speed, which suits links too fast for ZSTD to keep up with.
+ */
+public class Lz4Codec implements CompressionCodec {
+    private static final LZ4Factory FACTORY = LZ4Factory.fastestInstance();
+
+    @Override
+    public String getName() {
+        return "lz4";
+    }
+
+    @Override
+    public String getExtension() {
+        return ".lz4";
+    }
+
+    @Override
+    public int getMinLevel() {
+        return 1;
+    }
+
+    @Override
+    public int getMaxLevel() {
+        return 17;
+    }
+
+    @Override
+    public OutputStream compress(WritableByteChannel out, int level, CompressionDictionary dictionary) throws IOException {
+        LZ4Compressor compressor = level <= 1 ? FACTORY.fastCompressor() : FACTORY.highCompressor(level);
+        return new LZ4FrameOutputStream(Channels.newOutputStream(out), LZ4FrameOutputStream.BLOCKSIZE.SIZE_4MB, -1L, compressor,
+                XXHashFactory.fastestInstance().hash32(), LZ4FrameOutputStream.FLG.Bits.BLOCK_INDEPENDENCE,
+                LZ4FrameOutputStream.FLG.Bits.CONTENT_CHECKSUM);
+    }
+
+    @Override
+    public InputStream decompress(ReadableByteChannel in, CompressionDictionary dictionary) throws IOException {
+        return new LZ4FrameInputStream(Channels.newInputStream(in));
+    }
+}
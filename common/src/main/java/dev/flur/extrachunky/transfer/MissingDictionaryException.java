@@ -0,0 +1,22 @@
+package dev.flur.extrachunky.transfer;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a compressed file needs a dictionary that has not been registered yet.
+ * The dictionary may still be on its way from the worker, so callers can retry later.
+ */
+public class MissingDictionaryException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final long dictionaryId;
+
+    public MissingDictionaryException(long dictionaryId, String fileName) {
+        super("Missing compression dictionary " + dictionaryId + " for " + fileName);
+        this.dictionaryId = dictionaryId;
+    }
+
+    public long getDictionaryId() {
+        return dictionaryId;
+    }
+}
@@ -0,0 +1,280 @@
+package dev.flur.extrachunky.transfer;
+
+import dev.flur.extrachunky.platform.ExtraChunkyLogger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Uploads files to the host's data port over plain TCP, without SSH.
+ * File data is sent with {@link FileChannel#transferTo}, which the OS turns into sendfile,
+ * so regions go from the page cache to the socket without being copied through the JVM.
+ */
+public class NativeTransferClient implements TransferClient {
+    /**
+     * Progress is reported after each slice, so large files still update the transfer status.
+     * Each slice also restarts the stall deadline, so it has to fit in it on slow links.
+     */
+    private static final long PROGRESS_STEP = 1024 * 1024;
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+
+    private final ExtraChunkyLogger logger;
+    private final Endpoint endpoint;
+    private final BandwidthGovernor governor;
+
+    private SocketChannel channel;
+    private ConnectionWatchdog watchdog;
+
+    /**
+     * Creates a new native transfer client.
+     *
+     * @param logger   Logger for status messages
+     * @param endpoint Host data port and the token it issued to this worker
+     */
+    public NativeTransferClient(ExtraChunkyLogger logger, Endpoint endpoint) {
+        this(logger, endpoint, new BandwidthGovernor(0, false));
+    }
+
+    /**
+     * Creates a new native transfer client with throttled uploads.
+     *
+     * @param logger   Logger for status messages
+     * @param endpoint Host data port and the token it issued to this worker
+     * @param governor Limits the upload rate
+     */
+    public NativeTransferClient(ExtraChunkyLogger logger, Endpoint endpoint, BandwidthGovernor governor) {
+        this.logger = logger;
+        this.endpoint = endpoint;
+        this.governor = governor;
+    }
+
+    @Override
+    public void connect() throws IOException {
+        if (isConnected()) {
+            return;
+        }
+
+        logger.info("Connecting to host data port " + endpoint.hostname() + ":" + endpoint.port() + "...");
+        SocketChannel socket = SocketChannel.open();
+        ConnectionWatchdog socketWatchdog = new ConnectionWatchdog(socket, "ExtraChunky-Data-Watchdog");
+        try {
+            socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            socket.socket().connect(new InetSocketAddress(endpoint.hostname(), endpoint.port()), CONNECT_TIMEOUT_MS);
+
+            socketWatchdog.await(NativeTransferProtocol.STALL_TIMEOUT_MS);
+            NativeTransferProtocol.writeHandshake(socket, endpoint.token());
+            byte status = NativeTransferProtocol.readByte(socket);
+            String message = NativeTransferProtocol.readString(socket);
+            if (status != NativeTransferProtocol.STATUS_OK) {
+                throw new IOException("Host rejected data connection: " + message);
+            }
+            socketWatchdog.pause();
+        } catch (IOException e) {
+            socketWatchdog.close();
+            socket.close();
+            if (socketWatchdog.hasExpired()) {
+                throw new IOException("Host did not answer the handshake", e);
+            }
+            throw e;
+        }
+
+        channel = socket;
+        watchdog = socketWatchdog;
+        logger.info("Connected to host data port");
+    }
+
+    @Override
+    public boolean isConnected() {
+        return channel != null && channel.isOpen();
+    }
+
+    /**
+     * Uploads a file, continuing a partial upload the host kept from an earlier attempt when asked to resume.
+     * The host checks a CRC32C of the whole file before renaming it, so a resumed upload
+     * that ends up different from the local file is discarded instead of installed.
+     */
+    @Override
+    public TransferResult uploadFile(Path localFile, String remotePath, TransferProgressListener listener,
+                                     boolean resume) throws IOException {
+        // Reconnect after a failed upload left the session out of sync
+        connect();
+        watchdog.await(NativeTransferProtocol.STALL_TIMEOUT_MS);
+
+        long startTime = System.currentTimeMillis();
+        long offset = 0;
+        long position = 0;
+
+        try (FileChannel file = FileChannel.open(localFile, StandardOpenOption.READ)) {
+            long size = file.size();
+            int checksum = NativeTransferProtocol.checksum(file, size);
+
+            if (resume) {
+                NativeTransferProtocol.writeRequest(channel, NativeTransferProtocol.OP_STAT, remotePath);
+                expectOk();
+                long partSize = NativeTransferProtocol.readLong(channel);
+                if (partSize > 0 && partSize <= size) {
+                    offset = partSize;
+                    logger.info("Resuming upload of " + localFile.getFileName() + " at " + (offset / 1024) + " KB");
+                }
+            }
+
+            NativeTransferProtocol.writePut(channel, remotePath, offset, size, checksum);
+            position = offset;
+            while (position < size) {
+                long step = Math.min(governor.chunkSize((int) PROGRESS_STEP), size - position);
+                governor.acquire(step);
+                long sent = file.transferTo(position, step, channel);
+                if (sent <= 0) {
+                    throw new IOException("File shrank during upload");
+                }
+                watchdog.progress();
+                position += sent;
+                if (listener != null) {
+                    listener.onProgress(position, size);
+                }
+            }
+
+            byte status = NativeTransferProtocol.readByte(channel);
+            String message = NativeTransferProtocol.readString(channel);
+            watchdog.pause();
+            long duration = System.currentTimeMillis() - startTime;
+            if (status != NativeTransferProtocol.STATUS_OK) {
+                return new TransferResult(localFile.toString(), remotePath, position - offset, duration, false, message);
+            }
+            return new TransferResult(localFile.toString(), remotePath, size - offset, duration, true, null);
+        } catch (IOException e) {
+            // The host cannot tell where this file's data ends, so the session is unusable
+            String message = stalled(e).getMessage();
+            abort();
+            long duration = System.currentTimeMillis() - startTime;
+            return new TransferResult(localFile.toString(), remotePath, position - offset, duration, false, message);
+        }
+    }
+
+    /**
+     * Names a stalled host as the cause of a failed request, rather than the closed channel it left behind.
+     */
+    private IOException stalled(IOException e) {
+        if (watchdog != null && watchdog.hasExpired()) {
+            return new IOException("Host stopped responding for " + (NativeTransferProtocol.STALL_TIMEOUT_MS / 1000) + "s", e);
+        }
+        return e;
+    }
+
+    private void expectOk() throws IOException {
+        byte status = NativeTransferProtocol.readByte(channel);
+        String message = NativeTransferProtocol.readString(channel);
+        if (status != NativeTransferProtocol.STATUS_OK) {
+            throw new IOException(message);
+        }
+    }
+
+    /**
+     * The host creates directories as uploads arrive, so there is nothing to do up front.
+     */
+    @Override
+    public void createRemoteDirectory(String remotePath) {
+    }
+
+    @Override
+    public boolean remoteFileExists(String remotePath) throws IOException {
+        connect();
+        try {
+            watchdog.await(NativeTransferProtocol.STALL_TIMEOUT_MS);
+            NativeTransferProtocol.writeRequest(channel, NativeTransferProtocol.OP_EXISTS, remotePath);
+            byte status = NativeTransferProtocol.readByte(channel);
+            String message = NativeTransferProtocol.readString(channel);
+            watchdog.pause();
+            if (status == NativeTransferProtocol.STATUS_ERROR) {
+                throw new IOException(message);
+            }
+            return status == NativeTransferProtocol.STATUS_OK;
+        } catch (IOException e) {
+            IOException failure = stalled(e);
+            abort();
+            throw failure;
+        }
+    }
+
+    @Override
+    public byte[] readRemoteFile(String remotePath) throws IOException {
+        connect();
+        try {
+            watchdog.await(NativeTransferProtocol.STALL_TIMEOUT_MS);
+            NativeTransferProtocol.writeRequest(channel, NativeTransferProtocol.OP_GET, remotePath);
+            byte status = NativeTransferProtocol.readByte(channel);
+            String message = NativeTransferProtocol.readString(channel);
+            if (status == NativeTransferProtocol.STATUS_MISSING) {
+                watchdog.pause();
+                return null;
+            }
+            if (status != NativeTransferProtocol.STATUS_OK) {
+                throw new IOException(message);
+            }
+            byte[] data = NativeTransferProtocol.readBytes(channel);
+            watchdog.pause();
+            return data;
+        } catch (IOException e) {
+            IOException failure = stalled(e);
+            abort();
+            throw failure;
+        }
+    }
+
+    /**
+     * Remote paths start with the world; the host resolves the rest in that world's incoming directory.
+     */
+    @Override
+    public String getRemoteBasePath(String worldName) {
+        return worldName + "/";
+    }
+
+    @Override
+    public String getDestination() {
+        return "native://" + endpoint.hostname() + ":" + endpoint.port();
+    }
+
+    @Override
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            if (channel.isOpen()) {
+                NativeTransferProtocol.writeClose(channel);
+            }
+        } catch (IOException ignored) {
+        }
+        abort();
+    }
+
+    /**
+     * Drops the connection without ending the session, e.g. when a request was cut off halfway.
+     */
+    private void abort() {
+        if (channel == null) {
+            return;
+        }
+        watchdog.close();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        channel = null;
+        watchdog = null;
+    }
+
+    /**
+     * Where a worker sends regions over the native transport.
+     *
+     * @param hostname Host address the worker is registered with
+     * @param port     The host's data port
+     * @param token    Token the host issued to this worker on registration
+     */
+    public record Endpoint(String hostname, int port, String token) {}
+}
@@ -0,0 +1,186 @@
+package dev.flur.extrachunky.transfer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Wire format of the native transfer channel between workers and the host's data port.
+ * <p>
+ * The worker opens a connection with magic, version and the data token it received on
+ * registration; the host answers with a status. The worker then sends requests, each answered
+ * with a status byte and a message. Paths start with the world the file belongs to
+ * ({@code world/region/r.0.0.mca.zst}); the host maps each world to its own incoming directory.
+ * <ul>
+ *   <li>STAT: path; answered with OK followed by the size (long) of its partial upload, 0 if none</li>
+ *   <li>PUT: path, offset (long), size (long), CRC32C of the whole file (int), then the
+ *       size - offset bytes after offset. The host appends to the partial upload, checks the
+ *       CRC32C over the complete file and only then renames it into place.</li>
+ *   <li>EXISTS: path; answered with OK or MISSING</li>
+ *   <li>GET: path; answered with OK followed by the file as a length (int) and bytes, or MISSING.
+ *       Only meant for small files such as the host's region hash index.</li>
+ *   <li>CLOSE: ends the session</li>
+ * </ul>
+ * Strings are an unsigned short length followed by UTF-8 bytes. Headers are read with exact-size
+ * buffers, so file data can be moved between socket and file channels without passing through a stream.
+ */
+final class NativeTransferProtocol {
+    static final int MAGIC = 0x45434454; // "ECDT"
+    static final int VERSION = 4;
+
+    static final byte OP_CLOSE = 0;
+    static final byte OP_PUT = 1;
+    static final byte OP_EXISTS = 2;
+    static final byte OP_STAT = 3;
+    static final byte OP_GET = 4;
+
+    /**
+     * Time either side waits on its peer without any progress before dropping the connection.
+     */
+    static final long STALL_TIMEOUT_MS = 60_000;
+
+    /**
+     * Largest file a GET may return.
+     */
+    static final int MAX_GET_SIZE = 64 * 1024 * 1024;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+    static final byte STATUS_MISSING = 2;
+
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+    private static final int CHECKSUM_BUFFER_SIZE = 1024 * 1024;
+
+    private NativeTransferProtocol() {
+    }
+
+    static void writeHandshake(WritableByteChannel channel, String token) throws IOException {
+        byte[] tokenBytes = encode(token);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 1 + 2 + tokenBytes.length);
+        buffer.putInt(MAGIC).put((byte) VERSION).putShort((short) tokenBytes.length).put(tokenBytes);
+        writeFully(channel, buffer.flip());
+    }
+
+    static void writeRequest(WritableByteChannel channel, byte op, String path) throws IOException {
+        byte[] pathBytes = encode(path);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + pathBytes.length);
+        buffer.put(op).putShort((short) pathBytes.length).put(pathBytes);
+        writeFully(channel, buffer.flip());
+    }
+
+    static void writePut(WritableByteChannel channel, String path, long offset, long size, int checksum) throws IOException {
+        byte[] pathBytes = encode(path);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + pathBytes.length + 8 + 8 + 4);
+        buffer.put(OP_PUT).putShort((short) pathBytes.length).put(pathBytes)
+                .putLong(offset).putLong(size).putInt(checksum);
+        writeFully(channel, buffer.flip());
+    }
+
+    static void writeLong(WritableByteChannel channel, long value) throws IOException {
+        writeFully(channel, ByteBuffer.allocate(8).putLong(value).flip());
+    }
+
+    static void writeBytes(WritableByteChannel channel, byte[] data) throws IOException {
+        writeFully(channel, ByteBuffer.allocate(4 + data.length).putInt(data.length).put(data).flip());
+    }
+
+    static void writeClose(WritableByteChannel channel) throws IOException {
+        writeFully(channel, ByteBuffer.wrap(new byte[]{OP_CLOSE}));
+    }
+
+    static void writeResponse(WritableByteChannel channel, byte status, String message) throws IOException {
+        byte[] messageBytes = encode(message);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + messageBytes.length);
+        buffer.put(status).putShort((short) messageBytes.length).put(messageBytes);
+        writeFully(channel, buffer.flip());
+    }
+
+    static byte readByte(ReadableByteChannel channel) throws IOException {
+        return readFully(channel, 1).get();
+    }
+
+    static int readInt(ReadableByteChannel channel) throws IOException {
+        return readFully(channel, 4).getInt();
+    }
+
+    static long readLong(ReadableByteChannel channel) throws IOException {
+        return readFully(channel, 8).getLong();
+    }
+
+    static String readString(ReadableByteChannel channel) throws IOException {
+        int length = Short.toUnsignedInt(readFully(channel, 2).getShort());
+        ByteBuffer bytes = readFully(channel, length);
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    static byte[] readBytes(ReadableByteChannel channel) throws IOException {
+        int length = readInt(channel);
+        if (length < 0 || length > MAX_GET_SIZE) {
+            throw new IOException("Invalid file length " + length);
+        }
+        return readFully(channel, length).array();
+    }
+
+    /**
+     * Computes the CRC32C of the first size bytes of a file.
+     * CRC32C is hardware-accelerated on current CPUs, so this runs at memory speed.
+     */
+    static int checksum(FileChannel file, long size) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(CHECKSUM_BUFFER_SIZE, Math.max(size, 1)));
+        long position = 0;
+        while (position < size) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), size - position));
+            int n = file.read(buffer, position);
+            if (n < 0) {
+                throw new EOFException("File shorter than expected");
+            }
+            position += n;
+            crc.update(buffer.flip());
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Discards bytes the peer has already committed to sending, keeping the session in sync.
+     */
+    static void skip(ReadableByteChannel channel, long count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(count, 64 * 1024));
+        while (count > 0) {
+            buffer.clear().limit((int) Math.min(count, buffer.capacity()));
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Connection closed");
+            }
+            count -= buffer.position();
+        }
+    }
+
+    private static ByteBuffer readFully(ReadableByteChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Connection closed");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static byte[] encode(String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new IOException("String too long for transfer header: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,356 @@
+package dev.flur.extrachunky.transfer;
+
+import dev.flur.extrachunky.metrics.MetricsRegistry;
+import dev.flur.extrachunky.platform.ExtraChunkyLogger;
+import dev.flur.extrachunky.platform.ExtraChunkyRuntime;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.*;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Host side of the native transfer channel.
+ * Accepts worker connections on the data port and writes uploads into their world's incoming directory with
+ * {@link FileChannel#transferFrom}, so data moves from the socket to the file without a stream copy.
+ * Uploads are written to a ".part" file and renamed once complete, the same way SFTP uploads are,
+ * so the ingest service picks them up unchanged. A ".part" file left by a dropped connection is
+ * kept, and the worker continues it on its next attempt.
+ * <p>
+ * A connection that stalls halfway through a request, or sits idle for long, is dropped by a
+ * {@link ConnectionWatchdog}, so a half-open connection does not hold its handler forever.
+ */
+public class NativeTransferServer {
+    /** Time a worker may keep its session open between requests, e.g. while compressing the next region */
+    private static final long IDLE_TIMEOUT_MS = 10 * 60_000;
+    /** Largest slice of an upload received at once; each slice restarts the stall deadline */
+    private static final long RECEIVE_SLICE = 1024 * 1024;
+
+    private final ExtraChunkyLogger logger;
+    private final int port;
+    private final Function<String, Path> incomingDirs;
+    private final Predicate<String> tokenValidator;
+
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger filesReceived = new AtomicInteger();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    private ServerSocketChannel serverChannel;
+    private ExecutorService executorService;
+    private volatile boolean running = false;
+
+    /**
+     * Creates a new native transfer server.
+     *
+     * @param logger         Logger for status messages
+     * @param port           Port to listen on
+     * @param incomingDirs   Gets the directory a world's uploads are written to, or null if the world has none
+     * @param tokenValidator Accepts the data tokens issued to registered workers
+     */
+    public NativeTransferServer(ExtraChunkyLogger logger, int port, Function<String, Path> incomingDirs,
+                                Predicate<String> tokenValidator) {
+        this.logger = logger;
+        this.port = port;
+        this.incomingDirs = incomingDirs;
+        this.tokenValidator = tokenValidator;
+    }
+
+    /**
+     * Starts listening on the data port.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    public void start() throws IOException {
+        if (running) {
+            return;
+        }
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        running = true;
+
+        executorService = ExtraChunkyRuntime.newVirtualExecutor("ExtraChunky-Data-");
+        executorService.submit(this::acceptLoop);
+
+        logger.info("Data port listening on " + port);
+    }
+
+    /**
+     * Stops listening and drops all open connections. Partial uploads are left as ".part" files.
+     */
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            logger.warning("Error closing data port");
+        }
+        for (SocketChannel connection : connections) {
+            try {
+                connection.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        logger.info("Data port stopped: " + filesReceived.get() + " files received");
+    }
+
+    /**
+     * Registers the files and bytes received with a metrics registry.
+     */
+    public void setMetrics(MetricsRegistry registry) {
+        registry.counter("extrachunky_data_port_files_total", "Files received on the data port", filesReceived::get);
+        registry.counter("extrachunky_data_port_bytes_total", "Bytes received on the data port", bytesReceived::get);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getFilesReceived() {
+        return filesReceived.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                SocketChannel connection = serverChannel.accept();
+                connections.add(connection);
+                executorService.submit(() -> handleConnection(connection));
+            } catch (AsynchronousCloseException e) {
+                break;
+            } catch (IOException e) {
+                if (running) {
+                    logger.warning("Error accepting data connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void handleConnection(SocketChannel connection) {
+        String address = String.valueOf(connection.socket().getRemoteSocketAddress());
+        ConnectionWatchdog watchdog = new ConnectionWatchdog(connection, "ExtraChunky-Data-Watchdog");
+        try (connection; watchdog) {
+            connection.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            watchdog.await(NativeTransferProtocol.STALL_TIMEOUT_MS);
+            if (!acceptHandshake(connection)) {
+                logger.warning("Rejected data connection from " + address);
+                return;
+            }
+
+            while (running) {
+                watchdog.await(IDLE_TIMEOUT_MS);
+                byte op = NativeTransferProtocol.readByte(connection);
+                watchdog.await(NativeTransferProtocol.STALL_TIMEOUT_MS);
+                switch (op) {
+                    case NativeTransferProtocol.OP_PUT -> receiveFile(connection, watchdog);
+                    case NativeTransferProtocol.OP_STAT -> {
+                        Path target = resolve(NativeTransferProtocol.readString(connection));
+                        if (target == null) {
+                            NativeTransferProtocol.writeResponse(connection, NativeTransferProtocol.STATUS_ERROR, "Invalid path");
+                        } else {
+                            Path part = partFile(target);
+                            NativeTransferProtocol.writeResponse(connection, NativeTransferProtocol.STATUS_OK, "");
+                            NativeTransferProtocol.writeLong(connection, Files.exists(part) ? Files.size(part) : 0);
+                        }
+                    }
+                    case NativeTransferProtocol.OP_EXISTS -> {
+                        Path target = resolve(NativeTransferProtocol.readString(connection));
+                        if (target == null) {
+                            NativeTransferProtocol.writeResponse(connection, NativeTransferProtocol.STATUS_ERROR, "Invalid path");
+                        } else {
+                            NativeTransferProtocol.writeResponse(connection, Files.exists(target) ?
+                                    NativeTransferProtocol.STATUS_OK : NativeTransferProtocol.STATUS_MISSING, "");
+                        }
+                    }
+                    case NativeTransferProtocol.OP_GET -> {
+                        Path target = resolve(NativeTransferProtocol.readString(connection));
+                        if (target == null) {
+                            NativeTransferProtocol.writeResponse(connection, NativeTransferProtocol.STATUS_ERROR, "Invalid path");
+                        } else if (!Files.isRegularFile(target)) {
+                            NativeTransferProtocol.writeResponse(connection, NativeTransferProtocol.STATUS_MISSING, "");
+                        } else if (Files.size(target) > NativeTransferProtocol.MAX_GET_SIZE) {
+                            NativeTransferProtocol.writeResponse(connection, NativeTransferProtocol.STATUS_ERROR, "File too large");
+                        } else {
+                            byte[] data = Files.readAllBytes(target);
+                            NativeTransferProtocol.writeResponse(connection, NativeTransferProtocol.STATUS_OK, "");
+                            NativeTransferProtocol.writeBytes(connection, data);
+                        }
+                    }
+                    case NativeTransferProtocol.OP_CLOSE -> {
+                        return;
+                    }
+                    default -> throw new IOException("Unknown request " + op);
+                }
+            }
+        } catch (EOFException | AsynchronousCloseException e) {
+            // Worker went away, stalled or the server is stopping
+            if (watchdog.hasExpired() && running) {
+                logger.warning("Dropped data connection from " + address + ": no progress in time");
+            }
+        } catch (IOException e) {
+            if (running) {
+                logger.warning("Data connection from " + address + " failed: " + e.getMessage());
+            }
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    private boolean acceptHandshake(SocketChannel connection) throws IOException {
+        int magic = NativeTransferProtocol.readInt(connection);
+        if (magic != NativeTransferProtocol.MAGIC) {
+            return false;
+        }
+        int version = NativeTransferProtocol.readByte(connection);
+        String token = NativeTransferProtocol.readString(connection);
+
+        if (version != NativeTransferProtocol.VERSION) {
+            NativeTransferProtocol.writeResponse(connection, NativeTransferProtocol.STATUS_ERROR,
+                    "Unsupported protocol version " + version);
+            return false;
+        }
+        if (!tokenValidator.test(token)) {
+            NativeTransferProtocol.writeResponse(connection, NativeTransferProtocol.STATUS_ERROR,
+                    "Unknown data token, register with the host first");
+            return false;
+        }
+        NativeTransferProtocol.writeResponse(connection, NativeTransferProtocol.STATUS_OK, "");
+        return true;
+    }
+
+    private void receiveFile(SocketChannel connection, ConnectionWatchdog watchdog) throws IOException {
+        String remotePath = NativeTransferProtocol.readString(connection);
+        long offset = NativeTransferProtocol.readLong(connection);
+        long size = NativeTransferProtocol.readLong(connection);
+        int checksum = NativeTransferProtocol.readInt(connection);
+        if (size < 0 || offset < 0 || offset > size) {
+            throw new IOException("Invalid upload range " + offset + "/" + size);
+        }
+
+        Path target = resolve(remotePath);
+        if (target == null) {
+            NativeTransferProtocol.skip(connection, size - offset);
+            NativeTransferProtocol.writeResponse(connection, NativeTransferProtocol.STATUS_ERROR, "Invalid path: " + remotePath);
+            return;
+        }
+
+        Files.createDirectories(target.getParent());
+        Path part = partFile(target);
+        boolean valid;
+        try (FileChannel file = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (file.size() < offset) {
+                // The partial upload went away since the worker asked for its size
+                NativeTransferProtocol.skip(connection, size - offset);
+                NativeTransferProtocol.writeResponse(connection, NativeTransferProtocol.STATUS_ERROR,
+                        "Partial upload of " + remotePath + " is shorter than " + offset + " bytes");
+                return;
+            }
+            file.truncate(offset);
+
+            long position = offset;
+            while (position < size) {
+                long received = file.transferFrom(connection, position, Math.min(RECEIVE_SLICE, size - position));
+                if (received <= 0) {
+                    throw new EOFException("Connection closed during upload of " + remotePath);
+                }
+                watchdog.progress();
+                position += received;
+            }
+            valid = NativeTransferProtocol.checksum(file, size) == checksum;
+            if (valid) {
+                // On disk before the rename, so a crash cannot leave the final name over missing data
+                file.force(true);
+            }
+        }
+
+        if (!valid) {
+            // Most likely resumed onto a partial file of an older version of the region
+            Files.deleteIfExists(part);
+            NativeTransferProtocol.writeResponse(connection, NativeTransferProtocol.STATUS_ERROR,
+                    "Checksum mismatch for " + remotePath);
+            return;
+        }
+
+        try {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        filesReceived.incrementAndGet();
+        bytesReceived.addAndGet(size - offset);
+        NativeTransferProtocol.writeResponse(connection, NativeTransferProtocol.STATUS_OK, "");
+    }
+
+    private static Path partFile(Path target) {
+        return target.resolveSibling(target.getFileName() + SftpTransferClient.PART_SUFFIX);
+    }
+
+    /**
+     * Resolves a worker-supplied path, which starts with its world, inside that world's incoming directory.
+     *
+     * @return The target file, or null if the world is unknown or the path would escape its incoming directory
+     */
+    private Path resolve(String remotePath) {
+        if (remotePath.isEmpty() || remotePath.startsWith("/") || remotePath.contains("\\")
+                || remotePath.endsWith(SftpTransferClient.PART_SUFFIX)) {
+            return null;
+        }
+        int separator = remotePath.indexOf('/');
+        if (separator <= 0) {
+            return null;
+        }
+        String world = remotePath.substring(0, separator);
+        if (world.equals(".") || world.equals("..")) {
+            return null;
+        }
+        try {
+            Path incomingDir = incomingDirs.apply(world);
+            if (incomingDir == null) {
+                return null;
+            }
+            incomingDir = incomingDir.toAbsolutePath().normalize();
+            Path target = incomingDir.resolve(remotePath.substring(separator + 1)).normalize();
+            return target.startsWith(incomingDir) && !target.equals(incomingDir) ? target : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package dev.flur.extrachunky.transfer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Uploads region files uncompressed. Useful on links faster than any compressor.
+ * Region files are sent as-is rather than as chunk streams, since inflated chunks would only grow.
+ */
+public class NoneCodec implements CompressionCodec {
+    @Override
+    public String getName() {
+        return "none";
+    }
+
+    @Override
+    public String getExtension() {
+        return "";
+    }
+
+    @Override
+    public int getMinLevel() {
+        return 0;
+    }
+
+    @Override
+    public int getMaxLevel() {
+        return 0;
+    }
+
+    @Override
+    public OutputStream compress(WritableByteChannel out, int level, CompressionDictionary dictionary) {
+        return Channels.newOutputStream(out);
+    }
+
+    @Override
+    public InputStream decompress(ReadableByteChannel in, CompressionDictionary dictionary) {
+        return Channels.newInputStream(in);
+    }
+}
@@ -0,0 +1,198 @@
+package dev.flur.extrachunky.transfer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Container that packs many region uploads into one file, so a batch of small regions costs one
+ * upload instead of a directory walk and a file open per region.
+ * <p>
+ * Layout: magic, version, then per entry: name length (short), name (UTF-8), data length (long), data.
+ * After the last entry comes an index with the name, data offset and length of every entry, and the
+ * file ends with the entry count, the index offset and the magic again. The host reads the footer
+ * first, so a truncated archive is rejected before anything is unpacked.
+ */
+public final class RegionArchive {
+    /**
+     * Extension of archive files.
+     */
+    public static final String EXTENSION = ".eca";
+
+    /**
+     * Folder of the upload directory that archives are uploaded to.
+     */
+    public static final String DIRECTORY = "batches";
+
+    private static final int MAGIC = 0x45434131; // "ECA1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 1;
+    private static final int FOOTER_SIZE = 4 + 8 + 4;
+    private static final int MAX_NAME_LENGTH = 0xFFFF;
+
+    private RegionArchive() {
+    }
+
+    /**
+     * An entry in an archive.
+     *
+     * @param name   Path of the file relative to the upload directory (e.g. {@code DIM-1/region/r.0.0.mca.zst})
+     * @param offset Position of the file data in the archive
+     * @param length Length of the file data
+     */
+    public record Entry(String name, long offset, long length) {
+    }
+
+    /**
+     * Writes files into a new archive.
+     *
+     * @param archive The archive to create
+     * @param files   Files to pack, keyed by entry name, in the order they should be stored
+     * @return Size of the archive in bytes
+     * @throws IOException if a file cannot be read or the archive cannot be written
+     */
+    public static long write(Path archive, Map<String, Path> files) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (FileChannel out = FileChannel.open(archive, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put((byte) VERSION).flip());
+
+            for (Map.Entry<String, Path> file : files.entrySet()) {
+                byte[] name = encode(file.getKey());
+                try (FileChannel in = FileChannel.open(file.getValue(), StandardOpenOption.READ)) {
+                    long length = in.size();
+                    writeFully(out, ByteBuffer.allocate(2 + name.length + 8)
+                            .putShort((short) name.length).put(name).putLong(length).flip());
+                    long offset = out.position();
+                    long position = 0;
+                    while (position < length) {
+                        long copied = in.transferTo(position, length - position, out);
+                        if (copied <= 0) {
+                            throw new IOException("File shrank while archiving: " + file.getValue().getFileName());
+                        }
+                        position += copied;
+                    }
+                    out.position(offset + length);
+                    entries.add(new Entry(file.getKey(), offset, length));
+                }
+            }
+
+            long indexOffset = out.position();
+            for (Entry entry : entries) {
+                byte[] name = encode(entry.name());
+                writeFully(out, ByteBuffer.allocate(2 + name.length + 8 + 8)
+                        .putShort((short) name.length).put(name).putLong(entry.offset()).putLong(entry.length()).flip());
+            }
+            writeFully(out, ByteBuffer.allocate(FOOTER_SIZE).putInt(entries.size()).putLong(indexOffset).putInt(MAGIC).flip());
+            return out.position();
+        }
+    }
+
+    /**
+     * Reads the index of an archive.
+     *
+     * @param archive Channel of the archive
+     * @return Entries in the order they are stored
+     * @throws IOException if the archive is incomplete or malformed
+     */
+    public static List<Entry> readIndex(FileChannel archive) throws IOException {
+        long size = archive.size();
+        if (size < HEADER_SIZE + FOOTER_SIZE) {
+            throw new IOException("Archive is truncated");
+        }
+        ByteBuffer header = read(archive, 0, HEADER_SIZE);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a region archive");
+        }
+        int version = header.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported archive version: " + version);
+        }
+
+        ByteBuffer footer = read(archive, size - FOOTER_SIZE, FOOTER_SIZE);
+        int count = footer.getInt();
+        long indexOffset = footer.getLong();
+        if (footer.getInt() != MAGIC || count < 0 || indexOffset < HEADER_SIZE || indexOffset > size - FOOTER_SIZE) {
+            throw new IOException("Archive is truncated or damaged");
+        }
+
+        ByteBuffer index = read(archive, indexOffset, (int) (size - FOOTER_SIZE - indexOffset));
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (index.remaining() < 2) {
+                throw new IOException("Archive index is damaged");
+            }
+            byte[] name = new byte[Short.toUnsignedInt(index.getShort())];
+            if (index.remaining() < name.length + 16) {
+                throw new IOException("Archive index is damaged");
+            }
+            index.get(name);
+            Entry entry = new Entry(new String(name, StandardCharsets.UTF_8), index.getLong(), index.getLong());
+            if (entry.offset() < HEADER_SIZE || entry.length() < 0 || entry.offset() + entry.length() > indexOffset) {
+                throw new IOException("Archive entry " + entry.name() + " is out of bounds");
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Copies an entry's data out of an archive.
+     *
+     * @param archive Channel of the archive
+     * @param entry   Entry to extract
+     * @param target  File to write; replaced if it exists
+     * @throws IOException if the data cannot be copied
+     */
+    public static void extract(FileChannel archive, Entry entry, Path target) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            while (position < entry.length()) {
+                long copied = archive.transferTo(entry.offset() + position, entry.length() - position, out);
+                if (copied <= 0) {
+                    throw new EOFException("Archive ended inside entry " + entry.name());
+                }
+                position += copied;
+            }
+        }
+    }
+
+    /**
+     * Checks if a file is a region archive by its extension.
+     */
+    public static boolean isArchive(Path file) {
+        return file.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Archive is truncated");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static byte[] encode(String name) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0 || bytes.length > MAX_NAME_LENGTH) {
+            throw new IOException("Invalid archive entry name: " + name);
+        }
+        return bytes;
+    }
+}
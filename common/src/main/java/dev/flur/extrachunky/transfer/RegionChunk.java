@@ -0,0 +1,37 @@
+package dev.flur.extrachunky.transfer;
+
+/**
+ * A single chunk entry read from a Minecraft region file.
+ *
+ * @param index           Chunk index within the region (0-1023, x + z * 32)
+ * @param timestamp       Last-modified timestamp from the region header (epoch seconds)
+ * @param compressionType Compression type byte as stored in the file (may include the external flag)
+ * @param payload         Chunk payload as stored in the file, excluding the length and type prefix
+ */
+public record RegionChunk(int index, int timestamp, byte compressionType, byte[] payload) {
+    /**
+     * Flag set on the compression type when the payload lives in an external .mcc file.
+     */
+    public static final int EXTERNAL_FLAG = 0x80;
+
+    /**
+     * Compression types used by Minecraft for chunk payloads.
+     */
+    public static final byte COMPRESSION_GZIP = 1;
+    public static final byte COMPRESSION_ZLIB = 2;
+    public static final byte COMPRESSION_NONE = 3;
+
+    /**
+     * Checks if the chunk data is stored in an external .mcc file.
+     */
+    public boolean isExternal() {
+        return (compressionType & EXTERNAL_FLAG) != 0;
+    }
+
+    /**
+     * Gets the number of bytes this chunk occupies on disk, excluding sector padding.
+     */
+    public int storedLength() {
+        return RegionFileFormat.CHUNK_HEADER_SIZE + payload.length;
+    }
+}
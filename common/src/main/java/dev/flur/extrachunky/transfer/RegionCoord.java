@@ -1,5 +1,6 @@
 package dev.flur.extrachunky.transfer;
 
+import java.util.Locale;
 import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -7,8 +8,13 @@ import java.util.regex.Pattern;
 /**
  * Represents the coordinates of a Minecraft region file.
  * Region files are named r.X.Z.mca where X and Z are region coordinates.
+ * <p>
+ * Large sets of regions are kept as packed keys (see {@link #pack()}) in a {@link RegionSet} or
+ * {@link RegionMap} rather than as instances of this class.
  */
 public record RegionCoord(int x, int z, String dimension) {
+    private static final int COORD_BITS = 30;
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
     private static final Pattern REGION_FILE_PATTERN = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mca");
 
     /**
@@ -33,11 +39,20 @@ public record RegionCoord(int x, int z, String dimension) {
      * @return Relative path including dimension folder if needed
      */
     public String toRelativePath() {
+        return toRelativeDirectory() + "/" + toFileName();
+    }
+
+    /**
+     * Gets the relative region directory for this region within a world folder.
+     *
+     * @return Relative directory ("region", "DIM-1/region", or "DIM1/region")
+     */
+    public String toRelativeDirectory() {
         String dimFolder = getDimensionFolder();
         if (dimFolder.isEmpty()) {
-            return "region/" + toFileName();
+            return "region";
         }
-        return dimFolder + "/region/" + toFileName();
+        return dimFolder + "/region";
     }
 
     /**
@@ -47,12 +62,50 @@ public record RegionCoord(int x, int z, String dimension) {
      */
     public String getDimensionFolder() {
         return switch (dimension) {
-            case NETHER -> "DIM-1";
-            case END -> "DIM1";
-            default -> "";
+            case NETHER -> Dimension.NETHER.folder();
+            case END -> Dimension.END.folder();
+            default -> Dimension.OVERWORLD.folder();
         };
     }
 
+    /**
+     * Packs the region into a single non-negative long: the dimension ordinal in the top bits, then
+     * X and Z in 30 bits each (far beyond the world border).
+     *
+     * @throws IllegalArgumentException if the dimension is not one of {@link Dimension}
+     */
+    public long pack() {
+        return pack(x, z, Dimension.of(dimension));
+    }
+
+    /**
+     * Packs region coordinates into a single non-negative long, like {@link #pack()}.
+     */
+    public static long pack(int x, int z, Dimension dimension) {
+        return (long) dimension.ordinal() << (2 * COORD_BITS) | (x & COORD_MASK) << COORD_BITS | (z & COORD_MASK);
+    }
+
+    /**
+     * Creates a RegionCoord from a packed key.
+     */
+    public static RegionCoord unpack(long key) {
+        return new RegionCoord(unpackX(key), unpackZ(key), Dimension.ofOrdinal((int) (key >>> (2 * COORD_BITS))).id());
+    }
+
+    /**
+     * Gets the region X coordinate of a packed key.
+     */
+    public static int unpackX(long key) {
+        return (int) ((key >> COORD_BITS) << (64 - COORD_BITS) >> (64 - COORD_BITS));
+    }
+
+    /**
+     * Gets the region Z coordinate of a packed key.
+     */
+    public static int unpackZ(long key) {
+        return (int) (key << (64 - COORD_BITS) >> (64 - COORD_BITS));
+    }
+
     /**
      * Creates a RegionCoord from a filename.
      *
@@ -83,6 +136,24 @@ public record RegionCoord(int x, int z, String dimension) {
         return new RegionCoord(chunkX >> 5, chunkZ >> 5, dimension);
     }
 
+    /**
+     * Maps a platform world name to the dimension its regions belong to
+     * (e.g. {@code world_nether} and {@code minecraft:the_nether} to the nether).
+     *
+     * @param worldName World name as Chunky reports it
+     * @return Dimension identifier
+     */
+    public static String dimensionOfWorld(String worldName) {
+        String name = worldName.toLowerCase(Locale.ROOT);
+        if (name.endsWith("nether")) {
+            return NETHER;
+        }
+        if (name.endsWith("the_end") || name.endsWith(":end")) {
+            return END;
+        }
+        return OVERWORLD;
+    }
+
     /**
      * Creates an Overworld region coordinate.
      */
@@ -114,7 +185,8 @@ public record RegionCoord(int x, int z, String dimension) {
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, z, dimension);
+        // Called for every lookup; avoid the boxing of Objects.hash
+        return (31 * x + z) * 31 + Objects.hashCode(dimension);
     }
 
     @Override
@@ -0,0 +1,79 @@
+package dev.flur.extrachunky.transfer;
+
+import dev.flur.extrachunky.platform.ExtraChunkyLogger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Rewrites region files with their chunks packed contiguously.
+ * Chunks rewritten during generation leave unused sectors behind, which would otherwise be
+ * compressed and uploaded along with the live data.
+ */
+public class RegionFileCompactor {
+    private final ExtraChunkyLogger logger;
+
+    /**
+     * Creates a new compactor.
+     *
+     * @param logger Logger for status messages
+     */
+    public RegionFileCompactor(ExtraChunkyLogger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Compacts a region file into the output directory.
+     * If the file is already compact, no copy is written and the original path is returned.
+     *
+     * @param mcaFile   The source MCA file
+     * @param outputDir Directory to write the compacted file
+     * @return Result containing the file to use and the bytes reclaimed
+     * @throws IOException if the file cannot be read, is malformed, or cannot be written
+     */
+    public CompactionResult compact(Path mcaFile, Path outputDir) throws IOException {
+        long originalSize = Files.size(mcaFile);
+        List<RegionChunk> chunks = RegionFileFormat.readChunks(mcaFile);
+
+        long packedSize = RegionFileFormat.packedSize(chunks);
+        if (chunks.isEmpty() || packedSize >= originalSize) {
+            return new CompactionResult(mcaFile, originalSize, originalSize, chunks.size());
+        }
+
+        Files.createDirectories(outputDir);
+        Path outputPath = outputDir.resolve(mcaFile.getFileName());
+        long compactedSize = RegionFileFormat.write(outputPath, chunks);
+
+        logger.info(String.format("Compacted %s: %d KB -> %d KB (%d KB reclaimed, %d chunks)",
+                mcaFile.getFileName(), originalSize / 1024, compactedSize / 1024,
+                (originalSize - compactedSize) / 1024, chunks.size()));
+
+        return new CompactionResult(outputPath, originalSize, compactedSize, chunks.size());
+    }
+
+    /**
+     * Result of compacting a region file.
+     *
+     * @param path          Path to the compacted file (the original file if nothing was reclaimed)
+     * @param originalSize  Size of the original file in bytes
+     * @param compactedSize Size of the compacted file in bytes
+     * @param chunkCount    Number of chunks in the region
+     */
+    public record CompactionResult(Path path, long originalSize, long compactedSize, int chunkCount) {
+        /**
+         * Gets the number of bytes removed by compaction.
+         */
+        public long bytesReclaimed() {
+            return originalSize - compactedSize;
+        }
+
+        /**
+         * Checks if a compacted copy was written.
+         */
+        public boolean isCompacted() {
+            return compactedSize < originalSize;
+        }
+    }
+}
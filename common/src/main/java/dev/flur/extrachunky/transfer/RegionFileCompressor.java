@@ -1,39 +1,118 @@
 package dev.flur.extrachunky.transfer;
 
-import com.github.luben.zstd.ZstdInputStream;
-import com.github.luben.zstd.ZstdOutputStream;
 import dev.flur.extrachunky.platform.ExtraChunkyLogger;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Handles ZSTD compression and decompression of Minecraft region files.
- * Uses streaming to handle large files without loading into memory.
+ * Handles compression and decompression of Minecraft region files.
+ * Files are streamed between {@link FileChannel}s, so codecs with a native buffer API never copy
+ * region data through the heap.
+ * <p>
+ * Region files can be compressed either as-is ({@code r.0.0.mca.zst}) or as a chunk stream
+ * ({@code r.0.0.mca.nbt.zst}), where chunk payloads are inflated first so the codec sees the raw NBT.
+ * The trailing extension identifies the {@link CompressionCodec}, so the host needs no other metadata.
  */
 public class RegionFileCompressor {
-    private static final String ZSTD_EXTENSION = ".zst";
-    private static final int BUFFER_SIZE = 8192;
+    private static final String REGION_EXTENSION = ".mca";
+    private static final String CHUNK_STREAM_EXTENSION = ".nbt";
 
     private final ExtraChunkyLogger logger;
+    private final CompressionCodec codec;
     private final int compressionLevel;
+    private final boolean recompressChunks;
+    private final Map<Long, CompressionDictionary> dictionaries = new ConcurrentHashMap<>();
+    private volatile CompressionDictionary dictionary;
 
     /**
-     * Creates a new compressor with the specified compression level.
+     * Creates a new ZSTD compressor with the specified compression level.
      *
      * @param logger           Logger for status messages
      * @param compressionLevel ZSTD compression level (1-19, higher = better compression, slower)
      */
     public RegionFileCompressor(ExtraChunkyLogger logger, int compressionLevel) {
+        this(logger, CompressionCodecs.ZSTD, compressionLevel, false);
+    }
+
+    /**
+     * Creates a new ZSTD compressor with the specified compression level.
+     *
+     * @param logger           Logger for status messages
+     * @param compressionLevel ZSTD compression level (1-19, higher = better compression, slower)
+     * @param recompressChunks Whether to inflate chunk payloads and compress them as a chunk stream
+     */
+    public RegionFileCompressor(ExtraChunkyLogger logger, int compressionLevel, boolean recompressChunks) {
+        this(logger, CompressionCodecs.ZSTD, compressionLevel, recompressChunks);
+    }
+
+    /**
+     * Creates a new compressor with the specified default codec.
+     *
+     * @param logger           Logger for status messages
+     * @param codec            Codec used by {@link #compress(Path, Path)}
+     * @param compressionLevel Level used by {@link #compress(Path, Path)}, clamped to the codec's range
+     * @param recompressChunks Whether to inflate chunk payloads and compress them as a chunk stream
+     */
+    public RegionFileCompressor(ExtraChunkyLogger logger, CompressionCodec codec, int compressionLevel,
+                                boolean recompressChunks) {
         this.logger = logger;
-        this.compressionLevel = Math.max(1, Math.min(19, compressionLevel));
+        this.codec = codec;
+        this.compressionLevel = codec.clampLevel(compressionLevel);
+        this.recompressChunks = recompressChunks;
     }
 
     /**
-     * Compresses a region file using ZSTD.
+     * Sets the dictionary used to compress chunk streams.
+     * The dictionary is also registered for decompression.
+     *
+     * @param dictionary The dictionary, or null to compress without one
+     */
+    public void setDictionary(CompressionDictionary dictionary) {
+        if (dictionary != null) {
+            addDictionary(dictionary);
+        }
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Gets the dictionary used to compress chunk streams.
+     *
+     * @return The dictionary, or null if none is set
+     */
+    public CompressionDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Registers a dictionary for decompressing files that were compressed with it.
+     *
+     * @param dictionary The dictionary
+     */
+    public void addDictionary(CompressionDictionary dictionary) {
+        dictionaries.put(dictionary.getId(), dictionary);
+    }
+
+    /**
+     * Checks if a dictionary has been registered for decompression.
+     *
+     * @param dictionaryId The dictionary ID
+     * @return true if files compressed with it can be decompressed
+     */
+    public boolean hasDictionary(long dictionaryId) {
+        return dictionaries.containsKey(dictionaryId);
+    }
+
+    /**
+     * Compresses a region file with the default codec and level.
      *
      * @param mcaFile   The source MCA file to compress
      * @param outputDir Directory to write the compressed file
@@ -41,60 +120,151 @@ public class RegionFileCompressor {
      * @throws IOException if compression fails
      */
     public Path compress(Path mcaFile, Path outputDir) throws IOException {
-        String compressedName = getCompressedFileName(mcaFile.getFileName().toString());
-        Path outputPath = outputDir.resolve(compressedName);
+        return compress(mcaFile, outputDir, codec, compressionLevel);
+    }
+
+    /**
+     * Compresses a region file.
+     * When chunk recompression is enabled, the region is written as a chunk stream,
+     * falling back to plain compression if the region cannot be parsed.
+     * With a codec that does not compress, the region file itself is returned.
+     *
+     * @param mcaFile   The source MCA file to compress
+     * @param outputDir Directory to write the compressed file
+     * @param codec     Codec to compress with
+     * @param level     Compression level, clamped to the codec's range
+     * @return Path to the compressed file
+     * @throws IOException if compression fails
+     */
+    public Path compress(Path mcaFile, Path outputDir, CompressionCodec codec, int level) throws IOException {
+        if (codec.getExtension().isEmpty()) {
+            return mcaFile;
+        }
+        level = codec.clampLevel(level);
+
+        if (recompressChunks) {
+            try {
+                return compressChunkStream(mcaFile, outputDir, RegionFileFormat.readChunks(mcaFile), codec, level);
+            } catch (IOException e) {
+                logger.warning("Could not read chunks from " + mcaFile.getFileName() +
+                        ", compressing as-is: " + e.getMessage());
+            }
+        }
+
+        Path outputPath = outputDir.resolve(mcaFile.getFileName().toString() + codec.getExtension());
 
         Files.createDirectories(outputDir);
 
         long startTime = System.currentTimeMillis();
         long originalSize = Files.size(mcaFile);
 
-        try (InputStream fis = Files.newInputStream(mcaFile);
-             OutputStream fos = Files.newOutputStream(outputPath);
-             ZstdOutputStream zstdOut = new ZstdOutputStream(fos, compressionLevel)) {
+        try (FileChannel in = FileChannel.open(mcaFile, StandardOpenOption.READ);
+             FileChannel out = openForWrite(outputPath)) {
+            codec.compress(in, out, level, null);
+        }
 
-            byte[] buffer = new byte[BUFFER_SIZE];
-            int bytesRead;
-            while ((bytesRead = fis.read(buffer)) != -1) {
-                zstdOut.write(buffer, 0, bytesRead);
-            }
+        long compressedSize = Files.size(outputPath);
+        long duration = System.currentTimeMillis() - startTime;
+        float ratio = originalSize > 0 ? (float) compressedSize / originalSize * 100 : 0;
+
+        logger.info(String.format("Compressed %s with %s:%d: %d KB -> %d KB (%.1f%%) in %dms",
+                mcaFile.getFileName(), codec.getName(), level, originalSize / 1024, compressedSize / 1024, ratio, duration));
+
+        return outputPath;
+    }
+
+    private Path compressChunkStream(Path mcaFile, Path outputDir, List<RegionChunk> chunks,
+                                     CompressionCodec codec, int level) throws IOException {
+        Path outputPath = outputDir.resolve(mcaFile.getFileName().toString() + CHUNK_STREAM_EXTENSION + codec.getExtension());
+
+        Files.createDirectories(outputDir);
+
+        long startTime = System.currentTimeMillis();
+        long originalSize = Files.size(mcaFile);
+        int inflated;
+        CompressionDictionary dict = codec.supportsDictionary() ? dictionary : null;
+
+        // The channel is closed here too, in case the codec fails before its stream owns it
+        try (FileChannel channel = openForWrite(outputPath);
+             ChunkStreamCodec chunkCodec = new ChunkStreamCodec();
+             OutputStream out = codec.compress(channel, level, dict)) {
+            inflated = chunkCodec.encode(chunks, out);
         }
 
         long compressedSize = Files.size(outputPath);
         long duration = System.currentTimeMillis() - startTime;
         float ratio = originalSize > 0 ? (float) compressedSize / originalSize * 100 : 0;
 
-        logger.info(String.format("Compressed %s: %d KB -> %d KB (%.1f%%) in %dms",
-                mcaFile.getFileName(), originalSize / 1024, compressedSize / 1024, ratio, duration));
+        logger.info(String.format("Compressed %s as chunk stream with %s:%d: %d KB -> %d KB (%.1f%%, %d/%d chunks inflated%s) in %dms",
+                mcaFile.getFileName(), codec.getName(), level, originalSize / 1024, compressedSize / 1024, ratio,
+                inflated, chunks.size(), dict != null ? ", dictionary " + dict.getId() : "", duration));
 
         return outputPath;
     }
 
     /**
-     * Decompresses a ZSTD-compressed region file.
+     * Decompresses a compressed region file, detecting the codec from its extension.
+     * Chunk streams are re-encoded into a valid region file. If the stream was compressed with a
+     * dictionary, that dictionary must have been registered with {@link #addDictionary}.
      *
-     * @param zstdFile  The compressed file to decompress
-     * @param outputDir Directory to write the decompressed file
+     * @param compressedFile The compressed file to decompress
+     * @param outputDir      Directory to write the decompressed file
      * @return Path to the decompressed MCA file
      * @throws IOException if decompression fails
      */
-    public Path decompress(Path zstdFile, Path outputDir) throws IOException {
-        String originalName = getOriginalFileName(zstdFile.getFileName().toString());
-        Path outputPath = outputDir.resolve(originalName);
-
+    public Path decompress(Path compressedFile, Path outputDir) throws IOException {
         Files.createDirectories(outputDir);
+        Path outputPath = outputDir.resolve(getOriginalFileName(compressedFile.getFileName().toString()));
+        decompressTo(compressedFile, outputPath);
+        return outputPath;
+    }
 
+    /**
+     * Decompresses a compressed region file to an exact path, detecting the codec from its extension.
+     *
+     * @param compressedFile The compressed file to decompress
+     * @param outputPath     File to write the region to; its directory must exist
+     * @throws MissingDictionaryException if the file needs a dictionary that has not been registered
+     * @throws IOException                if decompression fails
+     */
+    public void decompressTo(Path compressedFile, Path outputPath) throws IOException {
+        CompressionCodec fileCodec = CompressionCodecs.forFileName(compressedFile.getFileName().toString());
+        if (fileCodec == null) {
+            throw new IOException("Unknown compression format: " + compressedFile.getFileName());
+        }
+
+        String originalName = getOriginalFileName(compressedFile.getFileName().toString());
         long startTime = System.currentTimeMillis();
 
-        try (InputStream fis = Files.newInputStream(zstdFile);
-             ZstdInputStream zstdIn = new ZstdInputStream(fis);
-             OutputStream fos = Files.newOutputStream(outputPath)) {
+        if (isChunkStream(compressedFile)) {
+            CompressionDictionary dict = null;
+            if (fileCodec.supportsDictionary()) {
+                long dictionaryId = CompressionDictionary.readDictionaryId(compressedFile);
+                if (dictionaryId != 0) {
+                    dict = dictionaries.get(dictionaryId);
+                    if (dict == null) {
+                        throw new MissingDictionaryException(dictionaryId, compressedFile.getFileName().toString());
+                    }
+                }
+            }
 
-            byte[] buffer = new byte[BUFFER_SIZE];
-            int bytesRead;
-            while ((bytesRead = zstdIn.read(buffer)) != -1) {
-                fos.write(buffer, 0, bytesRead);
+            int chunkCount;
+            long decompressedSize;
+            try (ChunkStreamCodec chunkCodec = new ChunkStreamCodec();
+                 InputStream in = fileCodec.decompress(FileChannel.open(compressedFile, StandardOpenOption.READ), dict);
+                 RegionFileFormat.Writer out = new RegionFileFormat.Writer(outputPath)) {
+                chunkCount = chunkCodec.decode(in, out);
+                decompressedSize = out.size();
             }
+            long duration = System.currentTimeMillis() - startTime;
+
+            logger.info(String.format("Decompressed %s: %d KB (%d chunks re-encoded) in %dms",
+                    originalName, decompressedSize / 1024, chunkCount, duration));
+            return;
+        }
+
+        try (FileChannel out = openForWrite(outputPath)) {
+            fileCodec.decompress(FileChannel.open(compressedFile, StandardOpenOption.READ), out, null);
         }
 
         long decompressedSize = Files.size(outputPath);
@@ -102,42 +272,66 @@ public class RegionFileCompressor {
 
         logger.info(String.format("Decompressed %s: %d KB in %dms",
                 originalName, decompressedSize / 1024, duration));
+    }
 
-        return outputPath;
+    private static FileChannel openForWrite(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
     }
 
     /**
-     * Gets the compressed filename for an MCA file.
+     * Gets the compressed filename for an MCA file with the default codec.
      *
      * @param mcaFileName Original MCA filename (e.g., "r.0.0.mca")
      * @return Compressed filename (e.g., "r.0.0.mca.zst")
      */
     public String getCompressedFileName(String mcaFileName) {
-        return mcaFileName + ZSTD_EXTENSION;
+        return mcaFileName + codec.getExtension();
     }
 
     /**
      * Gets the original filename from a compressed file.
      *
-     * @param compressedName Compressed filename (e.g., "r.0.0.mca.zst")
+     * @param compressedName Compressed filename (e.g., "r.0.0.mca.zst" or "r.0.0.mca.nbt.lz4")
      * @return Original filename (e.g., "r.0.0.mca")
      */
     public String getOriginalFileName(String compressedName) {
-        if (compressedName.endsWith(ZSTD_EXTENSION)) {
-            return compressedName.substring(0, compressedName.length() - ZSTD_EXTENSION.length());
+        CompressionCodec fileCodec = CompressionCodecs.forFileName(compressedName);
+        String name = compressedName;
+        if (fileCodec != null) {
+            name = name.substring(0, name.length() - fileCodec.getExtension().length());
+        }
+        if (name.endsWith(REGION_EXTENSION + CHUNK_STREAM_EXTENSION)) {
+            name = name.substring(0, name.length() - CHUNK_STREAM_EXTENSION.length());
         }
-        return compressedName;
+        return name;
     }
 
     /**
      * Checks if a file is a compressed region file.
      *
      * @param path Path to check
-     * @return true if the file has .mca.zst extension
+     * @return true if the file is a region file or chunk stream with a known codec extension
      */
     public boolean isCompressedRegionFile(Path path) {
         String name = path.getFileName().toString();
-        return name.endsWith(".mca" + ZSTD_EXTENSION);
+        CompressionCodec fileCodec = CompressionCodecs.forFileName(name);
+        if (fileCodec == null) {
+            return false;
+        }
+        String base = name.substring(0, name.length() - fileCodec.getExtension().length());
+        return base.endsWith(REGION_EXTENSION) || base.endsWith(REGION_EXTENSION + CHUNK_STREAM_EXTENSION);
+    }
+
+    /**
+     * Checks if a compressed file holds a chunk stream rather than a plain region file.
+     *
+     * @param path Path to check
+     * @return true if the file has a .mca.nbt extension followed by a codec extension
+     */
+    public boolean isChunkStream(Path path) {
+        return isCompressedRegionFile(path) &&
+                path.getFileName().toString().contains(REGION_EXTENSION + CHUNK_STREAM_EXTENSION + ".");
     }
 
     /**
@@ -0,0 +1,257 @@
+package dev.flur.extrachunky.transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the Minecraft Anvil region file layout.
+ * <p>
+ * A region file starts with an 8 KiB header: 1024 location entries (3-byte sector offset,
+ * 1-byte sector count) followed by 1024 timestamps. Chunk data is stored in 4 KiB sectors,
+ * each chunk prefixed by a 4-byte length and a 1-byte compression type.
+ * <p>
+ * Files are read and written through FileChannels, with the header in a pooled direct buffer.
+ * Chunk payloads stay on the heap: zlib works on arrays, and each payload is passed on as one.
+ */
+public final class RegionFileFormat {
+    public static final int SECTOR_SIZE = 4096;
+    public static final int CHUNKS_PER_REGION = 1024;
+    public static final int HEADER_SIZE = SECTOR_SIZE * 2;
+    public static final int CHUNK_HEADER_SIZE = 5;
+
+    /**
+     * Largest sector count that fits in a location entry.
+     */
+    private static final int MAX_SECTORS = 255;
+
+    private static final DirectBufferPool HEADER_POOL = new DirectBufferPool(HEADER_SIZE, 16);
+    private static final ByteBuffer ZEROS = ByteBuffer.allocateDirect(SECTOR_SIZE).asReadOnlyBuffer();
+
+    private RegionFileFormat() {}
+
+    /**
+     * Reads all present chunks from a region file.
+     * The header is read into a pooled direct buffer and each payload straight into its own array,
+     * so the file is never held in memory as a whole.
+     *
+     * @param mcaFile The region file to read
+     * @return Chunks in header order
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static List<RegionChunk> readChunks(Path mcaFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(mcaFile, StandardOpenOption.READ)) {
+            return readChunks(channel, mcaFile.getFileName().toString());
+        }
+    }
+
+    /**
+     * Reads all present chunks from a region file channel, using positional reads.
+     *
+     * @param channel  Channel of the region file
+     * @param fileName File name used in error messages
+     * @return Chunks in header order
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static List<RegionChunk> readChunks(FileChannel channel, String fileName) throws IOException {
+        long fileSize = channel.size();
+        List<RegionChunk> chunks = new ArrayList<>();
+        if (fileSize == 0) {
+            return chunks;
+        }
+        if (fileSize < HEADER_SIZE) {
+            throw new IOException("Region file " + fileName + " is truncated (" + fileSize + " bytes)");
+        }
+
+        ByteBuffer header = HEADER_POOL.acquire();
+        try {
+            readFully(channel, header, 0, fileName);
+            ByteBuffer prefix = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+            for (int index = 0; index < CHUNKS_PER_REGION; index++) {
+                int location = header.getInt(index * 4);
+                if (location == 0) {
+                    continue;
+                }
+
+                int sectorOffset = location >>> 8;
+                int sectorCount = location & 0xFF;
+                long start = (long) sectorOffset * SECTOR_SIZE;
+                if (sectorOffset < 2 || sectorCount == 0 || start + CHUNK_HEADER_SIZE > fileSize) {
+                    throw new IOException("Region file " + fileName + " has an invalid location for chunk " + index);
+                }
+
+                prefix.clear();
+                readFully(channel, prefix, start, fileName);
+                int length = prefix.getInt(0);
+                if (length <= 0 || start + 4 + length > fileSize || 4 + length > (long) sectorCount * SECTOR_SIZE) {
+                    throw new IOException("Region file " + fileName + " has an invalid length for chunk " + index);
+                }
+
+                byte compressionType = prefix.get(4);
+                byte[] payload = new byte[length - 1];
+                readFully(channel, ByteBuffer.wrap(payload), start + CHUNK_HEADER_SIZE, fileName);
+
+                int timestamp = header.getInt(SECTOR_SIZE + index * 4);
+                chunks.add(new RegionChunk(index, timestamp, compressionType, payload));
+            }
+        } finally {
+            HEADER_POOL.release(header);
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Writes chunks to a region file, packed contiguously after the header.
+     *
+     * @param output The file to write
+     * @param chunks Chunks to store
+     * @return Size of the written file in bytes
+     * @throws IOException if the file cannot be written or a chunk is too large
+     */
+    public static long write(Path output, List<RegionChunk> chunks) throws IOException {
+        try (Writer writer = new Writer(output)) {
+            for (RegionChunk chunk : chunks) {
+                writer.write(chunk);
+            }
+            return writer.size();
+        }
+    }
+
+    /**
+     * Gets the size a region file would have with the given chunks packed contiguously.
+     *
+     * @param chunks Chunks to store
+     * @return File size in bytes
+     */
+    public static long packedSize(List<RegionChunk> chunks) {
+        if (chunks.isEmpty()) {
+            return HEADER_SIZE;
+        }
+        long sectors = HEADER_SIZE / SECTOR_SIZE;
+        for (RegionChunk chunk : chunks) {
+            sectors += sectorsFor(chunk.storedLength());
+        }
+        return sectors * SECTOR_SIZE;
+    }
+
+    private static int sectorsFor(int length) {
+        return (length + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position, String fileName) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("Region file " + fileName + " ended unexpectedly");
+            }
+            position += n;
+        }
+    }
+
+    /**
+     * Writes a region file chunk by chunk, packed contiguously after the header.
+     * Chunks are appended through the channel as they come and the header is written on close, so
+     * a region can be rebuilt from a stream without holding the file in memory.
+     */
+    public static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer header;
+        private final ByteBuffer prefix = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+        private final ByteBuffer[] chunkBuffers = new ByteBuffer[3];
+        private int sector = HEADER_SIZE / SECTOR_SIZE;
+        private boolean closed;
+
+        /**
+         * Creates the file, replacing an existing one.
+         *
+         * @param output The file to write
+         * @throws IOException if the file cannot be created
+         */
+        public Writer(Path output) throws IOException {
+            this.channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.header = HEADER_POOL.acquire();
+            while (header.hasRemaining()) {
+                header.putLong(0);
+            }
+            header.clear();
+            try {
+                channel.position(HEADER_SIZE);
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        public void write(RegionChunk chunk) throws IOException {
+            write(chunk.index(), chunk.timestamp(), chunk.compressionType(), chunk.payload(), chunk.payload().length);
+        }
+
+        /**
+         * Appends a chunk.
+         *
+         * @param index           Chunk index within the region
+         * @param timestamp       Last-modified timestamp
+         * @param compressionType Compression type byte as stored in the file
+         * @param payload         Array holding the payload, from offset 0
+         * @param length          Length of the payload
+         * @throws IOException if writing fails or the chunk is too large
+         */
+        public void write(int index, int timestamp, byte compressionType, byte[] payload, int length) throws IOException {
+            int stored = CHUNK_HEADER_SIZE + length;
+            int sectors = sectorsFor(stored);
+            if (sectors > MAX_SECTORS) {
+                throw new IOException("Chunk " + index + " is too large for an in-file entry");
+            }
+
+            header.putInt(index * 4, (sector << 8) | sectors);
+            header.putInt(SECTOR_SIZE + index * 4, timestamp);
+
+            prefix.clear();
+            prefix.putInt(length + 1).put(compressionType).flip();
+            ByteBuffer padding = ZEROS.duplicate();
+            padding.limit(sectors * SECTOR_SIZE - stored);
+            ByteBuffer data = ByteBuffer.wrap(payload, 0, length);
+            chunkBuffers[0] = prefix;
+            chunkBuffers[1] = data;
+            chunkBuffers[2] = padding;
+            while (prefix.hasRemaining() || data.hasRemaining() || padding.hasRemaining()) {
+                channel.write(chunkBuffers);
+            }
+
+            sector += sectors;
+        }
+
+        /**
+         * Gets the size of the file with the chunks written so far.
+         */
+        public long size() {
+            return (long) sector * SECTOR_SIZE;
+        }
+
+        /**
+         * Writes the header and closes the file.
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (channel) {
+                header.clear();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+            } finally {
+                HEADER_POOL.release(header);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package dev.flur.extrachunky.transfer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Region hashes of the regions the host has installed, keyed by path relative to the world
+ * (e.g. {@code DIM-1/region/r.0.0.mca}).
+ * <p>
+ * The host keeps the index in its incoming directory, one {@code path hash} line per region.
+ * Workers read it before uploading and skip regions the host already holds with the same content.
+ */
+public class RegionHashIndex {
+    /**
+     * File name of the index in the host's incoming directory.
+     */
+    public static final String FILE_NAME = "region-hashes.txt";
+
+    private final Map<String, Long> hashes = new ConcurrentHashMap<>();
+
+    /**
+     * Loads an index file.
+     *
+     * @param file The index file
+     * @return The index, empty if the file does not exist
+     * @throws IOException if the file cannot be read
+     */
+    public static RegionHashIndex load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return new RegionHashIndex();
+        }
+        return parse(Files.readAllBytes(file));
+    }
+
+    /**
+     * Parses index contents, ignoring malformed lines.
+     *
+     * @param data The index file contents
+     * @return The index
+     */
+    public static RegionHashIndex parse(byte[] data) {
+        RegionHashIndex index = new RegionHashIndex();
+        for (String line : new String(data, StandardCharsets.UTF_8).split("\n")) {
+            int separator = line.lastIndexOf(' ');
+            if (separator <= 0) {
+                continue;
+            }
+            try {
+                index.hashes.put(line.substring(0, separator), ContentHash.parseHex(line.substring(separator + 1).trim()));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Checks if the index holds a region with the given hash.
+     *
+     * @param relativePath Region path relative to the world
+     * @param regionHash   Region hash to compare
+     * @return true if the region is installed with identical content
+     */
+    public boolean matches(String relativePath, long regionHash) {
+        Long hash = hashes.get(relativePath);
+        return hash != null && hash == regionHash;
+    }
+
+    /**
+     * Records the hash of an installed region.
+     */
+    public void put(String relativePath, long regionHash) {
+        hashes.put(relativePath, regionHash);
+    }
+
+    public int size() {
+        return hashes.size();
+    }
+
+    /**
+     * Writes the index, replacing the file atomically so workers never read a partial index.
+     *
+     * @param file The index file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Long> entry : new TreeMap<>(hashes).entrySet()) {
+            builder.append(entry.getKey()).append(' ').append(ContentHash.toHex(entry.getValue())).append('\n');
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, builder, StandardCharsets.UTF_8);
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
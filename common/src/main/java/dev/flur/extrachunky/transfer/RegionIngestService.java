@@ -0,0 +1,662 @@
+package dev.flur.extrachunky.transfer;
+
+import dev.flur.extrachunky.metrics.MetricsRegistry;
+import dev.flur.extrachunky.platform.ExtraChunkyLogger;
+import dev.flur.extrachunky.platform.ExtraChunkyRuntime;
+import dev.flur.extrachunky.platform.ExtraChunkyTask;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Host-side service that installs uploaded regions into the world as they arrive:
+ * 1. Watches the incoming directories (and their dimension folders) for finished uploads
+ * 2. Decompresses uploads in parallel into temporary files next to their destination
+ * 3. Verifies each region file parses cleanly
+ * 4. Installs batches atomically: fsync each file, rename into place, then fsync each directory once
+ * <p>
+ * Compressed uploads carry a {@link ContentHash} trailer. The service checks the upload against it,
+ * discards uploads of regions it already installed with the same content, and records the region hash
+ * of every installed region in a {@link RegionHashIndex} that workers read to skip such uploads entirely.
+ * Plain {@code .mca} uploads carry no hash, so one without chunks never replaces a region that has some.
+ * <p>
+ * Batches of small regions arrive as a {@link RegionArchive} in the {@code batches} folder. Their entries
+ * are unpacked into the dimension folders the same way a single upload lands, then ingested as usual.
+ * <p>
+ * Workers upload to a {@code .part} file and rename it when done, so a created file is always complete.
+ * Uploads that cannot be installed are renamed with a {@code .failed} suffix and left for inspection.
+ * <p>
+ * Each world uploads to an incoming directory of its own, and each incoming directory installs into its
+ * world's folders and keeps its own hash index, so jobs on different worlds never overwrite each other's
+ * regions. A job on another world adds its directory with {@link #addIncomingDir}.
+ * <p>
+ * Decompression runs on the runtime's CPU pool, at most {@link IngestConfig#getEffectiveThreads()}
+ * uploads at a time; the periodic install runs on its timer.
+ */
+public class RegionIngestService {
+    private static final String[] DIMENSION_DIRS = {"region", "DIM-1/region", "DIM1/region"};
+    private static final String DICTIONARY_DIR = "dictionaries";
+    private static final String INSTALL_SUFFIX = ".ingest";
+    private static final String FAILED_SUFFIX = ".failed";
+
+    private final ExtraChunkyLogger logger;
+    private final ExtraChunkyRuntime runtime;
+    private final IngestConfig config;
+    private final List<IncomingDir> incomingDirs = new CopyOnWriteArrayList<>();
+    private final RegionFileCompressor compressor;
+
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+    private final Set<Path> waitingForDictionary = ConcurrentHashMap.newKeySet();
+    private final List<PendingInstall> pendingInstalls = new ArrayList<>();
+
+    private final AtomicInteger installed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final AtomicLong bytesInstalled = new AtomicLong();
+
+    // Uploads waiting for one of the service's decompression slots, and how many are taken
+    private final Deque<Runnable> queuedTasks = new ArrayDeque<>();
+    private int activeTasks;
+    private ExtraChunkyTask syncTask;
+    private WatchService watchService;
+    private Thread watchThread;
+    private volatile boolean running = false;
+
+    /**
+     * Creates a new ingest service.
+     *
+     * @param logger      Logger for status messages
+     * @param runtime     Runtime to decompress and install on
+     * @param config      Ingest configuration
+     * @param incomingDir Directory workers upload to
+     * @param layout      Folders of the world's dimensions to install regions into
+     */
+    public RegionIngestService(ExtraChunkyLogger logger, ExtraChunkyRuntime runtime, IngestConfig config,
+                               Path incomingDir, WorldLayout layout) {
+        this.logger = logger;
+        this.runtime = runtime;
+        this.config = config;
+        this.incomingDirs.add(new IncomingDir(incomingDir, layout));
+        this.compressor = new RegionFileCompressor(logger, 1);
+    }
+
+    /**
+     * Installs the uploads of another world, e.g. when a job generates a world other than the first.
+     * If the directory is already watched, the world's dimensions are added to it; dimensions it already
+     * installs keep their folders, since uploads of earlier jobs may still be arriving there.
+     *
+     * @param incomingDir Directory the world's uploads arrive in
+     * @param layout      Folders of the world's dimensions to install regions into
+     */
+    public synchronized void addIncomingDir(Path incomingDir, WorldLayout layout) {
+        for (IncomingDir existing : incomingDirs) {
+            if (existing.path.equals(incomingDir.toAbsolutePath().normalize())) {
+                if (existing.layout.conflictsWith(layout)) {
+                    logger.warning("Uploads in " + incomingDir + " already install into " + existing.layout +
+                            ", keeping those folders; use {world} in the incoming path to keep worlds apart");
+                }
+                existing.layout = existing.layout.merge(layout);
+                return;
+            }
+        }
+
+        IncomingDir added = new IncomingDir(incomingDir, layout);
+        incomingDirs.add(added);
+        if (running) {
+            try {
+                watch(added);
+            } catch (IOException e) {
+                logger.warning("Could not watch " + incomingDir + ", its uploads are not ingested: " + e.getMessage());
+                return;
+            }
+            scanAll(added);
+        }
+    }
+
+    /**
+     * Registers the installed, failed and pending uploads with a metrics registry.
+     */
+    public void setMetrics(MetricsRegistry registry) {
+        registry.counter("extrachunky_ingest_regions_total", "Uploaded regions ingested, by result",
+                installed::get, "result", "installed");
+        registry.counter("extrachunky_ingest_regions_total", "Uploaded regions ingested, by result",
+                failed::get, "result", "failed");
+        registry.counter("extrachunky_ingest_regions_total", "Uploaded regions ingested, by result",
+                duplicates::get, "result", "duplicate");
+        registry.counter("extrachunky_ingest_bytes_total", "Bytes of region files installed",
+                bytesInstalled::get);
+        registry.gauge("extrachunky_ingest_pending_regions", "Uploads being decompressed or waiting to be installed",
+                inFlight::size);
+    }
+
+    /**
+     * Starts watching the incoming directory and installs any uploads already waiting.
+     *
+     * @throws IOException if the incoming directory cannot be created or watched
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        for (IncomingDir incoming : incomingDirs) {
+            watch(incoming);
+        }
+
+        running = true;
+        syncTask = runtime.scheduleAtFixedRate(this::installPending, config.syncIntervalMs(), config.syncIntervalMs());
+        watchThread = Thread.ofVirtual().name("ExtraChunky-Ingest-Watch").start(this::watchLoop);
+
+        logger.info("Ingesting uploads with " + config.getEffectiveThreads() + " threads");
+        scanAll();
+    }
+
+    /**
+     * Loads an incoming directory's hash index and watches its folders.
+     */
+    private void watch(IncomingDir incoming) throws IOException {
+        try {
+            incoming.hashIndex = RegionHashIndex.load(incoming.path.resolve(RegionHashIndex.FILE_NAME));
+        } catch (IOException e) {
+            logger.warning("Could not read region hash index of " + incoming.path + ", starting a new one: " + e.getMessage());
+        }
+
+        register(incoming.path.resolve(DICTIONARY_DIR));
+        register(incoming.path.resolve(RegionArchive.DIRECTORY));
+        for (String dim : DIMENSION_DIRS) {
+            register(incoming.path.resolve(dim));
+        }
+        logger.info("Ingesting uploads from " + incoming.path + " into " + incoming.layout);
+    }
+
+    /**
+     * Stops the service, finishing uploads already being decompressed and installing them.
+     */
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+
+        awaitTasks(TimeUnit.SECONDS.toMillis(30));
+        syncTask.cancel();
+        installPending();
+        cleanupTempFiles();
+
+        logger.info("Ingest stopped: " + installed.get() + " regions installed, " + failed.get() + " failed");
+    }
+
+    /**
+     * Checks if the service is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getInstalledCount() {
+        return installed.get();
+    }
+
+    public int getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Gets the number of uploads discarded because the region was already installed with the same content.
+     */
+    public int getDuplicateCount() {
+        return duplicates.get();
+    }
+
+    public long getBytesInstalled() {
+        return bytesInstalled.get();
+    }
+
+    /**
+     * Gets the number of uploads being decompressed or waiting to be installed.
+     */
+    public int getPendingCount() {
+        return inFlight.size();
+    }
+
+    private void register(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+    }
+
+    private void watchLoop() {
+        while (running) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                break;
+            }
+
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    scanAll();
+                } else {
+                    handleFile(dir.resolve((Path) event.context()));
+                }
+            }
+            key.reset();
+        }
+    }
+
+    /**
+     * Picks up files that arrived while the service was not watching.
+     */
+    private void scanAll() {
+        for (IncomingDir incoming : incomingDirs) {
+            scanAll(incoming);
+        }
+    }
+
+    private void scanAll(IncomingDir incoming) {
+        scan(incoming.path.resolve(DICTIONARY_DIR));
+        scan(incoming.path.resolve(RegionArchive.DIRECTORY));
+        for (String dim : DIMENSION_DIRS) {
+            scan(incoming.path.resolve(dim));
+        }
+    }
+
+    private void scan(Path dir) {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path file : stream) {
+                handleFile(file);
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to scan incoming directory " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private void handleFile(Path file) {
+        String name = file.getFileName().toString();
+        if (!running || name.endsWith(SftpTransferClient.PART_SUFFIX) || !Files.isRegularFile(file)) {
+            return;
+        }
+
+        IncomingDir incoming = incomingDirOf(file);
+        if (incoming == null) {
+            return;
+        }
+        Path parent = incoming.path.relativize(file.getParent());
+        if (parent.toString().equals(DICTIONARY_DIR)) {
+            if (name.endsWith(CompressionDictionary.EXTENSION)) {
+                loadDictionary(file);
+            }
+            return;
+        }
+        if (parent.toString().equals(RegionArchive.DIRECTORY)) {
+            if (RegionArchive.isArchive(file) && inFlight.add(file)) {
+                submit(() -> unpack(incoming, file));
+            }
+            return;
+        }
+
+        String dim = parent.toString().replace('\\', '/');
+        String regionName = compressor.getOriginalFileName(name);
+        if (!isRegionUpload(dim, name)) {
+            return;
+        }
+
+        if (inFlight.add(file)) {
+            submit(() -> ingest(incoming, file, dim, regionName));
+        }
+    }
+
+    /**
+     * Gets the incoming directory a file arrived in. Directories may be nested, so the deepest one wins.
+     */
+    private IncomingDir incomingDirOf(Path file) {
+        IncomingDir match = null;
+        for (IncomingDir incoming : incomingDirs) {
+            if (file.startsWith(incoming.path)
+                    && (match == null || incoming.path.getNameCount() > match.path.getNameCount())) {
+                match = incoming;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Runs a task on the CPU pool once one of the service's slots is free.
+     */
+    private void submit(Runnable task) {
+        synchronized (queuedTasks) {
+            if (activeTasks >= config.getEffectiveThreads()) {
+                queuedTasks.add(task);
+                return;
+            }
+            activeTasks++;
+        }
+        runtime.getCpuExecutor().execute(() -> runTasks(task));
+    }
+
+    /**
+     * Runs a task, then the tasks queued behind it, in the same slot.
+     */
+    private void runTasks(Runnable first) {
+        Runnable task = first;
+        while (task != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.warning("Ingest task failed: " + e.getMessage());
+            }
+            synchronized (queuedTasks) {
+                task = queuedTasks.poll();
+                if (task == null) {
+                    activeTasks--;
+                    queuedTasks.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for queued and running tasks to finish.
+     */
+    private void awaitTasks(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (queuedTasks) {
+            long remaining;
+            while (activeTasks > 0 && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    queuedTasks.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a file name in a folder of the incoming directory is a region upload.
+     */
+    private boolean isRegionUpload(String dim, String name) {
+        boolean isUpload = name.endsWith(".mca") || compressor.isCompressedRegionFile(Path.of(name));
+        return isUpload && List.of(DIMENSION_DIRS).contains(dim)
+                && RegionCoord.fromFileName(compressor.getOriginalFileName(name), dim) != null;
+    }
+
+    /**
+     * Unpacks a batch archive into the dimension folders, where each region is picked up like a single upload.
+     */
+    private void unpack(IncomingDir incoming, Path archive) {
+        int unpacked = 0;
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            for (RegionArchive.Entry entry : RegionArchive.readIndex(channel)) {
+                int separator = entry.name().lastIndexOf('/');
+                if (separator <= 0 || !isRegionUpload(entry.name().substring(0, separator), entry.name().substring(separator + 1))) {
+                    logger.warning("Ignoring unexpected entry " + entry.name() + " in " + archive.getFileName());
+                    continue;
+                }
+                Path target = incoming.path.resolve(entry.name());
+                Path part = target.resolveSibling(target.getFileName() + SftpTransferClient.PART_SUFFIX);
+                RegionArchive.extract(channel, entry, part);
+                moveIntoPlace(part, target);
+                unpacked++;
+            }
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            logger.warning("Failed to unpack " + archive.getFileName() + ": " + e.getMessage());
+            try {
+                Files.move(archive, archive.resolveSibling(archive.getFileName() + FAILED_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ignored) {
+            }
+            return;
+        } finally {
+            inFlight.remove(archive);
+        }
+
+        deleteQuietly(archive);
+        logger.info("Unpacked " + unpacked + " regions from " + archive.getFileName());
+    }
+
+    private void loadDictionary(Path file) {
+        try {
+            CompressionDictionary dictionary = CompressionDictionary.load(file);
+            compressor.addDictionary(dictionary);
+            logger.info("Loaded compression dictionary " + dictionary.getId());
+        } catch (IOException e) {
+            logger.warning("Failed to load compression dictionary " + file.getFileName() + ": " + e.getMessage());
+            return;
+        }
+
+        // Retry uploads that arrived before their dictionary
+        List<Path> waiting = new ArrayList<>(waitingForDictionary);
+        waitingForDictionary.removeAll(waiting);
+        waiting.forEach(this::handleFile);
+    }
+
+    private void ingest(IncomingDir incoming, Path file, String dim, String regionName) {
+        Path targetDir = incoming.layout.resolve(dim);
+        Path target = targetDir.resolve(regionName);
+        String relativePath = dim + "/" + regionName;
+        Path temp = null;
+
+        try {
+            boolean compressed = compressor.isCompressedRegionFile(file);
+            ContentHash.Trailer trailer = compressed ? ContentHash.readTrailer(file) : null;
+            if (trailer != null) {
+                if (!ContentHash.verify(file, trailer)) {
+                    throw new IOException("Content hash mismatch, upload is damaged");
+                }
+                if (Files.exists(target) && incoming.hashIndex.matches(relativePath, trailer.regionHash())) {
+                    deleteQuietly(file);
+                    inFlight.remove(file);
+                    duplicates.incrementAndGet();
+                    logger.info("Skipped " + relativePath + ", already installed with the same content");
+                    return;
+                }
+            }
+
+            Files.createDirectories(targetDir);
+            // Staged next to the target so the final rename stays on one filesystem
+            temp = Files.createTempFile(targetDir, regionName + ".", INSTALL_SUFFIX);
+            if (compressed) {
+                compressor.decompressTo(file, temp);
+            } else {
+                Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            // A region that does not parse would corrupt the world, so it never replaces the target
+            List<RegionChunk> chunks = RegionFileFormat.readChunks(temp);
+            if (chunks.isEmpty() && trailer == null && holdsChunks(target)) {
+                // Without a hash an empty upload cannot be told apart from a 0-byte or cut-off file
+                throw new IOException("Upload has no chunks, not replacing the installed region");
+            }
+            // Chunk streams come back with re-compressed payloads, so their hash is the one the worker declared
+            long regionHash = trailer != null ? trailer.regionHash() : ContentHash.ofChunks(chunks);
+
+            boolean flush;
+            synchronized (pendingInstalls) {
+                pendingInstalls.add(new PendingInstall(incoming, file, temp, target, relativePath, regionHash));
+                flush = pendingInstalls.size() >= config.syncBatchSize();
+            }
+            if (flush) {
+                installPending();
+            }
+        } catch (MissingDictionaryException e) {
+            deleteQuietly(temp);
+            inFlight.remove(file);
+            waitingForDictionary.add(file);
+            logger.info("Waiting for compression dictionary " + e.getDictionaryId() + " before installing " + file.getFileName());
+            // The dictionary may have been loaded while this file was being decompressed
+            if (compressor.hasDictionary(e.getDictionaryId()) && waitingForDictionary.remove(file)) {
+                handleFile(file);
+            }
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            inFlight.remove(file);
+            failed.incrementAndGet();
+            logger.warning("Failed to ingest " + dim + "/" + file.getFileName() + ": " + e.getMessage());
+            try {
+                Files.move(file, file.resolveSibling(file.getFileName() + FAILED_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Checks if an installed region file has chunk data past its header.
+     */
+    private static boolean holdsChunks(Path target) {
+        try {
+            return Files.size(target) > RegionFileFormat.HEADER_SIZE;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Installs all verified regions waiting in the batch.
+     * Each file is synced before it is renamed over its target, and each touched directory is synced
+     * once after all renames, so a crash leaves either the old or the new region, never a partial one.
+     */
+    private synchronized void installPending() {
+        List<PendingInstall> batch;
+        synchronized (pendingInstalls) {
+            if (pendingInstalls.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pendingInstalls);
+            pendingInstalls.clear();
+        }
+
+        long startTime = System.currentTimeMillis();
+        Set<Path> directories = new LinkedHashSet<>();
+        Map<PendingInstall, Long> sizes = new HashMap<>();
+
+        for (PendingInstall install : batch) {
+            try {
+                try (FileChannel channel = FileChannel.open(install.temp(), StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                    sizes.put(install, channel.size());
+                }
+                moveIntoPlace(install.temp(), install.target());
+                directories.add(install.target().getParent());
+            } catch (IOException e) {
+                deleteQuietly(install.temp());
+                inFlight.remove(install.source());
+                failed.incrementAndGet();
+                logger.warning("Failed to install " + install.target().getFileName() + ": " + e.getMessage());
+            }
+        }
+
+        for (Path directory : directories) {
+            syncDirectory(directory);
+        }
+
+        long bytes = 0;
+        Set<IncomingDir> indexed = new LinkedHashSet<>();
+        for (Map.Entry<PendingInstall, Long> entry : sizes.entrySet()) {
+            PendingInstall install = entry.getKey();
+            bytes += entry.getValue();
+            install.incoming().hashIndex.put(install.relativePath(), install.regionHash());
+            indexed.add(install.incoming());
+            deleteQuietly(install.source());
+            inFlight.remove(install.source());
+        }
+        for (IncomingDir incoming : indexed) {
+            try {
+                incoming.hashIndex.save(incoming.path.resolve(RegionHashIndex.FILE_NAME));
+            } catch (IOException e) {
+                logger.warning("Could not save region hash index of " + incoming.path + ": " + e.getMessage());
+            }
+        }
+
+        installed.addAndGet(sizes.size());
+        bytesInstalled.addAndGet(bytes);
+        if (!sizes.isEmpty()) {
+            logger.info(String.format("Installed %d regions (%d KB) in %dms, %d total",
+                    sizes.size(), bytes / 1024, System.currentTimeMillis() - startTime, installed.get()));
+        }
+    }
+
+    private void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // Not every platform allows opening a directory (e.g., Windows); renames are still atomic there
+        }
+    }
+
+    private void cleanupTempFiles() {
+        for (IncomingDir incoming : incomingDirs) {
+            for (String dim : DIMENSION_DIRS) {
+                Path dir = incoming.layout.resolve(dim);
+                if (!Files.isDirectory(dir)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + INSTALL_SUFFIX)) {
+                    for (Path file : stream) {
+                        deleteQuietly(file);
+                    }
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * A directory workers upload one world to, with where its regions are installed and which are installed.
+     */
+    private static final class IncomingDir {
+        final Path path;
+        volatile WorldLayout layout;
+        volatile RegionHashIndex hashIndex = new RegionHashIndex();
+
+        IncomingDir(Path path, WorldLayout layout) {
+            // Watch events resolve against the registered path, so files are matched in this form
+            this.path = path.toAbsolutePath().normalize();
+            this.layout = layout;
+        }
+    }
+
+    private record PendingInstall(IncomingDir incoming, Path source, Path temp, Path target, String relativePath,
+                                  long regionHash) {
+    }
+}
@@ -0,0 +1,196 @@
+package dev.flur.extrachunky.transfer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Map from region to value, keyed by packed region keys (see {@link RegionCoord#pack()}) in an
+ * open-addressing table, like {@link RegionSet}.
+ * <p>
+ * Not thread-safe.
+ *
+ * @param <V> Value type
+ */
+public class RegionMap<V> {
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Creates an empty map.
+     */
+    public RegionMap() {
+        keys = RegionSet.newTable(RegionSet.capacityFor(0));
+        values = new Object[keys.length];
+    }
+
+    public V get(RegionCoord region) {
+        return get(region.pack());
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int slot = RegionSet.slot(keys, key);
+        return keys[slot] == key ? (V) values[slot] : null;
+    }
+
+    public boolean containsKey(long key) {
+        return keys[RegionSet.slot(keys, key)] == key;
+    }
+
+    /**
+     * Associates a value with a region.
+     *
+     * @return The previous value, or null if there was none
+     */
+    public V put(RegionCoord region, V value) {
+        return put(region.pack(), value);
+    }
+
+    /**
+     * Associates a value with a packed region key.
+     *
+     * @return The previous value, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        int slot = RegionSet.slot(keys, key);
+        if (keys[slot] == key) {
+            V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length * 3 / 4) {
+            rehash(keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Removes a region.
+     *
+     * @return The removed value, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = RegionSet.slot(keys, key);
+        if (keys[slot] != key) {
+            return null;
+        }
+        V previous = (V) values[slot];
+        removeSlot(slot);
+        return previous;
+    }
+
+    /**
+     * Removes every entry whose value matches.
+     *
+     * @return Number of entries removed
+     */
+    @SuppressWarnings("unchecked")
+    public int removeIf(Predicate<? super V> filter) {
+        int removed = 0;
+        int slot = 0;
+        while (slot < keys.length) {
+            // Removal shifts a later entry into the slot, so check it again before moving on
+            if (keys[slot] != EMPTY && filter.test((V) values[slot])) {
+                removeSlot(slot);
+                removed++;
+            } else {
+                slot++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Replaces every value with the result of the function.
+     */
+    @SuppressWarnings("unchecked")
+    public void replaceAll(UnaryOperator<V> function) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                values[slot] = function.apply((V) values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Calls the action with every value, in no particular order.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                action.accept((V) values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Gets a copy of all values, in no particular order.
+     */
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        forEachValue(result::add);
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        keys = RegionSet.newTable(RegionSet.capacityFor(0));
+        values = new Object[keys.length];
+        size = 0;
+    }
+
+    /**
+     * Empties a slot and shifts later entries of the probe run back, so lookups never stop early at
+     * the hole.
+     */
+    private void removeSlot(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = RegionSet.hash(keys[next]) & mask;
+            // Move the entry if its home slot is not between the hole and its current slot
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        values[hole] = null;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = RegionSet.newTable(capacity);
+        values = new Object[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = RegionSet.slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package dev.flur.extrachunky.transfer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Tracks when regions were last written, so a region is only uploaded once the server is done with it.
+ * <p>
+ * Chunky progress events report the chunk generation has reached; the region around it counts as busy
+ * until it has been quiet for the quiet period, as do all regions of a world for the quiet period
+ * after its generation completes (chunks are saved as they unload, after Chunky has moved on). On top
+ * of that, a region whose file was modified within the quiet period is still being written.
+ * <p>
+ * State is kept per region folder, which tells worlds of the same dimension apart: progress events
+ * name the world, whose folder comes from the world roots, and a scanned region's folder comes from
+ * the layout it is read through.
+ * <p>
+ * Nothing here waits: {@link #scan} checks many regions at once and reports when the busy ones
+ * are worth checking again.
+ * <p>
+ * Progress events come for every chunk, so they only compare packed region keys; a region's activity
+ * is written down once generation leaves it, and until then it is busy as the cursor.
+ */
+public class RegionQuiescenceTracker {
+    private static final long NO_CURSOR = -1L;
+
+    private final Function<String, Optional<Path>> worldRoots;
+    // World name -> its region folder's state, empty if the world's folder is unknown
+    private final Map<String, Optional<Folder>> worldFolders = new ConcurrentHashMap<>();
+    // Guarded by this
+    private final Map<Path, Folder> folders = new HashMap<>();
+
+    private volatile long quietMillis;
+
+    /**
+     * Creates a new tracker.
+     *
+     * @param quietMillis How long a region must go without activity before it counts as settled
+     * @param worldRoots  Gets the folder a world's dimension keeps its vanilla-layout region folder in
+     */
+    public RegionQuiescenceTracker(long quietMillis, Function<String, Optional<Path>> worldRoots) {
+        this.quietMillis = Math.max(0, quietMillis);
+        this.worldRoots = worldRoots;
+    }
+
+    /**
+     * Result of a scan.
+     *
+     * @param ready       Regions that are settled, in the order they were given
+     * @param waiting     Number of regions that are still being written
+     * @param retryMillis Time until the first waiting region may have settled, 0 if none are waiting
+     */
+    public record Scan(List<RegionCoord> ready, int waiting, long retryMillis) {
+    }
+
+    /**
+     * Records that generation reached a chunk. Called from Chunky's progress events.
+     *
+     * @param worldName Name of the world being generated
+     * @param chunkX    Chunk X coordinate
+     * @param chunkZ    Chunk Z coordinate
+     */
+    public void recordProgress(String worldName, int chunkX, int chunkZ) {
+        Folder folder = folderOf(worldName);
+        if (folder == null) {
+            return;
+        }
+        long region = RegionCoord.pack(chunkX >> 5, chunkZ >> 5, folder.dimension);
+        synchronized (this) {
+            if (folder.cursor != region) {
+                if (folder.cursor != NO_CURSOR) {
+                    folder.lastActivity.put(folder.cursor, System.currentTimeMillis());
+                }
+                folder.cursor = region;
+            }
+            folder.completedAt = 0;
+        }
+    }
+
+    /**
+     * Records that generation of a world completed. Called from Chunky's completion event.
+     *
+     * @param worldName Name of the world that finished generating
+     */
+    public void recordComplete(String worldName) {
+        Folder folder = folderOf(worldName);
+        if (folder == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (folder.cursor != NO_CURSOR) {
+                folder.lastActivity.put(folder.cursor, now);
+                folder.cursor = NO_CURSOR;
+            }
+            folder.completedAt = now;
+        }
+    }
+
+    public void setQuietMillis(long quietMillis) {
+        this.quietMillis = Math.max(0, quietMillis);
+    }
+
+    /**
+     * Checks which regions are settled. Reads each region file's attributes once and never blocks.
+     *
+     * @param regions Regions to check
+     * @param layout  Folders the regions are in
+     * @return The settled regions and when to check the rest again
+     */
+    public Scan scan(Collection<RegionCoord> regions, WorldLayout layout) {
+        long now = System.currentTimeMillis();
+        long quiet = quietMillis;
+        List<RegionCoord> ready = new ArrayList<>();
+        int waiting = 0;
+        long retry = Long.MAX_VALUE;
+
+        for (RegionCoord region : regions) {
+            long busyUntil = busyUntil(region, layout, quiet);
+            if (busyUntil <= now) {
+                ready.add(region);
+            } else {
+                waiting++;
+                retry = Math.min(retry, busyUntil - now);
+            }
+        }
+
+        // Drop activity no longer needed, so the maps only hold regions still settling
+        synchronized (this) {
+            for (Folder folder : folders.values()) {
+                folder.lastActivity.removeIf(time -> now - time >= quiet);
+            }
+        }
+        return new Scan(ready, waiting, waiting > 0 ? retry : 0);
+    }
+
+    /**
+     * Gets the state of a world's region folder, or null if the world's folder is unknown.
+     */
+    private Folder folderOf(String worldName) {
+        return worldFolders.computeIfAbsent(worldName, name -> {
+            Dimension dimension = Dimension.of(RegionCoord.dimensionOfWorld(name));
+            return worldRoots.apply(name).map(root -> {
+                Path path = regionFolder(root, dimension);
+                synchronized (this) {
+                    return folders.computeIfAbsent(path, p -> new Folder(dimension));
+                }
+            });
+        }).orElse(null);
+    }
+
+    private static Path regionFolder(Path root, Dimension dimension) {
+        Path folder = dimension.folder().isEmpty() ? root : root.resolve(dimension.folder());
+        return folder.resolve("region").toAbsolutePath().normalize();
+    }
+
+    /**
+     * Gets the time until which a region counts as busy.
+     */
+    private long busyUntil(RegionCoord region, WorldLayout layout, long quiet) {
+        Dimension dimension = Dimension.of(region.dimension());
+        Path regionFolder = regionFolder(layout.getRoot(region.dimension()), dimension);
+        long key = region.pack();
+        long busyUntil = 0;
+        synchronized (this) {
+            Folder folder = folders.get(regionFolder);
+            if (folder != null) {
+                if (folder.cursor == key) {
+                    // Generation is in this region right now; check again after a quiet period
+                    return System.currentTimeMillis() + quiet;
+                }
+
+                Long activity = folder.lastActivity.get(key);
+                if (activity != null) {
+                    busyUntil = activity + quiet;
+                }
+                if (folder.completedAt != 0) {
+                    busyUntil = Math.max(busyUntil, folder.completedAt + quiet);
+                }
+            }
+        }
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(layout.resolve(region),
+                    BasicFileAttributes.class);
+            busyUntil = Math.max(busyUntil, attributes.lastModifiedTime().toMillis() + quiet);
+        } catch (NoSuchFileException e) {
+            // Nothing to wait for; the upload reports the missing file
+        } catch (IOException e) {
+            busyUntil = Math.max(busyUntil, System.currentTimeMillis() + quiet);
+        }
+        return busyUntil;
+    }
+
+    /**
+     * Generation state of one region folder, guarded by the tracker.
+     */
+    private static final class Folder {
+        final Dimension dimension;
+        final RegionMap<Long> lastActivity = new RegionMap<>();
+        long cursor = NO_CURSOR;
+        long completedAt;
+
+        Folder(Dimension dimension) {
+            this.dimension = dimension;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package dev.flur.extrachunky.transfer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Set of regions, stored as packed keys (see {@link RegionCoord#pack()}) in an open-addressing
+ * table of longs. A region costs 8 to 16 bytes instead of a boxed record plus a hash map node,
+ * and lookups hash a long instead of a string.
+ * <p>
+ * Not thread-safe.
+ */
+public class RegionSet {
+    private static final long EMPTY = -1L;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int size;
+
+    /**
+     * Creates an empty set.
+     */
+    public RegionSet() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty set with room for the given number of regions.
+     */
+    public RegionSet(int expectedSize) {
+        keys = newTable(capacityFor(expectedSize));
+    }
+
+    /**
+     * Creates a copy of a set.
+     */
+    public RegionSet(RegionSet other) {
+        keys = other.keys.clone();
+        size = other.size;
+    }
+
+    /**
+     * Adds a region.
+     *
+     * @return Whether it was not in the set yet
+     */
+    public boolean add(RegionCoord region) {
+        return add(region.pack());
+    }
+
+    /**
+     * Adds a region by packed key.
+     *
+     * @return Whether it was not in the set yet
+     */
+    public boolean add(long key) {
+        int slot = slot(keys, key);
+        if (keys[slot] == key) {
+            return false;
+        }
+        keys[slot] = key;
+        if (++size > keys.length * 3 / 4) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Adds all regions of another set.
+     */
+    public void addAll(RegionSet other) {
+        other.forEach(this::add);
+    }
+
+    public boolean contains(RegionCoord region) {
+        return contains(region.pack());
+    }
+
+    public boolean contains(long key) {
+        return keys[slot(keys, key)] == key;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Calls the action with the packed key of every region, in no particular order.
+     */
+    public void forEach(LongConsumer action) {
+        for (long key : keys) {
+            if (key != EMPTY) {
+                action.accept(key);
+            }
+        }
+    }
+
+    /**
+     * Gets the packed keys of all regions, in ascending order.
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int i = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[i++] = key;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Gets all regions as coordinates, in packed key order.
+     */
+    public List<RegionCoord> toList() {
+        List<RegionCoord> regions = new ArrayList<>(size);
+        for (long key : toArray()) {
+            regions.add(RegionCoord.unpack(key));
+        }
+        return regions;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        keys = newTable(capacity);
+        for (long key : old) {
+            if (key != EMPTY) {
+                keys[slot(keys, key)] = key;
+            }
+        }
+    }
+
+    /**
+     * Finds the slot holding a key, or the empty slot it would go in. Keys are never negative, so
+     * -1 marks an empty slot.
+     */
+    static int slot(long[] table, long key) {
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        while (table[slot] != EMPTY && table[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Spreads a packed key over the table. Neighboring regions differ only in the low bits of X and
+     * Z, so the key is mixed before masking.
+     */
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    static long[] newTable(int capacity) {
+        long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+}
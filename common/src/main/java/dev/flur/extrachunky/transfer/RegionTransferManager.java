@@ -1,39 +1,97 @@
 package dev.flur.extrachunky.transfer;
 
+import dev.flur.extrachunky.metrics.Counter;
+import dev.flur.extrachunky.metrics.Histogram;
+import dev.flur.extrachunky.metrics.MetricsRegistry;
 import dev.flur.extrachunky.platform.ExtraChunkyLogger;
 import dev.flur.extrachunky.platform.ExtraChunkyScheduler;
+import dev.flur.extrachunky.platform.ExtraChunkyTask;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Manages the complete transfer workflow for a worker:
  * 1. Identifies which regions were generated (from assignment)
- * 2. Compresses MCA files with ZSTD
- * 3. Uploads via SFTP
- * 4. Reports progress
- * 5. Handles retries on failure
+ * 2. Waits until each region has settled (no generation activity or file writes for the quiet period)
+ * 3. Compacts MCA files to drop unused sectors (or inflates chunks into a chunk stream)
+ * 4. Compresses MCA files with the configured codec, or the fastest one for the link in auto mode
+ * 5. Uploads via SFTP, over the host's data port, or into a shared directory with the local transport
+ * 6. Reports progress
+ * 7. Handles retries on failure
  */
 public class RegionTransferManager {
     private static final long RETRY_BASE_DELAY_MS = 1000;
+    private static final long RETRY_MAX_DELAY_MS = 5 * 60 * 1000;
     private static final String STAGING_DIR = "transfer-staging";
+    private static final String DICTIONARY_DIR = "dictionaries";
+    private static final long GOVERNOR_INTERVAL_TICKS = 20;
+    // Compresses each region on the uploading thread, right before its upload
+    private static final Executor DIRECT_EXECUTOR = Runnable::run;
+    // How often a running pass writes the queue's changes to disk
+    private static final long QUEUE_SAVE_INTERVAL_TICKS = 100;
+    /** Regions compressing to more than this are uploaded alone, since batching saves them nothing */
+    private static final long BATCH_MAX_ENTRY_BYTES = 4L * 1024 * 1024;
 
     private final ExtraChunkyScheduler scheduler;
     private final ExtraChunkyLogger logger;
     private final SshConfig sshConfig;
     private final Path dataDirectory;
-    private final Path worldPath;
+    private final WorldLayout defaultLayout;
     private final TransferQueue queue;
+    private final RegionFileCompactor compactor;
     private final RegionFileCompressor compressor;
+    private final CodecSelector codecSelector;
+    private final CodecSelector.Choice fixedCodec;
+    private final BandwidthGovernor governor;
 
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private final AtomicBoolean regionsAddedWhileRunning = new AtomicBoolean(false);
+    private final AtomicLong bytesReclaimed = new AtomicLong(0);
+    private final AtomicReference<ExtraChunkyTask> resumeTask = new AtomicReference<>();
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
 
     private Consumer<TransferSummary> progressCallback;
+    private Supplier<NativeTransferClient.Endpoint> nativeEndpoint = () -> null;
+    private BooleanSupplier healthCheck = () -> false;
+    private Executor compressionExecutor = DIRECT_EXECUTOR;
+    private volatile int compressionAhead = 1;
+    private CodecSelector.Choice lastBestCodec;
+    private RegionHashIndex remoteHashes;
+    private RegionQuiescenceTracker quiescence;
+    private int lastWaitingCount;
+    private volatile CircuitBreaker activeBreaker;
+
+    // Metrics, if set
+    private Counter compressionInputBytes;
+    private Counter compressionOutputBytes;
+    private Histogram compressionTime;
+    private Counter uploadedBytes;
+    private Counter uploadedRegions;
+    private Histogram uploadTime;
 
     /**
      * Creates a new transfer manager.
@@ -42,22 +100,41 @@ public class RegionTransferManager {
      * @param logger        Logger for status messages
      * @param sshConfig     SSH configuration
      * @param dataDirectory Plugin data directory
-     * @param worldPath     Path to the world folder
+     * @param layout        Folders of the world's dimensions, for queued worlds that did not record their own
      */
     public RegionTransferManager(
             ExtraChunkyScheduler scheduler,
             ExtraChunkyLogger logger,
             SshConfig sshConfig,
             Path dataDirectory,
-            Path worldPath
+            WorldLayout layout
     ) {
         this.scheduler = scheduler;
         this.logger = logger;
         this.sshConfig = sshConfig;
         this.dataDirectory = dataDirectory;
-        this.worldPath = worldPath;
+        this.defaultLayout = layout;
         this.queue = new TransferQueue(dataDirectory, logger);
-        this.compressor = new RegionFileCompressor(logger, sshConfig.compressionLevel());
+        this.compactor = new RegionFileCompactor(logger);
+        this.compressor = new RegionFileCompressor(logger, sshConfig.compressionLevel(), sshConfig.recompressChunks());
+        this.governor = BandwidthGovernor.fromConfig(sshConfig);
+        this.quiescence = new RegionQuiescenceTracker(sshConfig.quietSeconds() * 1000L, world -> Optional.empty());
+        if (sshConfig.isLocalTransport()) {
+            // Nothing crosses a network, so compressing would only cost time
+            this.codecSelector = null;
+            this.fixedCodec = new CodecSelector.Choice(CompressionCodecs.NONE, 0);
+        } else if (sshConfig.isAutoCodec()) {
+            this.codecSelector = CodecSelector.withDefaultCandidates();
+            this.fixedCodec = null;
+        } else {
+            CompressionCodec codec = CompressionCodecs.byName(sshConfig.compressionCodec());
+            if (codec == null) {
+                logger.warning("Unknown compression codec '" + sshConfig.compressionCodec() + "', using zstd");
+                codec = CompressionCodecs.ZSTD;
+            }
+            this.codecSelector = null;
+            this.fixedCodec = new CodecSelector.Choice(codec, sshConfig.compressionLevel());
+        }
     }
 
     /**
@@ -74,13 +151,107 @@ public class RegionTransferManager {
         this.progressCallback = callback;
     }
 
+    /**
+     * Sets where the native transport sends regions.
+     * Evaluated for every transfer run, since the host issues a new token each time the worker registers.
+     *
+     * @param endpoint Supplies the host's data port, or null if the host does not offer one
+     */
+    public void setNativeEndpoint(Supplier<NativeTransferClient.Endpoint> endpoint) {
+        this.nativeEndpoint = endpoint;
+    }
+
+    /**
+     * Sets the check the adaptive bandwidth mode backs off on.
+     *
+     * @param degraded Returns true while the server is lagging or player ping has risen
+     */
+    public void setHealthCheck(BooleanSupplier degraded) {
+        this.healthCheck = degraded;
+    }
+
+    /**
+     * Sets the executor regions are compressed on, so compressing the next regions overlaps with the
+     * current upload. Without one, each region is compressed right before it is uploaded.
+     *
+     * @param executor    Executor for CPU-bound work
+     * @param parallelism How many regions to compress ahead of the upload
+     */
+    public void setCompressionExecutor(Executor executor, int parallelism) {
+        this.compressionExecutor = executor;
+        this.compressionAhead = Math.max(1, parallelism);
+        if (codecSelector != null) {
+            codecSelector.setCompressionAhead(compressionAhead);
+        }
+    }
+
+    /**
+     * Changes how many regions are compressed ahead of the upload. Takes effect on the next region.
+     */
+    public void setCompressionParallelism(int parallelism) {
+        this.compressionAhead = Math.max(1, parallelism);
+        if (codecSelector != null && compressionExecutor != DIRECT_EXECUTOR) {
+            codecSelector.setCompressionAhead(compressionAhead);
+        }
+    }
+
+    /**
+     * Sets the registry to record compression, uploads and the queue in.
+     */
+    public void setMetrics(MetricsRegistry registry) {
+        this.compressionInputBytes = registry.counter("extrachunky_compression_input_bytes_total",
+                "Bytes of compacted region files compressed");
+        this.compressionOutputBytes = registry.counter("extrachunky_compression_output_bytes_total",
+                "Bytes the compressed region files came out at");
+        this.compressionTime = registry.histogram("extrachunky_compression_seconds",
+                "Time to compress one region file", 1e-6);
+        this.uploadedBytes = registry.counter("extrachunky_upload_bytes_total", "Bytes uploaded");
+        this.uploadedRegions = registry.counter("extrachunky_uploaded_regions_total", "Regions uploaded");
+        this.uploadTime = registry.histogram("extrachunky_upload_seconds",
+                "Time to upload one region file or batch archive", 1e-3);
+
+        Counter input = compressionInputBytes;
+        Counter output = compressionOutputBytes;
+        registry.gauge("extrachunky_compression_ratio", "Compressed size over original size, so far",
+                () -> input.get() > 0 ? (double) output.get() / input.get() : 0);
+        registry.gauge("extrachunky_transfer_regions", "Regions in the transfer queue by state",
+                () -> queue.getSummary().pending(), "state", "pending");
+        registry.gauge("extrachunky_transfer_regions", "Regions in the transfer queue by state",
+                () -> queue.getSummary().inProgress(), "state", "in_progress");
+        registry.gauge("extrachunky_transfer_regions", "Regions in the transfer queue by state",
+                () -> queue.getSummary().failed(), "state", "failed");
+    }
+
+    /**
+     * Sets the tracker that decides when a region is no longer being written.
+     * Without one fed by generation events, only file modification times are considered.
+     */
+    public void setQuiescenceTracker(RegionQuiescenceTracker quiescence) {
+        this.quiescence = quiescence;
+    }
+
+    /**
+     * Gets the circuit breaker of the destination uploads last went to, or null before the first upload.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return activeBreaker;
+    }
+
+    /**
+     * Gets the governor that limits upload bandwidth. Changes to it apply to running uploads.
+     */
+    public BandwidthGovernor getBandwidthGovernor() {
+        return governor;
+    }
+
     /**
      * Called when generation completes to queue regions for transfer.
      *
-     * @param worldName       Name of the generated world
+     * @param worldName       Name of the generated world, which the regions are uploaded as
+     * @param layout          Where the world's dimensions keep their region files
      * @param assignedRegions Set of regions that were assigned to this worker
      */
-    public void onGenerationComplete(String worldName, Set<RegionCoord> assignedRegions) {
+    public void onGenerationComplete(String worldName, WorldLayout layout, RegionSet assignedRegions) {
         if (!sshConfig.enabled()) {
             logger.info("SFTP transfers disabled, skipping transfer");
             return;
@@ -88,11 +259,20 @@ public class RegionTransferManager {
 
         logger.info("Generation complete. Queuing " + assignedRegions.size() + " regions for transfer...");
 
-        queue.setWorldName(worldName);
-        queue.addRegions(assignedRegions);
+        // Regions of earlier jobs may still be queued; each world keeps its own folders and remote path
+        queue.setLayout(worldName, layout);
+        queue.addRegions(worldName, assignedRegions);
         queue.save();
 
         if (sshConfig.autoTransfer()) {
+            if (running.get()) {
+                // The running pass picks the new regions up, or a new one starts if it just ended
+                regionsAddedWhileRunning.set(true);
+                if (running.get()) {
+                    return;
+                }
+            }
+            regionsAddedWhileRunning.set(false);
             startTransferAll();
         } else {
             logger.info("Auto-transfer disabled. Run /extrachunky transfer start to begin.");
@@ -114,6 +294,8 @@ public class RegionTransferManager {
         }
 
         cancelled.set(false);
+        bytesReclaimed.set(0);
+        lastWaitingCount = 0;
         logger.info("Starting region file transfers...");
 
         scheduler.runTaskAsync(this::processQueue);
@@ -126,6 +308,14 @@ public class RegionTransferManager {
         if (running.get()) {
             cancelled.set(true);
             logger.info("Cancelling transfers...");
+            // The pass saves once it stopped, but the server may be shutting down before that
+            queue.saveIfDirty();
+            // Between passes nothing is running, so finish here instead
+            ExtraChunkyTask resume = resumeTask.getAndSet(null);
+            if (resume != null) {
+                resume.cancel();
+                finishTransfers(dataDirectory.resolve(STAGING_DIR));
+            }
         }
     }
 
@@ -137,6 +327,8 @@ public class RegionTransferManager {
     public int retryFailed() {
         int count = queue.retryFailed(sshConfig.retryCount());
         if (count > 0) {
+            // Retrying by hand overrides any pause
+            breakers.values().forEach(CircuitBreaker::reset);
             logger.info("Retrying " + count + " failed transfers");
             if (!running.get()) {
                 startTransferAll();
@@ -159,87 +351,644 @@ public class RegionTransferManager {
         return running.get();
     }
 
+    /**
+     * Runs a pass over the queue: uploads every region that has settled and is not backing off from
+     * a failure. If regions are left waiting, or the destination's circuit breaker is open, schedules
+     * the next pass for when there is something to do again.
+     */
     private void processQueue() {
         Path stagingDir = dataDirectory.resolve(STAGING_DIR);
+        long retryMillis = 0;
+        CircuitBreaker breaker = null;
+        ExtraChunkyTask governorTask = scheduler.runTaskTimerAsync(
+                () -> governor.adjust(healthCheck.getAsBoolean()), GOVERNOR_INTERVAL_TICKS, GOVERNOR_INTERVAL_TICKS);
+        ExtraChunkyTask saveTask = scheduler.runTaskTimerAsync(
+                queue::saveIfDirty, QUEUE_SAVE_INTERVAL_TICKS, QUEUE_SAVE_INTERVAL_TICKS);
 
-        try (SftpTransferClient client = new SftpTransferClient(sshConfig, logger)) {
-            client.connect();
+        try (TransferClient client = createClient()) {
+            breaker = breakers.computeIfAbsent(client.getDestination(), destination -> new CircuitBreaker(
+                    destination, sshConfig.circuitBreakerThreshold(), sshConfig.circuitBreakerSeconds() * 1000L));
+            activeBreaker = breaker;
+            if (breaker.isPaused()) {
+                retryMillis = Math.max(1, breaker.getRemainingPauseMillis());
+                return;
+            }
+            try {
+                client.connect();
+            } catch (IOException e) {
+                recordDestinationResult(false);
+                throw e;
+            }
 
-            RegionCoord next;
-            while (!cancelled.get() && (next = queue.getNextPending()) != null) {
-                processRegion(next, client, stagingDir);
-                reportProgress();
+            List<PreparedRegion> batch = new ArrayList<>();
+            try {
+                for (String world : queue.getWorlds()) {
+                    if (cancelled.get()) {
+                        break;
+                    }
+                    long worldRetryMillis = processWorld(world, client, stagingDir, batch, breaker);
+                    if (worldRetryMillis > 0) {
+                        retryMillis = retryMillis > 0 ? Math.min(retryMillis, worldRetryMillis) : worldRetryMillis;
+                    }
+                    if (breaker.isPaused()) {
+                        retryMillis = Math.max(1, breaker.getRemainingPauseMillis());
+                        break;
+                    }
+                }
+            } finally {
+                // Regions packed for a batch that was never sent go back to the queue with their compressed files
+                batch.forEach(this::requeue);
             }
 
         } catch (IOException e) {
-            logger.severe("Transfer failed: " + e.getMessage());
+            if (breaker != null && !cancelled.get()) {
+                // The destination is unreachable; keep the queue and try again once it may be back
+                logger.warning("Could not reach " + breaker.getDestination() + ": " + e.getMessage());
+                retryMillis = Math.max(breaker.getRemainingPauseMillis(), retryDelay(breaker.getConsecutiveFailures()));
+            } else {
+                logger.severe("Transfer failed: " + e.getMessage());
+            }
         } finally {
-            running.set(false);
-            cleanupStagingDir(stagingDir);
-
-            TransferSummary summary = queue.getSummary();
-            if (summary.isComplete()) {
-                logger.info("All transfers complete: " + summary.completed() + " regions transferred");
-                if (summary.failed() > 0) {
-                    logger.warning(summary.failed() + " transfers failed. Use /extrachunky transfer retry to retry.");
+            governorTask.cancel();
+            saveTask.cancel();
+            queue.saveIfDirty();
+            if (retryMillis > 0 && !cancelled.get()) {
+                long delayTicks = Math.max(1, (retryMillis + 49) / 50);
+                resumeTask.set(scheduler.runTaskLaterAsync(this::resumeQueue, delayTicks));
+            } else {
+                finishTransfers(stagingDir);
+            }
+        }
+    }
+
+    /**
+     * Uploads the settled regions of one world. The world's folders, remote path, dictionary and the
+     * host's hash index are all its own, so they are set up before its first region.
+     *
+     * @param batch Collects the world's regions to send in one archive; sent before this returns, or left
+     *              for the caller to requeue if the destination stopped taking uploads
+     * @return Time until the world's waiting regions are worth checking again, 0 if none are waiting
+     */
+    private long processWorld(String world, TransferClient client, Path stagingDir,
+                              List<PreparedRegion> batch, CircuitBreaker breaker) {
+        if (queue.getRegionsByStatus(world, TransferState.Status.PENDING).isEmpty()) {
+            return 0;
+        }
+        WorldLayout layout = layoutOf(world);
+        if (sshConfig.recompressChunks() && sshConfig.trainDictionary() && !sshConfig.isLocalTransport()) {
+            prepareDictionary(client, world, layout);
+        }
+        remoteHashes = loadRemoteHashes(client, world);
+        createRemoteDirectories(client, world);
+
+        long retryMillis = 0;
+        while (!cancelled.get()) {
+            List<RegionCoord> pending = queue.getRegionsByStatus(world, TransferState.Status.PENDING);
+            if (pending.isEmpty()) {
+                break;
+            }
+
+            // Regions that failed sit out their backoff before they are looked at again
+            long now = System.currentTimeMillis();
+            List<RegionCoord> due = new ArrayList<>();
+            long backoffMillis = Long.MAX_VALUE;
+            for (RegionCoord region : pending) {
+                long wait = retryAt(queue.getState(world, region)) - now;
+                if (wait <= 0) {
+                    due.add(region);
+                } else {
+                    backoffMillis = Math.min(backoffMillis, wait);
                 }
-            } else if (cancelled.get()) {
-                logger.info("Transfers cancelled. " + summary.pending() + " regions remaining.");
             }
+
+            RegionQuiescenceTracker.Scan scan = quiescence.scan(due, layout);
+            if (scan.ready().isEmpty()) {
+                retryMillis = Math.min(backoffMillis, scan.waiting() > 0 ? scan.retryMillis() : Long.MAX_VALUE);
+                logWaiting(scan);
+                break;
+            }
+
+            uploadRegions(world, scan.ready(), client, stagingDir, batch, breaker);
+            if (breaker.isPaused()) {
+                return 0;
+            }
+        }
+        if (!batch.isEmpty() && !cancelled.get() && breaker.allowRequest()) {
+            uploadBatch(batch, client, stagingDir);
+            batch.clear();
+            reportProgress();
+        }
+        return retryMillis;
+    }
+
+    /**
+     * Compresses and uploads regions in order. The next regions are compressed on the compression
+     * executor while the current one uploads, so the link and the CPU are busy at the same time.
+     */
+    private void uploadRegions(String world, List<RegionCoord> regions, TransferClient client, Path stagingDir,
+                               List<PreparedRegion> batch, CircuitBreaker breaker) {
+        Iterator<RegionCoord> remaining = regions.iterator();
+        Deque<CompletableFuture<PreparedRegion>> ahead = new ArrayDeque<>();
+        try {
+            while (true) {
+                // A half-open breaker only takes one probe, so nothing is compressed ahead of it
+                int limit = breaker.getState() == CircuitBreaker.State.CLOSED ? compressionAhead : 1;
+                while (ahead.size() < limit && remaining.hasNext()
+                        && !cancelled.get() && !breaker.isPaused()) {
+                    RegionCoord next = remaining.next();
+                    ahead.add(CompletableFuture.supplyAsync(() -> prepareRegion(world, next, stagingDir), compressionExecutor));
+                }
+                CompletableFuture<PreparedRegion> head = ahead.poll();
+                if (head == null) {
+                    return;
+                }
+
+                PreparedRegion prepared = head.join();
+                if (prepared == null) {
+                    reportProgress();
+                    continue;
+                }
+                if (cancelled.get() || breaker.isPaused()) {
+                    requeue(prepared);
+                    continue;
+                }
+                if (isBatched(prepared)) {
+                    batch.add(prepared);
+                    if (batch.size() >= sshConfig.batchSize() && breaker.allowRequest()) {
+                        uploadBatch(batch, client, stagingDir);
+                        batch.clear();
+                    }
+                } else if (breaker.allowRequest()) {
+                    uploadRegion(prepared, client);
+                } else {
+                    requeue(prepared);
+                    continue;
+                }
+                reportProgress();
+            }
+        } finally {
+            // Regions compressed ahead but never uploaded go back to the queue
+            for (CompletableFuture<PreparedRegion> future : ahead) {
+                PreparedRegion prepared = future.exceptionally(e -> null).join();
+                if (prepared != null) {
+                    requeue(prepared);
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts a prepared region back in the queue, keeping its compressed file for the next attempt.
+     */
+    private void requeue(PreparedRegion prepared) {
+        queue.updateState(stagedState(prepared).withStatus(TransferState.Status.PENDING));
+    }
+
+    private void resumeQueue() {
+        // Cancelled while waiting if the task is gone
+        if (resumeTask.getAndSet(null) != null) {
+            processQueue();
+        }
+    }
+
+    /**
+     * Feeds an upload or connection result to the circuit breaker of the current destination.
+     */
+    private void recordDestinationResult(boolean success) {
+        CircuitBreaker breaker = activeBreaker;
+        if (breaker == null) {
+            return;
+        }
+        if (success) {
+            if (breaker.recordSuccess()) {
+                logger.info("Uploads to " + breaker.getDestination() + " are working again");
+            }
+        } else if (breaker.recordFailure()) {
+            logger.warning("Pausing uploads to " + breaker.getDestination() + " for "
+                    + (breaker.getRemainingPauseMillis() + 999) / 1000 + "s after "
+                    + breaker.getConsecutiveFailures() + " consecutive failures");
+        }
+    }
+
+    /**
+     * Gets when a region that failed may be tried again.
+     */
+    private static long retryAt(TransferState state) {
+        if (state == null || state.attemptCount() == 0) {
+            return 0;
+        }
+        return state.lastAttemptTime() + retryDelay(state.attemptCount());
+    }
+
+    /**
+     * Gets the backoff before the given attempt, doubling with each attempt up to a cap.
+     */
+    private static long retryDelay(int attempt) {
+        return Math.min(RETRY_MAX_DELAY_MS, RETRY_BASE_DELAY_MS << Math.min(Math.max(attempt - 1, 0), 20));
+    }
+
+    private void logWaiting(RegionQuiescenceTracker.Scan scan) {
+        if (scan.waiting() != lastWaitingCount) {
+            lastWaitingCount = scan.waiting();
+            logger.info(scan.waiting() + " regions are still being written, uploading them once they settle");
         }
     }
 
-    private void processRegion(RegionCoord region, SftpTransferClient client, Path stagingDir) {
-        TransferState state = queue.getState(region);
+    /**
+     * Ends a transfer run once no pass is left to schedule.
+     */
+    private void finishTransfers(Path stagingDir) {
+        running.set(false);
+        cleanupStagingDir(stagingDir);
+
+        if (regionsAddedWhileRunning.getAndSet(false) && !cancelled.get() && queue.getSummary().pending() > 0) {
+            // Regions of the next job arrived as this run ended
+            startTransferAll();
+            return;
+        }
+
+        TransferSummary summary = queue.getSummary();
+        if (summary.isComplete()) {
+            logger.info("All transfers complete: " + summary.completed() + " regions transferred");
+            if (bytesReclaimed.get() > 0) {
+                logger.info("Compaction reclaimed " + (bytesReclaimed.get() / 1024) + " KB of unused sectors");
+            }
+            if (summary.failed() > 0) {
+                logger.warning(summary.failed() + " transfers failed. Use /extrachunky transfer retry to retry.");
+            }
+        } else if (cancelled.get()) {
+            logger.info("Transfers cancelled. " + summary.pending() + " regions remaining.");
+        }
+    }
+
+    /**
+     * Creates the client for the configured transport.
+     *
+     * @throws IOException if the native transport is selected but the host has no data port
+     */
+    private TransferClient createClient() throws IOException {
+        if (sshConfig.isLocalTransport()) {
+            return new LocalTransferClient(sshConfig, logger);
+        }
+        if (!sshConfig.isNativeTransport()) {
+            return new SftpTransferClient(sshConfig, logger, governor);
+        }
+        NativeTransferClient.Endpoint endpoint = nativeEndpoint.get();
+        if (endpoint == null) {
+            throw new IOException("Native transport needs a connected host with ingest.data-port set");
+        }
+        return new NativeTransferClient(logger, endpoint, governor);
+    }
+
+    /**
+     * Hashes and compresses a region for upload, or finishes it early if the host already has it.
+     *
+     * @return The region ready to upload, or null if it needs no upload or could not be prepared
+     */
+    private PreparedRegion prepareRegion(String world, RegionCoord region, Path stagingDir) {
+        TransferState state = queue.getState(world, region);
         if (state == null) {
-            state = TransferState.pending(region);
+            state = TransferState.pending(world, region);
         }
 
         // Find the region file
-        Path regionFile = worldPath.resolve(region.toRelativePath());
+        Path regionFile = layoutOf(world).resolve(region);
         if (!Files.exists(regionFile)) {
             logger.warning("Region file not found: " + regionFile);
             queue.updateState(state.failed("File not found"));
-            return;
+            return null;
         }
 
         try {
-            // Check file isn't being written
-            if (!isFileSafe(regionFile)) {
-                logger.warning("Region file may be in use, skipping: " + region);
-                queue.updateState(state.failed("File in use"));
-                return;
+            long regionHash = ContentHash.ofRegion(regionFile);
+            if (remoteHashes != null && remoteHashes.matches(region.toRelativePath(), regionHash)) {
+                if (state.stagedFile() != null) {
+                    Files.deleteIfExists(Path.of(state.stagedFile()));
+                }
+                queue.updateState(state.withHashes(regionHash, 0).completed());
+                logger.info("Skipped " + region + ", the host already has identical content");
+                return null;
             }
 
-            // Compress
             queue.updateState(state.compressing());
-            Path compressedFile = compressor.compress(regionFile, stagingDir);
+            Path compressedFile = getStagedFile(state, regionHash);
+            long artifactHash = state.artifactHash();
+            if (compressedFile == null) {
+                // Compact, then compress. Regions of different worlds and dimensions share file names, so each gets its own folder
+                Path regionStagingDir = stagingDir.resolve(toFileName(world)).resolve(region.toRelativeDirectory());
+                CodecSelector.Choice choice = selectCodec();
+                Path sourceFile = compactRegion(regionFile, regionStagingDir, choice.codec());
+                long sourceSize = Files.size(sourceFile);
+                long compressStart = System.nanoTime();
+                try {
+                    compressedFile = compressor.compress(sourceFile, regionStagingDir, choice.codec(), choice.level());
+                } catch (IOException e) {
+                    deleteStagingFile(sourceFile, regionFile);
+                    throw e;
+                }
+                if (!compressedFile.equals(sourceFile)) {
+                    deleteStagingFile(sourceFile, regionFile);
+                }
+                long compressNanos = System.nanoTime() - compressStart;
+                if (codecSelector != null) {
+                    codecSelector.recordCompression(choice, sourceSize, Files.size(compressedFile), compressNanos);
+                }
+                if (compressionTime != null) {
+                    compressionInputBytes.add(sourceSize);
+                    compressionOutputBytes.add(Files.size(compressedFile));
+                    compressionTime.record(compressNanos / 1000);
+                }
+                // Compacted regions without a codec stay plain region files, which a trailer would corrupt
+                artifactHash = compressor.isCompressedRegionFile(compressedFile)
+                        ? ContentHash.appendTrailer(compressedFile, regionHash)
+                        : ContentHash.ofFile(compressedFile);
+            }
+            state = state.withHashes(regionHash, artifactHash);
 
-            // Upload
             long compressedSize = Files.size(compressedFile);
             queue.updateState(state.uploading(compressedSize));
+            return new PreparedRegion(state, regionFile, compressedFile, compressedSize);
 
-            String remotePath = buildRemotePath(region);
-            TransferResult result = client.uploadFile(compressedFile, remotePath,
+        } catch (IOException e) {
+            handleFailure(state, e.getMessage());
+            return null;
+        }
+    }
+
+    private void uploadRegion(PreparedRegion prepared, TransferClient client) {
+        String world = prepared.state().world();
+        RegionCoord region = prepared.state().region();
+        String remotePath = buildRemotePath(client, world, region, prepared.file());
+        TransferResult result;
+        try {
+            result = client.uploadFile(prepared.file(), remotePath,
                     (transferred, total) -> {
-                        TransferState current = queue.getState(region);
+                        TransferState current = queue.getState(world, region);
                         if (current != null) {
                             queue.updateState(current.withProgress(transferred));
                         }
-                    });
+                    }, prepared.state().hasEarlierAttempt());
+        } catch (IOException e) {
+            recordDestinationResult(false);
+            handleFailure(stagedState(prepared), e.getMessage());
+            return;
+        }
+
+        recordDestinationResult(result.success());
+        recordUpload(result, 1);
+
+        if (result.success()) {
+            deleteStagingFileQuietly(prepared);
+            queue.updateState(prepared.state().completed());
+            logger.info("Transferred " + region + " - " + result.getSummary());
+        } else {
+            handleFailure(stagedState(prepared), result.errorMessage());
+        }
+    }
+
+    /**
+     * Packs regions into one archive and uploads it, so the whole batch costs a single file upload.
+     * All regions of a batch belong to the same world.
+     */
+    private void uploadBatch(List<PreparedRegion> batch, TransferClient client, Path stagingDir) {
+        Map<String, Path> files = new LinkedHashMap<>();
+        for (PreparedRegion prepared : batch) {
+            files.put(prepared.state().region().toRelativeDirectory() + "/" + prepared.file().getFileName(), prepared.file());
+        }
+
+        Path archive = stagingDir.resolve("batch-" + UUID.randomUUID() + RegionArchive.EXTENSION);
+        TransferResult result;
+        try {
+            Files.createDirectories(stagingDir);
+            RegionArchive.write(archive, files);
+            String remotePath = buildRemoteBasePath(client, batch.get(0).state().world()) + RegionArchive.DIRECTORY + "/" + archive.getFileName();
+            result = client.uploadFile(archive, remotePath);
+        } catch (IOException e) {
+            result = new TransferResult(archive.toString(), "", 0, 0, false, e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(archive);
+            } catch (IOException ignored) {
+            }
+        }
 
-            // Clean up compressed file
-            Files.deleteIfExists(compressedFile);
+        recordDestinationResult(result.success());
+        recordUpload(result, batch.size());
 
+        for (PreparedRegion prepared : batch) {
             if (result.success()) {
-                queue.updateState(state.completed());
-                logger.info("Transferred " + region + " - " + result.getSummary());
+                deleteStagingFileQuietly(prepared);
+                queue.updateState(prepared.state().completed());
             } else {
-                handleFailure(state, result.errorMessage());
+                handleFailure(stagedState(prepared), result.errorMessage());
             }
+        }
+        if (result.success()) {
+            logger.info("Transferred " + batch.size() + " regions in one archive - " + result.getSummary());
+        }
+    }
+
+    private void recordUpload(TransferResult result, int regions) {
+        if (!result.success()) {
+            return;
+        }
+        if (codecSelector != null) {
+            codecSelector.recordUpload(result.bytesTransferred(), result.durationMs());
+        }
+        if (uploadTime != null) {
+            uploadedBytes.add(result.bytesTransferred());
+            uploadedRegions.add(regions);
+            uploadTime.record(result.durationMs());
+        }
+    }
 
+    private boolean isBatched(PreparedRegion prepared) {
+        return sshConfig.batchSize() > 1 && !sshConfig.isLocalTransport() && prepared.size() <= BATCH_MAX_ENTRY_BYTES;
+    }
+
+    /**
+     * Gets a prepared region's state with its compressed file kept, so a retry sends the same bytes
+     * and can resume a partial upload.
+     */
+    private TransferState stagedState(PreparedRegion prepared) {
+        if (prepared.file().equals(prepared.regionFile())) {
+            return prepared.state();
+        }
+        return prepared.state().withStagedFile(prepared.file().toString());
+    }
+
+    private void deleteStagingFileQuietly(PreparedRegion prepared) {
+        try {
+            deleteStagingFile(prepared.file(), prepared.regionFile());
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Gets the compressed file kept from an earlier failed attempt, if it is still current.
+     *
+     * @param regionHash Hash of the region as it is now
+     * @return The staged file, or null if the region needs to be compressed again
+     */
+    private Path getStagedFile(TransferState state, long regionHash) throws IOException {
+        if (state.stagedFile() == null) {
+            return null;
+        }
+        Path stagedFile = Path.of(state.stagedFile());
+        if (Files.exists(stagedFile) && state.regionHash() == regionHash) {
+            return stagedFile;
+        }
+        // The region was written again since, so the old bytes must not be resumed onto
+        Files.deleteIfExists(stagedFile);
+        return null;
+    }
+
+    /**
+     * Compacts a region file into the staging directory.
+     * Falls back to the original file if it cannot be parsed, so a damaged region is still transferred as-is.
+     *
+     * @return The file to compress (the compacted copy or the original)
+     */
+    private Path compactRegion(Path regionFile, Path stagingDir, CompressionCodec codec) {
+        if (sshConfig.recompressChunks() && !codec.getExtension().isEmpty()) {
+            // Chunk streams are repacked on the host, so dead sectors never reach the compressor
+            return regionFile;
+        }
+        if (sshConfig.isLocalTransport()) {
+            // The original is copied with copy_file_range, which costs less than writing a compacted copy
+            return regionFile;
+        }
+        try {
+            RegionFileCompactor.CompactionResult result = compactor.compact(regionFile, stagingDir);
+            bytesReclaimed.addAndGet(result.bytesReclaimed());
+            return result.path();
         } catch (IOException e) {
-            handleFailure(state, e.getMessage());
+            logger.warning("Could not compact " + regionFile.getFileName() + ", sending as-is: " + e.getMessage());
+            return regionFile;
+        }
+    }
+
+    /**
+     * Loads or trains the compression dictionary for a world and makes sure the host has a copy.
+     * The dictionary ID is written into each compressed file's frame header, so the host can pick the
+     * right dictionary for every upload. Chunk streams are compressed without a dictionary if this fails.
+     */
+    private void prepareDictionary(TransferClient client, String world, WorldLayout layout) {
+        // The previous world's dictionary is not on the host under this world's path
+        compressor.setDictionary(null);
+        Path localFile = dataDirectory.resolve(DICTIONARY_DIR).resolve(toFileName(world) + CompressionDictionary.EXTENSION);
+
+        CompressionDictionary dictionary = null;
+        if (Files.exists(localFile)) {
+            try {
+                dictionary = CompressionDictionary.load(localFile);
+            } catch (IOException e) {
+                logger.warning("Could not load compression dictionary " + localFile.getFileName() + ", retraining: " + e.getMessage());
+            }
+        }
+
+        if (dictionary == null) {
+            List<Path> samples = new ArrayList<>();
+            for (RegionCoord region : queue.getRegionsByStatus(world, TransferState.Status.PENDING)) {
+                samples.add(layout.resolve(region));
+            }
+            dictionary = new DictionaryTrainer(logger).train(samples);
+            if (dictionary == null) {
+                return;
+            }
+            try {
+                dictionary.save(localFile);
+            } catch (IOException e) {
+                logger.warning("Could not save compression dictionary: " + e.getMessage());
+            }
+        }
+
+        String remotePath = buildRemoteBasePath(client, world) + DICTIONARY_DIR + "/" + dictionary.getFileName();
+        try {
+            if (!client.remoteFileExists(remotePath)) {
+                Path uploadFile = localFile;
+                if (!Files.exists(uploadFile)) {
+                    uploadFile = dataDirectory.resolve(STAGING_DIR).resolve(dictionary.getFileName());
+                    dictionary.save(uploadFile);
+                }
+                TransferResult result = client.uploadFile(uploadFile, remotePath);
+                if (!result.success()) {
+                    throw new IOException(result.errorMessage());
+                }
+                logger.info("Uploaded compression dictionary " + dictionary.getId() + " to host");
+            }
+            compressor.setDictionary(dictionary);
+        } catch (IOException e) {
+            logger.warning("Could not upload compression dictionary, compressing without it: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the upload directory of every dimension of a world with pending regions, before the world's
+     * first upload. Failures are left for the uploads themselves to report.
+     */
+    private void createRemoteDirectories(TransferClient client, String world) {
+        Set<String> directories = new LinkedHashSet<>();
+        for (RegionCoord region : queue.getRegionsByStatus(world, TransferState.Status.PENDING)) {
+            directories.add(region.toRelativeDirectory());
+        }
+        if (sshConfig.batchSize() > 1 && !directories.isEmpty()) {
+            directories.add(RegionArchive.DIRECTORY);
+        }
+
+        String basePath = buildRemoteBasePath(client, world);
+        for (String directory : directories) {
+            try {
+                client.createRemoteDirectory(basePath + directory);
+            } catch (IOException e) {
+                logger.warning("Could not create remote directory " + basePath + directory + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads the host's index of a world's installed regions, so regions it already holds are not sent again.
+     *
+     * @return The index, or null if the host has none or it cannot be read
+     */
+    private RegionHashIndex loadRemoteHashes(TransferClient client, String world) {
+        try {
+            byte[] data = client.readRemoteFile(buildRemoteBasePath(client, world) + RegionHashIndex.FILE_NAME);
+            if (data == null) {
+                return null;
+            }
+            RegionHashIndex index = RegionHashIndex.parse(data);
+            logger.info("Host has " + index.size() + " regions installed, unchanged ones will be skipped");
+            return index;
+        } catch (IOException e) {
+            logger.warning("Could not read the host's region hash index, sending all regions: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Picks the codec for the next region: the configured one, or the selector's choice in auto mode.
+     */
+    private synchronized CodecSelector.Choice selectCodec() {
+        if (codecSelector == null) {
+            return fixedCodec;
+        }
+        CodecSelector.Choice choice = codecSelector.select();
+        CodecSelector.Choice best = codecSelector.best();
+        if (!best.equals(lastBestCodec)) {
+            double secondsPerByte = codecSelector.estimateSecondsPerByte(best);
+            if (secondsPerByte > 0) {
+                logger.info(String.format("Selected compression %s for this link (~%.1f MB/s end-to-end)",
+                        best, 1 / secondsPerByte / (1024 * 1024)));
+                lastBestCodec = best;
+            }
+        }
+        return choice;
+    }
+
+    private void deleteStagingFile(Path file, Path regionFile) throws IOException {
+        if (!file.equals(regionFile)) {
+            Files.deleteIfExists(file);
         }
     }
 
@@ -247,8 +996,8 @@ public class RegionTransferManager {
         int maxAttempts = sshConfig.retryCount();
 
         if (state.attemptCount() < maxAttempts) {
-            // Schedule retry with exponential backoff
-            long delay = RETRY_BASE_DELAY_MS * (1L << state.attemptCount());
+            // The next pass skips the region until its backoff is over
+            long delay = retryDelay(state.attemptCount() + 1);
             logger.warning("Transfer failed for " + state.region() + ": " + error +
                     ". Retrying in " + delay + "ms (attempt " + (state.attemptCount() + 1) + "/" + maxAttempts + ")");
 
@@ -260,48 +1009,59 @@ public class RegionTransferManager {
         }
     }
 
-    private String buildRemotePath(RegionCoord region) {
-        String worldName = queue.getWorldName();
-        String basePath = sshConfig.getRemotePathForWorld(worldName != null ? worldName : "world");
-
-        // Include dimension folder structure
-        String relativePath = region.toRelativePath();
+    private String buildRemotePath(TransferClient client, String world, RegionCoord region, Path compressedFile) {
+        // Include dimension folder structure, keeping the compressed file's extension
+        return buildRemoteBasePath(client, world) + region.toRelativeDirectory() + "/" + compressedFile.getFileName();
+    }
 
-        // Ensure proper path joining
-        if (!basePath.endsWith("/")) {
-            basePath += "/";
-        }
+    private String buildRemoteBasePath(TransferClient client, String world) {
+        return client.getRemoteBasePath(world);
+    }
 
-        // Add .zst extension for compressed files
-        return basePath + relativePath + ".zst";
+    /**
+     * Gets where a queued world's region files live.
+     */
+    private WorldLayout layoutOf(String world) {
+        WorldLayout layout = queue.getLayout(world);
+        return layout != null ? layout : defaultLayout;
     }
 
-    private boolean isFileSafe(Path file) {
-        try {
-            // Check file size twice with delay
-            long size1 = Files.size(file);
-            Thread.sleep(500);
-            long size2 = Files.size(file);
-            return size1 == size2;
-        } catch (IOException | InterruptedException e) {
-            return false;
-        }
+    private static String toFileName(String world) {
+        return world.replaceAll("[^A-Za-z0-9_.-]", "_");
     }
 
+    /**
+     * Deletes leftover staging files, keeping those that pending retries will resume from.
+     */
     private void cleanupStagingDir(Path stagingDir) {
-        try {
-            if (Files.exists(stagingDir)) {
-                Files.list(stagingDir).forEach(file -> {
-                    try {
-                        Files.deleteIfExists(file);
-                    } catch (IOException ignored) {
-                    }
-                });
-            }
+        if (!Files.exists(stagingDir)) {
+            return;
+        }
+        Set<Path> keep = queue.getStagedFiles();
+        try (Stream<Path> files = Files.walk(stagingDir)) {
+            files.filter(Files::isRegularFile)
+                    .filter(file -> !keep.contains(file))
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException ignored) {
+                        }
+                    });
         } catch (IOException ignored) {
         }
     }
 
+    /**
+     * A region compressed and ready to upload.
+     *
+     * @param state      Transfer state with the region's hashes
+     * @param regionFile The region file in the world
+     * @param file       The file to upload (the region file itself if it is sent as-is)
+     * @param size       Size of the file to upload
+     */
+    private record PreparedRegion(TransferState state, Path regionFile, Path file, long size) {
+    }
+
     private void reportProgress() {
         if (progressCallback != null) {
             progressCallback.accept(queue.getSummary());
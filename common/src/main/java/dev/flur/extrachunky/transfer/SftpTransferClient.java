@@ -2,30 +2,57 @@ package dev.flur.extrachunky.transfer;
 
 import dev.flur.extrachunky.platform.ExtraChunkyLogger;
 import net.schmizz.sshj.SSHClient;
-import net.schmizz.sshj.common.StreamCopier;
 import net.schmizz.sshj.sftp.FileAttributes;
+import net.schmizz.sshj.sftp.OpenMode;
+import net.schmizz.sshj.sftp.RemoteFile;
+import net.schmizz.sshj.sftp.RenameFlags;
 import net.schmizz.sshj.sftp.SFTPClient;
+import net.schmizz.sshj.sftp.SFTPEngine;
 import net.schmizz.sshj.sftp.SFTPException;
 import net.schmizz.sshj.transport.verification.PromiscuousVerifier;
 import net.schmizz.sshj.userauth.keyprovider.KeyProvider;
-import net.schmizz.sshj.xfer.FileSystemFile;
-import net.schmizz.sshj.xfer.TransferListener;
 
-import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.concurrent.atomic.AtomicLong;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * SFTP client for uploading compressed region files to the host server.
  * Uses SSHJ library for SSH/SFTP operations.
  */
-public class SftpTransferClient implements Closeable {
+public class SftpTransferClient implements TransferClient {
+    /**
+     * Suffix for files still being uploaded. Files are renamed once complete,
+     * so anything watching the remote directory only ever sees whole files.
+     */
+    public static final String PART_SUFFIX = ".part";
+
+    private static final int COPY_BUFFER_SIZE = 256 * 1024;
+    /** Writes in flight before waiting for acknowledgements, so throughput does not collapse on high-latency links */
+    private static final int MAX_UNCONFIRMED_WRITES = 16;
+    /** Tail of a partial upload compared with the local file before resuming it */
+    private static final int RESUME_VERIFY_BYTES = 64 * 1024;
+
     private final SshConfig config;
     private final ExtraChunkyLogger logger;
+    private final BandwidthGovernor governor;
 
     private SSHClient sshClient;
     private SFTPClient sftpClient;
+    /** Whether the server replaces an existing file on rename, so finishing an upload is a single request */
+    private boolean overwritingRename;
+
+    /** Remote directories known to exist in this session, so uploads into them skip the stat per path level */
+    private final Set<String> knownDirectories = ConcurrentHashMap.newKeySet();
 
     /**
      * Creates a new SFTP transfer client.
@@ -34,8 +61,20 @@ public class SftpTransferClient implements Closeable {
      * @param logger Logger for status messages
      */
     public SftpTransferClient(SshConfig config, ExtraChunkyLogger logger) {
+        this(config, logger, new BandwidthGovernor(0, false));
+    }
+
+    /**
+     * Creates a new SFTP transfer client with throttled uploads.
+     *
+     * @param config   SSH configuration
+     * @param logger   Logger for status messages
+     * @param governor Limits the upload rate
+     */
+    public SftpTransferClient(SshConfig config, ExtraChunkyLogger logger, BandwidthGovernor governor) {
         this.config = config;
         this.logger = logger;
+        this.governor = governor;
     }
 
     /**
@@ -43,6 +82,7 @@ public class SftpTransferClient implements Closeable {
      *
      * @throws IOException if connection fails
      */
+    @Override
     public void connect() throws IOException {
         if (isConnected()) {
             return;
@@ -65,6 +105,9 @@ public class SftpTransferClient implements Closeable {
         }
 
         sftpClient = sshClient.newSFTPClient();
+        SFTPEngine engine = sftpClient.getSFTPEngine();
+        overwritingRename = engine.getOperativeProtocolVersion() >= 5
+                || engine.supportsServerExtension("posix-rename", "openssh.com");
         logger.info("Connected to " + config.hostname());
     }
 
@@ -87,6 +130,7 @@ public class SftpTransferClient implements Closeable {
      */
     public void disconnect() {
         try {
+            knownDirectories.clear();
             if (sftpClient != null) {
                 sftpClient.close();
                 sftpClient = null;
@@ -106,40 +150,35 @@ public class SftpTransferClient implements Closeable {
      *
      * @return true if connected
      */
+    @Override
     public boolean isConnected() {
         return sshClient != null && sshClient.isConnected() && sftpClient != null;
     }
 
-    /**
-     * Uploads a file to the remote server.
-     *
-     * @param localFile  Local file to upload
-     * @param remotePath Remote destination path
-     * @return Transfer result with statistics
-     * @throws IOException if transfer fails
-     */
-    public TransferResult uploadFile(Path localFile, String remotePath) throws IOException {
-        return uploadFile(localFile, remotePath, null);
-    }
-
     /**
      * Uploads a file to the remote server with progress callback.
+     * When resuming, a ".part" file left by an earlier attempt is continued if its tail matches the local
+     * file, so a dropped connection only costs the bytes that were not yet written. First attempts skip
+     * that check, it costs a stat and a read per file.
      *
      * @param localFile Local file to upload
      * @param remotePath Remote destination path
      * @param listener  Progress listener (can be null)
+     * @param resume    Whether to look for a partial upload from an earlier attempt
      * @return Transfer result with statistics
      * @throws IOException if transfer fails
      */
-    public TransferResult uploadFile(Path localFile, String remotePath, TransferProgressListener listener)
-            throws IOException {
+    @Override
+    public TransferResult uploadFile(Path localFile, String remotePath, TransferProgressListener listener,
+                                     boolean resume) throws IOException {
         if (!isConnected()) {
             throw new IOException("Not connected to SSH server");
         }
 
         long startTime = System.currentTimeMillis();
-        long fileSize = localFile.toFile().length();
-        AtomicLong bytesTransferred = new AtomicLong(0);
+        long fileSize = Files.size(localFile);
+        long offset = 0;
+        long position = 0;
 
         try {
             // Ensure parent directory exists
@@ -148,44 +187,59 @@ public class SftpTransferClient implements Closeable {
                 createRemoteDirectories(parentDir);
             }
 
-            // Set up progress tracking if listener provided
-            if (listener != null) {
-                sftpClient.getFileTransfer().setTransferListener(new TransferListener() {
-                    @Override
-                    public TransferListener directory(String name) {
-                        return this;
+            String partPath = remotePath + PART_SUFFIX;
+            try (FileChannel local = FileChannel.open(localFile, StandardOpenOption.READ)) {
+                offset = resume ? getResumeOffset(local, partPath, fileSize) : 0;
+                if (offset > 0) {
+                    logger.info("Resuming upload of " + localFile.getFileName() + " at " + (offset / 1024) + " KB");
+                }
+
+                Set<OpenMode> mode = offset > 0 ? EnumSet.of(OpenMode.WRITE)
+                        : EnumSet.of(OpenMode.WRITE, OpenMode.CREAT, OpenMode.TRUNC);
+                try (RemoteFile remote = sftpClient.open(partPath, mode)) {
+                    if (offset > 0) {
+                        // Drop anything past the verified prefix
+                        remote.setLength(offset);
                     }
-
-                    @Override
-                    public StreamCopier.Listener file(String name, long size) {
-                        return new StreamCopier.Listener() {
-                            @Override
-                            public void reportProgress(long transferred) {
-                                bytesTransferred.set(transferred);
-                                listener.onProgress(transferred, size);
+                    position = offset;
+                    try (OutputStream out = remote.new RemoteFileOutputStream(offset, MAX_UNCONFIRMED_WRITES)) {
+                        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+                        local.position(offset);
+                        while (local.read(buffer.clear().limit(governor.chunkSize(COPY_BUFFER_SIZE))) > 0) {
+                            governor.acquire(buffer.position());
+                            out.write(buffer.array(), 0, buffer.position());
+                            position += buffer.position();
+                            if (listener != null) {
+                                listener.onProgress(position, fileSize);
                             }
-                        };
+                        }
                     }
-                });
+                }
             }
 
-            sftpClient.put(new FileSystemFile(localFile.toFile()), remotePath);
+            // Every write was acknowledged when the stream closed, so the count is what the server holds
+            if (position != fileSize) {
+                throw new IOException("Uploaded " + position + " bytes, expected " + fileSize);
+            }
+            rename(partPath, remotePath);
 
             long duration = System.currentTimeMillis() - startTime;
             return new TransferResult(
                     localFile.toString(),
                     remotePath,
-                    fileSize,
+                    fileSize - offset,
                     duration,
                     true,
                     null
             );
         } catch (IOException e) {
+            // A directory may have been removed on the host, so check again next time
+            knownDirectories.clear();
             long duration = System.currentTimeMillis() - startTime;
             return new TransferResult(
                     localFile.toString(),
                     remotePath,
-                    bytesTransferred.get(),
+                    position - offset,
                     duration,
                     false,
                     e.getMessage()
@@ -193,23 +247,81 @@ public class SftpTransferClient implements Closeable {
         }
     }
 
+    /**
+     * Moves a finished upload to its final name, replacing an older copy.
+     * Servers without an overwriting rename need the old file removed first.
+     */
+    private void rename(String partPath, String remotePath) throws IOException {
+        if (overwritingRename) {
+            sftpClient.rename(partPath, remotePath, EnumSet.of(RenameFlags.OVERWRITE));
+            return;
+        }
+        if (remotePathExists(remotePath)) {
+            sftpClient.rm(remotePath);
+        }
+        sftpClient.rename(partPath, remotePath);
+    }
+
+    /**
+     * Finds where an interrupted upload can continue.
+     * The last bytes of the partial file are compared with the local file, so a ".part" left by
+     * a different file is overwritten rather than extended. The host verifies the whole file when
+     * it decompresses it, since compressed uploads carry a content checksum.
+     *
+     * @return The offset to continue at, or 0 to start over
+     */
+    private long getResumeOffset(FileChannel local, String partPath, long fileSize) throws IOException {
+        FileAttributes attrs;
+        try {
+            attrs = sftpClient.stat(partPath);
+        } catch (SFTPException e) {
+            return 0;
+        }
+        long partSize = attrs.getSize();
+        if (partSize <= 0 || partSize > fileSize) {
+            return 0;
+        }
+
+        int length = (int) Math.min(RESUME_VERIFY_BYTES, partSize);
+        long from = partSize - length;
+        ByteBuffer expected = ByteBuffer.allocate(length);
+        while (expected.hasRemaining() && local.read(expected, from + expected.position()) > 0) {
+            // Keep reading until the window is full
+        }
+
+        byte[] actual = new byte[length];
+        try (RemoteFile remote = sftpClient.open(partPath, EnumSet.of(OpenMode.READ))) {
+            int read = 0;
+            while (read < length) {
+                int n = remote.read(from + read, actual, read, length - read);
+                if (n < 0) {
+                    return 0;
+                }
+                read += n;
+            }
+        }
+        return Arrays.equals(expected.array(), actual) ? partSize : 0;
+    }
+
     /**
      * Creates remote directories recursively.
      *
      * @param remotePath Remote directory path to create
      * @throws IOException if creation fails
      */
+    @Override
     public void createRemoteDirectory(String remotePath) throws IOException {
         createRemoteDirectories(remotePath);
     }
 
     private void createRemoteDirectories(String path) throws IOException {
-        if (path == null || path.isEmpty()) {
+        if (path == null || path.isEmpty() || knownDirectories.contains(path)) {
             return;
         }
 
         // Check if already exists
         if (remotePathExists(path)) {
+            knownDirectories.add(path);
             return;
         }
 
@@ -228,6 +340,7 @@ public class SftpTransferClient implements Closeable {
                 throw e;
             }
         }
+        knownDirectories.add(path);
     }
 
     /**
@@ -237,10 +350,33 @@ public class SftpTransferClient implements Closeable {
      * @return true if the path exists
      * @throws IOException if check fails
      */
+    @Override
     public boolean remoteFileExists(String remotePath) throws IOException {
         return remotePathExists(remotePath);
     }
 
+    @Override
+    public byte[] readRemoteFile(String remotePath) throws IOException {
+        if (!remotePathExists(remotePath)) {
+            return null;
+        }
+        try (RemoteFile remote = sftpClient.open(remotePath, EnumSet.of(OpenMode.READ));
+             InputStream in = remote.new RemoteFileInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Override
+    public String getRemoteBasePath(String worldName) {
+        String basePath = config.getRemotePathForWorld(worldName);
+        return basePath.endsWith("/") ? basePath : basePath + "/";
+    }
+
+    @Override
+    public String getDestination() {
+        return "sftp://" + config.username() + "@" + config.hostname() + ":" + config.port();
+    }
+
     private boolean remotePathExists(String path) throws IOException {
         try {
             FileAttributes attrs = sftpClient.stat(path);
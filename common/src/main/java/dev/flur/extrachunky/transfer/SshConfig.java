@@ -16,8 +16,25 @@ public record SshConfig(
         boolean enabled,
         boolean autoTransfer,
         int retryCount,
-        int compressionLevel
+        int compressionLevel,
+        boolean recompressChunks,
+        boolean trainDictionary,
+        String compressionCodec,
+        String transport,
+        int batchSize,
+        int bandwidthLimit,
+        boolean adaptiveBandwidth,
+        int quietSeconds,
+        int circuitBreakerThreshold,
+        int circuitBreakerSeconds
 ) {
+    /** Upload over SFTP to the host's SSH server */
+    public static final String TRANSPORT_SFTP = "sftp";
+    /** Stream over the host's built-in data port, no SSH server needed */
+    public static final String TRANSPORT_NATIVE = "native";
+    /** Link or copy into a directory shared with the host, no compression or network */
+    public static final String TRANSPORT_LOCAL = "local";
+
     /**
      * Authentication method for SSH connection.
      */
@@ -42,7 +59,17 @@ public record SshConfig(
                 false,
                 true,
                 3,
-                3
+                3,
+                true,
+                true,
+                "auto",
+                "sftp",
+                0,
+                0,
+                false,
+                5,
+                5,
+                30
         );
     }
 
@@ -73,6 +100,19 @@ public record SshConfig(
             return true; // Disabled config is always valid
         }
 
+        if (!isKnownTransport() || !isKnownCodec()) {
+            return false;
+        }
+        if (isNativeTransport()) {
+            return true; // Host address and data port come from the coordinator connection
+        }
+        if (remotePath == null || remotePath.isBlank()) {
+            return false;
+        }
+        if (isLocalTransport()) {
+            return true;
+        }
+
         if (hostname == null || hostname.isBlank()) {
             return false;
         }
@@ -88,13 +128,46 @@ public record SshConfig(
         if (authMethod == AuthMethod.PUBLIC_KEY && (privateKeyPath == null || privateKeyPath.isBlank())) {
             return false;
         }
-        if (remotePath == null || remotePath.isBlank()) {
-            return false;
-        }
 
         return true;
     }
 
+    /**
+     * Checks if the transport is "sftp", "native" or "local".
+     */
+    public boolean isKnownTransport() {
+        return TRANSPORT_SFTP.equalsIgnoreCase(transport) || isNativeTransport() || isLocalTransport();
+    }
+
+    /**
+     * Checks if regions are placed into a directory on a filesystem shared with the host.
+     * The remote path is then a local path, and regions are sent uncompressed.
+     */
+    public boolean isLocalTransport() {
+        return TRANSPORT_LOCAL.equalsIgnoreCase(transport);
+    }
+
+    /**
+     * Checks if regions are streamed over the host's data port instead of SFTP.
+     */
+    public boolean isNativeTransport() {
+        return TRANSPORT_NATIVE.equalsIgnoreCase(transport);
+    }
+
+    /**
+     * Checks if the compression codec is "auto" or a registered codec name.
+     */
+    public boolean isKnownCodec() {
+        return isAutoCodec() || CompressionCodecs.byName(compressionCodec) != null;
+    }
+
+    /**
+     * Checks if the compression codec should be picked automatically per link.
+     */
+    public boolean isAutoCodec() {
+        return CompressionCodecs.AUTO.equalsIgnoreCase(compressionCodec);
+    }
+
     /**
      * Builder for SshConfig.
      */
@@ -111,6 +184,16 @@ public record SshConfig(
         private boolean autoTransfer = true;
         private int retryCount = 3;
         private int compressionLevel = 3;
+        private boolean recompressChunks = true;
+        private boolean trainDictionary = true;
+        private String compressionCodec = "auto";
+        private String transport = "sftp";
+        private int batchSize = 0;
+        private int bandwidthLimit = 0;
+        private boolean adaptiveBandwidth = false;
+        private int quietSeconds = 5;
+        private int circuitBreakerThreshold = 5;
+        private int circuitBreakerSeconds = 30;
 
         public Builder hostname(String hostname) {
             this.hostname = hostname;
@@ -172,6 +255,56 @@ public record SshConfig(
             return this;
         }
 
+        public Builder recompressChunks(boolean recompressChunks) {
+            this.recompressChunks = recompressChunks;
+            return this;
+        }
+
+        public Builder trainDictionary(boolean trainDictionary) {
+            this.trainDictionary = trainDictionary;
+            return this;
+        }
+
+        public Builder compressionCodec(String compressionCodec) {
+            this.compressionCodec = compressionCodec;
+            return this;
+        }
+
+        public Builder transport(String transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public Builder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder bandwidthLimit(int bandwidthLimit) {
+            this.bandwidthLimit = bandwidthLimit;
+            return this;
+        }
+
+        public Builder adaptiveBandwidth(boolean adaptiveBandwidth) {
+            this.adaptiveBandwidth = adaptiveBandwidth;
+            return this;
+        }
+
+        public Builder quietSeconds(int quietSeconds) {
+            this.quietSeconds = quietSeconds;
+            return this;
+        }
+
+        public Builder circuitBreakerThreshold(int circuitBreakerThreshold) {
+            this.circuitBreakerThreshold = circuitBreakerThreshold;
+            return this;
+        }
+
+        public Builder circuitBreakerSeconds(int circuitBreakerSeconds) {
+            this.circuitBreakerSeconds = circuitBreakerSeconds;
+            return this;
+        }
+
         public SshConfig build() {
             return new SshConfig(
                     hostname,
@@ -185,7 +318,17 @@ public record SshConfig(
                     enabled,
                     autoTransfer,
                     retryCount,
-                    compressionLevel
+                    compressionLevel,
+                    recompressChunks,
+                    trainDictionary,
+                    compressionCodec,
+                    transport,
+                    batchSize,
+                    bandwidthLimit,
+                    adaptiveBandwidth,
+                    quietSeconds,
+                    circuitBreakerThreshold,
+                    circuitBreakerSeconds
             );
         }
     }
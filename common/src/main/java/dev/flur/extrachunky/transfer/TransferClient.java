@@ -0,0 +1,98 @@
+package dev.flur.extrachunky.transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A connection that uploads files to the host.
+ * Remote paths use forward slashes and are interpreted by the implementation:
+ * absolute paths on the host's SSH server for SFTP, paths relative to the host's
+ * incoming directory for the native transport.
+ */
+public interface TransferClient extends Closeable {
+
+    /**
+     * Establishes the connection.
+     *
+     * @throws IOException if connection fails
+     */
+    void connect() throws IOException;
+
+    /**
+     * Checks if currently connected.
+     */
+    boolean isConnected();
+
+    /**
+     * Uploads a file. The file only appears under its final name once it is complete.
+     *
+     * @param localFile  Local file to upload
+     * @param remotePath Remote destination path
+     * @param listener   Progress listener (can be null)
+     * @param resume     Whether an earlier attempt may have left a partial upload worth continuing;
+     *                   without it the upload starts over and skips looking for one
+     * @return Transfer result with statistics
+     * @throws IOException if the connection is not usable
+     */
+    TransferResult uploadFile(Path localFile, String remotePath, TransferProgressListener listener, boolean resume)
+            throws IOException;
+
+    /**
+     * Uploads a file from the start.
+     */
+    default TransferResult uploadFile(Path localFile, String remotePath, TransferProgressListener listener)
+            throws IOException {
+        return uploadFile(localFile, remotePath, listener, false);
+    }
+
+    /**
+     * Uploads a file from the start without progress reporting.
+     */
+    default TransferResult uploadFile(Path localFile, String remotePath) throws IOException {
+        return uploadFile(localFile, remotePath, null);
+    }
+
+    /**
+     * Makes sure a remote directory exists, creating it and its parents if needed.
+     * Uploads create their directory too; calling this up front keeps that off the per-file path.
+     *
+     * @param remotePath Directory to create
+     * @throws IOException if the directory cannot be created
+     */
+    void createRemoteDirectory(String remotePath) throws IOException;
+
+    /**
+     * Checks if a remote file exists.
+     *
+     * @param remotePath Path to check
+     * @return true if the path exists
+     * @throws IOException if check fails
+     */
+    boolean remoteFileExists(String remotePath) throws IOException;
+
+    /**
+     * Reads a small remote file into memory.
+     *
+     * @param remotePath Path to read
+     * @return The file contents, or null if the file does not exist
+     * @throws IOException if reading fails
+     */
+    byte[] readRemoteFile(String remotePath) throws IOException;
+
+    /**
+     * Gets the base path that remote paths for a world are built from.
+     *
+     * @param worldName The world being transferred
+     * @return The base path, ending in "/" unless empty
+     */
+    String getRemoteBasePath(String worldName);
+
+    /**
+     * Gets where this client uploads to (e.g. {@code sftp://user@host:22}), used to track failures per destination.
+     */
+    String getDestination();
+
+    @Override
+    void close();
+}
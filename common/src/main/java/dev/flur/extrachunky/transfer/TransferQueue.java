@@ -9,23 +9,38 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Persistent queue for region file transfers.
  * Saves state to disk to survive server restarts.
+ * <p>
+ * States are kept in a {@link RegionMap} per world, keyed by packed region and guarded by the queue's lock.
+ * Worlds are kept apart because jobs on different worlds generate the same coordinates; each world also
+ * remembers where its region files live, so regions still draining from an older job are read from
+ * that job's folders.
+ * <p>
+ * State changes only mark the queue dirty, the owner saves it periodically with {@link #saveIfDirty()}.
+ * Saving copies the entries under the lock and writes them outside of it, so uploads are not held up
+ * while a large queue is written.
  */
 public class TransferQueue {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
     private static final String QUEUE_FILE = "transfer-queue.json";
+    private static final String DEFAULT_WORLD = "world";
 
     private final Path queuePath;
     private final ExtraChunkyLogger logger;
-    private final Map<RegionCoord, TransferState> states = new ConcurrentHashMap<>();
-    private String worldName;
+    // World -> states, in the order the worlds were queued
+    private final Map<String, RegionMap<TransferState>> states = new LinkedHashMap<>();
+    private final Map<String, WorldLayout> layouts = new LinkedHashMap<>();
+    // Held while writing, so an older snapshot never replaces a newer one
+    private final Object saveLock = new Object();
+    private boolean dirty = false;
 
     /**
      * Creates a new transfer queue.
@@ -41,7 +56,7 @@ public class TransferQueue {
     /**
      * Loads the queue from disk.
      */
-    public void load() {
+    public synchronized void load() {
         if (!Files.exists(queuePath)) {
             return;
         }
@@ -49,89 +64,182 @@ public class TransferQueue {
         try (Reader reader = Files.newBufferedReader(queuePath)) {
             QueueData data = GSON.fromJson(reader, QueueData.class);
             if (data != null && data.states != null) {
-                this.worldName = data.worldName;
                 states.clear();
+                layouts.clear();
+                if (data.layouts != null) {
+                    data.layouts.forEach((world, entry) -> {
+                        if (entry.root != null) {
+                            layouts.put(world, toLayout(entry));
+                        }
+                    });
+                }
+                // Queues written before worlds were kept apart name one world for all entries
+                String legacyWorld = data.worldName != null ? data.worldName : DEFAULT_WORLD;
                 for (StateEntry entry : data.states) {
+                    String world = entry.world != null ? entry.world : legacyWorld;
                     RegionCoord coord = new RegionCoord(entry.x, entry.z, entry.dimension);
-                    TransferState state = new TransferState(
+                    long key;
+                    try {
+                        key = coord.pack();
+                    } catch (IllegalArgumentException e) {
+                        logger.warning("Skipping queued transfer " + coord + ": " + e.getMessage());
+                        continue;
+                    }
+                    TransferState state = interrupted(new TransferState(
+                            world,
                             coord,
                             entry.status,
                             entry.attemptCount,
                             entry.bytesTransferred,
                             entry.totalBytes,
                             entry.errorMessage,
-                            entry.lastAttemptTime
-                    );
-                    states.put(coord, state);
+                            entry.lastAttemptTime,
+                            entry.stagedFile,
+                            parseHash(entry.regionHash),
+                            parseHash(entry.artifactHash)
+                    ));
+                    worldStates(world).put(key, state);
                 }
-                logger.info("Loaded " + states.size() + " pending transfers from disk");
+                logger.info("Loaded " + size() + " pending transfers from disk");
             }
         } catch (IOException e) {
             logger.warning("Failed to load transfer queue: " + e.getMessage());
         }
     }
 
+    /**
+     * Puts a region that was being worked on when the server stopped back in line.
+     * An interrupted upload counts as an attempt, so the next one looks for the part the host kept.
+     */
+    private static TransferState interrupted(TransferState state) {
+        return switch (state.status()) {
+            case COMPRESSING -> state.withStatus(TransferState.Status.PENDING);
+            case UPLOADING -> state.retry();
+            default -> state;
+        };
+    }
+
     /**
      * Saves the queue to disk.
      */
     public void save() {
-        try {
-            Files.createDirectories(queuePath.getParent());
-            try (Writer writer = Files.newBufferedWriter(queuePath)) {
-                QueueData data = new QueueData();
-                data.worldName = this.worldName;
-                data.states = new ArrayList<>();
-
-                for (TransferState state : states.values()) {
-                    StateEntry entry = new StateEntry();
-                    entry.x = state.region().x();
-                    entry.z = state.region().z();
-                    entry.dimension = state.region().dimension();
-                    entry.status = state.status();
-                    entry.attemptCount = state.attemptCount();
-                    entry.bytesTransferred = state.bytesTransferred();
-                    entry.totalBytes = state.totalBytes();
-                    entry.errorMessage = state.errorMessage();
-                    entry.lastAttemptTime = state.lastAttemptTime();
-                    data.states.add(entry);
+        synchronized (saveLock) {
+            QueueData data = snapshot();
+            Path temp = queuePath.resolveSibling(QUEUE_FILE + ".tmp");
+            try {
+                Files.createDirectories(queuePath.getParent());
+                try (Writer writer = Files.newBufferedWriter(temp)) {
+                    GSON.toJson(data, writer);
+                }
+                try {
+                    Files.move(temp, queuePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, queuePath, StandardCopyOption.REPLACE_EXISTING);
                 }
+            } catch (IOException e) {
+                logger.warning("Failed to save transfer queue: " + e.getMessage());
+                synchronized (this) {
+                    dirty = true;
+                }
+            }
+        }
+    }
 
-                GSON.toJson(data, writer);
+    /**
+     * Saves the queue to disk if it changed since the last save.
+     */
+    public void saveIfDirty() {
+        synchronized (this) {
+            if (!dirty) {
+                return;
             }
-        } catch (IOException e) {
-            logger.warning("Failed to save transfer queue: " + e.getMessage());
         }
+        save();
     }
 
     /**
-     * Sets the world name for this transfer batch.
+     * Copies the queue's entries for saving and marks the queue clean.
      */
-    public void setWorldName(String worldName) {
-        this.worldName = worldName;
+    private synchronized QueueData snapshot() {
+        dirty = false;
+        QueueData data = new QueueData();
+        data.layouts = new LinkedHashMap<>();
+        layouts.forEach((world, layout) -> data.layouts.put(world, toEntry(layout)));
+        data.states = new ArrayList<>();
+
+        for (TransferState state : allStates()) {
+            StateEntry entry = new StateEntry();
+            entry.world = state.world();
+            entry.x = state.region().x();
+            entry.z = state.region().z();
+            entry.dimension = state.region().dimension();
+            entry.status = state.status();
+            entry.attemptCount = state.attemptCount();
+            entry.bytesTransferred = state.bytesTransferred();
+            entry.totalBytes = state.totalBytes();
+            entry.errorMessage = state.errorMessage();
+            entry.lastAttemptTime = state.lastAttemptTime();
+            entry.stagedFile = state.stagedFile();
+            entry.regionHash = state.regionHash() != 0 ? ContentHash.toHex(state.regionHash()) : null;
+            entry.artifactHash = state.artifactHash() != 0 ? ContentHash.toHex(state.artifactHash()) : null;
+            data.states.add(entry);
+        }
+        return data;
     }
 
     /**
-     * Gets the world name for this transfer batch.
+     * Sets where a world's region files live. Dimensions the world already has a folder for keep it,
+     * regions of earlier jobs may still be waiting to be read from there.
+     *
+     * @param world  World the regions are uploaded as
+     * @param layout Where each dimension's region files live
+     */
+    public synchronized void setLayout(String world, WorldLayout layout) {
+        layouts.merge(world, layout, WorldLayout::merge);
+        dirty = true;
+    }
+
+    /**
+     * Gets where a world's region files live.
+     *
+     * @return The layout, or null if none was set for the world
+     */
+    public synchronized WorldLayout getLayout(String world) {
+        return layouts.get(world);
+    }
+
+    /**
+     * Gets the worlds with regions in the queue, in the order they were queued.
      */
-    public String getWorldName() {
-        return worldName;
+    public synchronized List<String> getWorlds() {
+        return new ArrayList<>(states.keySet());
     }
 
     /**
      * Adds a region to the transfer queue.
+     * A region that was already transferred or gave up on is queued again, it has been generated anew.
      */
-    public void addRegion(RegionCoord coord) {
-        if (!states.containsKey(coord)) {
-            states.put(coord, TransferState.pending(coord));
-        }
+    public synchronized void addRegion(String world, RegionCoord coord) {
+        addRegion(worldStates(world), world, coord.pack());
+        dirty = true;
     }
 
     /**
      * Adds multiple regions to the transfer queue.
+     * Regions that were already transferred or gave up on are queued again, they have been generated anew.
      */
-    public void addRegions(Collection<RegionCoord> coords) {
-        for (RegionCoord coord : coords) {
-            addRegion(coord);
+    public synchronized void addRegions(String world, RegionSet regions) {
+        RegionMap<TransferState> worldStates = worldStates(world);
+        regions.forEach(key -> addRegion(worldStates, world, key));
+        dirty = true;
+    }
+
+    private static void addRegion(RegionMap<TransferState> worldStates, String world, long key) {
+        TransferState existing = worldStates.get(key);
+        if (existing == null
+                || existing.status() == TransferState.Status.COMPLETED
+                || existing.status() == TransferState.Status.FAILED) {
+            worldStates.put(key, TransferState.pending(world, RegionCoord.unpack(key)));
         }
     }
 
@@ -140,8 +248,8 @@ public class TransferQueue {
      *
      * @return Next region to process, or null if none pending
      */
-    public RegionCoord getNextPending() {
-        return states.values().stream()
+    public synchronized RegionCoord getNextPending() {
+        return allStates().stream()
                 .filter(s -> s.status() == TransferState.Status.PENDING)
                 .map(TransferState::region)
                 .findFirst()
@@ -149,28 +257,36 @@ public class TransferQueue {
     }
 
     /**
-     * Gets all regions with a specific status.
+     * Gets a world's regions with a specific status.
      */
-    public List<RegionCoord> getRegionsByStatus(TransferState.Status status) {
-        return states.values().stream()
-                .filter(s -> s.status() == status)
-                .map(TransferState::region)
-                .toList();
+    public synchronized List<RegionCoord> getRegionsByStatus(String world, TransferState.Status status) {
+        List<RegionCoord> regions = new ArrayList<>();
+        RegionMap<TransferState> worldStates = states.get(world);
+        if (worldStates == null) {
+            return regions;
+        }
+        worldStates.forEachValue(state -> {
+            if (state.status() == status) {
+                regions.add(state.region());
+            }
+        });
+        return regions;
     }
 
     /**
      * Updates the state of a region.
      */
-    public void updateState(TransferState state) {
-        states.put(state.region(), state);
-        save(); // Auto-save on state change
+    public synchronized void updateState(TransferState state) {
+        worldStates(state.world()).put(state.region(), state);
+        dirty = true;
     }
 
     /**
      * Gets the current state of a region.
      */
-    public TransferState getState(RegionCoord coord) {
-        return states.get(coord);
+    public synchronized TransferState getState(String world, RegionCoord coord) {
+        RegionMap<TransferState> worldStates = states.get(world);
+        return worldStates != null ? worldStates.get(coord) : null;
     }
 
     /**
@@ -180,28 +296,46 @@ public class TransferQueue {
      * @return Number of regions marked for retry
      */
     public int retryFailed(int maxAttempts) {
-        int count = 0;
-        for (Map.Entry<RegionCoord, TransferState> entry : states.entrySet()) {
-            TransferState state = entry.getValue();
-            if (state.canRetry(maxAttempts)) {
-                states.put(entry.getKey(), state.retry());
-                count++;
+        int[] count = {0};
+        synchronized (this) {
+            for (RegionMap<TransferState> worldStates : states.values()) {
+                worldStates.replaceAll(state -> {
+                    if (state.canRetry(maxAttempts)) {
+                        count[0]++;
+                        return state.retry();
+                    }
+                    return state;
+                });
+            }
+            if (count[0] > 0) {
+                dirty = true;
             }
         }
-        if (count > 0) {
-            save();
+        saveIfDirty();
+        return count[0];
+    }
+
+    /**
+     * Gets the compressed files kept for retries.
+     */
+    public synchronized Set<Path> getStagedFiles() {
+        Set<Path> files = new HashSet<>();
+        for (TransferState state : allStates()) {
+            if (state.stagedFile() != null) {
+                files.add(Path.of(state.stagedFile()));
+            }
         }
-        return count;
+        return files;
     }
 
     /**
      * Gets a summary of the current queue status.
      */
-    public TransferSummary getSummary() {
+    public synchronized TransferSummary getSummary() {
         int pending = 0, inProgress = 0, completed = 0, failed = 0;
         long bytesTransferred = 0, totalBytes = 0;
 
-        for (TransferState state : states.values()) {
+        for (TransferState state : allStates()) {
             switch (state.status()) {
                 case PENDING -> pending++;
                 case COMPRESSING, UPLOADING -> {
@@ -219,7 +353,7 @@ public class TransferQueue {
         }
 
         return new TransferSummary(
-                states.size(),
+                size(),
                 pending,
                 inProgress,
                 completed,
@@ -233,9 +367,16 @@ public class TransferQueue {
      * Clears all completed and failed transfers.
      */
     public void clearCompleted() {
-        states.entrySet().removeIf(e ->
-                e.getValue().status() == TransferState.Status.COMPLETED ||
-                        e.getValue().status() == TransferState.Status.FAILED);
+        synchronized (this) {
+            for (RegionMap<TransferState> worldStates : states.values()) {
+                worldStates.removeIf(state ->
+                        state.status() == TransferState.Status.COMPLETED ||
+                                state.status() == TransferState.Status.FAILED);
+            }
+            states.values().removeIf(RegionMap::isEmpty);
+            layouts.keySet().retainAll(states.keySet());
+            dirty = true;
+        }
         save();
     }
 
@@ -243,36 +384,94 @@ public class TransferQueue {
      * Clears the entire queue.
      */
     public void clear() {
-        states.clear();
-        worldName = null;
-        try {
-            Files.deleteIfExists(queuePath);
-        } catch (IOException e) {
-            logger.warning("Failed to delete queue file: " + e.getMessage());
+        synchronized (saveLock) {
+            synchronized (this) {
+                states.clear();
+                layouts.clear();
+                dirty = false;
+            }
+            try {
+                Files.deleteIfExists(queuePath);
+            } catch (IOException e) {
+                logger.warning("Failed to delete queue file: " + e.getMessage());
+            }
         }
     }
 
     /**
      * Checks if the queue is empty.
      */
-    public boolean isEmpty() {
-        return states.isEmpty();
+    public synchronized boolean isEmpty() {
+        return size() == 0;
     }
 
     /**
      * Gets the total number of regions in the queue.
      */
-    public int size() {
-        return states.size();
+    public synchronized int size() {
+        int size = 0;
+        for (RegionMap<TransferState> worldStates : states.values()) {
+            size += worldStates.size();
+        }
+        return size;
+    }
+
+    private RegionMap<TransferState> worldStates(String world) {
+        return states.computeIfAbsent(world, w -> new RegionMap<>());
+    }
+
+    private List<TransferState> allStates() {
+        List<TransferState> all = new ArrayList<>();
+        for (RegionMap<TransferState> worldStates : states.values()) {
+            all.addAll(worldStates.values());
+        }
+        return all;
+    }
+
+    private static WorldLayout toLayout(LayoutEntry entry) {
+        WorldLayout layout = WorldLayout.of(Path.of(entry.root));
+        if (entry.dimensions != null) {
+            for (Map.Entry<String, String> dimension : entry.dimensions.entrySet()) {
+                layout = layout.with(dimension.getKey(), Path.of(dimension.getValue()));
+            }
+        }
+        return layout;
+    }
+
+    private static LayoutEntry toEntry(WorldLayout layout) {
+        LayoutEntry entry = new LayoutEntry();
+        entry.root = layout.getDefaultRoot().toString();
+        entry.dimensions = new TreeMap<>();
+        layout.getRoots().forEach((dimension, root) -> entry.dimensions.put(dimension, root.toString()));
+        return entry;
+    }
+
+    private static long parseHash(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return ContentHash.parseHex(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
 
     // JSON serialization classes
     private static class QueueData {
+        // Only read, from queues written before each entry named its world
         String worldName;
+        Map<String, LayoutEntry> layouts;
         List<StateEntry> states;
     }
 
+    private static class LayoutEntry {
+        String root;
+        Map<String, String> dimensions;
+    }
+
     private static class StateEntry {
+        String world;
         int x;
         int z;
         String dimension;
@@ -282,5 +481,8 @@ public class TransferQueue {
         long totalBytes;
         String errorMessage;
         long lastAttemptTime;
+        String stagedFile;
+        String regionHash;
+        String artifactHash;
     }
 }
@@ -2,15 +2,22 @@ package dev.flur.extrachunky.transfer;
 
 /**
  * Tracks the state of a region file transfer.
+ * <p>
+ * A region is identified by its world as well as its coordinates: jobs on different worlds generate
+ * the same coordinates, and each world is uploaded to a path of its own.
  */
 public record TransferState(
+        String world,
         RegionCoord region,
         Status status,
         int attemptCount,
         long bytesTransferred,
         long totalBytes,
         String errorMessage,
-        long lastAttemptTime
+        long lastAttemptTime,
+        String stagedFile,
+        long regionHash,
+        long artifactHash
 ) {
     /**
      * Transfer status states.
@@ -30,58 +37,84 @@ public record TransferState(
 
     /**
      * Creates an initial pending state for a region.
+     *
+     * @param world  World the region is uploaded as (the primary world of its job)
+     * @param region The region
      */
-    public static TransferState pending(RegionCoord region) {
-        return new TransferState(region, Status.PENDING, 0, 0, 0, null, 0);
+    public static TransferState pending(String world, RegionCoord region) {
+        return new TransferState(world, region, Status.PENDING, 0, 0, 0, null, 0, null, 0, 0);
     }
 
     /**
      * Creates a new state with updated status.
      */
     public TransferState withStatus(Status newStatus) {
-        return new TransferState(region, newStatus, attemptCount, bytesTransferred, totalBytes, errorMessage, lastAttemptTime);
+        return new TransferState(world, region, newStatus, attemptCount, bytesTransferred, totalBytes, errorMessage, lastAttemptTime, stagedFile, regionHash, artifactHash);
     }
 
     /**
      * Creates a new state marked as compressing.
      */
     public TransferState compressing() {
-        return new TransferState(region, Status.COMPRESSING, attemptCount, 0, 0, null, System.currentTimeMillis());
+        return new TransferState(world, region, Status.COMPRESSING, attemptCount, 0, 0, null, System.currentTimeMillis(), stagedFile, regionHash, artifactHash);
     }
 
     /**
      * Creates a new state marked as uploading with total size.
      */
     public TransferState uploading(long totalBytes) {
-        return new TransferState(region, Status.UPLOADING, attemptCount, 0, totalBytes, null, System.currentTimeMillis());
+        return new TransferState(world, region, Status.UPLOADING, attemptCount, 0, totalBytes, null, System.currentTimeMillis(), stagedFile, regionHash, artifactHash);
     }
 
     /**
      * Creates a new state with updated progress.
      */
     public TransferState withProgress(long bytesTransferred) {
-        return new TransferState(region, status, attemptCount, bytesTransferred, totalBytes, errorMessage, lastAttemptTime);
+        return new TransferState(world, region, status, attemptCount, bytesTransferred, totalBytes, errorMessage, lastAttemptTime, stagedFile, regionHash, artifactHash);
+    }
+
+    /**
+     * Creates a new state that keeps a compressed file for retries.
+     *
+     * @param stagedFile The compressed file, or null if there is nothing to keep
+     */
+    public TransferState withStagedFile(String stagedFile) {
+        return new TransferState(world, region, status, attemptCount, bytesTransferred, totalBytes, errorMessage, lastAttemptTime, stagedFile, regionHash, artifactHash);
+    }
+
+    /**
+     * Creates a new state with the content hashes of the region and its compressed artifact.
+     */
+    public TransferState withHashes(long regionHash, long artifactHash) {
+        return new TransferState(world, region, status, attemptCount, bytesTransferred, totalBytes, errorMessage, lastAttemptTime, stagedFile, regionHash, artifactHash);
     }
 
     /**
      * Creates a new state marked as completed.
      */
     public TransferState completed() {
-        return new TransferState(region, Status.COMPLETED, attemptCount, totalBytes, totalBytes, null, System.currentTimeMillis());
+        return new TransferState(world, region, Status.COMPLETED, attemptCount, totalBytes, totalBytes, null, System.currentTimeMillis(), null, regionHash, artifactHash);
     }
 
     /**
      * Creates a new state marked as failed with error message.
      */
     public TransferState failed(String error) {
-        return new TransferState(region, Status.FAILED, attemptCount + 1, bytesTransferred, totalBytes, error, System.currentTimeMillis());
+        return new TransferState(world, region, Status.FAILED, attemptCount + 1, bytesTransferred, totalBytes, error, System.currentTimeMillis(), stagedFile, regionHash, artifactHash);
     }
 
     /**
-     * Creates a new state ready for retry.
+     * Creates a new state ready for retry. The staged file is kept so the retry can resume the upload.
      */
     public TransferState retry() {
-        return new TransferState(region, Status.PENDING, attemptCount + 1, 0, 0, null, System.currentTimeMillis());
+        return new TransferState(world, region, Status.PENDING, attemptCount + 1, 0, 0, null, System.currentTimeMillis(), stagedFile, regionHash, artifactHash);
+    }
+
+    /**
+     * Checks if an earlier upload of this region was cut short, so the host may hold part of it.
+     */
+    public boolean hasEarlierAttempt() {
+        return attemptCount > 0;
     }
 
     /**
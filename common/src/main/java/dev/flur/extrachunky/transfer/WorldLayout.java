@@ -0,0 +1,127 @@
+package dev.flur.extrachunky.transfer;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Where each dimension's region files live on this server.
+ * <p>
+ * Region paths are written in vanilla layout ({@code region/}, {@code DIM-1/region/},
+ * {@code DIM1/region/}) relative to a dimension root. On vanilla-style servers all dimensions share
+ * the level folder as root; Bukkit keeps each dimension in its own world folder
+ * ({@code world_nether/DIM-1/region/}), so there every dimension has a root of its own.
+ */
+public final class WorldLayout {
+    private final Path defaultRoot;
+    private final Map<String, Path> roots;
+
+    private WorldLayout(Path defaultRoot, Map<String, Path> roots) {
+        this.defaultRoot = defaultRoot;
+        this.roots = roots;
+    }
+
+    /**
+     * Creates a layout with all dimensions under one folder.
+     *
+     * @param root The level folder
+     */
+    public static WorldLayout of(Path root) {
+        return new WorldLayout(root, Map.of());
+    }
+
+    /**
+     * Creates a copy of this layout with a dimension under its own root.
+     *
+     * @param dimension Dimension identifier (see {@link RegionCoord})
+     * @param root      Folder the dimension's vanilla-layout paths resolve against
+     * @return The new layout
+     */
+    public WorldLayout with(String dimension, Path root) {
+        Map<String, Path> copy = new HashMap<>(roots);
+        copy.put(dimension, root);
+        return new WorldLayout(defaultRoot, Map.copyOf(copy));
+    }
+
+    /**
+     * Creates a copy of this layout that also knows the other layout's dimensions.
+     * Where both name a dimension, this layout's root is kept, so regions already on their way
+     * to it are not redirected.
+     *
+     * @param other Layout to take dimension roots from
+     * @return The combined layout
+     */
+    public WorldLayout merge(WorldLayout other) {
+        Map<String, Path> copy = new HashMap<>(roots);
+        other.roots.forEach(copy::putIfAbsent);
+        return new WorldLayout(defaultRoot, Map.copyOf(copy));
+    }
+
+    /**
+     * Checks if the other layout puts a dimension both name in a different folder.
+     */
+    public boolean conflictsWith(WorldLayout other) {
+        for (Map.Entry<String, Path> entry : other.roots.entrySet()) {
+            Path root = roots.get(entry.getKey());
+            if (root != null && !root.equals(entry.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the folder dimensions without a root of their own resolve against.
+     */
+    public Path getDefaultRoot() {
+        return defaultRoot;
+    }
+
+    /**
+     * Gets the dimensions that have a root of their own.
+     */
+    public Map<String, Path> getRoots() {
+        return roots;
+    }
+
+    /**
+     * Gets the folder a dimension's vanilla-layout paths resolve against.
+     */
+    public Path getRoot(String dimension) {
+        return roots.getOrDefault(dimension, defaultRoot);
+    }
+
+    /**
+     * Gets the path of a region file.
+     */
+    public Path resolve(RegionCoord region) {
+        return getRoot(region.dimension()).resolve(region.toRelativePath());
+    }
+
+    /**
+     * Resolves a path in vanilla layout, e.g. {@code DIM-1/region}, against its dimension's root.
+     */
+    public Path resolve(String relativePath) {
+        String dimension = RegionCoord.OVERWORLD;
+        if (relativePath.startsWith("DIM-1/")) {
+            dimension = RegionCoord.NETHER;
+        } else if (relativePath.startsWith("DIM1/")) {
+            dimension = RegionCoord.END;
+        }
+        return getRoot(dimension).resolve(relativePath);
+    }
+
+    @Override
+    public String toString() {
+        if (roots.isEmpty()) {
+            return defaultRoot.toString();
+        }
+        StringBuilder sb = new StringBuilder(defaultRoot.toString());
+        roots.forEach((dimension, root) -> {
+            if (!root.equals(defaultRoot)) {
+                sb.append(", ").append(dimension).append(": ").append(root);
+            }
+        });
+        return sb.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package dev.flur.extrachunky.transfer;
+
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Decompresses from a channel using direct buffers.
+ * Compressed data is read straight into a direct buffer and decompressed in large native calls.
+ * Data written with {@link #transferTo(WritableByteChannel)} never passes through the heap.
+ */
+class ZstdChannelInputStream extends InputStream {
+    private final ReadableByteChannel channel;
+    private final ZstdDecompressCtx ctx;
+    private final DirectBufferPool pool;
+    private final ByteBuffer input;
+    private final ByteBuffer output;
+    private boolean frameComplete = true;
+    private boolean closed;
+
+    ZstdChannelInputStream(ReadableByteChannel channel, ZstdDecompressCtx ctx, DirectBufferPool pool) {
+        this.channel = channel;
+        this.ctx = ctx;
+        this.pool = pool;
+        this.input = pool.acquire().flip();
+        this.output = pool.acquire().flip();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!output.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return output.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!output.hasRemaining() && !fill()) {
+            return -1;
+        }
+        int n = Math.min(len, output.remaining());
+        output.get(b, off, n);
+        return n;
+    }
+
+    /**
+     * Decompresses everything remaining into a channel.
+     *
+     * @param target Channel to write uncompressed data to
+     * @return Number of bytes written
+     * @throws IOException if reading, decompressing or writing fails
+     */
+    long transferTo(WritableByteChannel target) throws IOException {
+        long total = 0;
+        while (output.hasRemaining() || fill()) {
+            total += output.remaining();
+            while (output.hasRemaining()) {
+                target.write(output);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pool.release(input);
+        pool.release(output);
+        ctx.close();
+        channel.close();
+    }
+
+    /**
+     * Decompresses the next block of output.
+     *
+     * @return false at the end of the stream
+     */
+    private boolean fill() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        output.clear();
+        while (output.position() == 0) {
+            if (!input.hasRemaining()) {
+                input.clear();
+                int n = channel.read(input);
+                input.flip();
+                if (n < 0) {
+                    if (!frameComplete) {
+                        throw new IOException("Truncated ZSTD stream");
+                    }
+                    break;
+                }
+            }
+            try {
+                frameComplete = ctx.decompressDirectByteBufferStream(output, input);
+            } catch (ZstdException e) {
+                throw new IOException("Corrupt ZSTD stream: " + e.getMessage(), e);
+            }
+        }
+        output.flip();
+        return output.hasRemaining();
+    }
+}
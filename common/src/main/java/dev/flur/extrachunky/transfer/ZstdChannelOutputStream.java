@@ -0,0 +1,118 @@
+package dev.flur.extrachunky.transfer;
+
+import com.github.luben.zstd.EndDirective;
+import com.github.luben.zstd.ZstdCompressCtx;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Compresses into a channel using direct buffers.
+ * Input is gathered into a large direct buffer and compressed in one native call per buffer,
+ * and compressed output is written straight from a direct buffer to the channel.
+ * Data read with {@link #writeFrom(ReadableByteChannel)} never passes through the heap.
+ * <p>
+ * {@link #flush()} does not end the current ZSTD block; all data is written by {@link #close()}.
+ */
+class ZstdChannelOutputStream extends OutputStream {
+    private final WritableByteChannel channel;
+    private final ZstdCompressCtx ctx;
+    private final DirectBufferPool pool;
+    private final ByteBuffer input;
+    private final ByteBuffer output;
+    private boolean closed;
+
+    ZstdChannelOutputStream(WritableByteChannel channel, ZstdCompressCtx ctx, DirectBufferPool pool) {
+        this.channel = channel;
+        this.ctx = ctx;
+        this.pool = pool;
+        this.input = pool.acquire();
+        this.output = pool.acquire();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        input.put((byte) b);
+        if (!input.hasRemaining()) {
+            compressInput(EndDirective.CONTINUE);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int n = Math.min(len, input.remaining());
+            input.put(b, off, n);
+            off += n;
+            len -= n;
+            if (!input.hasRemaining()) {
+                compressInput(EndDirective.CONTINUE);
+            }
+        }
+    }
+
+    /**
+     * Compresses everything remaining in a channel.
+     *
+     * @param source Channel to read uncompressed data from
+     * @return Number of bytes read
+     * @throws IOException if reading or writing fails
+     */
+    long writeFrom(ReadableByteChannel source) throws IOException {
+        ensureOpen();
+        long total = 0;
+        int n;
+        while ((n = source.read(input)) >= 0) {
+            total += n;
+            if (!input.hasRemaining()) {
+                compressInput(EndDirective.CONTINUE);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            compressInput(EndDirective.END);
+        } finally {
+            closed = true;
+            pool.release(input);
+            pool.release(output);
+            ctx.close();
+            channel.close();
+        }
+    }
+
+    private void compressInput(EndDirective directive) throws IOException {
+        input.flip();
+        boolean done;
+        do {
+            done = ctx.compressDirectByteBufferStream(output, input, directive);
+            drainOutput();
+        } while (input.hasRemaining() || (directive != EndDirective.CONTINUE && !done));
+        input.clear();
+    }
+
+    private void drainOutput() throws IOException {
+        output.flip();
+        while (output.hasRemaining()) {
+            channel.write(output);
+        }
+        output.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package dev.flur.extrachunky.transfer;
+
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * ZSTD compression with long-distance matching, optionally using native worker threads.
+ * Multithreaded output is a regular ZSTD stream, so both variants share the {@code .zst} extension.
+ * <p>
+ * Data moves between channels and pooled direct buffers, so each region costs a handful of
+ * native calls and no per-region heap buffers.
+ */
+public class ZstdCodec implements CompressionCodec {
+    /**
+     * Window size for long-distance matching (128 MiB).
+     * Kept at the decoder's default limit so any ZSTD decoder can read the output.
+     */
+    static final int LONG_WINDOW_LOG = 27;
+
+    private static final DirectBufferPool BUFFER_POOL = new DirectBufferPool(1024 * 1024, 8);
+
+    private final String name;
+    private final int workers;
+
+    /**
+     * Creates a ZSTD codec.
+     *
+     * @param name    Codec name used in the config
+     * @param workers Number of native compression threads (0 compresses on the calling thread)
+     */
+    public ZstdCodec(String name, int workers) {
+        this.name = name;
+        this.workers = workers;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getExtension() {
+        return ".zst";
+    }
+
+    @Override
+    public int getMinLevel() {
+        return 1;
+    }
+
+    @Override
+    public int getMaxLevel() {
+        return 19;
+    }
+
+    @Override
+    public boolean supportsDictionary() {
+        return true;
+    }
+
+    @Override
+    public OutputStream compress(WritableByteChannel out, int level, CompressionDictionary dictionary) {
+        return new ZstdChannelOutputStream(out, createCompressCtx(level, dictionary), BUFFER_POOL);
+    }
+
+    @Override
+    public InputStream decompress(ReadableByteChannel in, CompressionDictionary dictionary) {
+        return new ZstdChannelInputStream(in, createDecompressCtx(dictionary), BUFFER_POOL);
+    }
+
+    @Override
+    public void compress(FileChannel source, WritableByteChannel out, int level,
+                         CompressionDictionary dictionary) throws IOException {
+        ZstdCompressCtx ctx = createCompressCtx(level, dictionary);
+        ZstdChannelOutputStream compressed;
+        try {
+            // A known content size lets the decoder size its window to the file rather than the full 128 MiB
+            ctx.setPledgedSrcSize(source.size() - source.position());
+            compressed = new ZstdChannelOutputStream(out, ctx, BUFFER_POOL);
+        } catch (IOException | RuntimeException e) {
+            ctx.close();
+            throw e;
+        }
+        try (compressed) {
+            compressed.writeFrom(source);
+        }
+    }
+
+    @Override
+    public void decompress(ReadableByteChannel in, FileChannel target,
+                           CompressionDictionary dictionary) throws IOException {
+        try (ZstdChannelInputStream decompressed = new ZstdChannelInputStream(in, createDecompressCtx(dictionary), BUFFER_POOL)) {
+            decompressed.transferTo(target);
+        }
+    }
+
+    private ZstdCompressCtx createCompressCtx(int level, CompressionDictionary dictionary) {
+        ZstdCompressCtx ctx = new ZstdCompressCtx();
+        try {
+            ctx.setLevel(level);
+            ctx.setLong(LONG_WINDOW_LOG);
+            // Lets the host detect a corrupted upload, including one resumed onto the wrong bytes
+            ctx.setChecksum(true);
+            if (workers > 0) {
+                ctx.setWorkers(workers);
+            }
+            if (dictionary != null) {
+                ctx.loadDict(dictionary.forCompression(level));
+            }
+        } catch (RuntimeException e) {
+            // The context holds native memory the garbage collector would only free much later
+            ctx.close();
+            throw e;
+        }
+        return ctx;
+    }
+
+    private ZstdDecompressCtx createDecompressCtx(CompressionDictionary dictionary) {
+        ZstdDecompressCtx ctx = new ZstdDecompressCtx();
+        if (dictionary != null) {
+            ctx.loadDict(dictionary.forDecompression());
+        }
+        return ctx;
+    }
+}
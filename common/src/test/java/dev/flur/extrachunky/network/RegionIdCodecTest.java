@@ -0,0 +1,94 @@
+package dev.flur.extrachunky.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RegionIdCodecTest {
+
+    @Test
+    void roundTripsSortedIds() {
+        long[] ids = {0, 1, 2, 127, 128, 300, 16_384, 1_000_000};
+        assertArrayEquals(ids, RegionIdCodec.decode(RegionIdCodec.encode(ids)));
+    }
+
+    @Test
+    void sortsAndDropsDuplicates() {
+        long[] ids = {42, 7, 42, 0, 7, 1_000};
+        assertArrayEquals(new long[]{0, 7, 42, 1_000}, RegionIdCodec.decode(RegionIdCodec.encode(ids)));
+    }
+
+    @Test
+    void roundTripsLargeIds() {
+        long[] ids = {Long.MAX_VALUE - 1, Long.MAX_VALUE, (1L << 62) + 5, 1L << 35};
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(sorted, RegionIdCodec.decode(RegionIdCodec.encode(ids)));
+    }
+
+    @Test
+    void roundTripsRandomIds() {
+        Random random = new Random(3);
+        for (int round = 0; round < 100; round++) {
+            long[] ids = new long[random.nextInt(500)];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = round % 2 == 0 ? random.nextInt(10_000) : random.nextLong() & Long.MAX_VALUE;
+            }
+            long[] expected = Arrays.stream(ids).distinct().sorted().toArray();
+            assertArrayEquals(expected, RegionIdCodec.decode(RegionIdCodec.encode(ids)));
+        }
+    }
+
+    @Test
+    void closeIdsTakeOneByteEach() {
+        long[] ids = new long[100];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 5_000 + i * 3;
+        }
+        // The first ID takes two bytes, every other delta one
+        byte[] bytes = Base64.getDecoder().decode(RegionIdCodec.encode(ids));
+        assertEquals(ids.length + 1, bytes.length);
+    }
+
+    @Test
+    void encodesEmptyList() {
+        assertEquals("", RegionIdCodec.encode(new long[0]));
+        assertArrayEquals(new long[0], RegionIdCodec.decode(""));
+        assertArrayEquals(new long[0], RegionIdCodec.decode(null));
+    }
+
+    @Test
+    void rejectsNegativeIds() {
+        assertThrows(IllegalArgumentException.class, () -> RegionIdCodec.encode(new long[]{3, -1}));
+    }
+
+    @Test
+    void rejectsTruncatedVarint() {
+        // 300 needs two varint bytes; keep only the first, which has its continuation bit set
+        byte[] bytes = Base64.getDecoder().decode(RegionIdCodec.encode(new long[]{300}));
+        assertEquals(2, bytes.length);
+        String truncated = Base64.getEncoder().withoutPadding().encodeToString(Arrays.copyOf(bytes, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> RegionIdCodec.decode(truncated));
+    }
+
+    @Test
+    void rejectsOverlongVarint() {
+        byte[] bytes = new byte[11];
+        Arrays.fill(bytes, (byte) 0x80);
+        String overlong = Base64.getEncoder().withoutPadding().encodeToString(bytes);
+
+        assertThrows(IllegalArgumentException.class, () -> RegionIdCodec.decode(overlong));
+    }
+
+    @Test
+    void rejectsInvalidBase64() {
+        assertThrows(IllegalArgumentException.class, () -> RegionIdCodec.decode("not base64!"));
+    }
+}
@@ -0,0 +1,164 @@
+package dev.flur.extrachunky.transfer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegionMapTest {
+
+    @Test
+    void putReplacesAndReturnsPreviousValue() {
+        RegionMap<String> map = new RegionMap<>();
+        assertNull(map.put(RegionCoord.overworld(4, -2), "a"));
+        assertEquals("a", map.put(RegionCoord.overworld(4, -2), "b"));
+
+        assertEquals(1, map.size());
+        assertEquals("b", map.get(RegionCoord.overworld(4, -2)));
+        assertNull(map.get(RegionCoord.nether(4, -2)));
+    }
+
+    @Test
+    void removeReturnsValueOnce() {
+        RegionMap<String> map = new RegionMap<>();
+        long key = RegionCoord.pack(1, 2, Dimension.END);
+        map.put(key, "a");
+
+        assertEquals("a", map.remove(key));
+        assertNull(map.remove(key));
+        assertFalse(map.containsKey(key));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void removingFromProbeRunKeepsLaterKeysReachable() {
+        long[] colliding = RegionSetTest.collidingKeys(16, 5);
+        for (int removed = 0; removed < colliding.length; removed++) {
+            RegionMap<Long> map = new RegionMap<>();
+            for (long key : colliding) {
+                map.put(key, key);
+            }
+
+            assertEquals(colliding[removed], map.remove(colliding[removed]));
+
+            for (int i = 0; i < colliding.length; i++) {
+                if (i == removed) {
+                    assertFalse(map.containsKey(colliding[i]));
+                } else {
+                    assertEquals(colliding[i], map.get(colliding[i]), "Lost key " + i + " after removing " + removed);
+                }
+            }
+            assertEquals(colliding.length - 1, map.size());
+        }
+    }
+
+    @Test
+    void removingFromProbeRunThatWrapsAroundKeepsKeysReachable() {
+        // Three keys homed in the last slot wrap to the start of the table, where a fourth key homed
+        // in slot 0 is pushed behind them
+        long[] wrapping = RegionSetTest.collidingKeys(16, 3, 15);
+        long[] first = RegionSetTest.collidingKeys(16, 1, 0);
+        RegionMap<Long> map = new RegionMap<>();
+        for (long key : wrapping) {
+            map.put(key, key);
+        }
+        map.put(first[0], first[0]);
+
+        map.remove(wrapping[0]);
+
+        assertEquals(wrapping[1], map.get(wrapping[1]));
+        assertEquals(wrapping[2], map.get(wrapping[2]));
+        assertEquals(first[0], map.get(first[0]));
+
+        map.remove(wrapping[1]);
+        map.remove(wrapping[2]);
+
+        assertEquals(first[0], map.get(first[0]));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void removeIfChecksEntriesShiftedIntoTheCurrentSlot() {
+        long[] colliding = RegionSetTest.collidingKeys(16, 6);
+        RegionMap<Integer> map = new RegionMap<>();
+        for (int i = 0; i < colliding.length; i++) {
+            map.put(colliding[i], i);
+        }
+
+        assertEquals(3, map.removeIf(value -> value % 2 == 0));
+
+        assertEquals(3, map.size());
+        for (int i = 0; i < colliding.length; i++) {
+            assertEquals(i % 2 == 0 ? null : i, map.get(colliding[i]));
+        }
+        assertEquals(new HashSet<>(List.of(1, 3, 5)), new HashSet<>(map.values()));
+    }
+
+    @Test
+    void replaceAllUpdatesEveryValue() {
+        RegionMap<Integer> map = new RegionMap<>();
+        for (int x = 0; x < 20; x++) {
+            map.put(RegionCoord.overworld(x, 0), x);
+        }
+
+        map.replaceAll(value -> value * 10);
+
+        for (int x = 0; x < 20; x++) {
+            assertEquals(x * 10, map.get(RegionCoord.overworld(x, 0)));
+        }
+    }
+
+    @Test
+    void clearRemovesEverything() {
+        RegionMap<String> map = new RegionMap<>();
+        for (int x = 0; x < 100; x++) {
+            map.put(RegionCoord.nether(x, x), "v");
+        }
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(RegionCoord.nether(0, 0)));
+        map.put(RegionCoord.nether(0, 0), "w");
+        assertEquals("w", map.get(RegionCoord.nether(0, 0)));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(7);
+        RegionMap<Integer> map = new RegionMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        // A small key space keeps the table dense, so removals shift long probe runs
+        for (int op = 0; op < 50_000; op++) {
+            long key = RegionCoord.pack(random.nextInt(24) - 12, random.nextInt(24) - 12, Dimension.OVERWORLD);
+            switch (random.nextInt(10)) {
+                case 0, 1, 2, 3, 4, 5 -> assertEquals(expected.put(key, op), map.put(key, op));
+                case 6, 7, 8 -> assertEquals(expected.remove(key), map.remove(key));
+                default -> {
+                    int threshold = op - random.nextInt(500);
+                    int removed = map.removeIf(value -> value < threshold);
+                    int before = expected.size();
+                    expected.values().removeIf(value -> value < threshold);
+                    assertEquals(before - expected.size(), removed);
+                }
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (int x = -12; x < 12; x++) {
+            for (int z = -12; z < 12; z++) {
+                long key = RegionCoord.pack(x, z, Dimension.OVERWORLD);
+                assertEquals(expected.get(key), map.get(key));
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package dev.flur.extrachunky.transfer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegionSetTest {
+
+    @Test
+    void addsAndFindsRegions() {
+        RegionSet set = new RegionSet();
+        assertTrue(set.isEmpty());
+
+        assertTrue(set.add(RegionCoord.overworld(0, 0)));
+        assertTrue(set.add(RegionCoord.nether(-3, 7)));
+        assertFalse(set.add(RegionCoord.overworld(0, 0)));
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains(RegionCoord.overworld(0, 0)));
+        assertTrue(set.contains(RegionCoord.nether(-3, 7)));
+        assertFalse(set.contains(RegionCoord.overworld(-3, 7)));
+        assertFalse(set.contains(RegionCoord.end(0, 0)));
+    }
+
+    @Test
+    void packedKeysRoundTrip() {
+        List<RegionCoord> regions = List.of(
+                RegionCoord.overworld(0, 0),
+                RegionCoord.overworld(-1, -1),
+                RegionCoord.nether(58_593, -58_594),
+                RegionCoord.end(-(1 << 29), (1 << 29) - 1));
+        RegionSet set = new RegionSet();
+        for (RegionCoord region : regions) {
+            long key = region.pack();
+            assertTrue(key >= 0, "Packed key must not be negative: " + region);
+            assertEquals(region, RegionCoord.unpack(key));
+            set.add(key);
+        }
+
+        assertEquals(new HashSet<>(regions), new HashSet<>(set.toList()));
+    }
+
+    @Test
+    void growsPastInitialCapacity() {
+        RegionSet set = new RegionSet();
+        Set<Long> expected = new HashSet<>();
+        for (int x = -50; x < 50; x++) {
+            for (int z = -50; z < 50; z++) {
+                long key = RegionCoord.pack(x, z, Dimension.OVERWORLD);
+                set.add(key);
+                expected.add(key);
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long key : expected) {
+            assertTrue(set.contains(key));
+        }
+        assertFalse(set.contains(RegionCoord.pack(50, 0, Dimension.OVERWORLD)));
+    }
+
+    @Test
+    void findsKeysThatShareAHomeSlot() {
+        long[] colliding = collidingKeys(16, 6);
+        RegionSet set = new RegionSet();
+        for (long key : colliding) {
+            assertTrue(set.add(key));
+        }
+        for (long key : colliding) {
+            assertTrue(set.contains(key));
+            assertFalse(set.add(key));
+        }
+        assertEquals(colliding.length, set.size());
+    }
+
+    @Test
+    void toArrayIsSortedAndComplete() {
+        Random random = new Random(42);
+        RegionSet set = new RegionSet(100);
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            long key = RegionCoord.pack(random.nextInt(200) - 100, random.nextInt(200) - 100,
+                    Dimension.ofOrdinal(random.nextInt(3)));
+            set.add(key);
+            expected.add(key);
+        }
+
+        long[] sorted = expected.stream().mapToLong(Long::longValue).sorted().toArray();
+        assertArrayEquals(sorted, set.toArray());
+
+        List<Long> visited = new ArrayList<>();
+        set.forEach(visited::add);
+        assertEquals(expected, new HashSet<>(visited));
+        assertEquals(expected.size(), visited.size());
+    }
+
+    @Test
+    void copyIsIndependent() {
+        RegionSet set = new RegionSet();
+        set.add(RegionCoord.overworld(1, 1));
+        RegionSet copy = new RegionSet(set);
+        copy.add(RegionCoord.overworld(2, 2));
+
+        assertEquals(1, set.size());
+        assertFalse(set.contains(RegionCoord.overworld(2, 2)));
+        assertEquals(2, copy.size());
+        assertTrue(copy.contains(RegionCoord.overworld(1, 1)));
+    }
+
+    @Test
+    void addAllMergesSets() {
+        RegionSet first = new RegionSet();
+        first.add(RegionCoord.overworld(0, 0));
+        first.add(RegionCoord.overworld(0, 1));
+        RegionSet second = new RegionSet();
+        second.add(RegionCoord.overworld(0, 1));
+        second.add(RegionCoord.end(0, 1));
+
+        first.addAll(second);
+
+        assertArrayEquals(new long[]{
+                RegionCoord.pack(0, 0, Dimension.OVERWORLD),
+                RegionCoord.pack(0, 1, Dimension.OVERWORLD),
+                RegionCoord.pack(0, 1, Dimension.END)
+        }, first.toArray());
+        assertEquals(Arrays.asList(RegionCoord.overworld(0, 0), RegionCoord.overworld(0, 1), RegionCoord.end(0, 1)),
+                first.toList());
+    }
+
+    /**
+     * Finds packed keys that all hash to the same slot of a table with the given capacity.
+     */
+    static long[] collidingKeys(int capacity, int count) {
+        return collidingKeys(capacity, count, RegionSet.hash(RegionCoord.pack(0, 0, Dimension.OVERWORLD)) & (capacity - 1));
+    }
+
+    /**
+     * Finds packed keys that all hash to the given slot of a table with the given capacity.
+     */
+    static long[] collidingKeys(int capacity, int count, int home) {
+        long[] keys = new long[count];
+        int found = 0;
+        for (int x = 0; found < count; x++) {
+            for (int z = 0; z < 64 && found < count; z++) {
+                long key = RegionCoord.pack(x, z, Dimension.OVERWORLD);
+                if ((RegionSet.hash(key) & (capacity - 1)) == home) {
+                    keys[found++] = key;
+                }
+            }
+        }
+        return keys;
+    }
+}
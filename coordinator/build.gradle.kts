@@ -0,0 +1,26 @@
+plugins {
+    id("io.github.goooler.shadow")
+}
+
+dependencies {
+    implementation(group = "com.google.code.gson", name = "gson", version = "2.10.1")
+    implementation(project(":extrachunky-common"))
+}
+
+tasks {
+    jar {
+        manifest {
+            attributes("Main-Class" to "${project.group}.extrachunky.ExtraChunkyCoordinator")
+        }
+    }
+    shadowJar {
+        archiveClassifier.set("")
+        manifest {
+            attributes("Main-Class" to "${project.group}.extrachunky.ExtraChunkyCoordinator")
+        }
+        archiveFileName.set("${project.property("artifactName")}-Coordinator-${project.version}.jar")
+    }
+    build {
+        dependsOn(shadowJar)
+    }
+}
@@ -0,0 +1,373 @@
+package dev.flur.extrachunky;
+
+import dev.flur.extrachunky.metrics.MetricsRegistry;
+import dev.flur.extrachunky.metrics.MetricsService;
+import dev.flur.extrachunky.network.HostJournal;
+import dev.flur.extrachunky.network.HostServer;
+import dev.flur.extrachunky.network.JobQueue;
+import dev.flur.extrachunky.network.RegionCoverage;
+import dev.flur.extrachunky.platform.CoordinatorConfig;
+import dev.flur.extrachunky.platform.CoordinatorLogger;
+import dev.flur.extrachunky.platform.CoordinatorSender;
+import dev.flur.extrachunky.platform.ExtraChunkyLogger;
+import dev.flur.extrachunky.platform.ExtraChunkyRuntime;
+import dev.flur.extrachunky.platform.ExtraChunkySender;
+import dev.flur.extrachunky.transfer.IngestConfig;
+import dev.flur.extrachunky.transfer.NativeTransferServer;
+import dev.flur.extrachunky.transfer.RegionIngestService;
+import dev.flur.extrachunky.transfer.WorldLayout;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static dev.flur.extrachunky.platform.MessageFormatter.*;
+
+/**
+ * Standalone coordinator: hosts workers and installs their uploads without a Minecraft server.
+ * <p>
+ * Runs the same {@link HostServer}, job queue, native data port and ingest service as a hosting
+ * server, but never generates itself, so every Minecraft server can be a worker and the coordinator
+ * fits on a small VM. Jobs are given in full on the console, since there is no Chunky selection to
+ * fill in defaults from.
+ * <p>
+ * Usage: {@code java -jar ExtraChunky-Coordinator.jar [--config extrachunky.json]}
+ */
+public final class ExtraChunkyCoordinator {
+    private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("#,###");
+    private static final DecimalFormat PERCENT_FORMAT = new DecimalFormat("0.0");
+    private static final int MAP_CELLS = 48;
+    /** Center and shape for worlds that give none; the radius has to be given */
+    private static final GenerationJob.Area JOB_DEFAULTS = new GenerationJob.Area("", 0, 0, 0, "square");
+
+    private final CoordinatorConfig config;
+    private final ExtraChunkyLogger logger;
+    private final ExtraChunkySender console;
+    private final Path dataDirectory;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final ExtraChunkyRuntime runtime;
+
+    private HostServer hostServer;
+    private NativeTransferServer dataServer;
+    private RegionIngestService ingestService;
+    private MetricsService metricsService;
+
+    public ExtraChunkyCoordinator(CoordinatorConfig config, ExtraChunkyLogger logger, ExtraChunkySender console, Path dataDirectory) {
+        this.config = config;
+        this.logger = logger;
+        this.console = console;
+        this.dataDirectory = dataDirectory;
+        this.runtime = new ExtraChunkyRuntime(logger);
+    }
+
+    public static void main(String[] args) {
+        Path configPath = Path.of("extrachunky.json");
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--config") && i + 1 < args.length) {
+                configPath = Path.of(args[++i]);
+            } else {
+                System.err.println("Usage: java -jar ExtraChunky-Coordinator.jar [--config <file>]");
+                System.exit(2);
+            }
+        }
+
+        Path dataDirectory = configPath.toAbsolutePath().getParent();
+        ExtraChunkyCoordinator coordinator = new ExtraChunkyCoordinator(new CoordinatorConfig(configPath),
+                new CoordinatorLogger(), new CoordinatorSender(System.console() != null), dataDirectory);
+        if (!coordinator.start()) {
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(coordinator::stop, "ExtraChunky-Shutdown"));
+        coordinator.runConsole();
+    }
+
+    /**
+     * Starts the host server, the data port, the ingest service and the metrics export.
+     *
+     * @return true if the host server is up
+     */
+    public boolean start() {
+        hostServer = new HostServer(logger, config, new JobQueue(dataDirectory, logger),
+                new HostJournal(dataDirectory, logger));
+        hostServer.setMetrics(metrics);
+        startDataServer();
+        hostServer.start();
+        if (!hostServer.isRunning()) {
+            stopDataServer();
+            return false;
+        }
+        startIngestService();
+        metricsService = new MetricsService(logger, metrics, config.getMetricsConfig(), dataDirectory);
+        metricsService.start();
+
+        logger.info("ExtraChunky coordinator running on port " + config.getHostPort());
+        logger.info("Workers connect with /extrachunky register <this-host>:" + config.getHostPort());
+        logger.info("Type 'help' for commands");
+        return true;
+    }
+
+    /**
+     * Stops all services. Safe to call more than once.
+     */
+    public synchronized void stop() {
+        if (hostServer == null) {
+            return;
+        }
+        stopDataServer();
+        if (ingestService != null) {
+            ingestService.stop();
+            ingestService = null;
+        }
+        hostServer.stop();
+        hostServer = null;
+        if (metricsService != null) {
+            metricsService.stop();
+            metricsService = null;
+        }
+        runtime.shutdown();
+        stopped.countDown();
+    }
+
+    private void startDataServer() {
+        int dataPort = config.getIngestConfig().dataPort();
+        if (dataPort <= 0) {
+            return;
+        }
+
+        if (getIncomingPath(config.getWorldName()).isBlank()) {
+            logger.warning("Data port configured but no incoming path is set, not accepting native transfers");
+            return;
+        }
+
+        dataServer = new NativeTransferServer(logger, dataPort,
+                world -> Path.of(getIncomingPath(world)), hostServer::isValidDataToken);
+        dataServer.setMetrics(metrics);
+        try {
+            dataServer.start();
+            hostServer.setDataPort(dataPort);
+        } catch (IOException e) {
+            logger.severe("Failed to start data port " + dataPort + ": " + e.getMessage());
+            dataServer = null;
+        }
+    }
+
+    private void stopDataServer() {
+        if (dataServer != null) {
+            dataServer.stop();
+            dataServer = null;
+        }
+    }
+
+    private void startIngestService() {
+        IngestConfig ingestConfig = config.getIngestConfig();
+        if (!ingestConfig.enabled()) {
+            return;
+        }
+
+        String incomingPath = getIncomingPath(config.getWorldName());
+        if (incomingPath.isBlank()) {
+            logger.warning("Ingest enabled but no incoming path is set, not ingesting uploads");
+            return;
+        }
+
+        ingestService = new RegionIngestService(logger, runtime, ingestConfig, Path.of(incomingPath),
+                WorldLayout.of(config.getWorldPath()));
+        ingestService.setMetrics(metrics);
+        try {
+            ingestService.start();
+        } catch (IOException e) {
+            logger.severe("Failed to start ingest service: " + e.getMessage());
+            ingestService = null;
+        }
+    }
+
+    private String getIncomingPath(String worldName) {
+        return config.getIngestConfig().getIncomingPathForWorld(worldName, config.getSshConfig());
+    }
+
+    /**
+     * Reads commands from standard input until stopped. Without a console (e.g. as a service) it just
+     * waits to be stopped.
+     */
+    private void runConsole() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(System.in))) {
+            String line;
+            while (stopped.getCount() > 0 && (line = reader.readLine()) != null) {
+                String[] args = line.trim().split("\\s+");
+                if (args[0].isEmpty()) {
+                    continue;
+                }
+                if (!executeCommand(args)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            logger.warning("Console closed: " + e.getMessage());
+        }
+
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs a console command.
+     *
+     * @return false if the coordinator should shut down
+     */
+    private boolean executeCommand(String[] args) {
+        switch (args[0].toLowerCase()) {
+            case "start" -> startJob(args);
+            case "status" -> {
+                if (args.length > 1 && args[1].equalsIgnoreCase("map")) {
+                    showCoverageMap(args);
+                } else {
+                    showStatus();
+                }
+            }
+            case "stop", "exit", "quit" -> {
+                stop();
+                return false;
+            }
+            case "help" -> showHelp();
+            default -> console.sendMessage(prefix("Unknown command. Type " + highlight("help") + " for commands."));
+        }
+        return true;
+    }
+
+    private void startJob(String[] args) {
+        if (args.length < 2) {
+            console.sendMessage(prefix("Usage: " + highlight("start <world> radius=<blocks> [center=<x>,<z>] [shape=<shape>] [<world> ...]")));
+            return;
+        }
+
+        GenerationJob job;
+        try {
+            job = GenerationJob.parse(Arrays.asList(args).subList(1, args.length), JOB_DEFAULTS);
+        } catch (IllegalArgumentException e) {
+            console.sendMessage(prefix("Invalid job: " + e.getMessage()));
+            return;
+        }
+        for (GenerationJob.Area area : job.areas()) {
+            if (area.radius() <= 0) {
+                console.sendMessage(prefix("Give a radius for " + highlight(area.world()) + ", e.g. " + highlight("radius=5000")));
+                return;
+            }
+        }
+
+        if (ingestService != null && !getIncomingPath(job.primaryWorld()).equals(getIncomingPath(config.getWorldName()))) {
+            // Workers upload into the first world's incoming directory, which only exists for the configured world
+            console.sendMessage(prefix("Uploads of " + highlight(job.primaryWorld()) + " would land in " +
+                    highlight(getIncomingPath(job.primaryWorld())) + ", which is not ingested. The coordinator installs into " +
+                    highlight(config.getWorldName()) + " only; start the job with that world first."));
+            return;
+        }
+
+        boolean queued = hostServer.isGenerationActive();
+        JobQueue.QueuedJob queuedJob = hostServer.enqueue(job);
+        if (hostServer.getTotalWorkerCount() == 0) {
+            // Handed out as soon as the first worker registers
+            logger.info("Job #" + queuedJob.id() + " is waiting for workers");
+            console.sendMessage(prefix("Queued as job " + highlight("#" + queuedJob.id()) + ", waiting for workers. Have workers connect with " +
+                    highlight("/extrachunky register") + "."));
+        } else if (queued) {
+            console.sendMessage(prefix("Queued as job " + highlight("#" + queuedJob.id()) + " (" +
+                    hostServer.getJobQueue().size() + " in queue)."));
+        } else {
+            console.sendMessage(prefix("Generation of job " + highlight("#" + queuedJob.id()) + " started across " +
+                    highlight(hostServer.getTotalWorkerCount() + " worker(s)") + "."));
+        }
+    }
+
+    private void showStatus() {
+        HostServer.AggregatedProgress progress = hostServer.getAggregatedProgress();
+
+        console.sendMessage(header("ExtraChunky Coordinator Status"));
+        console.sendMessage(labelValue("Mode", "COORDINATOR (port " + config.getHostPort() + ")"));
+        console.sendMessage(labelValue("Generation", hostServer.isGenerationActive() ? "ACTIVE" : "IDLE"));
+        for (JobQueue.QueuedJob queued : hostServer.getJobQueue().getJobs()) {
+            RegionCoverage coverage = hostServer.getCoverage(queued.id());
+            console.sendMessage(NORMAL + "  #" + HIGHLIGHT + queued.id() + NORMAL + " " + queued.job() +
+                    (coverage != null && coverage.getCompleted() > 0
+                            ? " - " + HIGHLIGHT + DECIMAL_FORMAT.format(coverage.getCompleted()) + "/" +
+                            DECIMAL_FORMAT.format(coverage.getTotal()) + NORMAL + " regions"
+                            : ""));
+        }
+
+        if (progress.totalChunks() > 0) {
+            console.sendMessage(NORMAL + "Total: " + HIGHLIGHT + DECIMAL_FORMAT.format(progress.totalChunksGenerated()) +
+                    "/" + DECIMAL_FORMAT.format(progress.totalChunks()) +
+                    NORMAL + " chunks (" + HIGHLIGHT + PERCENT_FORMAT.format(progress.overallPercent()) + "%" + NORMAL + ") at " +
+                    HIGHLIGHT + PERCENT_FORMAT.format(progress.chunksPerSecond()) + NORMAL + " c/s");
+        }
+        console.sendMessage(labelValue("Active workers", progress.activeWorkers() + "/" + hostServer.getTotalWorkerCount()));
+        if (hostServer.getAbsentWorkerCount() > 0) {
+            console.sendMessage(labelValue("Reconnecting", hostServer.getAbsentWorkerCount() + " worker(s)"));
+        }
+
+        if (dataServer != null && dataServer.isRunning()) {
+            console.sendMessage(labelValue("Data port", dataServer.getPort() + " (" + dataServer.getFilesReceived() + " files received)"));
+        }
+        if (ingestService != null && ingestService.isRunning()) {
+            console.sendMessage(labelValue("Ingested regions", ingestService.getInstalledCount() + " installed, " +
+                    ingestService.getPendingCount() + " pending, " + ingestService.getFailedCount() + " failed"));
+        }
+
+        for (HostServer.WorkerProgress worker : progress.workers()) {
+            console.sendMessage(NORMAL + "  [" + HIGHLIGHT + worker.instanceId() + NORMAL + "] " +
+                    HIGHLIGHT + worker.hostname() + NORMAL +
+                    (worker.jobId() > 0 ? " (job #" + worker.jobId() + ")" : "") + ": " +
+                    (worker.totalChunks() > 0
+                            ? HIGHLIGHT + DECIMAL_FORMAT.format(worker.chunksGenerated()) + NORMAL + " chunks (" +
+                            HIGHLIGHT + PERCENT_FORMAT.format(worker.percentComplete()) + "%" + NORMAL + ")"
+                            : "waiting") +
+                    (worker.transferTotal() > 0 ? " | Transfer: " + worker.transferCompleted() + "/" + worker.transferTotal() : "") +
+                    (worker.active() ? "" : " &c[STALE]"));
+        }
+    }
+
+    private void showCoverageMap(String[] args) {
+        JobQueue.QueuedJob queued;
+        try {
+            List<JobQueue.QueuedJob> jobs = hostServer.getJobQueue().getJobs();
+            queued = args.length > 2 ? hostServer.getJobQueue().get(Integer.parseInt(args[2].replace("#", "")))
+                    : jobs.isEmpty() ? null : jobs.get(0);
+        } catch (NumberFormatException e) {
+            console.sendMessage(prefix("Invalid job number: " + highlight(args[2])));
+            return;
+        }
+        if (queued == null) {
+            console.sendMessage(prefix("No such job in the queue."));
+            return;
+        }
+
+        RegionCoverage coverage = hostServer.getCoverage(queued.id());
+        console.sendMessage(header("Job #" + queued.id() + " Coverage"));
+        console.sendMessage(labelValue("Regions done", DECIMAL_FORMAT.format(coverage.getCompleted()) + "/" +
+                DECIMAL_FORMAT.format(coverage.getTotal()) + " (" + PERCENT_FORMAT.format(coverage.getPercentComplete()) + "%)"));
+        for (int i = 0; i < queued.job().areas().size(); i++) {
+            console.sendMessage(NORMAL + queued.job().areas().get(i).world() + " (north up):");
+            for (String row : coverage.renderMap(i, MAP_CELLS)) {
+                console.sendMessage(row);
+            }
+        }
+        console.sendMessage("&a█" + NORMAL + " done  &e█" + NORMAL + " partly done  &7█" + NORMAL + " pending  &8█" + NORMAL + " outside");
+    }
+
+    private void showHelp() {
+        console.sendMessage(header("ExtraChunky Coordinator"));
+        console.sendMessage(NORMAL + highlight("start <world> radius=<blocks> [center=<x>,<z>] [shape=<shape>] [<world> ...]") +
+                " - Queue a job for the workers");
+        console.sendMessage(NORMAL + highlight("status") + " - Show job queue and worker progress");
+        console.sendMessage(NORMAL + highlight("status map [job]") + " - Show which regions of a job are done");
+        console.sendMessage(NORMAL + highlight("stop") + " - Shut the coordinator down");
+    }
+}
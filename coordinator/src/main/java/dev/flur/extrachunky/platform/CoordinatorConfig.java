@@ -0,0 +1,198 @@
+package dev.flur.extrachunky.platform;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import dev.flur.extrachunky.GovernorConfig;
+import dev.flur.extrachunky.metrics.MetricsConfig;
+import dev.flur.extrachunky.transfer.IngestConfig;
+import dev.flur.extrachunky.transfer.SshConfig;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Configuration of the standalone coordinator, read from a JSON file.
+ * The coordinator only hosts: it never generates or uploads, so it has no SFTP or governor settings.
+ */
+public class CoordinatorConfig implements ExtraChunkyConfig {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final Path configPath;
+    private int hostPort = DEFAULT_HOST_PORT;
+    private String worldName = "world";
+    private String worldPath = "world";
+    private IngestConfig ingestConfig = IngestConfig.disabled();
+    private MetricsConfig metricsConfig = MetricsConfig.defaults();
+
+    public CoordinatorConfig(Path configPath) {
+        this.configPath = configPath;
+        reload();
+    }
+
+    @Override
+    public void saveDefaultConfig() {
+        if (!Files.exists(configPath)) {
+            save();
+        }
+    }
+
+    @Override
+    public void reload() {
+        if (Files.exists(configPath)) {
+            try (Reader reader = Files.newBufferedReader(configPath)) {
+                ConfigData data = GSON.fromJson(reader, ConfigData.class);
+                if (data != null) {
+                    this.hostPort = data.hostPort;
+                    this.worldName = data.worldName;
+                    this.worldPath = data.worldPath;
+                    this.ingestConfig = data.toIngestConfig();
+                    this.metricsConfig = data.toMetricsConfig();
+                }
+            } catch (IOException e) {
+                // Use defaults
+            }
+        } else {
+            saveDefaultConfig();
+        }
+        validate();
+    }
+
+    private void save() {
+        try {
+            Path parent = configPath.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer writer = Files.newBufferedWriter(configPath)) {
+                GSON.toJson(new ConfigData(), writer);
+            }
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private void validate() {
+        if (hostPort < 1 || hostPort > 65535) {
+            hostPort = DEFAULT_HOST_PORT;
+        }
+        if (worldName == null || worldName.isBlank()) {
+            worldName = "world";
+        }
+        if (worldPath == null || worldPath.isBlank()) {
+            worldPath = "world";
+        }
+    }
+
+    /**
+     * Gets the world name substituted for {world} in the incoming path.
+     * Workers fill the same placeholder in their remote path with the job's first world.
+     */
+    public String getWorldName() {
+        return worldName;
+    }
+
+    /**
+     * Gets the level folder uploads are installed into, in vanilla layout
+     * ({@code region/}, {@code DIM-1/region/}, {@code DIM1/region/}).
+     */
+    public Path getWorldPath() {
+        return Path.of(worldPath);
+    }
+
+    @Override
+    public int getHostPort() {
+        return hostPort;
+    }
+
+    /**
+     * The coordinator has no Chunky to generate with.
+     */
+    @Override
+    public boolean isHostParticipates() {
+        return false;
+    }
+
+    @Override
+    public SshConfig getSshConfig() {
+        return SshConfig.disabled();
+    }
+
+    @Override
+    public IngestConfig getIngestConfig() {
+        return ingestConfig;
+    }
+
+    @Override
+    public GovernorConfig getGovernorConfig() {
+        return GovernorConfig.builder().enabled(false).build();
+    }
+
+    @Override
+    public MetricsConfig getMetricsConfig() {
+        return metricsConfig;
+    }
+
+    @Override
+    public boolean isManualStart() {
+        return true;
+    }
+
+    private static class ConfigData {
+        int hostPort = DEFAULT_HOST_PORT;
+        String worldName = "world";
+        String worldPath = "world";
+        IngestConfigData ingest = new IngestConfigData();
+        MetricsConfigData metrics = new MetricsConfigData();
+
+        IngestConfig toIngestConfig() {
+            if (ingest == null) {
+                return IngestConfig.disabled();
+            }
+            return ingest.toIngestConfig();
+        }
+
+        MetricsConfig toMetricsConfig() {
+            if (metrics == null) {
+                return MetricsConfig.defaults();
+            }
+            return metrics.toMetricsConfig();
+        }
+    }
+
+    private static class IngestConfigData {
+        boolean enabled = true;
+        String incomingPath = "incoming/{world}";
+        int threads = 0;
+        int syncBatchSize = 64;
+        long syncIntervalMs = 1000;
+        int dataPort = 0;
+
+        IngestConfig toIngestConfig() {
+            return IngestConfig.builder()
+                    .enabled(enabled)
+                    .incomingPath(incomingPath)
+                    .threads(threads)
+                    .syncBatchSize(syncBatchSize)
+                    .syncIntervalMs(syncIntervalMs)
+                    .dataPort(dataPort)
+                    .build();
+        }
+    }
+
+    private static class MetricsConfigData {
+        int port = 0;
+        String bindAddress = "0.0.0.0";
+        int dumpSeconds = 60;
+
+        MetricsConfig toMetricsConfig() {
+            return MetricsConfig.builder()
+                    .port(port)
+                    .bindAddress(bindAddress)
+                    .dumpSeconds(dumpSeconds)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package dev.flur.extrachunky.platform;
+
+import java.io.PrintStream;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Logger for the standalone coordinator. Writes timestamped lines to the console.
+ */
+public class CoordinatorLogger implements ExtraChunkyLogger {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    @Override
+    public void info(String message) {
+        log(System.out, "INFO", message);
+    }
+
+    @Override
+    public void warning(String message) {
+        log(System.out, "WARN", message);
+    }
+
+    @Override
+    public void severe(String message) {
+        log(System.err, "ERROR", message);
+    }
+
+    @Override
+    public void severe(String message, Throwable throwable) {
+        log(System.err, "ERROR", message);
+        throwable.printStackTrace(System.err);
+    }
+
+    private static void log(PrintStream out, String level, String message) {
+        out.println("[" + LocalTime.now().format(TIME_FORMAT) + " " + level + "] " + message);
+    }
+}
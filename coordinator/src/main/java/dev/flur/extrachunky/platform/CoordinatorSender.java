@@ -0,0 +1,87 @@
+package dev.flur.extrachunky.platform;
+
+/**
+ * The coordinator's console. Color codes become ANSI colors on a terminal and are dropped otherwise.
+ */
+public class CoordinatorSender implements ExtraChunkySender {
+    private static final String ANSI_RESET = "\u001B[0m";
+
+    private final boolean ansi;
+
+    public CoordinatorSender(boolean ansi) {
+        this.ansi = ansi;
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        System.out.println(translateColorCodes(message, ansi));
+    }
+
+    /**
+     * Replaces {@code &} color codes with ANSI escapes, or removes them.
+     */
+    static String translateColorCodes(String message, boolean ansi) {
+        StringBuilder sb = new StringBuilder(message.length());
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '&' && i + 1 < message.length()) {
+                String escape = getAnsi(message.charAt(i + 1));
+                if (escape != null) {
+                    if (ansi) {
+                        sb.append(escape);
+                    }
+                    i++;
+                    continue;
+                }
+            }
+            sb.append(c);
+        }
+        if (ansi) {
+            sb.append(ANSI_RESET);
+        }
+        return sb.toString();
+    }
+
+    private static String getAnsi(char code) {
+        return switch (code) {
+            case '0' -> "\u001B[30m";
+            case '1' -> "\u001B[34m";
+            case '2' -> "\u001B[32m";
+            case '3' -> "\u001B[36m";
+            case '4' -> "\u001B[31m";
+            case '5' -> "\u001B[35m";
+            case '6' -> "\u001B[33m";
+            case '7' -> "\u001B[37m";
+            case '8' -> "\u001B[90m";
+            case '9' -> "\u001B[94m";
+            case 'a' -> "\u001B[92m";
+            case 'b' -> "\u001B[96m";
+            case 'c' -> "\u001B[91m";
+            case 'd' -> "\u001B[95m";
+            case 'e' -> "\u001B[93m";
+            case 'f' -> "\u001B[97m";
+            case 'k' -> "";
+            case 'l' -> "\u001B[1m";
+            case 'm' -> "\u001B[9m";
+            case 'n' -> "\u001B[4m";
+            case 'o' -> "\u001B[3m";
+            case 'r' -> ANSI_RESET;
+            default -> null;
+        };
+    }
+
+    @Override
+    public String getName() {
+        return "Console";
+    }
+
+    @Override
+    public boolean hasPermission(String permission) {
+        return true;
+    }
+
+    @Override
+    public boolean isPlayer() {
+        return false;
+    }
+}
@@ -16,6 +16,7 @@ import java.util.Optional;
 public class FabricPlatform implements ExtraChunkyPlatform {
     private final ExtraChunkyFabric mod;
     private final MinecraftServer server;
+    private final ExtraChunkyRuntime runtime;
     private final FabricScheduler scheduler;
     private final FabricLogger logger;
     private final FabricConfig config;
@@ -23,8 +24,9 @@ public class FabricPlatform implements ExtraChunkyPlatform {
     public FabricPlatform(ExtraChunkyFabric mod, MinecraftServer server) {
         this.mod = mod;
         this.server = server;
-        this.scheduler = new FabricScheduler(server);
         this.logger = new FabricLogger();
+        this.runtime = new ExtraChunkyRuntime(logger);
+        this.scheduler = new FabricScheduler(server, runtime);
         this.config = new FabricConfig();
     }
 
@@ -57,6 +59,11 @@ public class FabricPlatform implements ExtraChunkyPlatform {
         return scheduler;
     }
 
+    @Override
+    public ExtraChunkyRuntime getRuntime() {
+        return runtime;
+    }
+
     @Override
     public ExtraChunkyLogger getLogger() {
         return logger;
@@ -85,4 +92,15 @@ public class FabricPlatform implements ExtraChunkyPlatform {
         }
         return Optional.empty();
     }
+
+    @Override
+    public Optional<Path> getDimensionRoot(String worldName) {
+        // All dimensions live under the level folder
+        return getWorldPath(worldName).map(path -> server.getWorldPath(LevelResource.ROOT).normalize());
+    }
+
+    @Override
+    public ServerHealth getServerHealth() {
+        return new ServerHealth(server.getAverageTickTimeNanos() / 1_000_000.0, server.getPlayerCount());
+    }
 }
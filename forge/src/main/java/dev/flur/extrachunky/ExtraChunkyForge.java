@@ -65,9 +65,20 @@ public class ExtraChunkyForge {
                             return 1;
                         })
                         .then(literal("start")
-                                .executes(context -> executeCommand("start", context.getSource(), new String[]{"start"})))
+                                .executes(context -> executeCommand("start", context.getSource(), new String[]{"start"}))
+                                .then(argument("areas", greedyString())
+                                        .executes(context -> {
+                                            String areasArg = getString(context, "areas");
+                                            String[] args = ("start " + areasArg).split(" ");
+                                            return executeCommand("start", context.getSource(), args);
+                                        })))
                         .then(literal("status")
-                                .executes(context -> executeCommand("status", context.getSource(), new String[]{"status"})))
+                                .executes(context -> executeCommand("status", context.getSource(), new String[]{"status"}))
+                                .then(argument("options", greedyString())
+                                        .executes(context -> {
+                                            String[] args = ("status " + getString(context, "options")).split(" ");
+                                            return executeCommand("status", context.getSource(), args);
+                                        })))
                         .then(literal("host")
                                 .executes(context -> executeCommand("host", context.getSource(), new String[]{"host"}))
                                 .then(literal("stop")
@@ -120,8 +131,8 @@ public class ExtraChunkyForge {
 
     private void showHelp(ExtraChunkySender sender) {
         sender.sendMessage(header("ExtraChunky Commands"));
-        sender.sendMessage(NORMAL + highlight("/extrachunky start") + " - Start chunk generation");
-        sender.sendMessage(NORMAL + highlight("/extrachunky status") + " - Show generation progress");
+        sender.sendMessage(NORMAL + highlight("/extrachunky start [world [radius=..] [center=x,z] [shape=..]]...") + " - Start chunk generation");
+        sender.sendMessage(NORMAL + highlight("/extrachunky status [map [job]]") + " - Show generation progress or a job's coverage map");
         sender.sendMessage(NORMAL + highlight("/extrachunky host [stop]") + " - Start/stop hosting for workers");
         sender.sendMessage(NORMAL + highlight("/extrachunky register <host:port>") + " - Connect to a host as worker");
         sender.sendMessage(NORMAL + highlight("/extrachunky unregister") + " - Disconnect from host");
@@ -2,6 +2,9 @@ package dev.flur.extrachunky.platform;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import dev.flur.extrachunky.GovernorConfig;
+import dev.flur.extrachunky.metrics.MetricsConfig;
+import dev.flur.extrachunky.transfer.IngestConfig;
 import dev.flur.extrachunky.transfer.SshConfig;
 import net.minecraftforge.fml.loading.FMLPaths;
 
@@ -19,6 +22,9 @@ public class ForgeConfig implements ExtraChunkyConfig {
     private boolean hostParticipates = true;
     private boolean manualStart = false;
     private SshConfig sshConfig = SshConfig.disabled();
+    private IngestConfig ingestConfig = IngestConfig.disabled();
+    private GovernorConfig governorConfig = GovernorConfig.defaults();
+    private MetricsConfig metricsConfig = MetricsConfig.defaults();
 
     public ForgeConfig() {
         this.configPath = FMLPaths.CONFIGDIR.get().resolve("extrachunky.json");
@@ -42,6 +48,9 @@ public class ForgeConfig implements ExtraChunkyConfig {
                     this.hostParticipates = data.hostParticipates;
                     this.manualStart = data.manualStart;
                     this.sshConfig = data.toSshConfig();
+                    this.ingestConfig = data.toIngestConfig();
+                    this.governorConfig = data.toGovernorConfig();
+                    this.metricsConfig = data.toMetricsConfig();
                 }
             } catch (IOException e) {
                 // Use defaults
@@ -88,6 +97,21 @@ public class ForgeConfig implements ExtraChunkyConfig {
         return sshConfig;
     }
 
+    @Override
+    public IngestConfig getIngestConfig() {
+        return ingestConfig;
+    }
+
+    @Override
+    public GovernorConfig getGovernorConfig() {
+        return governorConfig;
+    }
+
+    @Override
+    public MetricsConfig getMetricsConfig() {
+        return metricsConfig;
+    }
+
     @Override
     public boolean isManualStart() {
         return manualStart;
@@ -98,6 +122,9 @@ public class ForgeConfig implements ExtraChunkyConfig {
         boolean hostParticipates = true;
         boolean manualStart = false;
         SftpConfigData sftp = new SftpConfigData();
+        IngestConfigData ingest = new IngestConfigData();
+        GovernorConfigData governor = new GovernorConfigData();
+        MetricsConfigData metrics = new MetricsConfigData();
 
         SshConfig toSshConfig() {
             if (sftp == null) {
@@ -105,6 +132,27 @@ public class ForgeConfig implements ExtraChunkyConfig {
             }
             return sftp.toSshConfig();
         }
+
+        IngestConfig toIngestConfig() {
+            if (ingest == null) {
+                return IngestConfig.disabled();
+            }
+            return ingest.toIngestConfig();
+        }
+
+        GovernorConfig toGovernorConfig() {
+            if (governor == null) {
+                return GovernorConfig.defaults();
+            }
+            return governor.toGovernorConfig();
+        }
+
+        MetricsConfig toMetricsConfig() {
+            if (metrics == null) {
+                return MetricsConfig.defaults();
+            }
+            return metrics.toMetricsConfig();
+        }
     }
 
     private static class SftpConfigData {
@@ -120,6 +168,16 @@ public class ForgeConfig implements ExtraChunkyConfig {
         boolean autoTransfer = true;
         int retryCount = DEFAULT_RETRY_COUNT;
         int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+        boolean recompressChunks = true;
+        boolean trainDictionary = true;
+        String compressionCodec = "auto";
+        String transport = "sftp";
+        int batchSize = 0;
+        int bandwidthLimit = 0;
+        boolean adaptiveBandwidth = false;
+        int quietSeconds = 5;
+        int circuitBreakerThreshold = 5;
+        int circuitBreakerSeconds = 30;
 
         SshConfig toSshConfig() {
             SshConfig.AuthMethod auth = "password".equalsIgnoreCase(authMethod)
@@ -139,6 +197,64 @@ public class ForgeConfig implements ExtraChunkyConfig {
                     .autoTransfer(autoTransfer)
                     .retryCount(retryCount)
                     .compressionLevel(compressionLevel)
+                    .recompressChunks(recompressChunks)
+                    .trainDictionary(trainDictionary)
+                    .compressionCodec(compressionCodec)
+                    .transport(transport)
+                    .batchSize(batchSize)
+                    .bandwidthLimit(bandwidthLimit)
+                    .adaptiveBandwidth(adaptiveBandwidth)
+                    .quietSeconds(quietSeconds)
+                    .circuitBreakerThreshold(circuitBreakerThreshold)
+                    .circuitBreakerSeconds(circuitBreakerSeconds)
+                    .build();
+        }
+    }
+
+    private static class IngestConfigData {
+        boolean enabled = false;
+        String incomingPath = "";
+        int threads = 0;
+        int syncBatchSize = 64;
+        long syncIntervalMs = 1000;
+        int dataPort = 0;
+
+        IngestConfig toIngestConfig() {
+            return IngestConfig.builder()
+                    .enabled(enabled)
+                    .incomingPath(incomingPath)
+                    .threads(threads)
+                    .syncBatchSize(syncBatchSize)
+                    .syncIntervalMs(syncIntervalMs)
+                    .dataPort(dataPort)
+                    .build();
+        }
+    }
+
+    private static class GovernorConfigData {
+        boolean enabled = true;
+        int targetMspt = 40;
+        boolean onlyWithPlayers = true;
+
+        GovernorConfig toGovernorConfig() {
+            return GovernorConfig.builder()
+                    .enabled(enabled)
+                    .targetMspt(targetMspt)
+                    .onlyWithPlayers(onlyWithPlayers)
+                    .build();
+        }
+    }
+
+    private static class MetricsConfigData {
+        int port = 0;
+        String bindAddress = "0.0.0.0";
+        int dumpSeconds = 60;
+
+        MetricsConfig toMetricsConfig() {
+            return MetricsConfig.builder()
+                    .port(port)
+                    .bindAddress(bindAddress)
+                    .dumpSeconds(dumpSeconds)
                     .build();
         }
     }
@@ -16,6 +16,7 @@ import java.util.Optional;
 public class ForgePlatform implements ExtraChunkyPlatform {
     private final ExtraChunkyForge mod;
     private final MinecraftServer server;
+    private final ExtraChunkyRuntime runtime;
     private final ForgeScheduler scheduler;
     private final ForgeLogger logger;
     private final ForgeConfig config;
@@ -23,8 +24,9 @@ public class ForgePlatform implements ExtraChunkyPlatform {
     public ForgePlatform(ExtraChunkyForge mod, MinecraftServer server) {
         this.mod = mod;
         this.server = server;
-        this.scheduler = new ForgeScheduler(server);
         this.logger = new ForgeLogger();
+        this.runtime = new ExtraChunkyRuntime(logger);
+        this.scheduler = new ForgeScheduler(server, runtime);
         this.config = new ForgeConfig();
     }
 
@@ -57,6 +59,11 @@ public class ForgePlatform implements ExtraChunkyPlatform {
         return scheduler;
     }
 
+    @Override
+    public ExtraChunkyRuntime getRuntime() {
+        return runtime;
+    }
+
     @Override
     public ExtraChunkyLogger getLogger() {
         return logger;
@@ -84,4 +91,15 @@ public class ForgePlatform implements ExtraChunkyPlatform {
         }
         return Optional.empty();
     }
+
+    @Override
+    public Optional<Path> getDimensionRoot(String worldName) {
+        // All dimensions live under the level folder
+        return getWorldPath(worldName).map(path -> server.getWorldPath(LevelResource.ROOT).normalize());
+    }
+
+    @Override
+    public ServerHealth getServerHealth() {
+        return new ServerHealth(server.getAverageTickTimeNanos() / 1_000_000.0, server.getPlayerCount());
+    }
 }
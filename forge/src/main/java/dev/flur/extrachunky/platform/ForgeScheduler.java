@@ -2,19 +2,17 @@ package dev.flur.extrachunky.platform;
 
 import net.minecraft.server.MinecraftServer;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-
+/**
+ * Scheduler for Forge. Main-thread tasks go to the server; timing and async work run on the
+ * shared {@link ExtraChunkyRuntime}.
+ */
 public class ForgeScheduler implements ExtraChunkyScheduler {
     private final MinecraftServer server;
-    private final ScheduledExecutorService asyncExecutor;
+    private final ExtraChunkyRuntime runtime;
 
-    public ForgeScheduler(MinecraftServer server) {
+    public ForgeScheduler(MinecraftServer server, ExtraChunkyRuntime runtime) {
         this.server = server;
-        this.asyncExecutor = Executors.newScheduledThreadPool(2);
+        this.runtime = runtime;
     }
 
     @Override
@@ -24,57 +22,26 @@ public class ForgeScheduler implements ExtraChunkyScheduler {
 
     @Override
     public void runTaskAsync(Runnable task) {
-        asyncExecutor.execute(task);
+        runtime.getIoExecutor().execute(task);
     }
 
     @Override
     public ExtraChunkyTask runTaskLater(Runnable task, long delayTicks) {
-        long delayMs = delayTicks * 50L;
-        ScheduledFuture<?> future = asyncExecutor.schedule(() -> server.execute(task), delayMs, TimeUnit.MILLISECONDS);
-        return new ForgeTask(future);
+        return runtime.schedule(task, delayTicks * 50L, server::execute);
     }
 
     @Override
     public ExtraChunkyTask runTaskLaterAsync(Runnable task, long delayTicks) {
-        long delayMs = delayTicks * 50L;
-        ScheduledFuture<?> future = asyncExecutor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
-        return new ForgeTask(future);
+        return runtime.schedule(task, delayTicks * 50L);
     }
 
     @Override
     public ExtraChunkyTask runTaskTimer(Runnable task, long delayTicks, long periodTicks) {
-        long delayMs = delayTicks * 50L;
-        long periodMs = periodTicks * 50L;
-        ScheduledFuture<?> future = asyncExecutor.scheduleAtFixedRate(
-                () -> server.execute(task), delayMs, periodMs, TimeUnit.MILLISECONDS);
-        return new ForgeTask(future);
+        return runtime.scheduleAtFixedRate(task, delayTicks * 50L, periodTicks * 50L, server::execute);
     }
 
     @Override
     public ExtraChunkyTask runTaskTimerAsync(Runnable task, long delayTicks, long periodTicks) {
-        long delayMs = delayTicks * 50L;
-        long periodMs = periodTicks * 50L;
-        ScheduledFuture<?> future = asyncExecutor.scheduleAtFixedRate(task, delayMs, periodMs, TimeUnit.MILLISECONDS);
-        return new ForgeTask(future);
-    }
-
-    private static class ForgeTask implements ExtraChunkyTask {
-        private final ScheduledFuture<?> future;
-        private final AtomicBoolean cancelled = new AtomicBoolean(false);
-
-        ForgeTask(ScheduledFuture<?> future) {
-            this.future = future;
-        }
-
-        @Override
-        public void cancel() {
-            cancelled.set(true);
-            future.cancel(false);
-        }
-
-        @Override
-        public boolean isCancelled() {
-            return cancelled.get() || future.isCancelled();
-        }
+        return runtime.scheduleAtFixedRate(task, delayTicks * 50L, periodTicks * 50L);
     }
 }
@@ -16,6 +16,7 @@ import java.util.Optional;
 public class NeoForgePlatform implements ExtraChunkyPlatform {
     private final ExtraChunkyNeoForge mod;
     private final MinecraftServer server;
+    private final ExtraChunkyRuntime runtime;
     private final NeoForgeScheduler scheduler;
     private final NeoForgeLogger logger;
     private final NeoForgeConfig config;
@@ -23,8 +24,9 @@ public class NeoForgePlatform implements ExtraChunkyPlatform {
     public NeoForgePlatform(ExtraChunkyNeoForge mod, MinecraftServer server) {
         this.mod = mod;
         this.server = server;
-        this.scheduler = new NeoForgeScheduler(server);
         this.logger = new NeoForgeLogger();
+        this.runtime = new ExtraChunkyRuntime(logger);
+        this.scheduler = new NeoForgeScheduler(server, runtime);
         this.config = new NeoForgeConfig();
     }
 
@@ -57,6 +59,11 @@ public class NeoForgePlatform implements ExtraChunkyPlatform {
         return scheduler;
     }
 
+    @Override
+    public ExtraChunkyRuntime getRuntime() {
+        return runtime;
+    }
+
     @Override
     public ExtraChunkyLogger getLogger() {
         return logger;
@@ -84,4 +91,15 @@ public class NeoForgePlatform implements ExtraChunkyPlatform {
         }
         return Optional.empty();
     }
+
+    @Override
+    public Optional<Path> getDimensionRoot(String worldName) {
+        // All dimensions live under the level folder
+        return getWorldPath(worldName).map(path -> server.getWorldPath(LevelResource.ROOT).normalize());
+    }
+
+    @Override
+    public ServerHealth getServerHealth() {
+        return new ServerHealth(server.getAverageTickTimeNanos() / 1_000_000.0, server.getPlayerCount());
+    }
 }
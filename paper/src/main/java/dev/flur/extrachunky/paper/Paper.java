@@ -1,5 +1,7 @@
 package dev.flur.extrachunky.paper;
 
+import org.bukkit.Bukkit;
+
 /**
  * Utility class for detecting Paper server.
  */
@@ -33,4 +35,13 @@ public final class Paper {
     public static boolean isPaper() {
         return IS_PAPER;
     }
+
+    /**
+     * Gets the average tick time reported by Paper. Only call this on Paper.
+     *
+     * @return Average milliseconds per tick
+     */
+    public static double getAverageTickTime() {
+        return Bukkit.getAverageTickTime();
+    }
 }
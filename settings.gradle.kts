@@ -23,7 +23,8 @@ sequenceOf(
     "fabric",
     "forge",
     "neoforge",
-    "sponge"
+    "sponge",
+    "coordinator"
 ).forEach {
     include("${rootProject.name}-$it")
     project(":${rootProject.name}-$it").projectDir = file(it)
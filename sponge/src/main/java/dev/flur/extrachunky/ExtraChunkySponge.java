@@ -69,16 +69,24 @@ public class ExtraChunkySponge {
     public void onRegisterCommand(final RegisterCommandEvent<Command.Parameterized> event) {
         final Command.Parameterized startCommand = Command.builder()
                 .permission("extrachunky.command.start")
+                .addParameters(Parameter.remainingJoinedStrings().key("areas").optional().build())
                 .executor(ctx -> {
-                    executeCommand("start", new SpongeSender(ctx.cause().root()), new String[]{"start"});
+                    String[] args = ctx.one(Parameter.key("areas", String.class))
+                            .map(areasArg -> ("start " + areasArg).split(" "))
+                            .orElse(new String[]{"start"});
+                    executeCommand("start", new SpongeSender(ctx.cause().root()), args);
                     return CommandResult.success();
                 })
                 .build();
 
         final Command.Parameterized statusCommand = Command.builder()
                 .permission("extrachunky.command.status")
+                .addParameters(Parameter.remainingJoinedStrings().key("options").optional().build())
                 .executor(ctx -> {
-                    executeCommand("status", new SpongeSender(ctx.cause().root()), new String[]{"status"});
+                    String[] args = ctx.one(Parameter.key("options", String.class))
+                            .map(options -> ("status " + options).split(" "))
+                            .orElse(new String[]{"status"});
+                    executeCommand("status", new SpongeSender(ctx.cause().root()), args);
                     return CommandResult.success();
                 })
                 .build();
@@ -183,8 +191,8 @@ public class ExtraChunkySponge {
 
     private void showHelp(ExtraChunkySender sender) {
         sender.sendMessage(header("ExtraChunky Commands"));
-        sender.sendMessage(NORMAL + highlight("/extrachunky start") + " - Start chunk generation");
-        sender.sendMessage(NORMAL + highlight("/extrachunky status") + " - Show generation progress");
+        sender.sendMessage(NORMAL + highlight("/extrachunky start [world [radius=..] [center=x,z] [shape=..]]...") + " - Start chunk generation");
+        sender.sendMessage(NORMAL + highlight("/extrachunky status [map [job]]") + " - Show generation progress or a job's coverage map");
         sender.sendMessage(NORMAL + highlight("/extrachunky host [stop]") + " - Start/stop hosting for workers");
         sender.sendMessage(NORMAL + highlight("/extrachunky register <host:port>") + " - Connect to a host as worker");
         sender.sendMessage(NORMAL + highlight("/extrachunky unregister") + " - Disconnect from host");
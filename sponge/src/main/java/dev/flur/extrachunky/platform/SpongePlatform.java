@@ -12,14 +12,16 @@ import java.util.Optional;
 
 public class SpongePlatform implements ExtraChunkyPlatform {
     private final ExtraChunkySponge plugin;
+    private final ExtraChunkyRuntime runtime;
     private final SpongeScheduler scheduler;
     private final SpongeLogger logger;
     private final SpongeConfig config;
 
     public SpongePlatform(ExtraChunkySponge plugin) {
         this.plugin = plugin;
-        this.scheduler = new SpongeScheduler(plugin);
         this.logger = new SpongeLogger(plugin);
+        this.runtime = new ExtraChunkyRuntime(logger);
+        this.scheduler = new SpongeScheduler(plugin, runtime);
         this.config = new SpongeConfig(plugin);
     }
 
@@ -52,6 +54,11 @@ public class SpongePlatform implements ExtraChunkyPlatform {
         return scheduler;
     }
 
+    @Override
+    public ExtraChunkyRuntime getRuntime() {
+        return runtime;
+    }
+
     @Override
     public ExtraChunkyLogger getLogger() {
         return logger;
@@ -79,4 +86,9 @@ public class SpongePlatform implements ExtraChunkyPlatform {
         }
         return Optional.empty();
     }
+
+    @Override
+    public ServerHealth getServerHealth() {
+        return new ServerHealth(Sponge.server().averageTickTime(), Sponge.server().onlinePlayers().size());
+    }
 }
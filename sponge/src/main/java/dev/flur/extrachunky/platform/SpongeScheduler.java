@@ -8,11 +8,17 @@ import org.spongepowered.api.util.Ticks;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Scheduler for Sponge. Main-thread tasks use the server scheduler; async work runs on the
+ * shared {@link ExtraChunkyRuntime}.
+ */
 public class SpongeScheduler implements ExtraChunkyScheduler {
     private final ExtraChunkySponge plugin;
+    private final ExtraChunkyRuntime runtime;
 
-    public SpongeScheduler(ExtraChunkySponge plugin) {
+    public SpongeScheduler(ExtraChunkySponge plugin, ExtraChunkyRuntime runtime) {
         this.plugin = plugin;
+        this.runtime = runtime;
     }
 
     @Override
@@ -26,11 +32,7 @@ public class SpongeScheduler implements ExtraChunkyScheduler {
 
     @Override
     public void runTaskAsync(Runnable task) {
-        Task spongeTask = Task.builder()
-                .plugin(plugin.getContainer())
-                .execute(task)
-                .build();
-        plugin.getGame().asyncScheduler().submit(spongeTask);
+        runtime.getIoExecutor().execute(task);
     }
 
     @Override
@@ -46,13 +48,7 @@ public class SpongeScheduler implements ExtraChunkyScheduler {
 
     @Override
     public ExtraChunkyTask runTaskLaterAsync(Runnable task, long delayTicks) {
-        Task spongeTask = Task.builder()
-                .plugin(plugin.getContainer())
-                .delay(Ticks.of(delayTicks))
-                .execute(task)
-                .build();
-        ScheduledTask scheduled = plugin.getGame().asyncScheduler().submit(spongeTask);
-        return new SpongeTask(scheduled);
+        return runtime.schedule(task, delayTicks * 50L);
     }
 
     @Override
@@ -69,14 +65,7 @@ public class SpongeScheduler implements ExtraChunkyScheduler {
 
     @Override
     public ExtraChunkyTask runTaskTimerAsync(Runnable task, long delayTicks, long periodTicks) {
-        Task spongeTask = Task.builder()
-                .plugin(plugin.getContainer())
-                .delay(Ticks.of(delayTicks))
-                .interval(Ticks.of(periodTicks))
-                .execute(task)
-                .build();
-        ScheduledTask scheduled = plugin.getGame().asyncScheduler().submit(spongeTask);
-        return new SpongeTask(scheduled);
+        return runtime.scheduleAtFixedRate(task, delayTicks * 50L, periodTicks * 50L);
     }
 
     private static class SpongeTask implements ExtraChunkyTask {